@@ -0,0 +1,150 @@
+package com.blackduck.integration.polaris.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Serves one CLI archive for every /api/tools/*.zip request, the way Polaris serves the CLI downloads, and counts the
+ * requests and the bytes that were actually written to clients.
+ */
+public class PolarisCliArchiveServer implements AutoCloseable {
+    public static final String CLI_DIRECTORY = "polaris_cli-" + PolarisPayloads.POLARIS_CLI_VERSION;
+
+    private static final int LIBRARY_SIZE_IN_BYTES = 16 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final HttpServer httpServer;
+    private final ExecutorService executorService;
+    private final Path archive;
+    private final long archiveSize;
+    private final String lastModified;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+
+    private PolarisCliArchiveServer(HttpServer httpServer, ExecutorService executorService, Path archive)
+            throws IOException {
+        this.httpServer = httpServer;
+        this.executorService = executorService;
+        this.archive = archive;
+        this.archiveSize = Files.size(archive);
+        this.lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                Files.getLastModifiedTime(archive).toInstant().atZone(ZoneOffset.UTC));
+    }
+
+    public static PolarisCliArchiveServer start(Path archive) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        httpServer.setExecutor(executorService);
+
+        PolarisCliArchiveServer archiveServer = new PolarisCliArchiveServer(httpServer, executorService, archive);
+        httpServer.createContext("/api/tools/", archiveServer::handle);
+        httpServer.start();
+        return archiveServer;
+    }
+
+    /**
+     * Writes a CLI archive of about the given size: one top-level directory with the polaris executable and libraries
+     * of random bytes. The libraries are stored rather than compressed, like the already compressed jars and binaries
+     * that make up most of the real archives, so the archive is as large as what it expands to.
+     */
+    public static Path createArchive(Path archive, int sizeInMegabytes) throws IOException {
+        SplittableRandom random = new SplittableRandom(sizeInMegabytes);
+        byte[] library = new byte[LIBRARY_SIZE_IN_BYTES];
+        long remainingBytes = sizeInMegabytes * 1024L * 1024L;
+
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(CLI_DIRECTORY + "/bin/polaris"));
+            zip.write(("#!/bin/sh\necho \"Coverity on Polaris Platform CLI Scan Client version - "
+                            + PolarisPayloads.POLARIS_CLI_VERSION + "\"\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+
+            for (int i = 0; remainingBytes > 0; i++) {
+                int librarySize = (int) Math.min(library.length, remainingBytes);
+                for (int j = 0; j < librarySize; j += Long.BYTES) {
+                    long value = random.nextLong();
+                    for (int k = j; k < Math.min(j + Long.BYTES, librarySize); k++) {
+                        library[k] = (byte) value;
+                        value >>>= 8;
+                    }
+                }
+                zip.putNextEntry(new ZipEntry(String.format("%s/lib/polaris-%03d.jar", CLI_DIRECTORY, i)));
+                zip.write(library, 0, librarySize);
+                zip.closeEntry();
+                remainingBytes -= librarySize;
+            }
+        }
+
+        // Whole seconds, since that is all Last-Modified can express
+        Files.setLastModifiedTime(archive, FileTime.from(Instant.ofEpochSecond(1700000000L)));
+        return archive;
+    }
+
+    public String getUrl() {
+        return "http://" + httpServer.getAddress().getHostString() + ":" + httpServer.getAddress().getPort();
+    }
+
+    public long getArchiveSize() {
+        return archiveSize;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getSentBytes() {
+        return sentBytes.get();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executorService.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try (InputStream archiveStream = Files.newInputStream(archive)) {
+            if (!exchange.getRequestURI().getPath().endsWith(".zip")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", "application/zip");
+            exchange.getResponseHeaders().add("Last-Modified", lastModified);
+            exchange.sendResponseHeaders(200, archiveSize);
+            OutputStream responseBody = exchange.getResponseBody();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = archiveStream.read(buffer)) != -1) {
+                responseBody.write(buffer, 0, read);
+                sentBytes.addAndGet(read);
+            }
+            responseBody.close();
+        } catch (IOException e) {
+            // The client stopped reading, which is what a check of an unchanged archive should do
+        } finally {
+            exchange.close();
+        }
+    }
+}
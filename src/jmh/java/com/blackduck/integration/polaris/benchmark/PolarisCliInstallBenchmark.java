@@ -0,0 +1,263 @@
+package com.blackduck.integration.polaris.benchmark;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.log.SilentIntLogger;
+import com.blackduck.integration.polaris.common.cli.PolarisDownloadUtility;
+import com.blackduck.integration.rest.HttpUrl;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Installs the CLI with PolarisDownloadUtility from a {@link PolarisCliArchiveServer} on the loopback interface, so
+ * the times are the download and expansion of a realistic archive rather than the network. Every install is timed
+ * end to end, and the counters report how many bytes were transferred, how many were written by the process (Linux
+ * only, -1 elsewhere), how large the installation is and the peak heap of the install.
+ *
+ * The heap is kept small so that an install that buffers the archive instead of streaming it fails rather than only
+ * getting slower. A warm check that transfers the whole archive instead of stopping at its Last-Modified header, and
+ * concurrent installs that leave a broken installation behind, fail the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class PolarisCliInstallBenchmark {
+    @Param({"200", "500"})
+    public int archiveSizeInMegabytes;
+
+    @Param({"4"})
+    public int installThreads;
+
+    private Path workDirectory;
+    private PolarisCliArchiveServer archiveServer;
+    private HttpUrl polarisServerUrl;
+
+    @Setup(Level.Trial)
+    public void startArchiveServer() throws IOException, IntegrationException {
+        workDirectory = Files.createTempDirectory("polaris-cli-install-benchmark");
+        Path archive = PolarisCliArchiveServer.createArchive(
+                workDirectory.resolve("polaris_cli-linux64.zip"), archiveSizeInMegabytes);
+        archiveServer = PolarisCliArchiveServer.start(archive);
+        polarisServerUrl = new HttpUrl(archiveServer.getUrl());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopArchiveServer() throws IOException {
+        archiveServer.close();
+        deleteRecursively(workDirectory);
+    }
+
+    @Benchmark
+    public File coldInstall(EmptyInstallDirectory installDirectory, InstallCounters counters)
+            throws IOException, IntegrationException {
+        return counters.measure(archiveServer, installDirectory.path, () -> install(installDirectory.path));
+    }
+
+    @Benchmark
+    public File warmCheck(InstalledCli installedCli, InstallCounters counters)
+            throws IOException, IntegrationException {
+        long sentBytesBefore = archiveServer.getSentBytes();
+        File binDirectory = counters.measure(archiveServer, installedCli.path, () -> install(installedCli.path));
+
+        long transferredBytes = archiveServer.getSentBytes() - sentBytesBefore;
+        if (transferredBytes > archiveServer.getArchiveSize() / 2) {
+            throw new IllegalStateException(String.format(
+                    "Checking an unchanged CLI transferred %s bytes of the %s byte archive, it should only have "
+                            + "compared the Last-Modified header.",
+                    transferredBytes, archiveServer.getArchiveSize()));
+        }
+        return binDirectory;
+    }
+
+    @Benchmark
+    public List<File> concurrentInstalls(EmptyInstallDirectory installDirectory, InstallCounters counters)
+            throws IOException, IntegrationException {
+        return counters.measure(archiveServer, installDirectory.path, () -> {
+            ExecutorService executorService = Executors.newFixedThreadPool(installThreads);
+            try {
+                // Every install is released at once so they really do race for the same directory
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<File>> installs = new ArrayList<>();
+                for (int i = 0; i < installThreads; i++) {
+                    installs.add(executorService.submit(() -> {
+                        start.await();
+                        return install(installDirectory.path);
+                    }));
+                }
+                start.countDown();
+
+                List<File> binDirectories = new ArrayList<>();
+                for (Future<File> install : installs) {
+                    binDirectories.add(install.get());
+                }
+                return binDirectories;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IntegrationException("Interrupted while installing the CLI", e);
+            } catch (ExecutionException e) {
+                throw new IntegrationException("A concurrent install of the CLI failed", e.getCause());
+            } finally {
+                executorService.shutdownNow();
+            }
+        });
+    }
+
+    private File install(Path installDirectory) throws IntegrationException {
+        PolarisDownloadUtility polarisDownloadUtility = PolarisDownloadUtility.defaultUtilityNoProxy(
+                new SilentIntLogger(), polarisServerUrl, installDirectory.toFile());
+        File binDirectory = polarisDownloadUtility
+                .getOrDownloadPolarisCliBin()
+                .orElseThrow(() -> new IntegrationException("The CLI was not installed in " + installDirectory));
+
+        File polarisCli = new File(binDirectory, "polaris");
+        if (!polarisCli.isFile() || !polarisCli.canExecute()) {
+            throw new IntegrationException("The CLI installed in " + installDirectory + " is incomplete");
+        }
+        return binDirectory;
+    }
+
+    private static long sizeOf(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyInstallDirectory {
+        private Path path;
+
+        @Setup(Level.Invocation)
+        public void createDirectory() throws IOException {
+            path = Files.createTempDirectory("polaris-cli-cold");
+        }
+
+        @TearDown(Level.Invocation)
+        public void deleteDirectory() throws IOException {
+            deleteRecursively(path);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class InstalledCli {
+        private Path path;
+
+        @Setup(Level.Trial)
+        public void installOnce(PolarisCliInstallBenchmark benchmark) throws IOException, IntegrationException {
+            path = Files.createTempDirectory("polaris-cli-warm");
+            benchmark.install(path);
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteDirectory() throws IOException {
+            deleteRecursively(path);
+        }
+    }
+
+    /**
+     * What one install cost besides its time. JMH adds the counters up over the single install of each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class InstallCounters {
+        public long transferredBytes;
+        public long writtenBytes;
+        public long installedBytes;
+        public long peakHeapBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            transferredBytes = 0;
+            writtenBytes = 0;
+            installedBytes = 0;
+            peakHeapBytes = 0;
+        }
+
+        private <T> T measure(PolarisCliArchiveServer archiveServer, Path installDirectory, Install<T> install)
+                throws IOException, IntegrationException {
+            List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+            for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (MemoryType.HEAP.equals(memoryPool.getType())) {
+                    memoryPool.resetPeakUsage();
+                    heapPools.add(memoryPool);
+                }
+            }
+            long sentBytesBefore = archiveServer.getSentBytes();
+            long writtenBytesBefore = writtenBytes().orElse(-1L);
+
+            T result = install.run();
+
+            long sentBytes = archiveServer.getSentBytes() - sentBytesBefore;
+            transferredBytes += sentBytes;
+            // The archive server runs in this process, so what it sent counts as written too
+            writtenBytes += writtenBytes().map(after -> after - writtenBytesBefore - sentBytes).orElse(-1L);
+            installedBytes += sizeOf(installDirectory);
+            peakHeapBytes += heapPools.stream()
+                    .mapToLong(memoryPool -> memoryPool.getPeakUsage().getUsed())
+                    .sum();
+            return result;
+        }
+
+        private static Optional<Long> writtenBytes() {
+            Path processIo = Paths.get("/proc/self/io");
+            if (!Files.isReadable(processIo)) {
+                return Optional.empty();
+            }
+            try {
+                return Files.readAllLines(processIo, StandardCharsets.UTF_8).stream()
+                        .filter(line -> line.startsWith("wchar:"))
+                        .map(line -> Long.parseLong(line.substring("wchar:".length()).trim()))
+                        .findFirst();
+            } catch (IOException | NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Install<T> {
+        T run() throws IOException, IntegrationException;
+    }
+}
@@ -0,0 +1,51 @@
+package com.blackduck.integration.polaris.benchmark;
+
+import com.blackduck.integration.log.SilentIntLogger;
+import com.blackduck.integration.polaris.common.cli.PolarisCliResponseUtility;
+import com.blackduck.integration.polaris.common.cli.model.CliCommonResponseModel;
+import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolarisCliResponseUtilityBenchmark {
+    // Version 1 files always have the coverity and sca tools, so the tool count only applies to version 2
+    @Param({"1", "10", "100"})
+    public int toolCount;
+
+    private PolarisCliResponseUtility polarisCliResponseUtility;
+    private String cliScanV1;
+    private String cliScanV2;
+
+    @Setup
+    public void setUp() {
+        polarisCliResponseUtility = PolarisCliResponseUtility.defaultUtility(new SilentIntLogger());
+        cliScanV1 = PolarisPayloads.cliScanV1();
+        cliScanV2 = PolarisPayloads.cliScanV2(toolCount);
+    }
+
+    @Benchmark
+    public CliCommonResponseModel parseV1() throws PolarisIntegrationException {
+        return polarisCliResponseUtility.getPolarisCliResponseModelFromString(cliScanV1);
+    }
+
+    @Benchmark
+    public CliCommonResponseModel parseV2() throws PolarisIntegrationException {
+        return polarisCliResponseUtility.getPolarisCliResponseModelFromString(cliScanV2);
+    }
+}
@@ -0,0 +1,38 @@
+package com.blackduck.integration.polaris.benchmark;
+
+import com.blackduck.integration.jenkins.polaris.service.PolarisCliVersionHandler;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scans build logs of a few hundred MB for the CLI version, which is only on their last line. Each scan takes long
+ * enough to be timed on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PolarisCliVersionHandlerBenchmark {
+    @Param({"100", "300", "600"})
+    public int logSizeInMb;
+
+    private final PolarisCliVersionHandler polarisCliVersionHandler = new PolarisCliVersionHandler();
+
+    @Benchmark
+    public String extractPolarisCliVersion() throws IOException {
+        return polarisCliVersionHandler.extractPolarisCliVersion(
+                PolarisPayloads.buildLog(logSizeInMb * 1024L * 1024L));
+    }
+}
@@ -0,0 +1,52 @@
+package com.blackduck.integration.polaris.benchmark;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.log.SilentIntLogger;
+import com.blackduck.integration.polaris.common.api.PolarisPagedResourceResponse;
+import com.blackduck.integration.polaris.common.api.PolarisResource;
+import com.blackduck.integration.polaris.common.api.model.JobAttributes;
+import com.blackduck.integration.polaris.common.service.PolarisGson;
+import com.blackduck.integration.polaris.common.service.PolarisJsonTransformer;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolarisJsonTransformerBenchmark {
+    private static final Type JOBS_PAGE_TYPE = PolarisGson.getPagedResourceResponseType(JobAttributes.class);
+
+    @Param({"10", "100", "1000"})
+    public int resourceCount;
+
+    @Param({"0", "4", "16"})
+    public int nestingDepth;
+
+    private PolarisJsonTransformer polarisJsonTransformer;
+    private String jobsPage;
+
+    @Setup
+    public void setUp() {
+        polarisJsonTransformer = new PolarisJsonTransformer(PolarisGson.get(), new SilentIntLogger());
+        jobsPage = PolarisPayloads.jobsPage(0, resourceCount, resourceCount, nestingDepth);
+    }
+
+    @Benchmark
+    public PolarisPagedResourceResponse<PolarisResource<JobAttributes>> getResponseAs() throws IntegrationException {
+        return polarisJsonTransformer.getResponseAs(jobsPage, JOBS_PAGE_TYPE);
+    }
+}
@@ -0,0 +1,186 @@
+package com.blackduck.integration.polaris.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates Polaris responses, cli-scan.json files, and build logs shaped like the real ones, at whatever size a
+ * benchmark asks for.
+ */
+public class PolarisPayloads {
+    public static final String POLARIS_URL = "https://polaris-benchmark.example.com";
+    public static final String POLARIS_CLI_VERSION = "2024.9.0";
+
+    private PolarisPayloads() {
+        // This class should not be instantiated
+    }
+
+    /**
+     * A page of jobs as returned by /api/jobs/jobs. Every job carries a chain of nested objects nestingDepth deep in
+     * its details, which the json transformer has to walk.
+     */
+    public static String jobsPage(int offset, int resourceCount, int total, int nestingDepth) {
+        JsonArray data = new JsonArray();
+        for (int i = offset; i < offset + resourceCount; i++) {
+            data.add(job(i, nestingDepth));
+        }
+
+        JsonObject meta = new JsonObject();
+        meta.addProperty("limit", resourceCount);
+        meta.addProperty("offset", offset);
+        meta.addProperty("total", total);
+
+        JsonObject page = new JsonObject();
+        page.add("data", data);
+        page.add("included", new JsonArray());
+        page.add("meta", meta);
+        return page.toString();
+    }
+
+    private static JsonObject job(int index, int nestingDepth) {
+        JsonObject status = new JsonObject();
+        status.addProperty("progress", 100);
+        status.addProperty("state", "COMPLETED");
+
+        JsonObject details = new JsonObject();
+        JsonObject nested = details;
+        for (int depth = 0; depth < nestingDepth; depth++) {
+            JsonObject child = new JsonObject();
+            child.addProperty("depth", depth);
+            child.addProperty("note", "analysis phase " + depth + " of job " + index);
+            nested.add("phase", child);
+            nested = child;
+        }
+
+        JsonObject attributes = new JsonObject();
+        attributes.addProperty("branchName", "branch-" + (index % 7));
+        attributes.addProperty("dateCompleted", "2020-09-14T17:08:27.778+0000");
+        attributes.addProperty("dateCreated", "2020-09-14T17:07:22.637+0000");
+        attributes.addProperty("dateFinished", "2020-09-14T17:08:27.778+0000");
+        attributes.addProperty("dateQueued", "2020-09-14T17:07:22.915+0000");
+        attributes.addProperty("dateStarted", "2020-09-14T17:08:09.285+0000");
+        attributes.add("details", details);
+        attributes.addProperty("jobType", "nomad");
+        attributes.add("lifecycleEvents", new JsonArray());
+        attributes.addProperty("priority", 4);
+        attributes.addProperty("projectName", "project-" + (index % 13));
+        attributes.addProperty("revisionName", "revision-" + index);
+        attributes.add("status", status);
+
+        JsonObject job = new JsonObject();
+        job.add("attributes", attributes);
+        job.addProperty("id", String.format("job%026d", index));
+        job.add("links", new JsonObject());
+        job.add("relationships", new JsonObject());
+        job.addProperty("type", "jobs");
+        return job;
+    }
+
+    public static String cliScanV1() {
+        JsonObject cliScan = cliScan("1");
+        cliScan.add("coverity", tool(null, 0));
+        cliScan.add("sca", tool(null, 1));
+        return cliScan.toString();
+    }
+
+    public static String cliScanV2(int toolCount) {
+        JsonArray tools = new JsonArray();
+        for (int i = 0; i < toolCount; i++) {
+            tools.add(tool("tool-" + i, i));
+        }
+
+        JsonObject cliScan = cliScan("2.0");
+        cliScan.add("tools", tools);
+        return cliScan.toString();
+    }
+
+    private static JsonObject cliScan(String version) {
+        JsonObject scanInfo = new JsonObject();
+        scanInfo.addProperty("cliVersion", POLARIS_CLI_VERSION);
+        scanInfo.addProperty("scanTime", "2020-04-03T20:29:57Z");
+        scanInfo.addProperty("issueApiUrl", POLARIS_URL + "/api/query/v0/roll-up-counts?project-id=benchmark");
+
+        JsonObject projectInfo = new JsonObject();
+        projectInfo.addProperty("projectId", "8a955054-b985-4a03-8c41-afbce93a87d4");
+        projectInfo.addProperty("branchId", "c474804c-c4a6-4523-af63-1084b73a737a");
+        projectInfo.addProperty("revisionId", "885fc677-b9bb-4c3e-b947-5a617ae5cc17");
+
+        JsonObject cliScan = new JsonObject();
+        cliScan.addProperty("version", version);
+        cliScan.add("scanInfo", scanInfo);
+        cliScan.add("projectInfo", projectInfo);
+        return cliScan;
+    }
+
+    private static JsonObject tool(String toolName, int index) {
+        String jobId = String.format("job%026d", index);
+        JsonObject tool = new JsonObject();
+        if (toolName != null) {
+            tool.addProperty("toolName", toolName);
+        }
+        tool.addProperty("toolVersion", "2020.03");
+        tool.addProperty("jobId", jobId);
+        tool.addProperty("jobStatusUrl", POLARIS_URL + "/api/jobs/jobs/" + jobId);
+        tool.addProperty("jobStatus", "COMPLETED");
+        tool.addProperty("issueApiUrl", POLARIS_URL + "/api/query/v0/roll-up-counts?tool-id=" + jobId);
+        return tool;
+    }
+
+    /**
+     * A build log of the given size that only reports the CLI version on its last line, so that finding the version
+     * means reading all of it. The log is generated as it is read rather than held in memory.
+     */
+    public static InputStream buildLog(long sizeInBytes) {
+        return new SyntheticLogInputStream(sizeInBytes);
+    }
+
+    private static class SyntheticLogInputStream extends InputStream {
+        private static final byte[] LOG_LINES = String.join(
+                        "\n",
+                        "[2024-09-14T17:08:09.285Z] [INFO] Capturing file src/main/java/com/example/Service.java",
+                        "[2024-09-14T17:08:09.286Z] [INFO] Emitted 1,204 C/C++ compilation units (100%) successfully",
+                        "[2024-09-14T17:08:09.287Z] [DEBUG] Uploading intermediate directory chunk 17 of 40 (2048 KiB)",
+                        "[2024-09-14T17:08:09.288Z] [WARN] Unable to resolve include path /usr/local/include/legacy",
+                        "")
+                .getBytes(StandardCharsets.UTF_8);
+        private static final byte[] VERSION_LINE =
+                ("Coverity on Polaris Platform CLI Scan Client version - " + POLARIS_CLI_VERSION + "\n")
+                        .getBytes(StandardCharsets.UTF_8);
+
+        private final long logLinesSize;
+        private long position = 0;
+
+        private SyntheticLogInputStream(long sizeInBytes) {
+            // Only whole lines, so that the version line starts a line of its own
+            this.logLinesSize = Math.max(0, sizeInBytes - VERSION_LINE.length) / LOG_LINES.length * LOG_LINES.length;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= logLinesSize + VERSION_LINE.length) {
+                return -1;
+            }
+
+            int count;
+            if (position < logLinesSize) {
+                int lineOffset = (int) (position % LOG_LINES.length);
+                count = (int) Math.min(Math.min(length, LOG_LINES.length - lineOffset), logLinesSize - position);
+                System.arraycopy(LOG_LINES, lineOffset, buffer, offset, count);
+            } else {
+                int versionOffset = (int) (position - logLinesSize);
+                count = Math.min(length, VERSION_LINE.length - versionOffset);
+                System.arraycopy(VERSION_LINE, versionOffset, buffer, offset, count);
+            }
+            position += count;
+            return count;
+        }
+    }
+}
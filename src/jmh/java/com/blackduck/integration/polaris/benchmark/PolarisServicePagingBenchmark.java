@@ -0,0 +1,99 @@
+package com.blackduck.integration.polaris.benchmark;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.log.SilentIntLogger;
+import com.blackduck.integration.polaris.common.api.PolarisResource;
+import com.blackduck.integration.polaris.common.api.model.JobAttributes;
+import com.blackduck.integration.polaris.common.replay.PolarisExchange;
+import com.blackduck.integration.polaris.common.request.PolarisRequestFactory;
+import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClient;
+import com.blackduck.integration.polaris.common.rest.PolarisRateLimiter;
+import com.blackduck.integration.polaris.common.rest.PolarisTransport;
+import com.blackduck.integration.polaris.common.service.PolarisGson;
+import com.blackduck.integration.polaris.common.service.PolarisJsonTransformer;
+import com.blackduck.integration.polaris.common.service.PolarisService;
+import com.blackduck.integration.rest.HttpUrl;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pages through jobs with PolarisService.collectAllResources. The transport answers from pages generated up front, so
+ * the benchmark measures the paging, parsing, and request bookkeeping rather than the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolarisServicePagingBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int totalResources;
+
+    @Param({"25", "100", "500"})
+    public int pageSize;
+
+    private PolarisService polarisService;
+    private HttpUrl jobsApiUrl;
+
+    @Setup
+    public void setUp() throws IntegrationException {
+        HttpUrl polarisServerUrl = new HttpUrl(PolarisPayloads.POLARIS_URL);
+        jobsApiUrl = polarisServerUrl.appendRelativeUrl("/api/jobs/jobs");
+        // The shared rate limit would otherwise be what gets measured
+        PolarisRateLimiter.configureForServer(String.valueOf(polarisServerUrl), Double.MAX_VALUE, Integer.MAX_VALUE);
+
+        Map<String, PolarisExchange> pagesByOffset = new HashMap<>();
+        for (int offset = 0; offset <= totalResources; offset += pageSize) {
+            int resourceCount = Math.min(pageSize, totalResources - offset);
+            String page = PolarisPayloads.jobsPage(offset, resourceCount, totalResources, 0);
+            pagesByOffset.put(
+                    String.valueOf(offset),
+                    new PolarisExchange(
+                            "GET",
+                            jobsApiUrl.string(),
+                            Collections.emptyMap(),
+                            200,
+                            Collections.emptyMap(),
+                            0,
+                            page));
+        }
+        PolarisTransport polarisTransport = request -> {
+            String offset = request.getQueryParameters()
+                    .get(PolarisRequestFactory.OFFSET_PARAMETER)
+                    .iterator()
+                    .next();
+            return pagesByOffset.get(offset).toResponse();
+        };
+
+        // The client only identifies the server, the transport answers every request
+        AccessTokenPolarisHttpClient polarisHttpClient =
+                Mockito.mock(AccessTokenPolarisHttpClient.class, Mockito.withSettings().stubOnly());
+        Mockito.when(polarisHttpClient.getPolarisServerUrl()).thenReturn(polarisServerUrl);
+
+        PolarisJsonTransformer polarisJsonTransformer =
+                new PolarisJsonTransformer(PolarisGson.get(), new SilentIntLogger());
+        polarisService = new PolarisService(
+                new SilentIntLogger(), polarisHttpClient, polarisJsonTransformer, pageSize, polarisTransport);
+    }
+
+    @Benchmark
+    public List<PolarisResource<JobAttributes>> collectAllResources() throws IntegrationException {
+        return polarisService.collectAllResources(jobsApiUrl, JobAttributes.class, pageSize);
+    }
+}
@@ -8,9 +8,12 @@ package com.blackduck.integration.jenkins.polaris;
 
 import com.blackduck.integration.jenkins.ChangeSetFilter;
 import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
+import com.blackduck.integration.jenkins.polaris.jfr.PolarisChangeSetFileEvent;
 import com.blackduck.integration.jenkins.polaris.service.PolarisEnvironmentService;
 import com.blackduck.integration.jenkins.service.JenkinsRemotingService;
 import com.blackduck.integration.jenkins.service.JenkinsRunService;
+import com.blackduck.integration.polaris.common.tracing.PolarisSpan;
+import com.blackduck.integration.polaris.common.tracing.PolarisTracing;
 import com.blackduck.integration.util.IntEnvironmentVariables;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -52,7 +55,11 @@ public class ChangeSetFileCreator {
             logger.error("Could not get the Jenkins-provided SCM changeset: " + e.getMessage());
         }
 
-        String remoteWorkspacePath = jenkinsRemotingService.getRemoteWorkspacePath();
+        String remoteWorkspacePath;
+        try (PolarisSpan span = PolarisTracing.startSpan("remoting GetRemoteWorkspacePath")) {
+            remoteWorkspacePath = jenkinsRemotingService.getRemoteWorkspacePath();
+            span.succeeded();
+        }
 
         String changeSetFilePath;
         if (changedFiles.size() == 0) {
@@ -64,8 +71,22 @@ public class ChangeSetFileCreator {
             String valueOfChangeSetFilePath =
                     environment.getValue(PolarisJenkinsEnvironmentVariable.CHANGE_SET_FILE_PATH.stringValue());
 
-            changeSetFilePath = jenkinsRemotingService.call(new CreateChangeSetFileAndGetRemotePath(
-                    valueOfChangeSetFilePath, remoteWorkspacePath, changedFiles));
+            PolarisChangeSetFileEvent event = new PolarisChangeSetFileEvent();
+            event.begin();
+            changeSetFilePath = null;
+            try (PolarisSpan span = PolarisTracing.startSpan("remoting CreateChangeSetFile")) {
+                span.setAttribute("polaris.changeset.files", changedFiles.size());
+                changeSetFilePath = jenkinsRemotingService.call(new CreateChangeSetFileAndGetRemotePath(
+                        valueOfChangeSetFilePath, remoteWorkspacePath, changedFiles));
+                span.succeeded();
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.changedFileCount = changedFiles.size();
+                    event.path = changeSetFilePath;
+                    event.commit();
+                }
+            }
         }
 
         return changeSetFilePath;
@@ -86,6 +107,10 @@ public class ChangeSetFileCreator {
 
         @Override
         public String call() throws IOException {
+            return writeChangeSetFile().toRealPath().toString();
+        }
+
+        private Path writeChangeSetFile() throws IOException {
             Path changeSetFile;
             if (StringUtils.isNotBlank(valueOfChangeSetFilePath)) {
                 changeSetFile = Paths.get(valueOfChangeSetFilePath);
@@ -104,7 +129,7 @@ public class ChangeSetFileCreator {
             }
             Files.write(changeSetFile, changedFiles);
 
-            return changeSetFile.toRealPath().toString();
+            return changeSetFile;
         }
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris;
+
+import com.blackduck.integration.polaris.common.tracing.PolarisTracing;
+import com.blackduck.integration.util.IntEnvironmentVariables;
+import com.blackduck.integration.util.OperatingSystemType;
+import hudson.EnvVars;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.jenkinsci.plugins.durabletask.BourneShellScript;
+import org.jenkinsci.plugins.durabletask.DurableTask;
+import org.jenkinsci.plugins.durabletask.WindowsBatchScript;
+
+public class PolarisCliInvocation {
+    private final IntEnvironmentVariables environment;
+    private final OperatingSystemType operatingSystemType;
+    private final List<String> polarisArguments;
+
+    public PolarisCliInvocation(
+            IntEnvironmentVariables environment,
+            OperatingSystemType operatingSystemType,
+            List<String> polarisArguments) {
+        this.environment = environment;
+        this.operatingSystemType = operatingSystemType;
+        this.polarisArguments = polarisArguments;
+    }
+
+    public IntEnvironmentVariables getEnvironment() {
+        return environment;
+    }
+
+    public List<String> getPolarisArguments() {
+        return polarisArguments;
+    }
+
+    /**
+     * Passes the current trace to the CLI, so that spans it reports become part of the build's trace.
+     */
+    public void addTraceContext() {
+        Map<String, String> traceContext = new HashMap<>();
+        PolarisTracing.injectTraceContext(traceContext);
+        traceContext.forEach(environment::put);
+    }
+
+    public EnvVars toEnvVars() {
+        return new EnvVars(environment.getVariables());
+    }
+
+    public DurableTask toDurableTask() {
+        if (OperatingSystemType.WINDOWS.equals(operatingSystemType)) {
+            // Arguments for Windows were already escaped for the command line by the PolarisCliArgumentService, they
+            // only need protecting from batch variable expansion here.
+            String commandLine = polarisArguments.stream()
+                    .map(argument -> "\"" + argument.replace("%", "%%") + "\"")
+                    .collect(Collectors.joining(" "));
+            return new WindowsBatchScript("@echo off\r\n" + commandLine + "\r\nexit /b %ERRORLEVEL%");
+        }
+
+        // With an interpreter line the script is executed as-is instead of through sh -xe
+        String commandLine = polarisArguments.stream()
+                .map(argument -> "'" + argument.replace("'", "'\\''") + "'")
+                .collect(Collectors.joining(" "));
+        return new BourneShellScript("#!/bin/sh\n" + commandLine + "\n");
+    }
+}
@@ -7,40 +7,134 @@
 package com.blackduck.integration.jenkins.polaris;
 
 import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.function.ThrowingSupplier;
 import com.blackduck.integration.jenkins.exception.JenkinsUserFriendlyException;
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisAdmissionController;
 import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisGlobalConfig;
 import com.blackduck.integration.jenkins.polaris.extensions.tools.PolarisCli;
 import com.blackduck.integration.jenkins.polaris.service.GetPathToPolarisCli;
+import com.blackduck.integration.jenkins.polaris.service.PolarisAdmissionService;
 import com.blackduck.integration.jenkins.polaris.service.PolarisCliArgumentService;
 import com.blackduck.integration.jenkins.polaris.service.PolarisEnvironmentService;
 import com.blackduck.integration.jenkins.polaris.service.PolarisPhoneHomeService;
+import com.blackduck.integration.jenkins.polaris.service.PolarisResultsRecorder;
 import com.blackduck.integration.jenkins.service.JenkinsConfigService;
 import com.blackduck.integration.jenkins.service.JenkinsRemotingService;
 import com.blackduck.integration.jenkins.wrapper.BlackduckCredentialsHelper;
 import com.blackduck.integration.jenkins.wrapper.JenkinsProxyHelper;
 import com.blackduck.integration.jenkins.wrapper.JenkinsVersionHelper;
 import com.blackduck.integration.log.IntLogger;
-import com.blackduck.integration.phonehome.PhoneHomeResponse;
 import com.blackduck.integration.polaris.common.configuration.PolarisServerConfigBuilder;
 import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
+import com.blackduck.integration.polaris.common.metrics.PolarisOperations;
+import com.blackduck.integration.polaris.common.tracing.PolarisSpan;
+import com.blackduck.integration.polaris.common.tracing.PolarisTracing;
 import com.blackduck.integration.util.IntEnvironmentVariables;
 import com.blackduck.integration.util.OperatingSystemType;
+import com.codahale.metrics.Timer;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import org.apache.commons.lang3.StringUtils;
 
 public class PolarisCliRunner {
+    public static final String POLARIS_CLI_SPAN_NAME = "Coverity on Polaris CLI";
+    public static final String POLARIS_CLI_EXIT_CODE_ATTRIBUTE = "polaris.cli.exit_code";
+
+    // Every prefetch takes two threads, further prefetches queue until threads free up
+    private static final int PREPARATION_MAX_THREADS = 16;
+    private static final ExecutorService PREPARATION_EXECUTOR =
+            PolarisTracing.propagateContext(createPreparationExecutor());
+
     private final PolarisCliArgumentService polarisCliArgumentService;
     private final PolarisEnvironmentService polarisEnvironmentService;
     private final PolarisPhoneHomeService polarisPhoneHomeService;
     private final JenkinsRemotingService jenkinsRemotingService;
     private final JenkinsConfigService jenkinsConfigService;
+    private final Function<TaskListener, JenkinsConfigService> jenkinsConfigServiceForListener;
     private final IntLogger logger;
     private final BlackduckCredentialsHelper credentialsHelper;
     private final JenkinsProxyHelper proxyHelper;
     private final JenkinsVersionHelper versionHelper;
+    private final PolarisAdmissionService polarisAdmissionService;
+    private final PolarisResultsRecorder polarisResultsRecorder;
+
+    private String prefetchedPolarisCliName = null;
+    private Future<String> pathToPolarisCli = null;
+    private Future<OperatingSystemType> operatingSystemType = null;
+    private ByteArrayOutputStream prefetchOutput = null;
+
+    public PolarisCliRunner(
+            IntLogger logger,
+            PolarisCliArgumentService polarisCliArgumentService,
+            PolarisEnvironmentService polarisEnvironmentService,
+            PolarisPhoneHomeService polarisPhoneHomeService,
+            JenkinsRemotingService jenkinsRemotingService,
+            JenkinsConfigService jenkinsConfigService,
+            BlackduckCredentialsHelper credentialsHelper,
+            JenkinsProxyHelper proxyHelper,
+            JenkinsVersionHelper versionHelper,
+            PolarisAdmissionService polarisAdmissionService) {
+        this(
+                logger,
+                polarisCliArgumentService,
+                polarisEnvironmentService,
+                polarisPhoneHomeService,
+                jenkinsRemotingService,
+                jenkinsConfigService,
+                credentialsHelper,
+                proxyHelper,
+                versionHelper,
+                polarisAdmissionService,
+                PolarisResultsRecorder.none());
+    }
+
+    public PolarisCliRunner(
+            IntLogger logger,
+            PolarisCliArgumentService polarisCliArgumentService,
+            PolarisEnvironmentService polarisEnvironmentService,
+            PolarisPhoneHomeService polarisPhoneHomeService,
+            JenkinsRemotingService jenkinsRemotingService,
+            JenkinsConfigService jenkinsConfigService,
+            BlackduckCredentialsHelper credentialsHelper,
+            JenkinsProxyHelper proxyHelper,
+            JenkinsVersionHelper versionHelper,
+            PolarisAdmissionService polarisAdmissionService,
+            PolarisResultsRecorder polarisResultsRecorder) {
+        this(
+                logger,
+                polarisCliArgumentService,
+                polarisEnvironmentService,
+                polarisPhoneHomeService,
+                jenkinsRemotingService,
+                jenkinsConfigService,
+                ignored -> jenkinsConfigService,
+                credentialsHelper,
+                proxyHelper,
+                versionHelper,
+                polarisAdmissionService,
+                polarisResultsRecorder);
+    }
 
+    /**
+     * The CLI is installed in the background by a config service for a listener of its own, so that the installation
+     * does not write to the step's log while the step itself is. Its output is copied to the step's log once the step
+     * picks up the installation.
+     */
     public PolarisCliRunner(
             IntLogger logger,
             PolarisCliArgumentService polarisCliArgumentService,
@@ -48,43 +142,154 @@ public class PolarisCliRunner {
             PolarisPhoneHomeService polarisPhoneHomeService,
             JenkinsRemotingService jenkinsRemotingService,
             JenkinsConfigService jenkinsConfigService,
+            Function<TaskListener, JenkinsConfigService> jenkinsConfigServiceForListener,
             BlackduckCredentialsHelper credentialsHelper,
             JenkinsProxyHelper proxyHelper,
-            JenkinsVersionHelper versionHelper) {
+            JenkinsVersionHelper versionHelper,
+            PolarisAdmissionService polarisAdmissionService,
+            PolarisResultsRecorder polarisResultsRecorder) {
         this.logger = logger;
         this.polarisCliArgumentService = polarisCliArgumentService;
         this.polarisEnvironmentService = polarisEnvironmentService;
         this.polarisPhoneHomeService = polarisPhoneHomeService;
         this.jenkinsRemotingService = jenkinsRemotingService;
         this.jenkinsConfigService = jenkinsConfigService;
+        this.jenkinsConfigServiceForListener = jenkinsConfigServiceForListener;
         this.credentialsHelper = credentialsHelper;
         this.proxyHelper = proxyHelper;
         this.versionHelper = versionHelper;
+        this.polarisAdmissionService = polarisAdmissionService;
+        this.polarisResultsRecorder = polarisResultsRecorder;
     }
 
     public int runPolarisCli(String polarisCliName, String changeSetFileRemotePath, String polarisArgumentString)
             throws IOException, InterruptedException, IntegrationException {
-        Optional<PhoneHomeResponse> successfulPhoneHomeResponse = polarisPhoneHomeService.phoneHome();
+        polarisPhoneHomeService.phoneHome();
+
+        PolarisCliInvocation polarisCliInvocation =
+                createPolarisCliInvocation(polarisCliName, changeSetFileRemotePath, polarisArgumentString);
+
+        try (PolarisAdmissionController.Admission ignored = admitPolarisCli();
+                PolarisSpan span = PolarisTracing.startSpan(POLARIS_CLI_SPAN_NAME)) {
+            polarisCliInvocation.addTraceContext();
+            long launchedAtMillis = System.currentTimeMillis();
+            int exitCode = jenkinsRemotingService.launch(
+                    polarisCliInvocation.getEnvironment(), polarisCliInvocation.getPolarisArguments());
+            recordPolarisCliExitCode(exitCode, System.currentTimeMillis() - launchedAtMillis);
+            span.setAttribute(POLARIS_CLI_EXIT_CODE_ATTRIBUTE, exitCode);
+            span.succeeded();
+            return exitCode;
+        }
+    }
+
+    public void recordPolarisCliExitCode(int exitCode, long durationInMillis) {
+        polarisResultsRecorder.recordPolarisCli(exitCode, durationInMillis);
+    }
+
+    public PolarisCliInvocation preparePolarisCli(
+            String polarisCliName, String changeSetFileRemotePath, String polarisArgumentString)
+            throws IOException, InterruptedException, IntegrationException {
+        polarisPhoneHomeService.phoneHome();
+
+        return createPolarisCliInvocation(polarisCliName, changeSetFileRemotePath, polarisArgumentString);
+    }
 
+    /**
+     * Admits a launch of the CLI, which is listed as in flight from the moment it queues until the returned admission
+     * is closed.
+     */
+    public PolarisAdmissionController.Admission admitPolarisCli() throws InterruptedException {
+        return admitPolarisCli(polarisAdmissionService::admitScan);
+    }
+
+    /**
+     * Admits a CLI that was launched before a restart and is still running, without queueing it behind the scans that
+     * are waiting to launch.
+     */
+    public PolarisAdmissionController.Admission readmitPolarisCli() throws InterruptedException {
+        return admitPolarisCli(polarisAdmissionService::readmitScan);
+    }
+
+    private PolarisAdmissionController.Admission admitPolarisCli(
+            ThrowingSupplier<PolarisAdmissionController.Admission, InterruptedException> admitScan)
+            throws InterruptedException {
+        PolarisOperations.Operation operation = PolarisOperations.startCliLaunch(
+                polarisAdmissionService.getPolarisUrl(), polarisAdmissionService.getBuildName());
+        PolarisAdmissionController.Admission admission;
         try {
-            String logMessage = versionHelper
-                    .getPluginVersion("blackduck-coverity-on-polaris")
-                    .map(version ->
-                            String.format("Running Coverity on Polaris Platform for Jenkins version %s", version))
-                    .orElse("Running Coverity on Polaris Platform for Jenkins");
-            logger.info(logMessage);
-
-            Optional<PolarisCli> polarisCliWithName = jenkinsConfigService.getInstallationForNodeAndEnvironment(
-                    PolarisCli.DescriptorImpl.class, polarisCliName);
-
-            if (!polarisCliWithName.isPresent()) {
-                throw new JenkinsUserFriendlyException(
-                        "[ERROR] Coverity on Polaris Platform cannot be executed: No Coverity on Polaris CLI Installation with the name "
-                                + polarisCliName + " could be found in the global tool configuration.");
+            admission = admitScan.get();
+        } catch (InterruptedException | RuntimeException e) {
+            operation.close();
+            throw e;
+        }
+
+        operation.setState(PolarisOperations.RUNNING);
+        return () -> {
+            try {
+                admission.close();
+            } finally {
+                operation.close();
             }
+        };
+    }
+
+    /**
+     * Starts installing the CLI on the agent and looking up the agent's operating system in the background, so that
+     * work that has to happen before launching the CLI (creating the changeset file, for example) can overlap with
+     * these remote calls. The results are picked up when the CLI is prepared.
+     */
+    public synchronized void prefetchPolarisCli(String polarisCliName) {
+        if (polarisCliName != null && polarisCliName.equals(prefetchedPolarisCliName)) {
+            return;
+        }
+
+        cancelPrefetch();
+        ByteArrayOutputStream installationOutput = new ByteArrayOutputStream();
+        JenkinsConfigService installationConfigService = jenkinsConfigServiceForListener.apply(
+                new StreamTaskListener(installationOutput, StandardCharsets.UTF_8));
+        prefetchedPolarisCliName = polarisCliName;
+        prefetchOutput = installationOutput;
+        pathToPolarisCli =
+                PREPARATION_EXECUTOR.submit(() -> getPathToPolarisCli(installationConfigService, polarisCliName));
+        operatingSystemType = PREPARATION_EXECUTOR.submit(this::getRemoteOperatingSystemType);
+    }
+
+    /**
+     * Drops the prefetched results. An installation that already started is left to finish rather than interrupted,
+     * so that it cannot leave a partly installed CLI behind, and its output is discarded.
+     */
+    public synchronized void cancelPrefetch() {
+        if (pathToPolarisCli != null) {
+            pathToPolarisCli.cancel(false);
+            operatingSystemType.cancel(false);
+        }
+        prefetchedPolarisCliName = null;
+        pathToPolarisCli = null;
+        operatingSystemType = null;
+        prefetchOutput = null;
+    }
+
+    private PolarisCliInvocation createPolarisCliInvocation(
+            String polarisCliName, String changeSetFileRemotePath, String polarisArgumentString)
+            throws IOException, InterruptedException, IntegrationException {
+        String logMessage = versionHelper
+                .getPluginVersion("blackduck-coverity-on-polaris")
+                .map(version -> String.format("Running Coverity on Polaris Platform for Jenkins version %s", version))
+                .orElse("Running Coverity on Polaris Platform for Jenkins");
+        logger.info(logMessage);
 
-            PolarisCli polarisCli = polarisCliWithName.get();
+        // The agent side lookups run in the background while the environment is resolved here
+        Future<String> pathToPolarisCliFuture;
+        Future<OperatingSystemType> operatingSystemTypeFuture;
+        ByteArrayOutputStream installationOutput;
+        synchronized (this) {
+            prefetchPolarisCli(polarisCliName);
+            pathToPolarisCliFuture = pathToPolarisCli;
+            operatingSystemTypeFuture = operatingSystemType;
+            installationOutput = prefetchOutput;
+        }
 
+        try {
             PolarisGlobalConfig polarisGlobalConfig = jenkinsConfigService
                     .getGlobalConfiguration(PolarisGlobalConfig.class)
                     .orElseThrow(
@@ -97,26 +302,109 @@ public class PolarisCliRunner {
             IntEnvironmentVariables intEnvironmentVariables = polarisEnvironmentService.createPolarisEnvironment(
                     changeSetFileRemotePath, polarisServerConfigBuilder);
 
-            String polarisCliHome = polarisCli.getHome();
+            List<String> tokenizedPolarisArguments;
+            try (PolarisSpan span = PolarisTracing.startSpan("remoting TokenizeArgumentString")) {
+                tokenizedPolarisArguments = jenkinsRemotingService.tokenizeArgumentString(polarisArgumentString);
+                span.succeeded();
+            }
+            List<String> tokenizedResolvedArguments;
+            try (PolarisSpan span = PolarisTracing.startSpan("remoting ResolveEnvironmentVariables")) {
+                tokenizedResolvedArguments = jenkinsRemotingService.resolveEnvironmentVariables(
+                        intEnvironmentVariables, tokenizedPolarisArguments);
+                span.succeeded();
+            }
 
-            if (StringUtils.isBlank(polarisCliHome)) {
-                throw new JenkinsUserFriendlyException(
-                        "[ERROR] Coverity on Polaris Platform cannot be executed: The Coverity on Polaris CLI installation home could not be determined for the configured Coverity on Polaris CLI. Please ensure that this installation is correctly configured in the global tool configuration.");
+            String resolvedPathToPolarisCli;
+            try {
+                resolvedPathToPolarisCli = await(pathToPolarisCliFuture);
+            } finally {
+                logInstallationOutput(installationOutput);
             }
+            OperatingSystemType resolvedOperatingSystemType = await(operatingSystemTypeFuture);
+            List<String> polarisArguments = polarisCliArgumentService.finalizePolarisCliArguments(
+                    resolvedOperatingSystemType, resolvedPathToPolarisCli, tokenizedResolvedArguments);
+
+            return new PolarisCliInvocation(intEnvironmentVariables, resolvedOperatingSystemType, polarisArguments);
+        } finally {
+            // A later invocation must look everything up again, the installation may have changed since
+            cancelPrefetch();
+        }
+    }
 
+    private static ThreadPoolExecutor createPreparationExecutor() {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                PREPARATION_MAX_THREADS,
+                PREPARATION_MAX_THREADS,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Coverity on Polaris CLI preparation"));
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    private void logInstallationOutput(ByteArrayOutputStream installationOutput) {
+        String output = installationOutput.toString(StandardCharsets.UTF_8);
+        if (StringUtils.isNotBlank(output)) {
+            logger.alwaysLog(StringUtils.stripEnd(output, null));
+        }
+    }
+
+    private String getPathToPolarisCli(JenkinsConfigService installationConfigService, String polarisCliName)
+            throws IOException, InterruptedException, IntegrationException {
+        Optional<PolarisCli> polarisCliWithName = installationConfigService.getInstallationForNodeAndEnvironment(
+                PolarisCli.DescriptorImpl.class, polarisCliName);
+
+        if (!polarisCliWithName.isPresent()) {
+            throw new JenkinsUserFriendlyException(
+                    "[ERROR] Coverity on Polaris Platform cannot be executed: No Coverity on Polaris CLI Installation with the name "
+                            + polarisCliName + " could be found in the global tool configuration.");
+        }
+
+        PolarisCli polarisCli = polarisCliWithName.get();
+        String polarisCliHome = polarisCli.getHome();
+
+        if (StringUtils.isBlank(polarisCliHome)) {
+            throw new JenkinsUserFriendlyException(
+                    "[ERROR] Coverity on Polaris Platform cannot be executed: The Coverity on Polaris CLI installation home could not be determined for the configured Coverity on Polaris CLI. Please ensure that this installation is correctly configured in the global tool configuration.");
+        }
+
+        try (Timer.Context ignored = PolarisMetrics.timer(
+                                polarisAdmissionService.getPolarisUrl(), "remoting", "getPathToPolarisCli")
+                        .time();
+                PolarisSpan span = PolarisTracing.startSpan("remoting GetPathToPolarisCli")) {
             String pathToPolarisCli = jenkinsRemotingService.call(new GetPathToPolarisCli(polarisCliHome));
+            span.succeeded();
+            return pathToPolarisCli;
+        }
+    }
 
-            OperatingSystemType operatingSystemType = jenkinsRemotingService.getRemoteOperatingSystemType();
-            List<String> tokenizedPolarisArguments =
-                    jenkinsRemotingService.tokenizeArgumentString(polarisArgumentString);
-            List<String> tokenizedResolvedArguments = jenkinsRemotingService.resolveEnvironmentVariables(
-                    intEnvironmentVariables, tokenizedPolarisArguments);
-            List<String> polarisArguments = polarisCliArgumentService.finalizePolarisCliArguments(
-                    operatingSystemType, pathToPolarisCli, tokenizedResolvedArguments);
+    private OperatingSystemType getRemoteOperatingSystemType() throws IOException, InterruptedException {
+        try (Timer.Context ignored = PolarisMetrics.timer(
+                                polarisAdmissionService.getPolarisUrl(), "remoting", "getOperatingSystemType")
+                        .time();
+                PolarisSpan span = PolarisTracing.startSpan("remoting GetOperatingSystemType")) {
+            OperatingSystemType remoteOperatingSystemType = jenkinsRemotingService.getRemoteOperatingSystemType();
+            span.succeeded();
+            return remoteOperatingSystemType;
+        }
+    }
 
-            return jenkinsRemotingService.launch(intEnvironmentVariables, polarisArguments);
-        } finally {
-            successfulPhoneHomeResponse.ifPresent(PhoneHomeResponse::getImmediateResult);
+    private <T> T await(Future<T> future) throws IOException, InterruptedException, IntegrationException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IntegrationException) {
+                throw (IntegrationException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
         }
     }
 }
@@ -7,20 +7,23 @@
 package com.blackduck.integration.jenkins.polaris;
 
 import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.function.ThrowingSupplier;
 import com.blackduck.integration.jenkins.exception.JenkinsUserFriendlyException;
 import com.blackduck.integration.jenkins.extensions.ChangeBuildStatusTo;
 import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
 import com.blackduck.integration.jenkins.polaris.extensions.freestyle.FreestyleCreateChangeSetFile;
 import com.blackduck.integration.jenkins.polaris.extensions.freestyle.WaitForIssues;
 import com.blackduck.integration.jenkins.service.JenkinsBuildService;
+import hudson.AbortException;
 import java.util.Optional;
 
 public class PolarisFreestyleCommands {
     private final JenkinsIntLogger logger;
     private final JenkinsBuildService jenkinsBuildService;
-    private final ChangeSetFileCreator changeSetFileCreator;
-    private final PolarisCliRunner polarisCliRunner;
-    private final PolarisIssueChecker polarisIssueCounter;
+    // Builds that do not create a changeset or wait for issues never need those, so they are created on first use
+    private final ThrowingSupplier<ChangeSetFileCreator, AbortException> changeSetFileCreator;
+    private final ThrowingSupplier<PolarisCliRunner, AbortException> polarisCliRunner;
+    private final ThrowingSupplier<PolarisIssueChecker, AbortException> polarisIssueCounter;
 
     public PolarisFreestyleCommands(
             JenkinsIntLogger jenkinsIntLogger,
@@ -28,6 +31,20 @@ public class PolarisFreestyleCommands {
             ChangeSetFileCreator changeSetFileCreator,
             PolarisCliRunner polarisCliRunner,
             PolarisIssueChecker polarisIssueCounter) {
+        this(
+                jenkinsIntLogger,
+                jenkinsBuildService,
+                () -> changeSetFileCreator,
+                () -> polarisCliRunner,
+                () -> polarisIssueCounter);
+    }
+
+    public PolarisFreestyleCommands(
+            JenkinsIntLogger jenkinsIntLogger,
+            JenkinsBuildService jenkinsBuildService,
+            ThrowingSupplier<ChangeSetFileCreator, AbortException> changeSetFileCreator,
+            ThrowingSupplier<PolarisCliRunner, AbortException> polarisCliRunner,
+            ThrowingSupplier<PolarisIssueChecker, AbortException> polarisIssueCounter) {
         this.logger = jenkinsIntLogger;
         this.jenkinsBuildService = jenkinsBuildService;
         this.changeSetFileCreator = changeSetFileCreator;
@@ -43,7 +60,7 @@ public class PolarisFreestyleCommands {
         try {
             String changeSetFilePath = null;
             if (createChangeSetFile != null) {
-                changeSetFilePath = changeSetFileCreator.createChangeSetFile(
+                changeSetFilePath = changeSetFileCreator.get().createChangeSetFile(
                         createChangeSetFile.getChangeSetExclusionPatterns(),
                         createChangeSetFile.getChangeSetInclusionPatterns());
                 if (changeSetFilePath == null) {
@@ -58,7 +75,8 @@ public class PolarisFreestyleCommands {
                 }
             }
 
-            int exitCode = polarisCliRunner.runPolarisCli(polarisCliName, changeSetFilePath, polarisArgumentString);
+            int exitCode =
+                    polarisCliRunner.get().runPolarisCli(polarisCliName, changeSetFilePath, polarisArgumentString);
             if (exitCode > 0) {
                 jenkinsBuildService.markBuildFailed("Coverity on Polaris CLI failed with exit code: " + exitCode);
             }
@@ -67,7 +85,7 @@ public class PolarisFreestyleCommands {
                 ChangeBuildStatusTo buildStatusToSet = Optional.ofNullable(waitForIssues.getBuildStatusForIssues())
                         .orElse(ChangeBuildStatusTo.SUCCESS);
 
-                int issueCount = polarisIssueCounter.getPolarisIssueCount(waitForIssues.getJobTimeoutInMinutes());
+                int issueCount = polarisIssueCounter.get().getPolarisIssueCount(waitForIssues.getJobTimeoutInMinutes());
 
                 logger.alwaysLog("Coverity on Polaris Platform Issue Check");
                 logger.alwaysLog("Build state for issues: " + buildStatusToSet.getDisplayName());
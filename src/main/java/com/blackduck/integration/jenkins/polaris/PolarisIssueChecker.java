@@ -7,15 +7,25 @@
 package com.blackduck.integration.jenkins.polaris;
 
 import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.jenkins.polaris.extensions.pipeline.PolarisIssueCheckHandle;
+import com.blackduck.integration.jenkins.polaris.extensions.pipeline.PolarisIssueCheckRegistry;
+import com.blackduck.integration.jenkins.polaris.jfr.PolarisCliScanJsonEvent;
 import com.blackduck.integration.jenkins.polaris.service.GetPolarisCliResponseContent;
 import com.blackduck.integration.jenkins.polaris.service.PolarisCliIssueCountService;
 import com.blackduck.integration.jenkins.polaris.service.PolarisCliVersionHandler;
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCheckState;
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCounts;
+import com.blackduck.integration.jenkins.polaris.service.PolarisResultsRecorder;
 import com.blackduck.integration.jenkins.service.JenkinsRemotingService;
 import com.blackduck.integration.jenkins.service.JenkinsRunService;
 import com.blackduck.integration.jenkins.wrapper.JenkinsVersionHelper;
 import com.blackduck.integration.log.IntLogger;
+import com.blackduck.integration.polaris.common.cli.model.CliCommonResponseModel;
 import com.blackduck.integration.polaris.common.service.JobService;
+import com.blackduck.integration.polaris.common.tracing.PolarisSpan;
+import com.blackduck.integration.polaris.common.tracing.PolarisTracing;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 public class PolarisIssueChecker {
@@ -24,32 +34,116 @@ public class PolarisIssueChecker {
     private final JenkinsRemotingService jenkinsRemotingService;
     private final JenkinsRunService jenkinsRunService;
     private final JenkinsVersionHelper versionHelper;
+    private final PolarisIssueCheckRegistry polarisIssueCheckRegistry;
+    private final PolarisResultsRecorder polarisResultsRecorder;
 
     public PolarisIssueChecker(
             IntLogger logger,
             PolarisCliIssueCountService polarisCliIssueCountService,
             JenkinsRemotingService jenkinsRemotingService,
             JenkinsRunService jenkinsRunService,
-            JenkinsVersionHelper versionHelper) {
+            JenkinsVersionHelper versionHelper,
+            PolarisIssueCheckRegistry polarisIssueCheckRegistry,
+            PolarisResultsRecorder polarisResultsRecorder) {
         this.logger = logger;
         this.polarisCliIssueCountService = polarisCliIssueCountService;
         this.jenkinsRemotingService = jenkinsRemotingService;
         this.jenkinsRunService = jenkinsRunService;
         this.versionHelper = versionHelper;
+        this.polarisIssueCheckRegistry = polarisIssueCheckRegistry;
+        this.polarisResultsRecorder = polarisResultsRecorder;
     }
 
     public int getPolarisIssueCount(Integer jobTimeoutInMinutes)
             throws IOException, InterruptedException, IntegrationException {
+        logPluginVersion();
+        long jobTimeoutInSeconds = toJobTimeoutInSeconds(jobTimeoutInMinutes);
+        String cliCommonResponseModelJson = getCliCommonResponseModelJson();
+
+        CliCommonResponseModel polarisCliResponseModel =
+                polarisCliIssueCountService.parseCliResponse(cliCommonResponseModelJson);
+        PolarisIssueCheckState issueCheckState =
+                polarisCliIssueCountService.createIssueCheckState(jobTimeoutInSeconds, polarisCliResponseModel);
+        PolarisIssueCounts polarisIssueCounts = getIssueCounts(issueCheckState, jobTimeoutInSeconds);
+        reportIssueCounts(polarisIssueCounts);
+
+        return polarisIssueCounts.getTotalIssueCount();
+    }
+
+    public PolarisIssueCheckState preparePolarisIssueCount(Integer jobTimeoutInMinutes)
+            throws IOException, InterruptedException, IntegrationException {
+        logPluginVersion();
+        long jobTimeoutInSeconds = toJobTimeoutInSeconds(jobTimeoutInMinutes);
+        String cliCommonResponseModelJson = getCliCommonResponseModelJson();
+
+        CliCommonResponseModel polarisCliResponseModel =
+                polarisCliIssueCountService.parseCliResponse(cliCommonResponseModelJson);
+        return polarisCliIssueCountService.createIssueCheckState(jobTimeoutInSeconds, polarisCliResponseModel);
+    }
+
+    public PolarisIssueCounts finishPolarisIssueCount(PolarisIssueCheckState issueCheckState)
+            throws InterruptedException, IntegrationException {
+        PolarisIssueCounts polarisIssueCounts = getIssueCounts(issueCheckState);
+        reportIssueCounts(polarisIssueCounts);
+
+        return polarisIssueCounts;
+    }
+
+    public PolarisIssueCheckHandle startPolarisIssueCount(Integer jobTimeoutInMinutes)
+            throws IOException, InterruptedException, IntegrationException {
+        // Prepare up front so that a missing or malformed cli-scan.json fails this step rather than the await
+        PolarisIssueCheckState issueCheckState = preparePolarisIssueCount(jobTimeoutInMinutes);
+        PolarisIssueCheckHandle handle = polarisIssueCheckRegistry.submit(
+                jenkinsRunService.getRun(), () -> getIssueCounts(issueCheckState));
+        logger.info(String.format(
+                "Waiting for Coverity on Polaris Platform jobs in the background, use polarisAwait with %s to get the issue count and the log of the wait",
+                handle));
+
+        return handle;
+    }
+
+    public int awaitPolarisIssueCount(PolarisIssueCheckHandle handle)
+            throws InterruptedException, IntegrationException {
+        PolarisIssueCounts polarisIssueCounts = polarisIssueCheckRegistry.await(jenkinsRunService.getRun(), handle);
+        reportIssueCounts(polarisIssueCounts);
+
+        return polarisIssueCounts.getTotalIssueCount();
+    }
+
+    private PolarisIssueCounts getIssueCounts(PolarisIssueCheckState issueCheckState)
+            throws InterruptedException, IntegrationException {
+        try {
+            return polarisCliIssueCountService.getIssueCounts(issueCheckState);
+        } finally {
+            // Also recorded when a job failed or timed out, so the build shows which one did
+            polarisResultsRecorder.recordToolJobStates(issueCheckState.getToolJobStates());
+        }
+    }
+
+    private PolarisIssueCounts getIssueCounts(PolarisIssueCheckState issueCheckState, long jobTimeoutInSeconds)
+            throws InterruptedException, IntegrationException {
+        try {
+            return polarisCliIssueCountService.getIssueCounts(issueCheckState, jobTimeoutInSeconds);
+        } finally {
+            polarisResultsRecorder.recordToolJobStates(issueCheckState.getToolJobStates());
+        }
+    }
+
+    private void logPluginVersion() {
         String logMessage = versionHelper
                 .getPluginVersion("blackduck-coverity-on-polaris")
                 .map(version -> String.format("Running Coverity on Polaris Platform for Jenkins version %s", version))
                 .orElse("Running Coverity on Polaris Platform for Jenkins");
         logger.info(logMessage);
+    }
 
-        Long jobTimeoutInSeconds = Optional.ofNullable(jobTimeoutInMinutes)
+    private long toJobTimeoutInSeconds(Integer jobTimeoutInMinutes) {
+        return Optional.ofNullable(jobTimeoutInMinutes)
                 .map(value -> value * 60L)
                 .orElse(JobService.DEFAULT_TIMEOUT);
+    }
 
+    private String getCliCommonResponseModelJson() throws IOException, InterruptedException, IntegrationException {
         PolarisCliVersionHandler polarisCliVersionHandler = new PolarisCliVersionHandler();
 
         String polarisCliVersion = polarisCliVersionHandler.extractPolarisCliVersion(
@@ -57,13 +151,39 @@ public class PolarisIssueChecker {
 
         if (polarisCliVersion != null) {
             logger.info("Coverity on Polaris CLI version: " + polarisCliVersion);
+            polarisResultsRecorder.recordPolarisCliVersion(polarisCliVersion);
         } else {
             logger.warn("Coverity on Polaris CLI version cannot be extracted");
         }
+        polarisResultsRecorder.recordIssueCheckStarted();
 
-        String cliCommonResponseModelJson = jenkinsRemotingService.call(
-                new GetPolarisCliResponseContent(jenkinsRemotingService.getRemoteWorkspacePath(), polarisCliVersion));
+        String remoteWorkspacePath;
+        try (PolarisSpan span = PolarisTracing.startSpan("remoting GetRemoteWorkspacePath")) {
+            remoteWorkspacePath = jenkinsRemotingService.getRemoteWorkspacePath();
+            span.succeeded();
+        }
+        PolarisCliScanJsonEvent event = new PolarisCliScanJsonEvent();
+        event.begin();
+        String cliCommonResponseModelJson = null;
+        try (PolarisSpan span = PolarisTracing.startSpan("remoting GetPolarisCliResponseContent")) {
+            cliCommonResponseModelJson = jenkinsRemotingService.call(
+                    new GetPolarisCliResponseContent(remoteWorkspacePath, polarisCliVersion));
+            span.succeeded();
+            return cliCommonResponseModelJson;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.workspace = remoteWorkspacePath;
+                event.bytes = cliCommonResponseModelJson == null
+                        ? 0
+                        : cliCommonResponseModelJson.getBytes(StandardCharsets.UTF_8).length;
+                event.commit();
+            }
+        }
+    }
 
-        return polarisCliIssueCountService.getIssueCount(jobTimeoutInSeconds, cliCommonResponseModelJson);
+    private void reportIssueCounts(PolarisIssueCounts polarisIssueCounts) {
+        // The count of each tool was already logged when its job was counted
+        polarisResultsRecorder.recordIssueCounts(polarisIssueCounts);
     }
 }
@@ -7,23 +7,39 @@
 package com.blackduck.integration.jenkins.polaris;
 
 import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.function.ThrowingSupplier;
 import com.blackduck.integration.jenkins.exception.JenkinsUserFriendlyException;
 import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisAdmissionController;
 import com.blackduck.integration.jenkins.polaris.extensions.pipeline.PipelineCreateChangeSetFile;
+import com.blackduck.integration.jenkins.polaris.extensions.pipeline.PolarisIssueCheckHandle;
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCheckState;
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCounts;
 import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import hudson.AbortException;
 import java.io.IOException;
+import java.util.Optional;
 
 public class PolarisPipelineCommands {
     private final JenkinsIntLogger logger;
-    private final ChangeSetFileCreator changeSetFileCreator;
-    private final PolarisCliRunner polarisCliRunner;
-    private final PolarisIssueChecker polarisIssueCounter;
+    // Steps only use some of these, so they are created when they are first used
+    private final ThrowingSupplier<ChangeSetFileCreator, AbortException> changeSetFileCreator;
+    private final ThrowingSupplier<PolarisCliRunner, AbortException> polarisCliRunner;
+    private final ThrowingSupplier<PolarisIssueChecker, AbortException> polarisIssueCounter;
 
     public PolarisPipelineCommands(
             JenkinsIntLogger jenkinsIntLogger,
             ChangeSetFileCreator changeSetFileCreator,
             PolarisCliRunner polarisCliRunner,
             PolarisIssueChecker polarisIssueCounter) {
+        this(jenkinsIntLogger, () -> changeSetFileCreator, () -> polarisCliRunner, () -> polarisIssueCounter);
+    }
+
+    public PolarisPipelineCommands(
+            JenkinsIntLogger jenkinsIntLogger,
+            ThrowingSupplier<ChangeSetFileCreator, AbortException> changeSetFileCreator,
+            ThrowingSupplier<PolarisCliRunner, AbortException> polarisCliRunner,
+            ThrowingSupplier<PolarisIssueChecker, AbortException> polarisIssueCounter) {
         this.logger = jenkinsIntLogger;
         this.changeSetFileCreator = changeSetFileCreator;
         this.polarisCliRunner = polarisCliRunner;
@@ -38,22 +54,67 @@ public class PolarisPipelineCommands {
             throws IntegrationException, InterruptedException, IOException {
         String changeSetFilePath = null;
         if (createChangeSetFile != null) {
-            changeSetFilePath = changeSetFileCreator.createChangeSetFile(
+            changeSetFilePath = createChangeSetFile(polarisCliName, createChangeSetFile);
+            if (changeSetFilePath == null) {
+                return skipForEmptyChangeSet(createChangeSetFile);
+            }
+        }
+
+        int exitCode =
+                polarisCliRunner.get().runPolarisCli(polarisCliName, changeSetFilePath, polarisCliArgumentString);
+
+        return handlePolarisCliExitCode(exitCode, returnStatus);
+    }
+
+    /**
+     * Does everything runPolarisCli does up to launching the CLI, so that the CLI can be launched as a durable task
+     * instead. Returns empty if analysis was skipped because the changeset contained no files.
+     */
+    public Optional<PolarisCliInvocation> preparePolarisCli(
+            String polarisCliName, String polarisCliArgumentString, PipelineCreateChangeSetFile createChangeSetFile)
+            throws IntegrationException, InterruptedException, IOException {
+        String changeSetFilePath = null;
+        if (createChangeSetFile != null) {
+            changeSetFilePath = createChangeSetFile(polarisCliName, createChangeSetFile);
+            if (changeSetFilePath == null) {
+                skipForEmptyChangeSet(createChangeSetFile);
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(
+                polarisCliRunner.get().preparePolarisCli(polarisCliName, changeSetFilePath, polarisCliArgumentString));
+    }
+
+    private String createChangeSetFile(String polarisCliName, PipelineCreateChangeSetFile createChangeSetFile)
+            throws IOException, InterruptedException {
+        // Installing the CLI and inspecting the agent do not depend on the changeset, so they overlap with it
+        polarisCliRunner.get().prefetchPolarisCli(polarisCliName);
+        String changeSetFilePath = null;
+        try {
+            changeSetFilePath = changeSetFileCreator.get().createChangeSetFile(
                     createChangeSetFile.getExcluding(), createChangeSetFile.getIncluding());
+            return changeSetFilePath;
+        } finally {
             if (changeSetFilePath == null) {
-                String skipMessage =
-                        "The changeset contained no files to analyze. Skipping Coverity on Polaris Platform static analysis.";
-                if (Boolean.FALSE.equals(createChangeSetFile.getReturnSkipCode())) {
-                    throw new JenkinsUserFriendlyException(skipMessage);
-                } else {
-                    logger.info(skipMessage);
-                    return -1;
-                }
+                polarisCliRunner.get().cancelPrefetch();
             }
         }
+    }
 
-        int exitCode = polarisCliRunner.runPolarisCli(polarisCliName, changeSetFilePath, polarisCliArgumentString);
+    public PolarisAdmissionController.Admission admitPolarisCli() throws InterruptedException, IOException {
+        return polarisCliRunner.get().admitPolarisCli();
+    }
+
+    public PolarisAdmissionController.Admission readmitPolarisCli() throws InterruptedException, IOException {
+        return polarisCliRunner.get().readmitPolarisCli();
+    }
 
+    public void recordPolarisCliExitCode(int exitCode, long durationInMillis) throws IOException {
+        polarisCliRunner.get().recordPolarisCliExitCode(exitCode, durationInMillis);
+    }
+
+    public int handlePolarisCliExitCode(int exitCode, Boolean returnStatus) throws JenkinsUserFriendlyException {
         if (exitCode > 0) {
             String errorMsg = "Coverity on Polaris Platform failed with exit code: " + exitCode;
             if (Boolean.TRUE.equals(returnStatus)) {
@@ -66,10 +127,48 @@ public class PolarisPipelineCommands {
         return exitCode;
     }
 
+    private int skipForEmptyChangeSet(PipelineCreateChangeSetFile createChangeSetFile)
+            throws JenkinsUserFriendlyException {
+        String skipMessage =
+                "The changeset contained no files to analyze. Skipping Coverity on Polaris Platform static analysis.";
+        if (Boolean.FALSE.equals(createChangeSetFile.getReturnSkipCode())) {
+            throw new JenkinsUserFriendlyException(skipMessage);
+        } else {
+            logger.info(skipMessage);
+            return -1;
+        }
+    }
+
     public int checkForIssues(Integer jobTimeoutInMinutes, Boolean returnIssueCount)
             throws InterruptedException, IntegrationException, IOException {
-        int issueCount = polarisIssueCounter.getPolarisIssueCount(jobTimeoutInMinutes);
+        int issueCount = polarisIssueCounter.get().getPolarisIssueCount(jobTimeoutInMinutes);
+        return reportIssueCount(issueCount, returnIssueCount);
+    }
+
+    public PolarisIssueCheckState prepareIssueCheck(Integer jobTimeoutInMinutes)
+            throws InterruptedException, IntegrationException, IOException {
+        return polarisIssueCounter.get().preparePolarisIssueCount(jobTimeoutInMinutes);
+    }
+
+    public PolarisIssueCounts finishIssueCheck(PolarisIssueCheckState issueCheckState, Boolean returnIssueCount)
+            throws InterruptedException, IntegrationException, IOException {
+        PolarisIssueCounts polarisIssueCounts = polarisIssueCounter.get().finishPolarisIssueCount(issueCheckState);
+        reportIssueCount(polarisIssueCounts.getTotalIssueCount(), returnIssueCount);
+        return polarisIssueCounts;
+    }
+
+    public PolarisIssueCheckHandle checkForIssuesAsync(Integer jobTimeoutInMinutes)
+            throws InterruptedException, IntegrationException, IOException {
+        return polarisIssueCounter.get().startPolarisIssueCount(jobTimeoutInMinutes);
+    }
+
+    public int awaitIssues(PolarisIssueCheckHandle handle, Boolean returnIssueCount)
+            throws InterruptedException, IntegrationException, IOException {
+        int issueCount = polarisIssueCounter.get().awaitPolarisIssueCount(handle);
+        return reportIssueCount(issueCount, returnIssueCount);
+    }
 
+    private int reportIssueCount(int issueCount, Boolean returnIssueCount) throws PolarisIntegrationException {
         String defectMessage = String.format("[Polaris] Found %s total issues.", issueCount);
         if (issueCount > 0) {
             if (Boolean.TRUE.equals(returnIssueCount)) {
@@ -0,0 +1,212 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import com.blackduck.integration.log.IntLogger;
+import hudson.Extension;
+import hudson.ExtensionList;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Limits how many scans and how many job waits run against each Coverity on Polaris server at once across the whole
+ * controller. Operations over the limit queue per folder or job, and the queues are served round-robin so that one busy
+ * folder cannot starve the others.
+ */
+@Extension
+public class PolarisAdmissionController {
+    public enum Operation {
+        SCAN("scan"),
+        WAIT("wait for jobs");
+
+        private final String displayName;
+
+        Operation(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    public static PolarisAdmissionController get() {
+        return ExtensionList.lookupSingleton(PolarisAdmissionController.class);
+    }
+
+    /**
+     * Blocks until the operation may run. The returned admission must be closed when the operation is finished. A
+     * limit below 1 means the operation is never queued.
+     */
+    public Admission admit(String polarisUrl, Operation operation, int limit, String queueKey, IntLogger logger)
+            throws InterruptedException {
+        if (limit < 1) {
+            return () -> {};
+        }
+
+        Lane lane = lanes.computeIfAbsent(operation + " " + polarisUrl, ignored -> new Lane());
+        return lane.admit(operation, limit, queueKey, logger);
+    }
+
+    /**
+     * Admits an operation that was already admitted before a restart and is still running, such as a durable scan
+     * that is reattached to. It is admitted right away, ahead of anything queued, even if that briefly puts the server
+     * over its limit. The returned admission must be closed when the operation is finished.
+     */
+    public Admission readmit(String polarisUrl, Operation operation, int limit) {
+        if (limit < 1) {
+            return () -> {};
+        }
+
+        Lane lane = lanes.computeIfAbsent(operation + " " + polarisUrl, ignored -> new Lane());
+        return lane.readmit(limit);
+    }
+
+    public int getActiveCount(String polarisUrl, Operation operation) {
+        Lane lane = lanes.get(operation + " " + polarisUrl);
+        return lane == null ? 0 : lane.getActiveCount();
+    }
+
+    public int getQueuedCount(String polarisUrl, Operation operation) {
+        Lane lane = lanes.get(operation + " " + polarisUrl);
+        return lane == null ? 0 : lane.getQueuedCount();
+    }
+
+    /**
+     * The urls that scans or waits have been admitted to since Jenkins started.
+     */
+    public Set<String> getPolarisUrls() {
+        Set<String> polarisUrls = new TreeSet<>();
+        for (String laneKey : lanes.keySet()) {
+            polarisUrls.add(StringUtils.substringAfter(laneKey, " "));
+        }
+        return polarisUrls;
+    }
+
+    public interface Admission extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static class Ticket {
+        private boolean admitted = false;
+    }
+
+    private static class Lane {
+        private final LinkedHashMap<String, ArrayDeque<Ticket>> queuedTicketsByKey = new LinkedHashMap<>();
+        private int limit;
+        private int activeCount = 0;
+        private int queuedCount = 0;
+
+        private synchronized Admission admit(Operation operation, int limit, String queueKey, IntLogger logger)
+                throws InterruptedException {
+            // The limit comes from the global configuration, so it may have been raised since the last admission
+            this.limit = limit;
+            admitQueuedTickets();
+            if (activeCount < limit && queuedCount == 0) {
+                activeCount++;
+                return admission();
+            }
+
+            Ticket ticket = new Ticket();
+            queuedTicketsByKey.computeIfAbsent(queueKey, ignored -> new ArrayDeque<>()).add(ticket);
+            queuedCount++;
+            logger.info(String.format(
+                    "Queued to %s in the Coverity on Polaris Platform: %s of %s allowed running, %s queued",
+                    operation.getDisplayName(), activeCount, limit, queuedCount));
+
+            long queuedAt = System.currentTimeMillis();
+            try {
+                while (!ticket.admitted) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                if (ticket.admitted) {
+                    release();
+                } else {
+                    removeQueuedTicket(queueKey, ticket);
+                }
+                throw e;
+            }
+
+            logger.info(String.format(
+                    "Admitted to %s in the Coverity on Polaris Platform after %s seconds, %s still queued",
+                    operation.getDisplayName(), (System.currentTimeMillis() - queuedAt) / 1000, queuedCount));
+            return admission();
+        }
+
+        private synchronized Admission readmit(int limit) {
+            this.limit = limit;
+            activeCount++;
+            return admission();
+        }
+
+        // Closing an admission more than once releases it only once, so it can never let an extra ticket in
+        private Admission admission() {
+            AtomicBoolean released = new AtomicBoolean(false);
+            return () -> {
+                if (released.compareAndSet(false, true)) {
+                    release();
+                }
+            };
+        }
+
+        private synchronized void release() {
+            activeCount--;
+            admitQueuedTickets();
+        }
+
+        private void admitQueuedTickets() {
+            while (activeCount < limit && !queuedTicketsByKey.isEmpty()) {
+                // Take the head of the first queue, then move that queue to the back so every key gets a turn
+                Iterator<Map.Entry<String, ArrayDeque<Ticket>>> iterator =
+                        queuedTicketsByKey.entrySet().iterator();
+                Map.Entry<String, ArrayDeque<Ticket>> entry = iterator.next();
+                iterator.remove();
+
+                Ticket ticket = entry.getValue().poll();
+                if (!entry.getValue().isEmpty()) {
+                    queuedTicketsByKey.put(entry.getKey(), entry.getValue());
+                }
+
+                if (ticket != null) {
+                    ticket.admitted = true;
+                    activeCount++;
+                    queuedCount--;
+                }
+            }
+            notifyAll();
+        }
+
+        private void removeQueuedTicket(String queueKey, Ticket ticket) {
+            ArrayDeque<Ticket> queuedTickets = queuedTicketsByKey.get(queueKey);
+            if (queuedTickets != null && queuedTickets.remove(ticket)) {
+                queuedCount--;
+                if (queuedTickets.isEmpty()) {
+                    queuedTicketsByKey.remove(queueKey);
+                }
+            }
+        }
+
+        private synchronized int getActiveCount() {
+            return activeCount;
+        }
+
+        private synchronized int getQueuedCount() {
+            return queuedCount;
+        }
+    }
+}
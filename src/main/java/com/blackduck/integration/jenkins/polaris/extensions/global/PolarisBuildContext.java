@@ -0,0 +1,37 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import com.blackduck.integration.jenkins.wrapper.BlackduckCredentialsHelper;
+import com.blackduck.integration.jenkins.wrapper.JenkinsProxyHelper;
+import com.blackduck.integration.polaris.common.configuration.PolarisServerConfig;
+
+/**
+ * The Coverity on Polaris configuration one run resolved, shared by every Polaris step of that run so that the global
+ * configuration is looked up and the credentials resolved only once. Only the configuration is shared, each step still
+ * builds its own http client and services because they log to the listener of that step.
+ */
+public class PolarisBuildContext {
+    private final PolarisGlobalConfig polarisGlobalConfig;
+    private PolarisServerConfig polarisServerConfig = null;
+
+    public PolarisBuildContext(PolarisGlobalConfig polarisGlobalConfig) {
+        this.polarisGlobalConfig = polarisGlobalConfig;
+    }
+
+    public PolarisGlobalConfig getPolarisGlobalConfig() {
+        return polarisGlobalConfig;
+    }
+
+    public synchronized PolarisServerConfig getPolarisServerConfig(
+            BlackduckCredentialsHelper credentialsHelper, JenkinsProxyHelper jenkinsProxyHelper) {
+        if (polarisServerConfig == null) {
+            polarisServerConfig = polarisGlobalConfig.getPolarisServerConfig(credentialsHelper, jenkinsProxyHelper);
+        }
+        return polarisServerConfig;
+    }
+}
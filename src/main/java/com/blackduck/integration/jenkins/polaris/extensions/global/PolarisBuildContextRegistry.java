@@ -0,0 +1,66 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import com.blackduck.integration.function.ThrowingSupplier;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the {@link PolarisBuildContext} of each run that uses Coverity on Polaris until the run is finished.
+ */
+@Extension
+public class PolarisBuildContextRegistry {
+    private final Map<String, PolarisBuildContext> buildContexts = new ConcurrentHashMap<>();
+
+    public static PolarisBuildContextRegistry get() {
+        return ExtensionList.lookupSingleton(PolarisBuildContextRegistry.class);
+    }
+
+    public PolarisBuildContext getOrCreate(
+            Run<?, ?> run, ThrowingSupplier<PolarisGlobalConfig, AbortException> polarisGlobalConfig)
+            throws AbortException {
+        String runId = run.getExternalizableId();
+        PolarisBuildContext buildContext = buildContexts.get(runId);
+        if (buildContext == null) {
+            PolarisBuildContext newBuildContext = new PolarisBuildContext(polarisGlobalConfig.get());
+            buildContext = buildContexts.putIfAbsent(runId, newBuildContext);
+            if (buildContext == null) {
+                buildContext = newBuildContext;
+            }
+        }
+        return buildContext;
+    }
+
+    public void remove(Run<?, ?> run) {
+        buildContexts.remove(run.getExternalizableId());
+    }
+
+    @Extension
+    public static class BuildContextRunListener extends RunListener<Run<?, ?>> {
+        private final Supplier<PolarisBuildContextRegistry> polarisBuildContextRegistry;
+
+        public BuildContextRunListener() {
+            this(PolarisBuildContextRegistry::get);
+        }
+
+        BuildContextRunListener(Supplier<PolarisBuildContextRegistry> polarisBuildContextRegistry) {
+            this.polarisBuildContextRegistry = polarisBuildContextRegistry;
+        }
+
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            polarisBuildContextRegistry.get().remove(run);
+        }
+    }
+}
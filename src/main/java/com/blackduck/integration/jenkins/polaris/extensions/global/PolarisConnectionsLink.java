@@ -0,0 +1,68 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import com.blackduck.integration.polaris.common.rest.PolarisCircuitBreaker;
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import hudson.security.Permission;
+import java.util.Map;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Shows whether requests to each Coverity on Polaris server are currently being let through.
+ */
+@Extension
+public class PolarisConnectionsLink extends ManagementLink {
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Coverity on Polaris Connections";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Check whether Jenkins is currently suspending requests to an unresponsive Coverity on Polaris Platform.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "polaris-connections";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.ADMINISTER;
+    }
+
+    public Map<String, PolarisCircuitBreaker> getCircuitBreakers() {
+        return PolarisCircuitBreaker.getCircuitBreakers();
+    }
+
+    @RequirePOST
+    public HttpResponse doReset(@QueryParameter String polarisServerUrl) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        PolarisCircuitBreaker circuitBreaker = getCircuitBreakers().get(polarisServerUrl);
+        if (circuitBreaker != null) {
+            circuitBreaker.reset();
+        }
+        return HttpResponses.redirectToDot();
+    }
+}
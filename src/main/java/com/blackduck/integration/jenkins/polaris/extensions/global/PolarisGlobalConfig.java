@@ -15,6 +15,8 @@ import com.blackduck.integration.log.LogLevel;
 import com.blackduck.integration.log.PrintStreamIntLogger;
 import com.blackduck.integration.polaris.common.configuration.PolarisServerConfig;
 import com.blackduck.integration.polaris.common.configuration.PolarisServerConfigBuilder;
+import com.blackduck.integration.polaris.common.rest.PolarisRateLimiter;
+import com.blackduck.integration.polaris.common.service.PolarisServicesFactory;
 import com.blackduck.integration.rest.client.ConnectionResult;
 import com.blackduck.integration.rest.proxy.ProxyInfo;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
@@ -70,6 +72,34 @@ public class PolarisGlobalConfig extends GlobalConfiguration implements Serializ
 
     private int polarisTimeout = 120;
 
+    @HelpMarkdown("The maximum number of Coverity on Polaris CLI scans this Jenkins controller runs against the "
+            + "Coverity on Polaris at once. Further scans queue fairly by folder or job. 0 means no limit.")
+    private int maxConcurrentScans = 0;
+
+    @HelpMarkdown("The maximum number of waits for Coverity on Polaris jobs this Jenkins controller runs at once. "
+            + "Further waits queue fairly by folder or job. 0 means no limit.")
+    private int maxConcurrentWaits = 0;
+
+    @HelpMarkdown("The number of results to ask the Coverity on Polaris for per page when reading paged lists such as "
+            + "issue counts. Leave it at 0 to use the default of " + PolarisServicesFactory.DEFAULT_PAGE_SIZE + ". "
+            + "Endpoints that return smaller pages are asked for their own size for the next hour.")
+    private int pageSize = 0;
+
+    @HelpMarkdown("The number of requests per second this Jenkins controller sends to the Coverity on Polaris, shared "
+            + "by all builds. Leave it at 0 to use the default of "
+            + (int) PolarisRateLimiter.DEFAULT_REQUESTS_PER_SECOND + ". Agents that wait for jobs keep to the default.")
+    private int maxRequestsPerSecond = 0;
+
+    @HelpMarkdown("The number of requests this Jenkins controller may send to the Coverity on Polaris at once after it "
+            + "has been idle, before the requests per second apply. Leave it at 0 to use the default of "
+            + PolarisRateLimiter.DEFAULT_BURST_SIZE + ".")
+    private int requestBurstSize = 0;
+
+    @HelpMarkdown("If true (checked), waiting for Coverity on Polaris jobs and counting their issues runs on the agent "
+            + "the step runs on rather than on this Jenkins controller. The agent must be able to reach the Coverity "
+            + "on Polaris.")
+    private boolean pollJobsOnAgent = false;
+
     @DataBoundConstructor
     public PolarisGlobalConfig() {
         load();
@@ -105,6 +135,66 @@ public class PolarisGlobalConfig extends GlobalConfiguration implements Serializ
         save();
     }
 
+    public int getMaxConcurrentScans() {
+        return maxConcurrentScans;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentScans(int maxConcurrentScans) {
+        this.maxConcurrentScans = maxConcurrentScans;
+        save();
+    }
+
+    public int getMaxConcurrentWaits() {
+        return maxConcurrentWaits;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentWaits(int maxConcurrentWaits) {
+        this.maxConcurrentWaits = maxConcurrentWaits;
+        save();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @DataBoundSetter
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        save();
+    }
+
+    public int getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    @DataBoundSetter
+    public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        save();
+    }
+
+    public int getRequestBurstSize() {
+        return requestBurstSize;
+    }
+
+    @DataBoundSetter
+    public void setRequestBurstSize(int requestBurstSize) {
+        this.requestBurstSize = requestBurstSize;
+        save();
+    }
+
+    public boolean isPollJobsOnAgent() {
+        return pollJobsOnAgent;
+    }
+
+    @DataBoundSetter
+    public void setPollJobsOnAgent(boolean pollJobsOnAgent) {
+        this.pollJobsOnAgent = pollJobsOnAgent;
+        save();
+    }
+
     public PolarisServerConfig getPolarisServerConfig(
             BlackduckCredentialsHelper credentialsHelper, JenkinsProxyHelper jenkinsProxyHelper)
             throws IllegalArgumentException {
@@ -249,10 +339,22 @@ public class PolarisGlobalConfig extends GlobalConfiguration implements Serializ
         String polarisUrl = getNodeValue(doc, "polarisUrl").orElse(StringUtils.EMPTY);
         String polarisCredentialsId = getNodeValue(doc, "polarisCredentialsId").orElse(StringUtils.EMPTY);
         int polarisTimeout = getNodeIntegerValue(doc, "polarisTimeout").orElse(120);
+        int maxConcurrentScans = getNodeIntegerValue(doc, "maxConcurrentScans").orElse(0);
+        int maxConcurrentWaits = getNodeIntegerValue(doc, "maxConcurrentWaits").orElse(0);
+        int pageSize = getNodeIntegerValue(doc, "pageSize").orElse(0);
+        int maxRequestsPerSecond = getNodeIntegerValue(doc, "maxRequestsPerSecond").orElse(0);
+        int requestBurstSize = getNodeIntegerValue(doc, "requestBurstSize").orElse(0);
+        boolean pollJobsOnAgent = getNodeValue(doc, "pollJobsOnAgent").map(Boolean::parseBoolean).orElse(false);
 
         setPolarisUrl(polarisUrl);
         setPolarisCredentialsId(polarisCredentialsId);
         setPolarisTimeout(polarisTimeout);
+        setMaxConcurrentScans(maxConcurrentScans);
+        setMaxConcurrentWaits(maxConcurrentWaits);
+        setPageSize(pageSize);
+        setMaxRequestsPerSecond(maxRequestsPerSecond);
+        setRequestBurstSize(requestBurstSize);
+        setPollJobsOnAgent(pollJobsOnAgent);
         save();
     }
 
@@ -0,0 +1,23 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import com.blackduck.integration.polaris.common.service.PolarisGson;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+
+public class PolarisGsonInitializer {
+    private PolarisGsonInitializer() {
+        // This class should not be instantiated
+    }
+
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void warmUpPolarisJson() {
+        // Builds the json adapters for the Polaris models during startup rather than during the first build
+        PolarisGson.get();
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import jenkins.metrics.api.Metrics;
+
+public class PolarisMetricsInitializer {
+    private PolarisMetricsInitializer() {
+        // This class should not be instantiated
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void publishPolarisMetrics() {
+        // Makes the Polaris timers, counters, and histograms available to the Metrics plugin's reporters
+        PolarisMetrics.publishTo(Metrics.metricRegistry());
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
+import com.blackduck.integration.polaris.common.metrics.PolarisOperations;
+import com.blackduck.integration.polaris.common.rest.PolarisCircuitBreaker;
+import com.blackduck.integration.polaris.common.rest.PolarisRateLimiter;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import hudson.security.Permission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Shows the Coverity on Polaris work in flight on the controller: which builds are running the CLI or waiting on which
+ * Polaris jobs, and how each server is being used. Everything shown is read from what this JVM already recorded, so
+ * looking at the page never sends a request to Polaris.
+ */
+@Extension
+public class PolarisOperationsLink extends ManagementLink {
+    private static final String HTTP_LATENCY = "http.latency";
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Coverity on Polaris Operations";
+    }
+
+    @Override
+    public String getDescription() {
+        return "See which builds are waiting on Coverity on Polaris, for how long, and how busy each server is.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "polaris-operations";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.ADMINISTER;
+    }
+
+    public List<PolarisOperations.Operation> getOperations() {
+        return PolarisOperations.getOperations();
+    }
+
+    /**
+     * One row per server. Servers are matched by their metric name, because the configured url and the url of the
+     * http client may differ in ways like a trailing slash.
+     */
+    public List<ServerUsage> getServers() {
+        return getServers(PolarisAdmissionController.get());
+    }
+
+    List<ServerUsage> getServers(PolarisAdmissionController polarisAdmissionController) {
+        Map<String, ServerUsage> serversByName = new TreeMap<>();
+        for (String polarisServerUrl : PolarisCircuitBreaker.getCircuitBreakers().keySet()) {
+            getServerUsage(serversByName, polarisServerUrl);
+        }
+        for (Map.Entry<String, Integer> requestsInFlight : PolarisOperations.getRequestsInFlight().entrySet()) {
+            getServerUsage(serversByName, requestsInFlight.getKey()).requestsInFlight += requestsInFlight.getValue();
+        }
+        for (Map.Entry<String, PolarisRateLimiter> rateLimiter : PolarisRateLimiter.getRateLimiters().entrySet()) {
+            getServerUsage(serversByName, rateLimiter.getKey()).requestBudgetPerMinute =
+                    rateLimiter.getValue().getRequestsPerSecond() * 60;
+        }
+
+        for (String polarisUrl : polarisAdmissionController.getPolarisUrls()) {
+            ServerUsage serverUsage = getServerUsage(serversByName, polarisUrl);
+            serverUsage.activeScans += polarisAdmissionController.getActiveCount(
+                    polarisUrl, PolarisAdmissionController.Operation.SCAN);
+            serverUsage.queuedScans += polarisAdmissionController.getQueuedCount(
+                    polarisUrl, PolarisAdmissionController.Operation.SCAN);
+            serverUsage.activeWaits += polarisAdmissionController.getActiveCount(
+                    polarisUrl, PolarisAdmissionController.Operation.WAIT);
+            serverUsage.queuedWaits += polarisAdmissionController.getQueuedCount(
+                    polarisUrl, PolarisAdmissionController.Operation.WAIT);
+        }
+
+        MetricRegistry metricRegistry = PolarisMetrics.getMetricRegistry();
+        for (ServerUsage serverUsage : serversByName.values()) {
+            String latencyPrefix = MetricRegistry.name("polaris", serverUsage.serverName, HTTP_LATENCY) + ".";
+            for (Map.Entry<String, Timer> timer : metricRegistry.getTimers().entrySet()) {
+                if (timer.getKey().startsWith(latencyPrefix)) {
+                    serverUsage.requestsPerMinute += timer.getValue().getOneMinuteRate() * 60;
+                }
+            }
+        }
+
+        return new ArrayList<>(serversByName.values());
+    }
+
+    /**
+     * The hits and misses of every in-memory cache, counted since Jenkins started.
+     */
+    public List<CacheUsage> getCaches() {
+        Map<String, CacheUsage> cachesByName = new TreeMap<>();
+        for (Map.Entry<String, Counter> counter : PolarisMetrics.getMetricRegistry().getCounters().entrySet()) {
+            // polaris.<server>.cache.hits.<cache> or polaris.<server>.cache.misses.<cache>
+            String[] nameParts = StringUtils.split(counter.getKey(), '.');
+            if (nameParts.length != 5 || !"polaris".equals(nameParts[0]) || !"cache".equals(nameParts[2])) {
+                continue;
+            }
+
+            CacheUsage cacheUsage = cachesByName.computeIfAbsent(
+                    nameParts[1] + " " + nameParts[4], ignored -> new CacheUsage(nameParts[1], nameParts[4]));
+            if (PolarisMetrics.CACHE_HITS.equals(nameParts[2] + "." + nameParts[3])) {
+                cacheUsage.hits = counter.getValue().getCount();
+            } else if (PolarisMetrics.CACHE_MISSES.equals(nameParts[2] + "." + nameParts[3])) {
+                cacheUsage.misses = counter.getValue().getCount();
+            }
+        }
+        return new ArrayList<>(cachesByName.values());
+    }
+
+    private ServerUsage getServerUsage(Map<String, ServerUsage> serversByName, String polarisUrl) {
+        String serverName = PolarisMetrics.serverName(polarisUrl);
+        return serversByName.computeIfAbsent(serverName, ignored -> new ServerUsage(serverName, polarisUrl));
+    }
+
+    public static class ServerUsage {
+        private final String serverName;
+        private final String polarisServerUrl;
+        private double requestsPerMinute = 0;
+        private double requestBudgetPerMinute = 0;
+        private int requestsInFlight = 0;
+        private int activeScans = 0;
+        private int queuedScans = 0;
+        private int activeWaits = 0;
+        private int queuedWaits = 0;
+
+        private ServerUsage(String serverName, String polarisServerUrl) {
+            this.serverName = serverName;
+            this.polarisServerUrl = polarisServerUrl;
+        }
+
+        public String getServerName() {
+            return serverName;
+        }
+
+        public String getPolarisServerUrl() {
+            return polarisServerUrl;
+        }
+
+        public String getRequestsPerMinute() {
+            return String.format("%.1f", requestsPerMinute);
+        }
+
+        /**
+         * The requests per minute the rate limiter lets through, or an empty string if no request was limited yet.
+         */
+        public String getRequestBudgetPerMinute() {
+            return requestBudgetPerMinute > 0 ? String.format("%.0f", requestBudgetPerMinute) : "";
+        }
+
+        public int getRequestsInFlight() {
+            return requestsInFlight;
+        }
+
+        public int getActiveScans() {
+            return activeScans;
+        }
+
+        public int getQueuedScans() {
+            return queuedScans;
+        }
+
+        public int getActiveWaits() {
+            return activeWaits;
+        }
+
+        public int getQueuedWaits() {
+            return queuedWaits;
+        }
+    }
+
+    public static class CacheUsage {
+        private final String serverName;
+        private final String cacheName;
+        private long hits = 0;
+        private long misses = 0;
+
+        private CacheUsage(String serverName, String cacheName) {
+            this.serverName = serverName;
+            this.cacheName = cacheName;
+        }
+
+        public String getServerName() {
+            return serverName;
+        }
+
+        public String getCacheName() {
+            return cacheName;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public String getHitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? "" : String.format("%.0f%%", hits * 100.0 / lookups);
+        }
+    }
+}
@@ -7,9 +7,16 @@
 package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
 
 import com.blackduck.integration.jenkins.annotations.HelpMarkdown;
+import com.blackduck.integration.jenkins.polaris.PolarisCliInvocation;
+import com.blackduck.integration.jenkins.polaris.PolarisCliRunner;
+import com.blackduck.integration.jenkins.polaris.PolarisPipelineCommands;
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisAdmissionController;
 import com.blackduck.integration.jenkins.polaris.extensions.tools.PolarisCli;
 import com.blackduck.integration.jenkins.polaris.service.PolarisCommandsFactory;
+import com.blackduck.integration.polaris.common.tracing.PolarisSpan;
+import com.blackduck.integration.polaris.common.tracing.PolarisTracing;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
@@ -17,18 +24,32 @@ import hudson.Launcher;
 import hudson.model.Node;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.remoting.ChannelClosedException;
+import hudson.remoting.RequestAbortedException;
 import hudson.tools.ToolInstallation;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
+import io.opentelemetry.context.Scope;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.channels.ClosedChannelException;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import jenkins.util.Timer;
 import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.durabletask.Controller;
 import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
@@ -41,6 +62,10 @@ public class ExecutePolarisCliStep extends Step implements Serializable {
     public static final String DISPLAY_NAME = "Execute Coverity on Polaris CLI";
     public static final String PIPELINE_NAME = "polaris";
     private static final long serialVersionUID = -2698425344634481146L;
+    // Only preparing and launching the CLI, and waiting to be admitted, hold a thread. The admission controller limits
+    // how many scans run, so the pool does not.
+    private static final ExecutorService DURABLE_EXECUTOR = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "Coverity on Polaris durable CLI"));
 
     @HelpMarkdown("The command line arguments to pass to the Coverity on Polaris CLI")
     private final String arguments;
@@ -60,6 +85,11 @@ public class ExecutePolarisCliStep extends Step implements Serializable {
                     + "Used for Incremental analysis (--incremental) as the file containing the list of changed files for analysis.")
     private PipelineCreateChangeSetFile createChangeSetFile;
 
+    @Nullable
+    @HelpMarkdown(
+            "If true (checked), runs the Coverity on Polaris CLI as a durable task on the agent so that the scan keeps running, and the step reattaches to it, across a Jenkins controller restart or agent reconnect")
+    private Boolean durable;
+
     @DataBoundConstructor
     public ExecutePolarisCliStep(String arguments) {
         this.arguments = arguments;
@@ -81,6 +111,9 @@ public class ExecutePolarisCliStep extends Step implements Serializable {
 
     @Override
     public StepExecution start(StepContext context) throws Exception {
+        if (Boolean.TRUE.equals(durable)) {
+            return new DurableExecution(context);
+        }
         return new Execution(context);
     }
 
@@ -107,6 +140,19 @@ public class ExecutePolarisCliStep extends Step implements Serializable {
         this.createChangeSetFile = createChangeSetFile;
     }
 
+    @Nullable
+    public Boolean getDurable() {
+        if (!Boolean.TRUE.equals(durable)) {
+            return null;
+        }
+        return durable;
+    }
+
+    @DataBoundSetter
+    public void setDurable(Boolean durable) {
+        this.durable = durable;
+    }
+
     @Symbol(PIPELINE_NAME)
     @Extension(optional = true)
     public static final class DescriptorImpl extends StepDescriptor {
@@ -177,8 +223,276 @@ public class ExecutePolarisCliStep extends Step implements Serializable {
 
         @Override
         protected Integer run() throws Exception {
-            return PolarisCommandsFactory.fromPipeline(listener, envVars, launcher, node, run, workspace)
-                    .runPolarisCli(polarisCli, arguments, returnStatus, createChangeSetFile);
+            try (PolarisSpan span = PolarisTracing.startSpan(PIPELINE_NAME)) {
+                Integer exitCode = PolarisCommandsFactory.fromPipeline(listener, envVars, launcher, node, run, workspace)
+                        .runPolarisCli(polarisCli, arguments, returnStatus, createChangeSetFile);
+                span.succeeded();
+                return exitCode;
+            }
+        }
+    }
+
+    public class DurableExecution extends StepExecution {
+        private static final long serialVersionUID = 2236950151948960826L;
+        private static final long POLL_INTERVAL_IN_MILLIS = 5000;
+        private static final long AGENT_RECONNECT_TIMEOUT_IN_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+        // Saved with the rest of the pipeline so that the step can reattach to the CLI after a controller restart
+        private Controller controller;
+        private long launchedAtMillis;
+
+        // Launching the CLI, then each poll of it. No thread is held between polls.
+        private transient volatile Future<?> polarisCliWatch;
+        // Stopping the step and the CLI failing can race, and the step may only be completed once
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+
+        // Set up when the CLI is launched or reattached to, and released when the step completes
+        private transient TaskListener listener;
+        private transient PolarisPipelineCommands polarisPipelineCommands;
+        private transient PolarisAdmissionController.Admission admission;
+        private transient PolarisSpan stepSpan;
+        private transient PolarisSpan cliSpan;
+        private transient long agentUnavailableSinceMillis;
+
+        protected DurableExecution(@Nonnull StepContext context) {
+            super(context);
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            polarisCliWatch = DURABLE_EXECUTOR.submit(this::launchPolarisCli);
+            return false;
+        }
+
+        @Override
+        public void onResume() {
+            polarisCliWatch = DURABLE_EXECUTOR.submit(this::launchPolarisCli);
+        }
+
+        @Override
+        public void stop(@Nonnull Throwable cause) throws Exception {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            Future<?> runningPolarisCliWatch = polarisCliWatch;
+            if (runningPolarisCliWatch != null) {
+                runningPolarisCliWatch.cancel(true);
+            }
+            release(cause);
+
+            FilePath workspace = getContext().get(FilePath.class);
+            if (controller != null && workspace != null) {
+                controller.stop(workspace, getContext().get(Launcher.class));
+            }
+            super.stop(cause);
+        }
+
+        private void launchPolarisCli() {
+            StepContext context = getContext();
+            // A step reattached to after a restart reports the rest of its work as a new trace
+            PolarisSpan launchingStepSpan = PolarisTracing.startDetachedSpan(PIPELINE_NAME);
+            try (Scope ignored = launchingStepSpan.makeCurrent()) {
+                if (!hold(launchingStepSpan, null, null)) {
+                    return;
+                }
+                listener = context.get(TaskListener.class);
+                polarisPipelineCommands = PolarisCommandsFactory.fromPipeline(
+                        listener,
+                        context.get(EnvVars.class),
+                        context.get(Launcher.class),
+                        context.get(Node.class),
+                        context.get(Run.class),
+                        context.get(FilePath.class));
+
+                Optional<PolarisCliInvocation> polarisCliInvocation = Optional.empty();
+                if (controller == null) {
+                    polarisCliInvocation =
+                            polarisPipelineCommands.preparePolarisCli(polarisCli, arguments, createChangeSetFile);
+                    if (!polarisCliInvocation.isPresent()) {
+                        succeed(-1);
+                        return;
+                    }
+                }
+
+                // Admission is not persisted, so a scan reattached to after a restart is admitted again. It is already
+                // running, so it goes ahead of the scans queued to launch.
+                PolarisAdmissionController.Admission polarisCliAdmission = controller == null
+                        ? polarisPipelineCommands.admitPolarisCli()
+                        : polarisPipelineCommands.readmitPolarisCli();
+                PolarisSpan polarisCliSpan = PolarisTracing.startDetachedSpan(PolarisCliRunner.POLARIS_CLI_SPAN_NAME);
+                if (!hold(launchingStepSpan, polarisCliAdmission, polarisCliSpan)) {
+                    return;
+                }
+
+                try (Scope ignoredCliScope = polarisCliSpan.makeCurrent()) {
+                    if (polarisCliInvocation.isPresent()) {
+                        polarisCliInvocation.get().addTraceContext();
+                        launchedAtMillis = System.currentTimeMillis();
+                        // The CLI span lasts until the CLI exits, launching it is a remoting call of its own
+                        try (PolarisSpan launchSpan = PolarisTracing.startSpan("remoting LaunchPolarisCli")) {
+                            controller = polarisCliInvocation
+                                    .get()
+                                    .toDurableTask()
+                                    .launch(
+                                            polarisCliInvocation.get().toEnvVars(),
+                                            context.get(FilePath.class),
+                                            context.get(Launcher.class),
+                                            listener);
+                            launchSpan.succeeded();
+                        }
+                        context.saveState();
+                    } else {
+                        listener.getLogger()
+                                .println("Reattaching to the Coverity on Polaris CLI after a Jenkins restart");
+                    }
+                }
+
+                schedulePoll();
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+
+        private void schedulePoll() {
+            if (!completed.get()) {
+                polarisCliWatch =
+                        Timer.get().schedule(this::pollPolarisCli, POLL_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void pollPolarisCli() {
+            if (completed.get()) {
+                return;
+            }
+
+            try {
+                Integer exitCode = checkPolarisCli(controller, listener, AGENT_RECONNECT_TIMEOUT_IN_MILLIS);
+                if (exitCode == null) {
+                    schedulePoll();
+                    return;
+                }
+
+                releasePolarisCli(exitCode);
+                polarisPipelineCommands.recordPolarisCliExitCode(
+                        exitCode, System.currentTimeMillis() - launchedAtMillis);
+                succeed(polarisPipelineCommands.handlePolarisCliExitCode(exitCode, returnStatus));
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+
+        /**
+         * Checks once whether the CLI exited, and returns its exit code if it did. While the agent is disconnected the
+         * CLI keeps running, so the agent is waited for, but only up to the reconnect timeout.
+         */
+        Integer checkPolarisCli(Controller controller, TaskListener listener, long agentReconnectTimeoutInMillis)
+                throws IOException, InterruptedException {
+            // The workspace and launcher are looked up each time because they go stale when the agent reconnects
+            FilePath workspace = getContext().get(FilePath.class);
+            if (workspace != null) {
+                try {
+                    controller.writeLog(workspace, listener.getLogger());
+                    Integer exitStatus = controller.exitStatus(workspace, getContext().get(Launcher.class), listener);
+                    if (exitStatus != null) {
+                        controller.writeLog(workspace, listener.getLogger());
+                        controller.cleanup(workspace);
+                        return exitStatus;
+                    }
+                    agentUnavailableSinceMillis = 0;
+                    return null;
+                } catch (IOException e) {
+                    if (!isAgentDisconnected(e)) {
+                        throw e;
+                    }
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            if (agentUnavailableSinceMillis == 0) {
+                listener.getLogger()
+                        .println(
+                                "The agent running the Coverity on Polaris CLI is unavailable, waiting for it to reconnect");
+                agentUnavailableSinceMillis = now;
+            } else if (now - agentUnavailableSinceMillis >= agentReconnectTimeoutInMillis) {
+                throw new AbortException(String.format(
+                        "The agent running the Coverity on Polaris CLI did not reconnect within %s seconds",
+                        TimeUnit.MILLISECONDS.toSeconds(agentReconnectTimeoutInMillis)));
+            }
+            return null;
+        }
+
+        /**
+         * Keeps what the running CLI holds on to until the step completes. Returns false, after releasing it, if the
+         * step was stopped in the meantime.
+         */
+        private synchronized boolean hold(
+                PolarisSpan stepSpan, PolarisAdmissionController.Admission admission, PolarisSpan cliSpan) {
+            this.stepSpan = stepSpan;
+            this.admission = admission;
+            this.cliSpan = cliSpan;
+            if (completed.get()) {
+                release(null);
+                return false;
+            }
+            return true;
+        }
+
+        private synchronized void releasePolarisCli(int exitCode) {
+            if (admission != null) {
+                admission.close();
+                admission = null;
+            }
+            if (cliSpan != null) {
+                cliSpan.setAttribute(PolarisCliRunner.POLARIS_CLI_EXIT_CODE_ATTRIBUTE, exitCode);
+                cliSpan.succeeded();
+                cliSpan.close();
+                cliSpan = null;
+            }
+        }
+
+        private synchronized void release(Throwable failure) {
+            if (admission != null) {
+                admission.close();
+                admission = null;
+            }
+            if (cliSpan != null) {
+                cliSpan.close();
+                cliSpan = null;
+            }
+            if (stepSpan != null) {
+                if (failure == null) {
+                    stepSpan.succeeded();
+                } else {
+                    stepSpan.recordException(failure);
+                }
+                stepSpan.close();
+                stepSpan = null;
+            }
+        }
+
+        private void succeed(int result) {
+            if (completed.compareAndSet(false, true)) {
+                release(null);
+                getContext().onSuccess(result);
+            }
+        }
+
+        private void fail(Throwable failure) {
+            if (completed.compareAndSet(false, true)) {
+                release(failure);
+                getContext().onFailure(failure);
+            }
+        }
+
+        private boolean isAgentDisconnected(IOException exception) {
+            for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+                if (cause instanceof ChannelClosedException
+                        || cause instanceof ClosedChannelException
+                        || cause instanceof RequestAbortedException) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 }
@@ -0,0 +1,136 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
+
+import com.blackduck.integration.jenkins.annotations.HelpMarkdown;
+import com.blackduck.integration.jenkins.polaris.service.PolarisCommandsFactory;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+public class PolarisAwaitStep extends Step implements Serializable {
+    public static final String DISPLAY_NAME =
+            "Wait for an issue check in the Coverity on Polaris started by polarisIssueCheckAsync";
+    public static final String PIPELINE_NAME = "polarisAwait";
+    private static final long serialVersionUID = 3160784620190541277L;
+
+    private final PolarisIssueCheckHandle handle;
+
+    @Nullable
+    @HelpMarkdown("Check this box to return the issue count as an integer instead of throwing an exception")
+    private Boolean returnIssueCount;
+
+    @DataBoundConstructor
+    public PolarisAwaitStep(PolarisIssueCheckHandle handle) {
+        this.handle = handle;
+    }
+
+    public PolarisIssueCheckHandle getHandle() {
+        return handle;
+    }
+
+    @Nullable
+    public Boolean getReturnIssueCount() {
+        if (!Boolean.TRUE.equals(returnIssueCount)) {
+            return null;
+        }
+        return returnIssueCount;
+    }
+
+    @DataBoundSetter
+    public void setReturnIssueCount(Boolean returnIssueCount) {
+        this.returnIssueCount = returnIssueCount;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(context);
+    }
+
+    @Symbol(PIPELINE_NAME)
+    @Extension(optional = true)
+    public static final class DescriptorImpl extends StepDescriptor {
+        public DescriptorImpl() {
+            // Nothing to do here, but we must provide an explicit default constructor or else some versions of the
+            // Pipeline syntax generator will break
+            // -rotte FEB 2020
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return new HashSet<>(Arrays.asList(
+                    TaskListener.class, EnvVars.class, FilePath.class, Launcher.class, Run.class, Node.class));
+        }
+
+        @Override
+        public String getFunctionName() {
+            return PIPELINE_NAME;
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return DISPLAY_NAME;
+        }
+    }
+
+    public class Execution extends SynchronousNonBlockingStepExecution<Integer> {
+        private static final long serialVersionUID = 8475412933601586745L;
+
+        @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+        private final transient TaskListener listener;
+
+        @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+        private final transient EnvVars envVars;
+
+        @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+        private final transient FilePath workspace;
+
+        private final transient Launcher launcher;
+        private final transient Node node;
+        private final transient Run<?, ?> run;
+
+        protected Execution(@Nonnull StepContext context) throws InterruptedException, IOException {
+            super(context);
+            listener = context.get(TaskListener.class);
+            envVars = context.get(EnvVars.class);
+            workspace = context.get(FilePath.class);
+            launcher = context.get(Launcher.class);
+            node = context.get(Node.class);
+            run = context.get(Run.class);
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            try (PolarisIssueCheckRegistry.LogAttachment ignored =
+                    PolarisIssueCheckRegistry.get().attachLog(run, handle, listener)) {
+                return PolarisCommandsFactory.fromPipeline(listener, envVars, launcher, node, run, workspace)
+                        .awaitIssues(handle, returnIssueCount);
+            }
+        }
+    }
+}
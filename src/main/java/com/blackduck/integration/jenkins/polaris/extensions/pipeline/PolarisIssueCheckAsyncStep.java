@@ -0,0 +1,136 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
+
+import com.blackduck.integration.jenkins.annotations.HelpMarkdown;
+import com.blackduck.integration.jenkins.polaris.service.PolarisCommandsFactory;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+public class PolarisIssueCheckAsyncStep extends Step implements Serializable {
+    public static final String DISPLAY_NAME =
+            "Start checking for issues in the Coverity on Polaris found by a previous execution of the CLI";
+    public static final String PIPELINE_NAME = "polarisIssueCheckAsync";
+    private static final long serialVersionUID = 6921840391457830512L;
+
+    @Nullable
+    @HelpMarkdown(
+            "The maximum number of minutes to wait for jobs started by the Coverity on Polaris CLI to complete when executed without -w (nonblocking mode). Must be a positive integer, defaults to 30 minutes.")
+    private Integer jobTimeoutInMinutes;
+
+    @DataBoundConstructor
+    public PolarisIssueCheckAsyncStep() {
+        // Nothing to do-- we generally want to only use DataBoundSetters if we can, but having no DataBoundConstructor
+        // can cause issues.
+        // -- rotte FEB 2020
+    }
+
+    @Nullable
+    public Integer getJobTimeoutInMinutes() {
+        return jobTimeoutInMinutes;
+    }
+
+    @DataBoundSetter
+    public void setJobTimeoutInMinutes(Integer jobTimeoutInMinutes) {
+        this.jobTimeoutInMinutes = jobTimeoutInMinutes;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(context);
+    }
+
+    @Symbol(PIPELINE_NAME)
+    @Extension(optional = true)
+    public static final class DescriptorImpl extends StepDescriptor {
+        public DescriptorImpl() {
+            // Nothing to do here, but we must provide an explicit default constructor or else some versions of the
+            // Pipeline syntax generator will break
+            // -rotte FEB 2020
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return new HashSet<>(Arrays.asList(
+                    TaskListener.class, EnvVars.class, FilePath.class, Launcher.class, Run.class, Node.class));
+        }
+
+        @Override
+        public String getFunctionName() {
+            return PIPELINE_NAME;
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return DISPLAY_NAME;
+        }
+    }
+
+    public class Execution extends SynchronousNonBlockingStepExecution<PolarisIssueCheckHandle> {
+        private static final long serialVersionUID = -1835273017546032684L;
+
+        @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+        private final transient TaskListener listener;
+
+        @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+        private final transient EnvVars envVars;
+
+        @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+        private final transient FilePath workspace;
+
+        private final transient Launcher launcher;
+        private final transient Node node;
+        private final transient Run<?, ?> run;
+
+        protected Execution(@Nonnull StepContext context) throws InterruptedException, IOException {
+            super(context);
+            listener = context.get(TaskListener.class);
+            envVars = context.get(EnvVars.class);
+            workspace = context.get(FilePath.class);
+            launcher = context.get(Launcher.class);
+            node = context.get(Node.class);
+            run = context.get(Run.class);
+        }
+
+        @Override
+        protected PolarisIssueCheckHandle run() throws Exception {
+            // The check keeps logging after this step returns, so it logs here only until then
+            PolarisIssueCheckLog issueCheckLog = new PolarisIssueCheckLog(listener);
+            try {
+                PolarisIssueCheckHandle handle = PolarisCommandsFactory.fromPipeline(
+                                issueCheckLog, envVars, launcher, node, run, workspace)
+                        .checkForIssuesAsync(jobTimeoutInMinutes);
+                PolarisIssueCheckRegistry.get().deferLog(handle, issueCheckLog);
+                return handle;
+            } finally {
+                issueCheckLog.detach();
+            }
+        }
+    }
+}
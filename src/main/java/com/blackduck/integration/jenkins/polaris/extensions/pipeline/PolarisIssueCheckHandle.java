@@ -0,0 +1,56 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Returned by polarisIssueCheckAsync and passed to polarisAwait. Only the id is kept so that the handle can be stored
+ * in the pipeline program state; the pending issue check itself lives in the {@link PolarisIssueCheckRegistry}.
+ */
+public class PolarisIssueCheckHandle implements Serializable {
+    private static final long serialVersionUID = 4319052476630447251L;
+
+    private final String id;
+
+    public PolarisIssueCheckHandle(String id) {
+        this.id = id;
+    }
+
+    public static PolarisIssueCheckHandle create() {
+        return new PolarisIssueCheckHandle(UUID.randomUUID().toString());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        return Objects.equals(id, ((PolarisIssueCheckHandle) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "PolarisIssueCheckHandle[" + id + "]";
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The log of an issue check started by polarisIssueCheckAsync. It is written to the log of polarisIssueCheckAsync until
+ * that step returns, then kept in memory while the check runs in the background, and written to the log of polarisAwait
+ * once that step waits for the check. The log of a step that already completed is never written to.
+ */
+@SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+class PolarisIssueCheckLog implements TaskListener {
+    // Enough for the polling of a few hundred tool jobs, anything beyond it is dropped
+    static final int MAX_BUFFERED_BYTES = 1024 * 1024;
+
+    private static final long serialVersionUID = -6271993404285126785L;
+
+    private final transient Object lock = new Object();
+    private final transient ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final transient PrintStream logger =
+            new PrintStream(new IssueCheckOutputStream(), true, StandardCharsets.UTF_8);
+    private transient PrintStream destination;
+    private transient boolean truncated = false;
+
+    PolarisIssueCheckLog(TaskListener stepListener) {
+        this.destination = stepListener.getLogger();
+    }
+
+    @Override
+    public PrintStream getLogger() {
+        return logger;
+    }
+
+    /**
+     * Keeps anything logged from now on in memory, until the log is attached to another step.
+     */
+    void detach() {
+        synchronized (lock) {
+            destination = null;
+        }
+    }
+
+    /**
+     * Writes what was kept in memory to the listener, followed by anything logged from now on.
+     */
+    void attach(TaskListener listener) {
+        synchronized (lock) {
+            PrintStream attachedLogger = listener.getLogger();
+            attachedLogger.write(buffer.toByteArray(), 0, buffer.size());
+            if (truncated) {
+                attachedLogger.println(String.format(
+                        "Coverity on Polaris Platform issue check logged more than %s bytes in the background, the rest of its log was dropped",
+                        MAX_BUFFERED_BYTES));
+            }
+            attachedLogger.flush();
+            buffer.reset();
+            truncated = false;
+            destination = attachedLogger;
+        }
+    }
+
+    // Sent to an agent as a listener that writes back to this log
+    private Object writeReplace() {
+        return new StreamTaskListener(logger, StandardCharsets.UTF_8);
+    }
+
+    private class IssueCheckOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            synchronized (lock) {
+                if (destination != null) {
+                    destination.write(b, off, len);
+                } else if (buffer.size() + len <= MAX_BUFFERED_BYTES) {
+                    buffer.write(b, off, len);
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            synchronized (lock) {
+                if (destination != null) {
+                    destination.flush();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.jenkins.exception.JenkinsUserFriendlyException;
+import com.blackduck.integration.jenkins.polaris.service.PolarisCliIssueCountService;
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCounts;
+import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the issue checks started by polarisIssueCheckAsync until they are collected by polarisAwait or the
+ * run that started them completes.
+ */
+@Extension
+public class PolarisIssueCheckRegistry {
+    public static final int DEFAULT_MAX_THREADS = 32;
+
+    private final ExecutorService executorService;
+    private final ExecutorService blockingExecutorService;
+    private final Map<String, PendingIssueCheck> pendingIssueChecks = new ConcurrentHashMap<>();
+
+    public PolarisIssueCheckRegistry() {
+        this(DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * Issue checks started by polarisIssueCheckAsync beyond the thread limit queue until a thread is free. They mostly
+     * wait on Polaris jobs, which the admission controller limits per server anyway, so more threads would only sit
+     * blocked. Issue checks that block their step are never queued here, so that the admission controller, which logs
+     * why a step is waiting, is the only limit on them.
+     */
+    PolarisIssueCheckRegistry(int maxThreads) {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                maxThreads,
+                maxThreads,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Coverity on Polaris issue check"));
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executorService = threadPoolExecutor;
+        this.blockingExecutorService = Executors.newCachedThreadPool(
+                new NamingThreadFactory(new DaemonThreadFactory(), "Coverity on Polaris blocking issue check"));
+    }
+
+    public static PolarisIssueCheckRegistry get() {
+        return ExtensionList.lookupSingleton(PolarisIssueCheckRegistry.class);
+    }
+
+    public PolarisIssueCheckHandle submit(Run<?, ?> run, Callable<PolarisIssueCounts> issueCheck) {
+        PolarisIssueCheckHandle handle = PolarisIssueCheckHandle.create();
+        Future<PolarisIssueCounts> future = executorService.submit(issueCheck);
+        pendingIssueChecks.put(handle.getId(), new PendingIssueCheck(run.getExternalizableId(), future));
+        return handle;
+    }
+
+    public Future<?> execute(Runnable issueCheck) {
+        return blockingExecutorService.submit(issueCheck);
+    }
+
+    /**
+     * Keeps the log of the issue check until polarisAwait attaches to it, see {@link PolarisIssueCheckLog}.
+     */
+    void deferLog(PolarisIssueCheckHandle handle, PolarisIssueCheckLog issueCheckLog) {
+        PendingIssueCheck pendingIssueCheck = pendingIssueChecks.get(handle.getId());
+        if (pendingIssueCheck != null) {
+            pendingIssueCheck.issueCheckLog = issueCheckLog;
+        }
+    }
+
+    /**
+     * Writes what the issue check logged in the background to the listener, and anything it logs until the returned
+     * attachment is closed.
+     */
+    LogAttachment attachLog(Run<?, ?> run, PolarisIssueCheckHandle handle, TaskListener listener) {
+        PendingIssueCheck pendingIssueCheck = handle == null ? null : pendingIssueChecks.get(handle.getId());
+        if (pendingIssueCheck == null
+                || pendingIssueCheck.issueCheckLog == null
+                || !pendingIssueCheck.runId.equals(run.getExternalizableId())) {
+            return () -> {};
+        }
+
+        PolarisIssueCheckLog issueCheckLog = pendingIssueCheck.issueCheckLog;
+        issueCheckLog.attach(listener);
+        return issueCheckLog::detach;
+    }
+
+    public PolarisIssueCounts await(Run<?, ?> run, PolarisIssueCheckHandle handle)
+            throws IntegrationException, InterruptedException {
+        if (handle == null) {
+            throw new JenkinsUserFriendlyException(
+                    "Coverity on Polaris Platform for Jenkins cannot await an issue check: no handle was provided.");
+        }
+
+        PendingIssueCheck pendingIssueCheck = pendingIssueChecks.get(handle.getId());
+        if (pendingIssueCheck == null || !pendingIssueCheck.runId.equals(run.getExternalizableId())) {
+            throw new JenkinsUserFriendlyException(String.format(
+                    "Coverity on Polaris Platform for Jenkins cannot find the issue check for %s. It may have already been awaited, or the Jenkins controller may have been restarted since it was started.",
+                    handle));
+        }
+
+        try {
+            return pendingIssueCheck.future.get();
+        } catch (InterruptedException e) {
+            pendingIssueCheck.future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IntegrationException) {
+                throw (IntegrationException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            throw new PolarisIntegrationException(
+                    PolarisCliIssueCountService.STEP_EXCEPTION_PREFIX + cause.getMessage(), cause);
+        } finally {
+            pendingIssueChecks.remove(handle.getId());
+        }
+    }
+
+    void cancelIssueChecksFor(Run<?, ?> run) {
+        String runId = run.getExternalizableId();
+        pendingIssueChecks.entrySet().removeIf(entry -> {
+            if (entry.getValue().runId.equals(runId)) {
+                entry.getValue().future.cancel(true);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static class PendingIssueCheck {
+        private final String runId;
+        private final Future<PolarisIssueCounts> future;
+        private volatile PolarisIssueCheckLog issueCheckLog;
+
+        private PendingIssueCheck(String runId, Future<PolarisIssueCounts> future) {
+            this.runId = runId;
+            this.future = future;
+        }
+    }
+
+    interface LogAttachment extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @Extension
+    public static class IssueCheckRunListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, TaskListener listener) {
+            // Issue checks that were never awaited would otherwise keep polling Polaris after the run is over
+            PolarisIssueCheckRegistry.get().cancelIssueChecksFor(run);
+        }
+    }
+}
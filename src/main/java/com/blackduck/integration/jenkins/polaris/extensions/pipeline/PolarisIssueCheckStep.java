@@ -7,8 +7,12 @@
 package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
 
 import com.blackduck.integration.jenkins.annotations.HelpMarkdown;
+import com.blackduck.integration.jenkins.polaris.PolarisPipelineCommands;
 import com.blackduck.integration.jenkins.polaris.service.PolarisCommandsFactory;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCheckState;
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCounts;
+import com.blackduck.integration.polaris.common.tracing.PolarisSpan;
+import com.blackduck.integration.polaris.common.tracing.PolarisTracing;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
@@ -16,11 +20,13 @@ import hudson.Launcher;
 import hudson.model.Node;
 import hudson.model.Run;
 import hudson.model.TaskListener;
-import java.io.IOException;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.jenkinsci.Symbol;
@@ -28,7 +34,6 @@ import org.jenkinsci.plugins.workflow.steps.Step;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
-import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
@@ -42,6 +47,11 @@ public class PolarisIssueCheckStep extends Step implements Serializable {
     @HelpMarkdown("Check this box to return the issue count as an integer instead of throwing an exception")
     private Boolean returnIssueCount;
 
+    @Nullable
+    @HelpMarkdown(
+            "Check this box to return the issue count of each tool as a map from tool name to issue count instead of throwing an exception. The map is empty when the cli-scan.json does not give each tool an issue api url, or when the Coverity on Polaris CLI was run with -w.")
+    private Boolean returnToolIssueCounts;
+
     @Nullable
     @HelpMarkdown(
             "The maximum number of minutes to wait for jobs started by the Coverity on Polaris CLI to complete when executed without -w (nonblocking mode). Must be a positive integer, defaults to 30 minutes.")
@@ -77,6 +87,19 @@ public class PolarisIssueCheckStep extends Step implements Serializable {
         this.returnIssueCount = returnIssueCount;
     }
 
+    @Nullable
+    public Boolean getReturnToolIssueCounts() {
+        if (!Boolean.TRUE.equals(returnToolIssueCounts)) {
+            return null;
+        }
+        return returnToolIssueCounts;
+    }
+
+    @DataBoundSetter
+    public void setReturnToolIssueCounts(Boolean returnToolIssueCounts) {
+        this.returnToolIssueCounts = returnToolIssueCounts;
+    }
+
     @Override
     public StepExecution start(StepContext context) throws Exception {
         return new Execution(context);
@@ -109,36 +132,85 @@ public class PolarisIssueCheckStep extends Step implements Serializable {
         }
     }
 
-    public class Execution extends SynchronousNonBlockingStepExecution<Integer> {
-        private static final long serialVersionUID = -3799159740768688972L;
+    public class Execution extends StepExecution {
+        private static final long serialVersionUID = 5406953812917725140L;
 
-        @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
-        private final transient TaskListener listener;
+        // Saved with the rest of the pipeline so that a wait interrupted by a controller restart can pick up where it
+        // left off instead of failing the step.
+        private PolarisIssueCheckState issueCheckState;
 
-        @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
-        private final transient EnvVars envVars;
+        private transient volatile Future<?> issueCheck;
+        // Stopping the step and the issue check failing can race, and the step may only be completed once
+        private final AtomicBoolean completed = new AtomicBoolean(false);
 
-        @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
-        private final transient FilePath workspace;
+        protected Execution(@Nonnull StepContext context) {
+            super(context);
+        }
 
-        private final transient Launcher launcher;
-        private final transient Node node;
-        private final transient Run<?, ?> run;
+        @Override
+        public boolean start() {
+            issueCheck = PolarisIssueCheckRegistry.get().execute(this::checkForIssues);
+            return false;
+        }
 
-        protected Execution(@Nonnull StepContext context) throws InterruptedException, IOException {
-            super(context);
-            listener = context.get(TaskListener.class);
-            envVars = context.get(EnvVars.class);
-            workspace = context.get(FilePath.class);
-            launcher = context.get(Launcher.class);
-            node = context.get(Node.class);
-            run = context.get(Run.class);
+        @Override
+        public void onResume() {
+            issueCheck = PolarisIssueCheckRegistry.get().execute(this::checkForIssues);
         }
 
         @Override
-        protected Integer run() throws Exception {
-            return PolarisCommandsFactory.fromPipeline(listener, envVars, launcher, node, run, workspace)
-                    .checkForIssues(jobTimeoutInMinutes, returnIssueCount);
+        public void stop(@Nonnull Throwable cause) throws Exception {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            Future<?> runningIssueCheck = issueCheck;
+            if (runningIssueCheck != null) {
+                runningIssueCheck.cancel(true);
+            }
+            super.stop(cause);
+        }
+
+        private void checkForIssues() {
+            StepContext context = getContext();
+            PolarisSpan stepSpan = PolarisTracing.startSpan(PIPELINE_NAME);
+            try {
+                TaskListener listener = context.get(TaskListener.class);
+                PolarisPipelineCommands polarisPipelineCommands = PolarisCommandsFactory.fromPipeline(
+                        listener,
+                        context.get(EnvVars.class),
+                        context.get(Launcher.class),
+                        context.get(Node.class),
+                        context.get(Run.class),
+                        context.get(FilePath.class));
+
+                if (issueCheckState == null) {
+                    issueCheckState = polarisPipelineCommands.prepareIssueCheck(jobTimeoutInMinutes);
+                    context.saveState();
+                } else {
+                    listener.getLogger()
+                            .println("Resuming the wait for Coverity on Polaris Platform jobs after a Jenkins restart");
+                }
+                // Save each completed tool job so that a restart does not wait for or count it again
+                issueCheckState.setToolJobCompletedListener(context::saveState);
+
+                boolean returnToolIssueCountMap = Boolean.TRUE.equals(returnToolIssueCounts);
+                PolarisIssueCounts polarisIssueCounts = polarisPipelineCommands.finishIssueCheck(
+                        issueCheckState, returnToolIssueCountMap || Boolean.TRUE.equals(returnIssueCount));
+                Object result = returnToolIssueCountMap
+                        ? new LinkedHashMap<>(polarisIssueCounts.getToolIssueCounts())
+                        : polarisIssueCounts.getTotalIssueCount();
+                stepSpan.succeeded();
+                if (completed.compareAndSet(false, true)) {
+                    context.onSuccess(result);
+                }
+            } catch (Throwable t) {
+                stepSpan.recordException(t);
+                if (completed.compareAndSet(false, true)) {
+                    context.onFailure(t);
+                }
+            } finally {
+                stepSpan.close();
+            }
         }
     }
 }
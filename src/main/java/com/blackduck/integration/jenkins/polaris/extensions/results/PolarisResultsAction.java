@@ -0,0 +1,159 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.results;
+
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCounts;
+import hudson.model.Run;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jenkins.model.RunAction2;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * The Coverity on Polaris results of one build: the CLI exit code, the issue counts, and the job states, kept with the
+ * build and available from its REST API. Only the results of this build are kept here, the trend of the job is kept in
+ * {@link PolarisTrend}.
+ */
+@ExportedBean
+public class PolarisResultsAction implements RunAction2 {
+    private static final Object RUN_ACTION_LOCK = new Object();
+
+    private transient Run<?, ?> run;
+    private Integer cliExitCode;
+    private Long cliDurationInMillis;
+    private String cliVersion;
+    private Integer totalIssueCount;
+    private LinkedHashMap<String, Integer> issuesBySeverity;
+    private LinkedHashMap<String, Integer> toolIssueCounts;
+    private LinkedHashMap<String, String> toolJobStates;
+    private Long issueCheckStartedAtMillis;
+    private Long issueCheckDurationInMillis;
+
+    public static PolarisResultsAction forRun(Run<?, ?> run) {
+        synchronized (RUN_ACTION_LOCK) {
+            PolarisResultsAction polarisResultsAction = run.getAction(PolarisResultsAction.class);
+            if (polarisResultsAction == null) {
+                polarisResultsAction = new PolarisResultsAction();
+                run.addAction(polarisResultsAction);
+            }
+            return polarisResultsAction;
+        }
+    }
+
+    public synchronized void recordPolarisCli(int exitCode, long durationInMillis) {
+        cliExitCode = exitCode;
+        cliDurationInMillis = durationInMillis;
+        updateTrend();
+    }
+
+    public synchronized void recordPolarisCliVersion(String polarisCliVersion) {
+        cliVersion = polarisCliVersion;
+    }
+
+    public synchronized void recordIssueCheckStarted() {
+        issueCheckStartedAtMillis = System.currentTimeMillis();
+    }
+
+    public synchronized void recordIssueCounts(PolarisIssueCounts polarisIssueCounts) {
+        totalIssueCount = polarisIssueCounts.getTotalIssueCount();
+        issuesBySeverity = new LinkedHashMap<>(polarisIssueCounts.getIssuesBySeverity());
+        toolIssueCounts = new LinkedHashMap<>(polarisIssueCounts.getToolIssueCounts());
+        recordToolJobStates(polarisIssueCounts.getToolJobStates());
+        updateTrend();
+    }
+
+    /**
+     * Records the last state each tool job was seen in. This is also recorded when waiting for the jobs failed, so the
+     * build shows which job failed or was still running.
+     */
+    public synchronized void recordToolJobStates(Map<String, String> toolJobStates) {
+        this.toolJobStates = new LinkedHashMap<>(toolJobStates);
+        if (issueCheckStartedAtMillis != null) {
+            issueCheckDurationInMillis = System.currentTimeMillis() - issueCheckStartedAtMillis;
+        }
+    }
+
+    @Exported
+    public synchronized Integer getCliExitCode() {
+        return cliExitCode;
+    }
+
+    @Exported
+    public synchronized Long getCliDurationInMillis() {
+        return cliDurationInMillis;
+    }
+
+    @Exported
+    public synchronized String getCliVersion() {
+        return cliVersion;
+    }
+
+    @Exported
+    public synchronized Integer getTotalIssueCount() {
+        return totalIssueCount;
+    }
+
+    @Exported
+    public synchronized Map<String, Integer> getIssuesBySeverity() {
+        return issuesBySeverity == null ? Collections.emptyMap() : new LinkedHashMap<>(issuesBySeverity);
+    }
+
+    @Exported
+    public synchronized Map<String, Integer> getToolIssueCounts() {
+        return toolIssueCounts == null ? Collections.emptyMap() : new LinkedHashMap<>(toolIssueCounts);
+    }
+
+    @Exported
+    public synchronized Map<String, String> getToolJobStates() {
+        return toolJobStates == null ? Collections.emptyMap() : new LinkedHashMap<>(toolJobStates);
+    }
+
+    @Exported
+    public synchronized Long getIssueCheckDurationInMillis() {
+        return issueCheckDurationInMillis;
+    }
+
+    private void updateTrend() {
+        if (run != null) {
+            PolarisTrendEntry trendEntry =
+                    new PolarisTrendEntry(run.getNumber(), totalIssueCount, cliExitCode, cliDurationInMillis);
+            PolarisTrend.forJob(run.getParent()).record(run.getParent(), trendEntry);
+        }
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public String getIconFileName() {
+        // Shown as a summary on the build page rather than as a link
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Coverity on Polaris";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "polaris";
+    }
+}
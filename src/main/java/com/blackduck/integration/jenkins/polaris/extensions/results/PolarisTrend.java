@@ -0,0 +1,136 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.results;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The Coverity on Polaris results of the most recent builds of a job, oldest first. The trend is kept in its own file
+ * next to the config.xml of the job and updated as each build records its results, so reading it never loads a build.
+ * The entry of a build is removed when the build is deleted.
+ */
+public class PolarisTrend {
+    public static final int TREND_SIZE = 50;
+    public static final String TREND_FILE_NAME = "polaris-trend.xml";
+    private static final Logger LOGGER = Logger.getLogger(PolarisTrend.class.getName());
+    // Jobs are only weakly referenced so that a deleted job takes its trend with it
+    private static final Map<Job<?, ?>, PolarisTrend> TRENDS_BY_JOB = new WeakHashMap<>();
+
+    private final ArrayList<PolarisTrendEntry> entries = new ArrayList<>();
+
+    /**
+     * The trend of the job, which is created if the job has none yet.
+     */
+    public static PolarisTrend forJob(Job<?, ?> job) {
+        return findForJob(job).orElseGet(() -> cache(job, new PolarisTrend()));
+    }
+
+    /**
+     * The trend of the job, if it has one. Jobs that never recorded Coverity on Polaris results are not cached, so this
+     * is cheap to call for every job.
+     */
+    public static Optional<PolarisTrend> findForJob(Job<?, ?> job) {
+        synchronized (TRENDS_BY_JOB) {
+            PolarisTrend polarisTrend = TRENDS_BY_JOB.get(job);
+            if (polarisTrend != null) {
+                return Optional.of(polarisTrend);
+            }
+        }
+
+        XmlFile trendFile = getTrendFile(job);
+        if (!trendFile.exists()) {
+            return Optional.empty();
+        }
+
+        // Read without holding the lock, so that reading one trend does not hold up the others
+        PolarisTrend polarisTrend = new PolarisTrend();
+        try {
+            trendFile.unmarshal(polarisTrend);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read the Coverity on Polaris trend of " + job.getFullName(), e);
+        }
+        return Optional.of(cache(job, polarisTrend));
+    }
+
+    // If another thread cached a trend for the job in the meantime, that one is kept
+    private static PolarisTrend cache(Job<?, ?> job, PolarisTrend polarisTrend) {
+        synchronized (TRENDS_BY_JOB) {
+            return TRENDS_BY_JOB.computeIfAbsent(job, ignored -> polarisTrend);
+        }
+    }
+
+    private static XmlFile getTrendFile(Job<?, ?> job) {
+        return new XmlFile(new File(job.getRootDir(), TREND_FILE_NAME));
+    }
+
+    public synchronized List<PolarisTrendEntry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    public synchronized PolarisTrendEntry getLatestEntry() {
+        return entries.isEmpty() ? null : entries.get(entries.size() - 1);
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Adds the entry of a build, or replaces it if that build was already recorded, and saves the trend of the job.
+     */
+    public synchronized void record(Job<?, ?> job, PolarisTrendEntry trendEntry) {
+        entries.removeIf(entry -> entry.getBuildNumber() == trendEntry.getBuildNumber());
+        entries.add(trendEntry);
+        entries.sort(Comparator.comparingInt(PolarisTrendEntry::getBuildNumber));
+        while (entries.size() > TREND_SIZE) {
+            entries.remove(0);
+        }
+
+        save(job);
+    }
+
+    /**
+     * Removes the entry of a deleted build, and saves the trend of the job if it had one.
+     */
+    public synchronized void forget(Job<?, ?> job, int buildNumber) {
+        if (entries.removeIf(entry -> entry.getBuildNumber() == buildNumber)) {
+            save(job);
+        }
+    }
+
+    private void save(Job<?, ?> job) {
+        try {
+            getTrendFile(job).write(this);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save the Coverity on Polaris trend of " + job.getFullName(), e);
+        }
+    }
+
+    @Extension
+    public static class TrendRunListener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            Job<?, ?> job = run.getParent();
+            findForJob(job).ifPresent(polarisTrend -> polarisTrend.forget(job, run.getNumber()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.results;
+
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import jenkins.model.TransientActionFactory;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * The Coverity on Polaris trend of a job, read from the {@link PolarisTrend} of the job rather than from its builds.
+ */
+@ExportedBean
+public class PolarisTrendAction implements Action {
+    private final Job<?, ?> job;
+    private final PolarisTrend polarisTrend;
+
+    public PolarisTrendAction(Job<?, ?> job, PolarisTrend polarisTrend) {
+        this.job = job;
+        this.polarisTrend = polarisTrend;
+    }
+
+    @Exported
+    public List<PolarisTrendEntry> getTrend() {
+        return polarisTrend.getEntries();
+    }
+
+    /**
+     * The results of the most recent build in the trend. Only that one build is loaded, and only when asked for.
+     */
+    @Exported
+    public PolarisResultsAction getLatestResults() {
+        PolarisTrendEntry latestEntry = polarisTrend.getLatestEntry();
+        if (latestEntry == null) {
+            return null;
+        }
+        Run<?, ?> latestRun = job.getBuildByNumber(latestEntry.getBuildNumber());
+        return latestRun == null ? null : latestRun.getAction(PolarisResultsAction.class);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Coverity on Polaris Trend";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "polaris-trend";
+    }
+
+    @Extension
+    @SuppressWarnings("rawtypes")
+    public static class Factory extends TransientActionFactory<Job> {
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @Nonnull
+        @Override
+        public Collection<? extends Action> createFor(@Nonnull Job job) {
+            // Called for every job on every page, so jobs without a trend are not given one here
+            return PolarisTrend.findForJob(job)
+                    .filter(polarisTrend -> !polarisTrend.isEmpty())
+                    .map(polarisTrend -> Collections.singletonList(new PolarisTrendAction(job, polarisTrend)))
+                    .orElse(Collections.emptyList());
+        }
+    }
+}
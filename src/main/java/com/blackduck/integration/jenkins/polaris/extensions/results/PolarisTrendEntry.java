@@ -0,0 +1,45 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.extensions.results;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+@ExportedBean(defaultVisibility = 2)
+public class PolarisTrendEntry {
+    private final int buildNumber;
+    private final Integer totalIssueCount;
+    private final Integer cliExitCode;
+    private final Long cliDurationInMillis;
+
+    public PolarisTrendEntry(int buildNumber, Integer totalIssueCount, Integer cliExitCode, Long cliDurationInMillis) {
+        this.buildNumber = buildNumber;
+        this.totalIssueCount = totalIssueCount;
+        this.cliExitCode = cliExitCode;
+        this.cliDurationInMillis = cliDurationInMillis;
+    }
+
+    @Exported
+    public int getBuildNumber() {
+        return buildNumber;
+    }
+
+    @Exported
+    public Integer getTotalIssueCount() {
+        return totalIssueCount;
+    }
+
+    @Exported
+    public Integer getCliExitCode() {
+        return cliExitCode;
+    }
+
+    @Exported
+    public Long getCliDurationInMillis() {
+        return cliDurationInMillis;
+    }
+}
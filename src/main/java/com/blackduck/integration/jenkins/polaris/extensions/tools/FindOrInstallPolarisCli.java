@@ -21,10 +21,12 @@ import com.blackduck.integration.util.OperatingSystemType;
 import com.google.gson.Gson;
 import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
 import java.nio.file.Files;
 import jenkins.security.MasterToSlaveCallable;
 
-public class FindOrInstallPolarisCli extends MasterToSlaveCallable<String, IntegrationException> {
+public class FindOrInstallPolarisCli
+        extends MasterToSlaveCallable<FindOrInstallPolarisCli.InstalledPolarisCli, IntegrationException> {
     private static final long serialVersionUID = 6457474109970149144L;
     private final JenkinsIntLogger jenkinsIntLogger;
     private final String polarisServerUrl;
@@ -84,7 +86,7 @@ public class FindOrInstallPolarisCli extends MasterToSlaveCallable<String, Integ
     }
 
     @Override
-    public String call() throws IntegrationException {
+    public InstalledPolarisCli call() throws IntegrationException {
         try {
             File installLocation = new File(installationLocation);
             OperatingSystemType operatingSystemType = OperatingSystemType.determineFromSystem();
@@ -112,12 +114,35 @@ public class FindOrInstallPolarisCli extends MasterToSlaveCallable<String, Integ
                     new HttpUrl(polarisServerUrl),
                     installLocation);
 
-            return polarisDownloadUtility
+            String polarisCliHome = polarisDownloadUtility
                     .getOrDownloadPolarisCliHome()
                     .orElseThrow(() -> new PolarisIntegrationException(
                             "The Coverity on Polaris CLI could not be found or installed correctly."));
+            return new InstalledPolarisCli(polarisCliHome, polarisDownloadUtility.getDownloadedBytes());
         } catch (IOException | IllegalArgumentException ex) {
             throw new PolarisIntegrationException(ex);
         }
     }
+
+    /**
+     * The installed CLI, along with what it took to install it, so that the controller can record it.
+     */
+    public static class InstalledPolarisCli implements Serializable {
+        private static final long serialVersionUID = -3391846202547716493L;
+        private final String polarisCliHome;
+        private final long downloadedBytes;
+
+        public InstalledPolarisCli(String polarisCliHome, long downloadedBytes) {
+            this.polarisCliHome = polarisCliHome;
+            this.downloadedBytes = downloadedBytes;
+        }
+
+        public String getPolarisCliHome() {
+            return polarisCliHome;
+        }
+
+        public long getDownloadedBytes() {
+            return downloadedBytes;
+        }
+    }
 }
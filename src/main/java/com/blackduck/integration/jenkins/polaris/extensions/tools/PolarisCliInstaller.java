@@ -11,7 +11,12 @@ import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
 import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisGlobalConfig;
 import com.blackduck.integration.jenkins.service.JenkinsConfigService;
 import com.blackduck.integration.jenkins.wrapper.JenkinsWrapper;
+import com.blackduck.integration.polaris.common.jfr.PolarisCliDownloadEvent;
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
 import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClient;
+import com.blackduck.integration.polaris.common.rest.PolarisCircuitBreaker;
+import com.blackduck.integration.rest.HttpUrl;
+import com.codahale.metrics.Timer;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
@@ -70,14 +75,43 @@ public class PolarisCliInstaller extends ToolInstaller {
         AccessTokenPolarisHttpClient polarisHttpClient = polarisGlobalConfig
                 .getPolarisServerConfig(jenkinsWrapper.getCredentialsHelper(), jenkinsWrapper.getProxyHelper())
                 .createPolarisHttpClient(jenkinsIntLogger);
+        // Fail fast instead of tying up the agent until the download times out while the server is known to be down
+        PolarisCircuitBreaker polarisCircuitBreaker =
+                PolarisCircuitBreaker.forServer(String.valueOf(polarisHttpClient.getPolarisServerUrl()));
+        if (PolarisCircuitBreaker.State.OPEN.equals(polarisCircuitBreaker.getState())) {
+            throw new AbortPolarisCliInstallException(
+                    tool,
+                    "The Coverity on Polaris Platform is not responding (" + polarisCircuitBreaker.getLastFailure()
+                            + ").");
+        }
+
         FindOrInstallPolarisCli findOrInstallPolarisCli = FindOrInstallPolarisCli.getConnectionDetailsFromHttpClient(
                 jenkinsIntLogger, polarisHttpClient, installLocation.getRemote());
 
-        try {
-            String polarisCliRemotePath = virtualChannel.call(findOrInstallPolarisCli);
-            return new FilePath(virtualChannel, polarisCliRemotePath);
+        // The installation runs on the agent, so it is measured here to record it in the controller's metrics. The
+        // archive is expanded as it is downloaded, so one timer covers both.
+        HttpUrl polarisServerUrl = polarisHttpClient.getPolarisServerUrl();
+        PolarisCliDownloadEvent event = new PolarisCliDownloadEvent();
+        event.begin();
+        long downloadedBytes = 0;
+        try (Timer.Context ignored = PolarisMetrics.timer(polarisServerUrl, "cli.install").time()) {
+            FindOrInstallPolarisCli.InstalledPolarisCli installedPolarisCli =
+                    virtualChannel.call(findOrInstallPolarisCli);
+            downloadedBytes = installedPolarisCli.getDownloadedBytes();
+            if (downloadedBytes > 0) {
+                PolarisMetrics.histogram(polarisServerUrl, "cli.download.bytes").update(downloadedBytes);
+            }
+            return new FilePath(virtualChannel, installedPolarisCli.getPolarisCliHome());
         } catch (IntegrationException ex) {
             throw new IOException("Coverity on Polaris CLI was not correctly installed.", ex);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.url = polarisServerUrl.string();
+                event.installDirectory = installLocation.getRemote();
+                event.bytes = downloadedBytes;
+                event.commit();
+            }
         }
     }
 
@@ -0,0 +1,29 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.jfr;
+
+import com.blackduck.integration.polaris.common.jfr.PolarisEvents;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Writing the changeset file for incremental analysis on the node, including the remoting call. This is recorded by
+ * the controller.
+ */
+@Name(PolarisEvents.NAME_PREFIX + "ChangeSetFile")
+@Label("Polaris Changeset File")
+@Category(PolarisEvents.CATEGORY)
+@Description("Writing the changeset file that the Coverity on Polaris CLI analyzes incrementally")
+public class PolarisChangeSetFileEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Changed Files")
+    public int changedFileCount;
+}
@@ -0,0 +1,31 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.jfr;
+
+import com.blackduck.integration.polaris.common.jfr.PolarisEvents;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Reading the cli-scan.json the Coverity on Polaris CLI left in the workspace, including the remoting call. This is
+ * recorded by the controller.
+ */
+@Name(PolarisEvents.NAME_PREFIX + "CliScanJson")
+@Label("Polaris cli-scan.json Read")
+@Category(PolarisEvents.CATEGORY)
+@Description("Reading the cli-scan.json written by the Coverity on Polaris CLI")
+public class PolarisCliScanJsonEvent extends jdk.jfr.Event {
+    @Label("Workspace")
+    public String workspace;
+
+    @Label("File Size")
+    @DataAmount
+    public long bytes;
+}
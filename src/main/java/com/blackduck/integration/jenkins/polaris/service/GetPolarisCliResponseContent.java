@@ -11,6 +11,7 @@ import com.blackduck.integration.polaris.common.exception.PolarisIntegrationExce
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import jenkins.security.MasterToSlaveCallable;
 
 public class GetPolarisCliResponseContent extends MasterToSlaveCallable<String, PolarisIntegrationException> {
@@ -25,10 +26,9 @@ public class GetPolarisCliResponseContent extends MasterToSlaveCallable<String,
 
     @Override
     public String call() throws PolarisIntegrationException {
+        Path pathToJson = PolarisCliResponseUtility.getDefaultPathToJson(workspaceRemotePath, polarisCliVersion);
         try {
-            byte[] bytes = Files.readAllBytes(
-                    PolarisCliResponseUtility.getDefaultPathToJson(workspaceRemotePath, polarisCliVersion));
-            return new String(bytes, StandardCharsets.UTF_8);
+            return new String(Files.readAllBytes(pathToJson), StandardCharsets.UTF_8);
         } catch (IOException e) {
             throw new PolarisIntegrationException(
                     "There was an error getting the Coverity on Polaris CLI response.", e);
@@ -0,0 +1,133 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.service;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
+import com.blackduck.integration.polaris.common.cli.PolarisCliResponseUtility;
+import com.blackduck.integration.polaris.common.configuration.PolarisServerConfig;
+import com.blackduck.integration.polaris.common.configuration.PolarisServerConfigBuilder;
+import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import com.blackduck.integration.polaris.common.service.PolarisServicesFactory;
+import hudson.model.TaskListener;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Waits for the Coverity on Polaris jobs of an issue check and counts their issues on the agent, so that the polling
+ * connections and threads are spread over the agents instead of all living on the controller. The issue check state
+ * comes back with the counts, or with the failure when the wait fails or times out, so that the controller can save the
+ * progress made on the agent. If the connection to the agent is lost nothing comes back, and a resumed wait checks the
+ * jobs completed on the agent again.
+ */
+public class GetPolarisIssueCounts
+        extends MasterToSlaveCallable<GetPolarisIssueCounts.AgentIssueCounts, IntegrationException> {
+    private static final long serialVersionUID = 3914853210466029451L;
+    private final TaskListener listener;
+    private final HashMap<String, String> polarisServerProperties;
+    private final int pageSize;
+    private final PolarisIssueCheckState issueCheckState;
+    private final long jobTimeoutInSeconds;
+
+    public GetPolarisIssueCounts(
+            TaskListener listener,
+            Map<String, String> polarisServerProperties,
+            int pageSize,
+            PolarisIssueCheckState issueCheckState,
+            long jobTimeoutInSeconds) {
+        this.listener = listener;
+        this.polarisServerProperties = new HashMap<>(polarisServerProperties);
+        this.pageSize = pageSize;
+        this.issueCheckState = issueCheckState;
+        this.jobTimeoutInSeconds = jobTimeoutInSeconds;
+    }
+
+    @Override
+    public AgentIssueCounts call() throws IntegrationException {
+        JenkinsIntLogger logger = JenkinsIntLogger.logToListener(listener);
+
+        PolarisServerConfigBuilder polarisServerConfigBuilder = PolarisServerConfig.newBuilder();
+        polarisServerConfigBuilder.setProperties(polarisServerProperties.entrySet());
+        PolarisServicesFactory polarisServicesFactory;
+        try {
+            polarisServicesFactory = polarisServerConfigBuilder.build().createPolarisServicesFactory(logger);
+        } catch (IllegalArgumentException ex) {
+            throw new PolarisIntegrationException(
+                    "There is a problem with your Coverity on Polaris system configuration", ex);
+        }
+        polarisServicesFactory.setDefaultPageSize(pageSize);
+
+        // The controller already admitted this wait, so nothing is limited again here
+        PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
+                logger,
+                polarisServicesFactory.createCountService(),
+                polarisServicesFactory.createJobService(),
+                PolarisCliResponseUtility.defaultUtility(logger),
+                PolarisAdmissionService.alreadyAdmitted(logger, polarisServerConfigBuilder.getUrl()));
+
+        return countIssues(polarisCliIssueCountService);
+    }
+
+    AgentIssueCounts countIssues(PolarisCliIssueCountService polarisCliIssueCountService) throws IntegrationException {
+        try {
+            PolarisIssueCounts polarisIssueCounts =
+                    polarisCliIssueCountService.getIssueCounts(issueCheckState, jobTimeoutInSeconds);
+            return new AgentIssueCounts(polarisIssueCounts, issueCheckState);
+        } catch (IntegrationException e) {
+            throw new AgentIssueCheckException(e, issueCheckState);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AgentIssueCheckException(
+                    new PolarisIntegrationException("Waiting for Coverity on Polaris Platform jobs was interrupted", e),
+                    issueCheckState);
+        }
+    }
+
+    /**
+     * Carries the progress made on the agent back to the controller along with the failure of the wait.
+     */
+    public static class AgentIssueCheckException extends PolarisIntegrationException {
+        private static final long serialVersionUID = 6155398027456918731L;
+
+        private final PolarisIssueCheckState issueCheckState;
+
+        public AgentIssueCheckException(IntegrationException failure, PolarisIssueCheckState issueCheckState) {
+            super(failure.getMessage(), failure);
+            this.issueCheckState = issueCheckState;
+        }
+
+        public IntegrationException getFailure() {
+            return (IntegrationException) getCause();
+        }
+
+        public PolarisIssueCheckState getIssueCheckState() {
+            return issueCheckState;
+        }
+    }
+
+    public static class AgentIssueCounts implements Serializable {
+        private static final long serialVersionUID = -2760394311687054321L;
+
+        private final PolarisIssueCounts polarisIssueCounts;
+        private final PolarisIssueCheckState issueCheckState;
+
+        public AgentIssueCounts(PolarisIssueCounts polarisIssueCounts, PolarisIssueCheckState issueCheckState) {
+            this.polarisIssueCounts = polarisIssueCounts;
+            this.issueCheckState = issueCheckState;
+        }
+
+        public PolarisIssueCounts getPolarisIssueCounts() {
+            return polarisIssueCounts;
+        }
+
+        public PolarisIssueCheckState getIssueCheckState() {
+            return issueCheckState;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.service;
+
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisAdmissionController;
+import com.blackduck.integration.log.IntLogger;
+
+public class PolarisAdmissionService {
+    private static final PolarisAdmissionController.Admission NOT_LIMITED = () -> {};
+
+    private final IntLogger logger;
+    private final PolarisAdmissionController polarisAdmissionController;
+    private final String polarisUrl;
+    private final int maxConcurrentScans;
+    private final int maxConcurrentWaits;
+    private final String queueKey;
+    private final String buildName;
+
+    public PolarisAdmissionService(
+            IntLogger logger,
+            PolarisAdmissionController polarisAdmissionController,
+            String polarisUrl,
+            int maxConcurrentScans,
+            int maxConcurrentWaits,
+            String queueKey) {
+        this(
+                logger,
+                polarisAdmissionController,
+                polarisUrl,
+                maxConcurrentScans,
+                maxConcurrentWaits,
+                queueKey,
+                queueKey);
+    }
+
+    public PolarisAdmissionService(
+            IntLogger logger,
+            PolarisAdmissionController polarisAdmissionController,
+            String polarisUrl,
+            int maxConcurrentScans,
+            int maxConcurrentWaits,
+            String queueKey,
+            String buildName) {
+        this.logger = logger;
+        this.polarisAdmissionController = polarisAdmissionController;
+        this.polarisUrl = polarisUrl;
+        this.maxConcurrentScans = maxConcurrentScans;
+        this.maxConcurrentWaits = maxConcurrentWaits;
+        this.queueKey = queueKey;
+        this.buildName = buildName;
+    }
+
+    /**
+     * For work the controller has already admitted, such as the waits that run on an agent. Nothing is limited again.
+     */
+    public static PolarisAdmissionService alreadyAdmitted(IntLogger logger, String polarisUrl) {
+        return new PolarisAdmissionService(logger, null, polarisUrl, 0, 0, null);
+    }
+
+    public String getPolarisUrl() {
+        return polarisUrl;
+    }
+
+    /**
+     * The build the operations are admitted for, as shown on the Coverity on Polaris Operations page.
+     */
+    public String getBuildName() {
+        return buildName;
+    }
+
+    public PolarisAdmissionController.Admission admitScan() throws InterruptedException {
+        if (polarisAdmissionController == null) {
+            return NOT_LIMITED;
+        }
+        return polarisAdmissionController.admit(
+                polarisUrl, PolarisAdmissionController.Operation.SCAN, maxConcurrentScans, queueKey, logger);
+    }
+
+    public PolarisAdmissionController.Admission readmitScan() {
+        if (polarisAdmissionController == null) {
+            return NOT_LIMITED;
+        }
+        return polarisAdmissionController.readmit(
+                polarisUrl, PolarisAdmissionController.Operation.SCAN, maxConcurrentScans);
+    }
+
+    public PolarisAdmissionController.Admission admitWait() throws InterruptedException {
+        if (polarisAdmissionController == null) {
+            return NOT_LIMITED;
+        }
+        return polarisAdmissionController.admit(
+                polarisUrl, PolarisAdmissionController.Operation.WAIT, maxConcurrentWaits, queueKey, logger);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.service;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.jenkins.service.JenkinsRemotingService;
+import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import com.blackduck.integration.polaris.common.tracing.PolarisSpan;
+import com.blackduck.integration.polaris.common.tracing.PolarisTracing;
+import hudson.model.TaskListener;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Hands the wait for Coverity on Polaris jobs and the issue count to the agent the step runs on. Only the final counts
+ * and the tool jobs completed on the agent come back to the controller, also when the wait on the agent fails.
+ */
+public class PolarisAgentIssueCounter {
+    private final JenkinsRemotingService jenkinsRemotingService;
+    private final TaskListener listener;
+    private final Map<String, String> polarisServerProperties;
+    private final int pageSize;
+
+    public PolarisAgentIssueCounter(
+            JenkinsRemotingService jenkinsRemotingService,
+            TaskListener listener,
+            Map<String, String> polarisServerProperties,
+            int pageSize) {
+        this.jenkinsRemotingService = jenkinsRemotingService;
+        this.listener = listener;
+        this.polarisServerProperties = polarisServerProperties;
+        this.pageSize = pageSize;
+    }
+
+    public PolarisIssueCounts getIssueCounts(PolarisIssueCheckState issueCheckState, long jobTimeoutInSeconds)
+            throws IntegrationException, InterruptedException {
+        try (PolarisSpan span = PolarisTracing.startSpan("remoting GetPolarisIssueCounts")) {
+            GetPolarisIssueCounts.AgentIssueCounts agentIssueCounts =
+                    jenkinsRemotingService.call(new GetPolarisIssueCounts(
+                            listener, polarisServerProperties, pageSize, issueCheckState, jobTimeoutInSeconds));
+            // The agent waited on its own copy of the state, so its progress is saved with the issue check here
+            issueCheckState.recordProgressOf(agentIssueCounts.getIssueCheckState());
+            span.succeeded();
+            return agentIssueCounts.getPolarisIssueCounts();
+        } catch (GetPolarisIssueCounts.AgentIssueCheckException e) {
+            // A resumed wait does not wait for or count the jobs that completed on the agent before it failed
+            issueCheckState.recordProgressOf(e.getIssueCheckState());
+            throw e.getFailure();
+        } catch (IOException e) {
+            throw new PolarisIntegrationException(
+                    "Could not wait for Coverity on Polaris Platform jobs on the agent: " + e.getMessage(), e);
+        }
+    }
+}
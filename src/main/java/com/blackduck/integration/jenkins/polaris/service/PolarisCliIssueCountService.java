@@ -9,46 +9,135 @@ package com.blackduck.integration.jenkins.polaris.service;
 import com.blackduck.integration.exception.IntegrationException;
 import com.blackduck.integration.jenkins.exception.JenkinsUserFriendlyException;
 import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisAdmissionController;
 import com.blackduck.integration.polaris.common.cli.PolarisCliResponseUtility;
 import com.blackduck.integration.polaris.common.cli.model.CliCommonResponseModel;
 import com.blackduck.integration.polaris.common.cli.model.CommonIssueSummary;
 import com.blackduck.integration.polaris.common.cli.model.CommonScanInfo;
 import com.blackduck.integration.polaris.common.cli.model.CommonToolInfo;
+import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
+import com.blackduck.integration.polaris.common.metrics.PolarisOperations;
 import com.blackduck.integration.polaris.common.service.CountService;
 import com.blackduck.integration.polaris.common.service.JobService;
+import com.blackduck.integration.polaris.common.tracing.PolarisTracing;
 import com.blackduck.integration.rest.HttpUrl;
+import com.codahale.metrics.Timer;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
 
 public class PolarisCliIssueCountService {
     public static final String STEP_EXCEPTION_PREFIX =
             "Issue count for most recent Coverity on Polaris Platform analysis could not be determined: ";
+    // Each tool job is waited on by a thread of its own for as long as the job runs, further waits queue until threads
+    // free up
+    private static final int TOOL_WAIT_MAX_THREADS = 32;
+    private static final ExecutorService TOOL_WAIT_EXECUTOR =
+            PolarisTracing.propagateContext(createToolWaitExecutor());
+
     private final JenkinsIntLogger logger;
     private final CountService countService;
     private final JobService jobService;
     private final PolarisCliResponseUtility polarisCliResponseUtility;
+    private final PolarisAdmissionService polarisAdmissionService;
+    private final PolarisAgentIssueCounter polarisAgentIssueCounter;
+
+    public PolarisCliIssueCountService(
+            JenkinsIntLogger logger,
+            CountService countService,
+            JobService jobService,
+            PolarisCliResponseUtility polarisCliResponseUtility,
+            PolarisAdmissionService polarisAdmissionService) {
+        this(logger, countService, jobService, polarisCliResponseUtility, polarisAdmissionService, null);
+    }
 
+    /**
+     * When an agent issue counter is given, jobs are waited for and counted on the agent instead of the controller.
+     */
     public PolarisCliIssueCountService(
             JenkinsIntLogger logger,
             CountService countService,
             JobService jobService,
-            PolarisCliResponseUtility polarisCliResponseUtility) {
+            PolarisCliResponseUtility polarisCliResponseUtility,
+            PolarisAdmissionService polarisAdmissionService,
+            PolarisAgentIssueCounter polarisAgentIssueCounter) {
         this.logger = logger;
         this.countService = countService;
         this.jobService = jobService;
         this.polarisCliResponseUtility = polarisCliResponseUtility;
+        this.polarisAdmissionService = polarisAdmissionService;
+        this.polarisAgentIssueCounter = polarisAgentIssueCounter;
     }
 
     public Integer getIssueCount(long jobTimeoutInSeconds, String cliCommonResponseModelJson)
             throws IntegrationException, JenkinsUserFriendlyException, InterruptedException {
-        CliCommonResponseModel polarisCliResponseModel =
-                polarisCliResponseUtility.getPolarisCliResponseModelFromString(cliCommonResponseModelJson);
+        return getIssueCounts(jobTimeoutInSeconds, cliCommonResponseModelJson).getTotalIssueCount();
+    }
+
+    public PolarisIssueCounts getIssueCounts(long jobTimeoutInSeconds, String cliCommonResponseModelJson)
+            throws IntegrationException, JenkinsUserFriendlyException, InterruptedException {
+        CliCommonResponseModel polarisCliResponseModel = parseCliResponse(cliCommonResponseModelJson);
+        return getIssueCounts(jobTimeoutInSeconds, polarisCliResponseModel);
+    }
+
+    public CliCommonResponseModel parseCliResponse(String cliCommonResponseModelJson) throws IntegrationException {
+        try (Timer.Context ignored =
+                PolarisMetrics.timer(polarisAdmissionService.getPolarisUrl(), "cli_scan.parse").time()) {
+            return polarisCliResponseUtility.getPolarisCliResponseModelFromString(cliCommonResponseModelJson);
+        }
+    }
 
+    public PolarisIssueCounts getIssueCounts(long jobTimeoutInSeconds, CliCommonResponseModel polarisCliResponseModel)
+            throws IntegrationException, JenkinsUserFriendlyException, InterruptedException {
+        PolarisIssueCheckState issueCheckState = createIssueCheckState(jobTimeoutInSeconds, polarisCliResponseModel);
+        return getIssueCounts(issueCheckState, jobTimeoutInSeconds);
+    }
+
+    public PolarisIssueCounts getIssueCounts(PolarisIssueCheckState issueCheckState)
+            throws IntegrationException, InterruptedException {
+        // The state may have been restored after a restart, so only the time left before the original deadline is
+        // used. Even when that has already passed, the jobs get polled once in case they finished in the meantime.
+        long remainingTimeoutInSeconds =
+                Math.max(1, (issueCheckState.getDeadlineInMillis() - System.currentTimeMillis()) / 1000);
+        return getIssueCounts(issueCheckState, remainingTimeoutInSeconds);
+    }
+
+    public PolarisIssueCheckState createIssueCheckState(
+            long jobTimeoutInSeconds, CliCommonResponseModel polarisCliResponseModel)
+            throws JenkinsUserFriendlyException {
         Optional<CommonIssueSummary> issueSummary = polarisCliResponseModel.getIssueSummary();
         CommonScanInfo scanInfo = polarisCliResponseModel.getScanInfo();
+        List<CommonToolInfo> tools =
+                Optional.ofNullable(polarisCliResponseModel.getTools()).orElse(Collections.emptyList());
 
         if (issueSummary.isPresent()) {
             logger.debug("Found total issue count in cli-scan.json, scan must have been run with -w");
-            return issueSummary.get().getTotalIssueCount();
+            Map<String, Integer> issuesBySeverity =
+                    Optional.ofNullable(issueSummary.get().getIssuesBySeverity()).orElse(Collections.emptyMap());
+            Map<String, String> toolJobStates = new LinkedHashMap<>();
+            for (CommonToolInfo tool : tools) {
+                if (tool.getToolName() != null && tool.getJobStatus() != null) {
+                    toolJobStates.put(tool.getToolName(), tool.getJobStatus());
+                }
+            }
+            return PolarisIssueCheckState.fromIssueSummary(
+                    issueSummary.get().getTotalIssueCount(), issuesBySeverity, toolJobStates);
         }
 
         if (jobTimeoutInSeconds < 1) {
@@ -62,18 +151,173 @@ public class PolarisCliIssueCountService {
                         () -> new JenkinsUserFriendlyException(
                                 "Coverity on Polaris Platform for Jenkins cannot find the total issue count or issue api url in the cli-scan.json. Please ensure that you are using a supported version of the Coverity on Polaris CLI."));
 
-        logger.debug("Found issue api url, polling for job status");
-
-        for (CommonToolInfo tool : polarisCliResponseModel.getTools()) {
-            HttpUrl jobStatusUrl = tool.getJobStatusUrl();
-            if (jobStatusUrl == null) {
+        List<PolarisIssueCheckState.ToolJob> toolJobs = new ArrayList<>();
+        for (int i = 0; i < tools.size(); i++) {
+            CommonToolInfo tool = tools.get(i);
+            if (tool.getJobStatusUrl() == null) {
                 throw new JenkinsUserFriendlyException(
                         STEP_EXCEPTION_PREFIX + "tool with name " + tool.getToolName() + " has no jobStatusUrl");
             }
-            jobService.waitForJobStateIsCompletedOrDieByUrl(
-                    jobStatusUrl, jobTimeoutInSeconds, JobService.DEFAULT_WAIT_INTERVAL);
+            String toolName = StringUtils.defaultIfBlank(tool.getToolName(), "tool " + (i + 1));
+            String jobStatusUrl = tool.getJobStatusUrl().string();
+            String toolIssueApiUrl = tool.getIssueApiUrl().map(HttpUrl::string).orElse(null);
+            toolJobs.add(new PolarisIssueCheckState.ToolJob(toolName, jobStatusUrl, toolIssueApiUrl));
         }
 
-        return countService.getTotalIssueCountFromIssueApiUrl(issueApiUrl);
+        // Tools only get their own issue api url from version 2 of the cli-scan.json, so the combined issue api url is
+        // still needed whenever one of them is missing.
+        boolean countPerTool = !tools.isEmpty() && tools.stream().allMatch(tool -> tool.getIssueApiUrl().isPresent());
+        long deadlineInMillis = System.currentTimeMillis() + jobTimeoutInSeconds * 1000;
+
+        return PolarisIssueCheckState.forPendingJobs(issueApiUrl.string(), toolJobs, countPerTool, deadlineInMillis);
+    }
+
+    public PolarisIssueCounts getIssueCounts(PolarisIssueCheckState issueCheckState, long jobTimeoutInSeconds)
+            throws IntegrationException, InterruptedException {
+        if (issueCheckState.hasIssueSummary()) {
+            return new PolarisIssueCounts(
+                    issueCheckState.getIssueSummaryTotal(),
+                    Collections.emptyMap(),
+                    issueCheckState.getIssuesBySeverity(),
+                    issueCheckState.getToolJobStates());
+        }
+
+        long admissionStartedAtMillis = System.currentTimeMillis();
+        if (polarisAgentIssueCounter != null) {
+            logger.debug("Found issue api url, polling for job status from the agent");
+            // Admitted here so that the wait limit still covers waits that run on agents
+            List<PolarisOperations.Operation> agentJobWaits = new ArrayList<>();
+            try (PolarisAdmissionController.Admission ignored = polarisAdmissionService.admitWait()) {
+                long remainingTimeoutInSeconds =
+                        getRemainingTimeoutInSeconds(jobTimeoutInSeconds, admissionStartedAtMillis);
+                // The agent polls the jobs, so only the waits themselves can be listed on the controller
+                for (PolarisIssueCheckState.ToolJob toolJob : issueCheckState.getPendingToolJobs()) {
+                    PolarisOperations.Operation jobWait = startJobWait(toolJob, remainingTimeoutInSeconds);
+                    jobWait.setState(PolarisOperations.POLLED_ON_AGENT);
+                    agentJobWaits.add(jobWait);
+                }
+                return polarisAgentIssueCounter.getIssueCounts(issueCheckState, remainingTimeoutInSeconds);
+            } finally {
+                agentJobWaits.forEach(PolarisOperations.Operation::close);
+            }
+        }
+
+        logger.debug("Found issue api url, polling for job status");
+
+        try (PolarisAdmissionController.Admission ignored = polarisAdmissionService.admitWait()) {
+            waitForToolsAndCountIssues(
+                    issueCheckState, getRemainingTimeoutInSeconds(jobTimeoutInSeconds, admissionStartedAtMillis));
+        }
+
+        Map<String, String> toolJobStates = issueCheckState.getToolJobStates();
+        if (issueCheckState.isCountPerTool()) {
+            Map<String, Integer> toolIssueCounts = issueCheckState.getToolIssueCounts();
+            int totalIssueCount = toolIssueCounts.values().stream().reduce(0, Integer::sum);
+            return new PolarisIssueCounts(totalIssueCount, toolIssueCounts).withToolJobStates(toolJobStates);
+        }
+
+        HttpUrl issueApiUrl = new HttpUrl(issueCheckState.getIssueApiUrl());
+        return PolarisIssueCounts.totalOnly(countService.getTotalIssueCountFromIssueApiUrl(issueApiUrl))
+                .withToolJobStates(toolJobStates);
+    }
+
+    private void waitForToolsAndCountIssues(PolarisIssueCheckState issueCheckState, long jobTimeoutInSeconds)
+            throws IntegrationException, InterruptedException {
+        List<PolarisIssueCheckState.ToolJob> pendingToolJobs = issueCheckState.getPendingToolJobs();
+        if (pendingToolJobs.isEmpty()) {
+            return;
+        }
+
+        // Each tool is waited on (and counted) by its own thread so that a fast tool can report back before a slow one
+        // has finished.
+        CompletionService<Integer> completionService = new ExecutorCompletionService<>(TOOL_WAIT_EXECUTOR);
+        Map<Future<Integer>, PolarisIssueCheckState.ToolJob> toolJobsByFuture = new HashMap<>();
+        try {
+            for (PolarisIssueCheckState.ToolJob toolJob : pendingToolJobs) {
+                Future<Integer> future = completionService.submit(
+                        () -> waitForToolAndCountIssues(issueCheckState, toolJob, jobTimeoutInSeconds));
+                toolJobsByFuture.put(future, toolJob);
+            }
+
+            for (int i = 0; i < pendingToolJobs.size(); i++) {
+                Future<Integer> completedFuture = completionService.take();
+                Integer toolIssueCount = getToolResult(completedFuture);
+                PolarisIssueCheckState.ToolJob toolJob = toolJobsByFuture.get(completedFuture);
+                if (toolIssueCount != null) {
+                    logger.info(String.format("Found %s issues for %s", toolIssueCount, toolJob.getToolName()));
+                }
+                issueCheckState.recordToolJobCompleted(toolJob, toolIssueCount);
+            }
+        } finally {
+            // Stops the waits that are still running when one fails or this thread is interrupted
+            toolJobsByFuture.keySet().forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Integer waitForToolAndCountIssues(
+            PolarisIssueCheckState issueCheckState, PolarisIssueCheckState.ToolJob toolJob, long jobTimeoutInSeconds)
+            throws IntegrationException, InterruptedException {
+        try (PolarisOperations.Operation jobWait = startJobWait(toolJob, jobTimeoutInSeconds)) {
+            try {
+                jobService.waitForJobStateIsCompletedOrDieByUrl(
+                        new HttpUrl(toolJob.getJobStatusUrl()), jobTimeoutInSeconds, JobService.DEFAULT_WAIT_INTERVAL);
+            } finally {
+                // The wait follows the polled job status, so this is the state the job was last seen in
+                if (jobWait.getState() != null) {
+                    issueCheckState.recordToolJobState(toolJob, jobWait.getState());
+                }
+            }
+        }
+
+        if (issueCheckState.isCountPerTool() && toolJob.getIssueApiUrl() != null) {
+            return countService.getTotalIssueCountFromIssueApiUrl(new HttpUrl(toolJob.getIssueApiUrl()));
+        }
+
+        return null;
+    }
+
+    /**
+     * The time spent queued for admission counts against the job timeout. Even when it has all been spent queueing,
+     * the jobs get polled once in case they finished in the meantime.
+     */
+    private long getRemainingTimeoutInSeconds(long jobTimeoutInSeconds, long admissionStartedAtMillis) {
+        long queuedInSeconds = (System.currentTimeMillis() - admissionStartedAtMillis) / 1000;
+        return Math.max(1, jobTimeoutInSeconds - queuedInSeconds);
+    }
+
+    private PolarisOperations.Operation startJobWait(
+            PolarisIssueCheckState.ToolJob toolJob, long jobTimeoutInSeconds) {
+        return PolarisOperations.startJobWait(
+                polarisAdmissionService.getPolarisUrl(),
+                polarisAdmissionService.getBuildName(),
+                toolJob.getToolName(),
+                toolJob.getJobStatusUrl(),
+                jobTimeoutInSeconds);
+    }
+
+    private static ThreadPoolExecutor createToolWaitExecutor() {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                TOOL_WAIT_MAX_THREADS,
+                TOOL_WAIT_MAX_THREADS,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Coverity on Polaris tool job wait"));
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    private Integer getToolResult(Future<Integer> completedFuture) throws IntegrationException, InterruptedException {
+        try {
+            return completedFuture.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IntegrationException) {
+                throw (IntegrationException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            throw new PolarisIntegrationException(STEP_EXCEPTION_PREFIX + cause.getMessage(), cause);
+        }
     }
 }
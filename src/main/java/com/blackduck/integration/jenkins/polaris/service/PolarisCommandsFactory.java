@@ -13,7 +13,11 @@ import com.blackduck.integration.jenkins.polaris.PolarisCliRunner;
 import com.blackduck.integration.jenkins.polaris.PolarisFreestyleCommands;
 import com.blackduck.integration.jenkins.polaris.PolarisIssueChecker;
 import com.blackduck.integration.jenkins.polaris.PolarisPipelineCommands;
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisAdmissionController;
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisBuildContext;
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisBuildContextRegistry;
 import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisGlobalConfig;
+import com.blackduck.integration.jenkins.polaris.extensions.pipeline.PolarisIssueCheckRegistry;
 import com.blackduck.integration.jenkins.service.JenkinsBuildService;
 import com.blackduck.integration.jenkins.service.JenkinsConfigService;
 import com.blackduck.integration.jenkins.service.JenkinsFreestyleServicesFactory;
@@ -33,10 +37,16 @@ import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
 import hudson.model.Node;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class PolarisCommandsFactory {
@@ -46,6 +56,7 @@ public class PolarisCommandsFactory {
     // These fields are lazily initialized; within this class use the suppliers instead of referencing the fields
     // directly
     private JenkinsIntLogger _logger = null;
+    private PolarisServicesFactory _polarisServicesFactory = null;
     private final Supplier<JenkinsIntLogger> initializedLogger = this::getOrCreateLogger;
 
     private PolarisCommandsFactory(JenkinsWrapper jenkinsWrapper, EnvVars envVars, TaskListener listener) {
@@ -72,20 +83,22 @@ public class PolarisCommandsFactory {
         JenkinsConfigService jenkinsConfigService = jenkinsServicesFactory.createJenkinsConfigService();
         JenkinsBuildService jenkinsBuildService = jenkinsServicesFactory.createJenkinsBuildService();
         JenkinsRunService jenkinsRunService = jenkinsServicesFactory.createJenkinsRunService();
-
-        ChangeSetFileCreator changeSetFileCreator =
-                polarisCommandsFactory.createChangeSetFileCreator(jenkinsRemotingService, jenkinsRunService);
-        PolarisCliRunner polarisCliRunner =
-                polarisCommandsFactory.createPolarisCliRunner(jenkinsConfigService, jenkinsRemotingService);
-        PolarisIssueChecker polarisIssueCounter = polarisCommandsFactory.createPolarisIssueCounter(
-                jenkinsConfigService, jenkinsRemotingService, jenkinsRunService);
+        polarisCommandsFactory.validateConfiguration(jenkinsConfigService, jenkinsRunService);
+        EnvVars envVars = build.getEnvironment(listener);
+        Node node = build.getBuiltOn();
 
         return new PolarisFreestyleCommands(
                 polarisCommandsFactory.getOrCreateLogger(),
                 jenkinsBuildService,
-                changeSetFileCreator,
-                polarisCliRunner,
-                polarisIssueCounter);
+                new LazyComponent<>(() ->
+                        polarisCommandsFactory.createChangeSetFileCreator(jenkinsRemotingService, jenkinsRunService)),
+                new LazyComponent<>(() -> polarisCommandsFactory.createPolarisCliRunner(
+                        jenkinsConfigService,
+                        installationListener -> new JenkinsConfigService(envVars, node, installationListener),
+                        jenkinsRemotingService,
+                        jenkinsRunService)),
+                new LazyComponent<>(() -> polarisCommandsFactory.createPolarisIssueCounter(
+                        jenkinsConfigService, jenkinsRemotingService, jenkinsRunService)));
     }
 
     public static PolarisPipelineCommands fromPipeline(
@@ -99,19 +112,29 @@ public class PolarisCommandsFactory {
         JenkinsRemotingService jenkinsRemotingService = jenkinsServicesFactory.createJenkinsRemotingService();
         JenkinsConfigService jenkinsConfigService = jenkinsServicesFactory.createJenkinsConfigService();
         JenkinsRunService jenkinsRunService = jenkinsServicesFactory.createJenkinsRunService();
-
-        ChangeSetFileCreator changeSetFileCreator =
-                polarisCommandsFactory.createChangeSetFileCreator(jenkinsRemotingService, jenkinsRunService);
-        PolarisCliRunner polarisCliRunner =
-                polarisCommandsFactory.createPolarisCliRunner(jenkinsConfigService, jenkinsRemotingService);
-        PolarisIssueChecker polarisIssueCounter = polarisCommandsFactory.createPolarisIssueCounter(
-                jenkinsConfigService, jenkinsRemotingService, jenkinsRunService);
+        polarisCommandsFactory.validateConfiguration(jenkinsConfigService, jenkinsRunService);
 
         return new PolarisPipelineCommands(
                 polarisCommandsFactory.getOrCreateLogger(),
-                changeSetFileCreator,
-                polarisCliRunner,
-                polarisIssueCounter);
+                new LazyComponent<>(() ->
+                        polarisCommandsFactory.createChangeSetFileCreator(jenkinsRemotingService, jenkinsRunService)),
+                new LazyComponent<>(() -> polarisCommandsFactory.createPolarisCliRunner(
+                        jenkinsConfigService,
+                        installationListener -> new JenkinsConfigService(envVars, node, installationListener),
+                        jenkinsRemotingService,
+                        jenkinsRunService)),
+                new LazyComponent<>(() -> polarisCommandsFactory.createPolarisIssueCounter(
+                        jenkinsConfigService, jenkinsRemotingService, jenkinsRunService)));
+    }
+
+    /**
+     * The step's components are only built when the step first uses them, so a missing Jenkins instance or global
+     * configuration is checked for up front. Both are cheap to check, the global configuration is shared by the run.
+     */
+    private void validateConfiguration(JenkinsConfigService jenkinsConfigService, JenkinsRunService jenkinsRunService)
+            throws AbortException {
+        validatedJenkinsWrapper.get();
+        getPolarisBuildContext(jenkinsConfigService, jenkinsRunService);
     }
 
     public PolarisIssueChecker createPolarisIssueCounter(
@@ -121,26 +144,34 @@ public class PolarisCommandsFactory {
             throws AbortException {
         return new PolarisIssueChecker(
                 initializedLogger.get(),
-                createPolarisCliIssueCountService(jenkinsConfigService),
+                createPolarisCliIssueCountService(jenkinsConfigService, jenkinsRemotingService, jenkinsRunService),
                 jenkinsRemotingService,
                 jenkinsRunService,
-                validatedJenkinsWrapper.get().getVersionHelper());
+                validatedJenkinsWrapper.get().getVersionHelper(),
+                PolarisIssueCheckRegistry.get(),
+                new PolarisResultsRecorder(jenkinsRunService.getRun()));
     }
 
     public PolarisCliRunner createPolarisCliRunner(
-            JenkinsConfigService jenkinsConfigService, JenkinsRemotingService jenkinsRemotingService)
+            JenkinsConfigService jenkinsConfigService,
+            Function<TaskListener, JenkinsConfigService> jenkinsConfigServiceForListener,
+            JenkinsRemotingService jenkinsRemotingService,
+            JenkinsRunService jenkinsRunService)
             throws AbortException {
         JenkinsWrapper jenkinsWrapper = validatedJenkinsWrapper.get();
         return new PolarisCliRunner(
                 initializedLogger.get(),
                 createPolarisCliArgumentService(),
                 createPolarisEnvironmentService(),
-                createPolarisPhoneHomeService(jenkinsConfigService),
+                createPolarisPhoneHomeService(jenkinsConfigService, jenkinsRunService),
                 jenkinsRemotingService,
                 jenkinsConfigService,
+                jenkinsConfigServiceForListener,
                 jenkinsWrapper.getCredentialsHelper(),
                 jenkinsWrapper.getProxyHelper(),
-                jenkinsWrapper.getVersionHelper());
+                jenkinsWrapper.getVersionHelper(),
+                createPolarisAdmissionService(jenkinsConfigService, jenkinsRunService),
+                new PolarisResultsRecorder(jenkinsRunService.getRun()));
     }
 
     public ChangeSetFileCreator createChangeSetFileCreator(
@@ -157,26 +188,83 @@ public class PolarisCommandsFactory {
         return new PolarisCliArgumentService(initializedLogger.get());
     }
 
-    private PolarisCliIssueCountService createPolarisCliIssueCountService(JenkinsConfigService jenkinsConfigService)
+    private PolarisCliIssueCountService createPolarisCliIssueCountService(
+            JenkinsConfigService jenkinsConfigService,
+            JenkinsRemotingService jenkinsRemotingService,
+            JenkinsRunService jenkinsRunService)
             throws AbortException {
-        PolarisServicesFactory polarisServicesFactory = createPolarisServicesFactory(jenkinsConfigService);
+        PolarisServicesFactory polarisServicesFactory =
+                createPolarisServicesFactory(jenkinsConfigService, jenkinsRunService);
         JobService jobService = polarisServicesFactory.createJobService();
         CountService countService = polarisServicesFactory.createCountService();
         PolarisCliResponseUtility polarisCliResponseUtility =
                 PolarisCliResponseUtility.defaultUtility(initializedLogger.get());
 
         return new PolarisCliIssueCountService(
-                initializedLogger.get(), countService, jobService, polarisCliResponseUtility);
+                initializedLogger.get(),
+                countService,
+                jobService,
+                polarisCliResponseUtility,
+                createPolarisAdmissionService(jenkinsConfigService, jenkinsRunService),
+                createPolarisAgentIssueCounter(jenkinsConfigService, jenkinsRemotingService, jenkinsRunService));
     }
 
-    private PolarisPhoneHomeService createPolarisPhoneHomeService(JenkinsConfigService jenkinsConfigService)
+    private PolarisAgentIssueCounter createPolarisAgentIssueCounter(
+            JenkinsConfigService jenkinsConfigService,
+            JenkinsRemotingService jenkinsRemotingService,
+            JenkinsRunService jenkinsRunService)
             throws AbortException {
-        PolarisServicesFactory polarisServicesFactory = createPolarisServicesFactory(jenkinsConfigService);
+        PolarisGlobalConfig polarisGlobalConfig =
+                getPolarisBuildContext(jenkinsConfigService, jenkinsRunService).getPolarisGlobalConfig();
+        if (!polarisGlobalConfig.isPollJobsOnAgent()) {
+            return null;
+        }
+
+        // The agent builds its own client from the resolved properties, the same ones the CLI gets
+        JenkinsWrapper jenkinsWrapper = validatedJenkinsWrapper.get();
+        Map<String, String> polarisServerProperties = new HashMap<>();
+        polarisGlobalConfig
+                .getPolarisServerConfigBuilder(jenkinsWrapper.getCredentialsHelper(), jenkinsWrapper.getProxyHelper())
+                .getProperties()
+                .forEach((builderPropertyKey, propertyValue) -> {
+                    if (propertyValue != null) {
+                        polarisServerProperties.put(builderPropertyKey.getKey(), propertyValue);
+                    }
+                });
+
+        return new PolarisAgentIssueCounter(
+                jenkinsRemotingService, listener, polarisServerProperties, polarisGlobalConfig.getPageSize());
+    }
+
+    private PolarisAdmissionService createPolarisAdmissionService(
+            JenkinsConfigService jenkinsConfigService, JenkinsRunService jenkinsRunService) throws AbortException {
+        PolarisGlobalConfig polarisGlobalConfig =
+                getPolarisBuildContext(jenkinsConfigService, jenkinsRunService).getPolarisGlobalConfig();
+
+        // Queue by folder so that one busy folder cannot starve the rest, jobs outside of a folder queue on their own
+        Run<?, ?> run = jenkinsRunService.getRun();
+        Job<?, ?> job = run.getParent();
+        ItemGroup<?> jobParent = job.getParent();
+        String queueKey = jobParent instanceof Item ? ((Item) jobParent).getFullName() : job.getFullName();
+
+        return new PolarisAdmissionService(
+                initializedLogger.get(),
+                PolarisAdmissionController.get(),
+                polarisGlobalConfig.getPolarisUrl(),
+                polarisGlobalConfig.getMaxConcurrentScans(),
+                polarisGlobalConfig.getMaxConcurrentWaits(),
+                queueKey,
+                run.getFullDisplayName());
+    }
+
+    private PolarisPhoneHomeService createPolarisPhoneHomeService(
+            JenkinsConfigService jenkinsConfigService, JenkinsRunService jenkinsRunService) throws AbortException {
+        PolarisServicesFactory polarisServicesFactory =
+                createPolarisServicesFactory(jenkinsConfigService, jenkinsRunService);
         ContextsService contextsService = polarisServicesFactory.createContextsService();
         JenkinsWrapper jenkinsWrapper = validatedJenkinsWrapper.get();
 
         return new PolarisPhoneHomeService(
-                initializedLogger.get(),
                 jenkinsWrapper.getVersionHelper(),
                 contextsService,
                 polarisServicesFactory.getHttpClient());
@@ -189,19 +277,59 @@ public class PolarisCommandsFactory {
         return _logger;
     }
 
-    private PolarisServicesFactory createPolarisServicesFactory(JenkinsConfigService jenkinsConfigService)
+    private PolarisServicesFactory createPolarisServicesFactory(
+            JenkinsConfigService jenkinsConfigService, JenkinsRunService jenkinsRunService) throws AbortException {
+        // One client per step, it logs to this step's listener
+        if (_polarisServicesFactory != null) {
+            return _polarisServicesFactory;
+        }
+
+        PolarisBuildContext polarisBuildContext = getPolarisBuildContext(jenkinsConfigService, jenkinsRunService);
+        JenkinsIntLogger jenkinsIntLogger = getOrCreateLogger();
+        JenkinsWrapper jenkinsWrapper = validatedJenkinsWrapper.get();
+        PolarisServerConfig polarisServerConfig = polarisBuildContext.getPolarisServerConfig(
+                jenkinsWrapper.getCredentialsHelper(), jenkinsWrapper.getProxyHelper());
+        _polarisServicesFactory = polarisServerConfig.createPolarisServicesFactory(jenkinsIntLogger);
+        PolarisGlobalConfig polarisGlobalConfig = polarisBuildContext.getPolarisGlobalConfig();
+        _polarisServicesFactory.setDefaultPageSize(polarisGlobalConfig.getPageSize());
+        _polarisServicesFactory.setRateLimit(
+                polarisGlobalConfig.getMaxRequestsPerSecond(), polarisGlobalConfig.getRequestBurstSize());
+        return _polarisServicesFactory;
+    }
+
+    private PolarisBuildContext getPolarisBuildContext(
+            JenkinsConfigService jenkinsConfigService, JenkinsRunService jenkinsRunService) throws AbortException {
+        return PolarisBuildContextRegistry.get()
+                .getOrCreate(jenkinsRunService.getRun(), () -> getPolarisGlobalConfig(jenkinsConfigService));
+    }
+
+    private PolarisGlobalConfig getPolarisGlobalConfig(JenkinsConfigService jenkinsConfigService)
             throws AbortException {
-        PolarisGlobalConfig polarisGlobalConfig = jenkinsConfigService
+        return jenkinsConfigService
                 .getGlobalConfiguration(PolarisGlobalConfig.class)
                 .orElseThrow(
                         () -> new AbortException(
                                 "Coverity on Polaris Platform for Jenkins cannot be executed: No Coverity on Polaris Platform global configuration detected in the Jenkins system configuration."));
+    }
 
-        JenkinsIntLogger jenkinsIntLogger = getOrCreateLogger();
-        JenkinsWrapper jenkinsWrapper = validatedJenkinsWrapper.get();
-        PolarisServerConfig polarisServerConfig = polarisGlobalConfig.getPolarisServerConfig(
-                jenkinsWrapper.getCredentialsHelper(), jenkinsWrapper.getProxyHelper());
-        return polarisServerConfig.createPolarisServicesFactory(jenkinsIntLogger);
+    /**
+     * Creates its component the first time it is asked for and returns that one from then on.
+     */
+    private static class LazyComponent<T> implements ThrowingSupplier<T, AbortException> {
+        private final ThrowingSupplier<T, AbortException> componentSupplier;
+        private T component = null;
+
+        private LazyComponent(ThrowingSupplier<T, AbortException> componentSupplier) {
+            this.componentSupplier = componentSupplier;
+        }
+
+        @Override
+        public synchronized T get() throws AbortException {
+            if (component == null) {
+                component = componentSupplier.get();
+            }
+            return component;
+        }
     }
 
     private JenkinsWrapper validateJenkinsWrapper(JenkinsWrapper jenkinsWrapper) throws AbortException {
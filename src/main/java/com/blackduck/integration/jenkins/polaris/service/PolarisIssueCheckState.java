@@ -0,0 +1,225 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.service;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything needed to finish an issue check without the cli-scan.json it was read from. This is kept in the pipeline
+ * step execution so that an issue check can resume polling after the Jenkins controller restarts.
+ */
+public class PolarisIssueCheckState implements Serializable {
+    private static final long serialVersionUID = 7745268209035217931L;
+
+    private final Integer issueSummaryTotal;
+    private final String issueApiUrl;
+    private final ArrayList<ToolJob> toolJobs;
+    private final boolean countPerTool;
+    private final long deadlineInMillis;
+    // Tools may share a job, so completed tools are tracked by their position rather than their job status url
+    private final HashSet<Integer> completedToolJobIndexes = new HashSet<>();
+    private final LinkedHashMap<String, Integer> toolIssueCounts = new LinkedHashMap<>();
+    // Only known when the cli-scan.json has an issue summary, and null in states saved by older versions
+    private final LinkedHashMap<String, Integer> issuesBySeverity;
+    private LinkedHashMap<String, String> toolJobStates;
+    // Not saved, whoever runs the issue check sets it again when it starts or resumes
+    private transient Runnable toolJobCompletedListener;
+
+    private PolarisIssueCheckState(
+            Integer issueSummaryTotal,
+            String issueApiUrl,
+            List<ToolJob> toolJobs,
+            boolean countPerTool,
+            long deadlineInMillis,
+            Map<String, Integer> issuesBySeverity,
+            Map<String, String> toolJobStates) {
+        this.issueSummaryTotal = issueSummaryTotal;
+        this.issueApiUrl = issueApiUrl;
+        this.toolJobs = new ArrayList<>(toolJobs);
+        this.countPerTool = countPerTool;
+        this.deadlineInMillis = deadlineInMillis;
+        this.issuesBySeverity = new LinkedHashMap<>(issuesBySeverity);
+        this.toolJobStates = new LinkedHashMap<>(toolJobStates);
+    }
+
+    public static PolarisIssueCheckState fromIssueSummary(int totalIssueCount) {
+        return fromIssueSummary(totalIssueCount, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    public static PolarisIssueCheckState fromIssueSummary(
+            int totalIssueCount, Map<String, Integer> issuesBySeverity, Map<String, String> toolJobStates) {
+        return new PolarisIssueCheckState(
+                totalIssueCount, null, Collections.emptyList(), false, 0, issuesBySeverity, toolJobStates);
+    }
+
+    public static PolarisIssueCheckState forPendingJobs(
+            String issueApiUrl, List<ToolJob> toolJobs, boolean countPerTool, long deadlineInMillis) {
+        return new PolarisIssueCheckState(
+                null,
+                issueApiUrl,
+                toolJobs,
+                countPerTool,
+                deadlineInMillis,
+                Collections.emptyMap(),
+                Collections.emptyMap());
+    }
+
+    public boolean hasIssueSummary() {
+        return issueSummaryTotal != null;
+    }
+
+    public Integer getIssueSummaryTotal() {
+        return issueSummaryTotal;
+    }
+
+    public String getIssueApiUrl() {
+        return issueApiUrl;
+    }
+
+    public boolean isCountPerTool() {
+        return countPerTool;
+    }
+
+    public long getDeadlineInMillis() {
+        return deadlineInMillis;
+    }
+
+    public Map<String, Integer> getIssuesBySeverity() {
+        return issuesBySeverity == null ? Collections.emptyMap() : Collections.unmodifiableMap(issuesBySeverity);
+    }
+
+    public synchronized Map<String, String> getToolJobStates() {
+        return toolJobStates == null ? Collections.emptyMap() : new LinkedHashMap<>(toolJobStates);
+    }
+
+    public List<ToolJob> getToolJobs() {
+        return Collections.unmodifiableList(toolJobs);
+    }
+
+    public synchronized List<ToolJob> getPendingToolJobs() {
+        List<ToolJob> pendingToolJobs = new ArrayList<>();
+        for (int i = 0; i < toolJobs.size(); i++) {
+            if (!completedToolJobIndexes.contains(i)) {
+                pendingToolJobs.add(toolJobs.get(i));
+            }
+        }
+        return pendingToolJobs;
+    }
+
+    /**
+     * The listener is told about each tool job that completes, after it has been recorded here.
+     */
+    public synchronized void setToolJobCompletedListener(Runnable toolJobCompletedListener) {
+        this.toolJobCompletedListener = toolJobCompletedListener;
+    }
+
+    public void recordToolJobCompleted(ToolJob toolJob, Integer toolIssueCount) {
+        Runnable listener;
+        synchronized (this) {
+            if (!completedToolJobIndexes.add(toolJobs.indexOf(toolJob))) {
+                return;
+            }
+            if (toolIssueCount != null) {
+                toolIssueCounts.merge(toolJob.getToolName(), toolIssueCount, Integer::sum);
+            }
+            listener = toolJobCompletedListener;
+        }
+        // Outside the lock, since the listener may save this state
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Takes over the progress recorded on a copy of this state, such as the one an agent waited on. The copy started
+     * out as this state, so its tool issue counts already include the ones recorded here.
+     */
+    public void recordProgressOf(PolarisIssueCheckState progress) {
+        if (progress == this) {
+            return;
+        }
+        HashSet<Integer> progressCompletedToolJobIndexes;
+        Map<String, Integer> progressToolIssueCounts;
+        Map<String, String> progressToolJobStates;
+        synchronized (progress) {
+            progressCompletedToolJobIndexes = new HashSet<>(progress.completedToolJobIndexes);
+            progressToolIssueCounts = progress.getToolIssueCounts();
+            progressToolJobStates = progress.getToolJobStates();
+        }
+
+        Runnable listener = null;
+        synchronized (this) {
+            if (toolJobStates == null) {
+                toolJobStates = new LinkedHashMap<>();
+            }
+            toolJobStates.putAll(progressToolJobStates);
+            if (!completedToolJobIndexes.containsAll(progressCompletedToolJobIndexes)) {
+                completedToolJobIndexes.addAll(progressCompletedToolJobIndexes);
+                toolIssueCounts.clear();
+                toolIssueCounts.putAll(progressToolIssueCounts);
+                listener = toolJobCompletedListener;
+            }
+        }
+        // Outside the lock, since the listener may save this state
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Records the last state a tool job was polled in, whether or not waiting for it succeeded.
+     */
+    public synchronized void recordToolJobState(ToolJob toolJob, String toolJobState) {
+        if (toolJobStates == null) {
+            toolJobStates = new LinkedHashMap<>();
+        }
+        toolJobStates.put(toolJob.getToolName(), toolJobState);
+    }
+
+    public synchronized Map<String, Integer> getToolIssueCounts() {
+        return new LinkedHashMap<>(toolIssueCounts);
+    }
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        // Tool jobs are recorded as they complete, so the state may be saved while it is still being updated
+        out.defaultWriteObject();
+    }
+
+    public static class ToolJob implements Serializable {
+        private static final long serialVersionUID = -5071393628874542167L;
+
+        private final String toolName;
+        private final String jobStatusUrl;
+        private final String issueApiUrl;
+
+        public ToolJob(String toolName, String jobStatusUrl, String issueApiUrl) {
+            this.toolName = toolName;
+            this.jobStatusUrl = jobStatusUrl;
+            this.issueApiUrl = issueApiUrl;
+        }
+
+        public String getToolName() {
+            return toolName;
+        }
+
+        public String getJobStatusUrl() {
+            return jobStatusUrl;
+        }
+
+        public String getIssueApiUrl() {
+            return issueApiUrl;
+        }
+    }
+}
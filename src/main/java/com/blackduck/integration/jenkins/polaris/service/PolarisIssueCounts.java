@@ -0,0 +1,64 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.service;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PolarisIssueCounts implements Serializable {
+    private static final long serialVersionUID = -1326209934431564023L;
+
+    private final int totalIssueCount;
+    private final LinkedHashMap<String, Integer> toolIssueCounts;
+    private final LinkedHashMap<String, Integer> issuesBySeverity;
+    private final LinkedHashMap<String, String> toolJobStates;
+
+    public PolarisIssueCounts(int totalIssueCount, Map<String, Integer> toolIssueCounts) {
+        this(totalIssueCount, toolIssueCounts, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    public PolarisIssueCounts(
+            int totalIssueCount,
+            Map<String, Integer> toolIssueCounts,
+            Map<String, Integer> issuesBySeverity,
+            Map<String, String> toolJobStates) {
+        this.totalIssueCount = totalIssueCount;
+        this.toolIssueCounts = new LinkedHashMap<>(toolIssueCounts);
+        this.issuesBySeverity = new LinkedHashMap<>(issuesBySeverity);
+        this.toolJobStates = new LinkedHashMap<>(toolJobStates);
+    }
+
+    public static PolarisIssueCounts totalOnly(int totalIssueCount) {
+        return new PolarisIssueCounts(totalIssueCount, Collections.emptyMap());
+    }
+
+    public int getTotalIssueCount() {
+        return totalIssueCount;
+    }
+
+    public Map<String, Integer> getToolIssueCounts() {
+        return Collections.unmodifiableMap(toolIssueCounts);
+    }
+
+    public Map<String, Integer> getIssuesBySeverity() {
+        return Collections.unmodifiableMap(issuesBySeverity);
+    }
+
+    public Map<String, String> getToolJobStates() {
+        return Collections.unmodifiableMap(toolJobStates);
+    }
+
+    public PolarisIssueCounts withToolJobStates(Map<String, String> toolJobStates) {
+        return new PolarisIssueCounts(totalIssueCount, toolIssueCounts, issuesBySeverity, toolJobStates);
+    }
+
+    public boolean hasToolIssueCounts() {
+        return !toolIssueCounts.isEmpty();
+    }
+}
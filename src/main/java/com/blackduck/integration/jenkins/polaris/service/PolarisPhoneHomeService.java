@@ -6,74 +6,93 @@
  */
 package com.blackduck.integration.jenkins.polaris.service;
 
-import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
 import com.blackduck.integration.jenkins.wrapper.JenkinsVersionHelper;
+import com.blackduck.integration.log.SilentIntLogger;
 import com.blackduck.integration.phonehome.PhoneHomeClient;
-import com.blackduck.integration.phonehome.PhoneHomeResponse;
 import com.blackduck.integration.phonehome.PhoneHomeService;
 import com.blackduck.integration.phonehome.request.PhoneHomeRequestBody;
 import com.blackduck.integration.phonehome.request.PhoneHomeRequestBodyBuilder;
 import com.blackduck.integration.polaris.common.api.PolarisResource;
 import com.blackduck.integration.polaris.common.api.model.ContextAttributes;
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
 import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClient;
 import com.blackduck.integration.polaris.common.service.ContextsService;
-import com.google.gson.Gson;
+import com.blackduck.integration.polaris.common.service.PolarisGson;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.apache.http.impl.client.HttpClientBuilder;
 
 public class PolarisPhoneHomeService {
-    private final JenkinsIntLogger logger;
+    public static final String ORGANIZATION_NAME_CACHE = "organizationName";
+
+    private static final Logger LOGGER = Logger.getLogger(PolarisPhoneHomeService.class.getName());
+    static final long ORGANIZATION_NAME_TTL_IN_MILLIS = 60 * 60 * 1000L;
+    private static final Map<String, CachedOrganizationName> ORGANIZATION_NAMES = new ConcurrentHashMap<>();
+
+    // Phoning home is best effort, so when too many are waiting the newest are dropped rather than queued without end.
+    // Requests are built on one pool and sent on another, so that a request being built never waits on its own pool.
+    private static final ExecutorService PHONE_HOME_EXECUTOR =
+            createPhoneHomeExecutor("Coverity on Polaris phone home");
+    private static final ExecutorService PHONE_HOME_SEND_EXECUTOR =
+            createPhoneHomeExecutor("Coverity on Polaris phone home sender");
+
     private final JenkinsVersionHelper jenkinsVersionHelper;
     private final ContextsService contextsService;
     private final AccessTokenPolarisHttpClient accessTokenPolarisHttpClient;
+    private final LongSupplier currentTimeMillis;
 
     public PolarisPhoneHomeService(
-            JenkinsIntLogger logger,
             JenkinsVersionHelper jenkinsVersionHelper,
             ContextsService contextsService,
             AccessTokenPolarisHttpClient accessTokenPolarisHttpClient) {
-        this.logger = logger;
+        this(jenkinsVersionHelper, contextsService, accessTokenPolarisHttpClient, System::currentTimeMillis);
+    }
+
+    PolarisPhoneHomeService(
+            JenkinsVersionHelper jenkinsVersionHelper,
+            ContextsService contextsService,
+            AccessTokenPolarisHttpClient accessTokenPolarisHttpClient,
+            LongSupplier currentTimeMillis) {
         this.jenkinsVersionHelper = jenkinsVersionHelper;
         this.contextsService = contextsService;
         this.accessTokenPolarisHttpClient = accessTokenPolarisHttpClient;
+        this.currentTimeMillis = currentTimeMillis;
     }
 
-    public Optional<PhoneHomeResponse> phoneHome() {
-        try {
-            HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
-            Gson gson = new Gson();
-            PhoneHomeClient phoneHomeClient = new PhoneHomeClient(logger, httpClientBuilder, gson, null, (String) null);
-            ExecutorService executor = Executors.newSingleThreadExecutor();
-            PhoneHomeService phoneHomeService =
-                    PhoneHomeService.createAsynchronousPhoneHomeService(logger, phoneHomeClient, executor);
-
-            PhoneHomeRequestBody phoneHomeRequestBody = buildPhoneHomeRequest();
+    /**
+     * Builds and sends the phone home request in the background, so the caller never waits on it. The step may be
+     * over by then, so failures go to the Jenkins log rather than the build log.
+     */
+    public void phoneHome() {
+        PHONE_HOME_EXECUTOR.execute(() -> {
+            try {
+                SilentIntLogger silentLogger = new SilentIntLogger();
+                PhoneHomeClient phoneHomeClient = new PhoneHomeClient(
+                        silentLogger, HttpClientBuilder.create(), PolarisGson.get(), null, (String) null);
+                PhoneHomeService phoneHomeService = PhoneHomeService.createAsynchronousPhoneHomeService(
+                        silentLogger, phoneHomeClient, PHONE_HOME_SEND_EXECUTOR);
 
-            return Optional.ofNullable(phoneHomeService.phoneHome(phoneHomeRequestBody));
-        } catch (Exception e) {
-            logger.trace("Phone home failed due to an unexpected exception:", e);
-        }
-
-        return Optional.empty();
+                phoneHomeService.phoneHome(buildPhoneHomeRequest());
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Phone home failed due to an unexpected exception", e);
+            }
+        });
     }
 
     private PhoneHomeRequestBody buildPhoneHomeRequest() {
-        String organizationName;
-        try {
-            organizationName = contextsService
-                    .getCurrentContext()
-                    .map(PolarisResource::getAttributes)
-                    .map(ContextAttributes::getOrganizationname)
-                    .orElse(PhoneHomeRequestBody.UNKNOWN_FIELD_VALUE);
-        } catch (Exception ex) {
-            organizationName = PhoneHomeRequestBody.UNKNOWN_FIELD_VALUE;
-        }
-
         PhoneHomeRequestBodyBuilder phoneHomeRequestBodyBuilder = PhoneHomeRequestBodyBuilder.createForPolaris(
                 "blackduck-coverity-on-polaris-plugin",
-                organizationName,
+                getOrganizationName(),
                 accessTokenPolarisHttpClient.getPolarisServerUrl().string(),
                 jenkinsVersionHelper
                         .getPluginVersion("blackduck-coverity-on-polaris")
@@ -87,4 +106,67 @@ public class PolarisPhoneHomeService {
 
         return phoneHomeRequestBodyBuilder.build();
     }
+
+    /**
+     * Only organization names that were actually found are cached, so a failed or empty lookup is retried by the next
+     * phone home instead of reporting an unknown organization for the rest of the hour.
+     */
+    String getOrganizationName() {
+        // The organization depends on the credentials as well as the server
+        String cacheKey = accessTokenPolarisHttpClient.getPolarisServerUrl().string() + " "
+                + accessTokenPolarisHttpClient.getCredentialsFingerprint();
+        CachedOrganizationName cachedOrganizationName = ORGANIZATION_NAMES.get(cacheKey);
+        boolean cached =
+                cachedOrganizationName != null && !cachedOrganizationName.isExpired(currentTimeMillis.getAsLong());
+        PolarisMetrics.cacheLookup(
+                accessTokenPolarisHttpClient.getPolarisServerUrl().string(), ORGANIZATION_NAME_CACHE, cached);
+        if (cached) {
+            return cachedOrganizationName.organizationName;
+        }
+
+        try {
+            Optional<String> organizationName = contextsService
+                    .getCurrentContext()
+                    .map(PolarisResource::getAttributes)
+                    .map(ContextAttributes::getOrganizationname);
+            if (organizationName.isPresent()) {
+                ORGANIZATION_NAMES.put(
+                        cacheKey,
+                        new CachedOrganizationName(
+                                organizationName.get(),
+                                currentTimeMillis.getAsLong() + ORGANIZATION_NAME_TTL_IN_MILLIS));
+                return organizationName.get();
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Could not look up the Coverity on Polaris organization name", e);
+        }
+        return PhoneHomeRequestBody.UNKNOWN_FIELD_VALUE;
+    }
+
+    private static ExecutorService createPhoneHomeExecutor(String threadName) {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                2,
+                2,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(100),
+                new NamingThreadFactory(new DaemonThreadFactory(), threadName),
+                new ThreadPoolExecutor.DiscardPolicy());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    private static class CachedOrganizationName {
+        private final String organizationName;
+        private final long expiresAtMillis;
+
+        private CachedOrganizationName(String organizationName, long expiresAtMillis) {
+            this.organizationName = organizationName;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired(long currentTimeMillis) {
+            return currentTimeMillis >= expiresAtMillis;
+        }
+    }
 }
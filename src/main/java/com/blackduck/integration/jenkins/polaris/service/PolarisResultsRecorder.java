@@ -0,0 +1,56 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.jenkins.polaris.service;
+
+import com.blackduck.integration.jenkins.polaris.extensions.results.PolarisResultsAction;
+import hudson.model.Run;
+import java.util.Map;
+
+/**
+ * Records Coverity on Polaris results on the build they belong to. Without a build nothing is recorded.
+ */
+public class PolarisResultsRecorder {
+    private final Run<?, ?> run;
+
+    public PolarisResultsRecorder(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    public static PolarisResultsRecorder none() {
+        return new PolarisResultsRecorder(null);
+    }
+
+    public void recordPolarisCli(int exitCode, long durationInMillis) {
+        if (run != null) {
+            PolarisResultsAction.forRun(run).recordPolarisCli(exitCode, durationInMillis);
+        }
+    }
+
+    public void recordPolarisCliVersion(String polarisCliVersion) {
+        if (run != null) {
+            PolarisResultsAction.forRun(run).recordPolarisCliVersion(polarisCliVersion);
+        }
+    }
+
+    public void recordIssueCheckStarted() {
+        if (run != null) {
+            PolarisResultsAction.forRun(run).recordIssueCheckStarted();
+        }
+    }
+
+    public void recordIssueCounts(PolarisIssueCounts polarisIssueCounts) {
+        if (run != null) {
+            PolarisResultsAction.forRun(run).recordIssueCounts(polarisIssueCounts);
+        }
+    }
+
+    public void recordToolJobStates(Map<String, String> toolJobStates) {
+        if (run != null && !toolJobStates.isEmpty()) {
+            PolarisResultsAction.forRun(run).recordToolJobStates(toolJobStates);
+        }
+    }
+}
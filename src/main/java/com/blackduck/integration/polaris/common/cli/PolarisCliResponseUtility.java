@@ -12,6 +12,7 @@ import com.blackduck.integration.log.IntLogger;
 import com.blackduck.integration.polaris.common.cli.model.CliCommonResponseModel;
 import com.blackduck.integration.polaris.common.cli.model.json.CliCommonResponseAdapter;
 import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import com.blackduck.integration.polaris.common.service.PolarisGson;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import java.io.BufferedReader;
@@ -33,7 +34,7 @@ public class PolarisCliResponseUtility {
     }
 
     public static PolarisCliResponseUtility defaultUtility(IntLogger logger) {
-        Gson gson = new Gson();
+        Gson gson = PolarisGson.get();
         return new PolarisCliResponseUtility(logger, gson, new CliCommonResponseAdapter(gson));
     }
 
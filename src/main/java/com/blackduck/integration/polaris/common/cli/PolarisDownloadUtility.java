@@ -9,6 +9,7 @@ package com.blackduck.integration.polaris.common.cli;
 import com.blackduck.integration.exception.IntegrationException;
 import com.blackduck.integration.log.IntLogger;
 import com.blackduck.integration.polaris.common.configuration.OSArchTask;
+import com.blackduck.integration.polaris.common.rest.PolarisCircuitBreaker;
 import com.blackduck.integration.rest.HttpUrl;
 import com.blackduck.integration.rest.client.IntHttpClient;
 import com.blackduck.integration.rest.proxy.ProxyInfo;
@@ -20,10 +21,10 @@ import com.google.gson.Gson;
 import hudson.FilePath;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Optional;
 import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.io.input.CountingInputStream;
 
 public class PolarisDownloadUtility {
     public static final Integer DEFAULT_POLARIS_TIMEOUT = 120;
@@ -41,7 +42,9 @@ public class PolarisDownloadUtility {
     private final IntHttpClient intHttpClient;
     private final CleanupZipExpander cleanupZipExpander;
     private final HttpUrl polarisServerUrl;
+    private final PolarisCircuitBreaker polarisCircuitBreaker;
     private final File installDirectory;
+    private long downloadedBytes = 0;
 
     public PolarisDownloadUtility(
             IntLogger logger,
@@ -59,6 +62,8 @@ public class PolarisDownloadUtility {
         this.intHttpClient = intHttpClient;
         this.cleanupZipExpander = cleanupZipExpander;
         this.polarisServerUrl = polarisServerUrl;
+        // Downloads usually run on an agent, where this breaker is shared by the downloads from that agent
+        this.polarisCircuitBreaker = PolarisCircuitBreaker.forServer(String.valueOf(polarisServerUrl));
         installDirectory = new File(downloadTargetDirectory, PolarisDownloadUtility.POLARIS_CLI_INSTALL_DIRECTORY);
 
         boolean dirCreated = installDirectory.mkdirs();
@@ -154,6 +159,13 @@ public class PolarisDownloadUtility {
         });
     }
 
+    /**
+     * The size of the CLI archive this utility downloaded, or 0 when the installed CLI was up to date.
+     */
+    public long getDownloadedBytes() {
+        return downloadedBytes;
+    }
+
     public File getOrCreateVersionFile() throws IOException {
         File versionFile = new File(installDirectory, PolarisDownloadUtility.VERSION_FILENAME);
         if (!versionFile.exists()) {
@@ -220,7 +232,7 @@ public class PolarisDownloadUtility {
 
         HttpUrl swipDownloadUrl = new HttpUrl(String.format(downloadUrlFormat, "swip"));
         Request swipDownloadRequest = new Request.Builder(swipDownloadUrl).build();
-        try (Response downloadResponse = intHttpClient.execute(swipDownloadRequest)) {
+        try (Response downloadResponse = polarisCircuitBreaker.execute(swipDownloadRequest, intHttpClient::execute)) {
             if (!downloadResponse.isStatusCodeError()) {
                 return getBinDirectoryFromResponse(downloadResponse, versionFile, lastTimeDownloaded);
             }
@@ -228,7 +240,8 @@ public class PolarisDownloadUtility {
 
         HttpUrl polarisDownloadUrl = new HttpUrl(String.format(downloadUrlFormat, "polaris"));
         Request polarisDownloadRequest = new Request.Builder(polarisDownloadUrl).build();
-        try (Response downloadResponse = intHttpClient.execute(polarisDownloadRequest)) {
+        try (Response downloadResponse =
+                polarisCircuitBreaker.execute(polarisDownloadRequest, intHttpClient::execute)) {
             if (!downloadResponse.isStatusCodeError()) {
                 return getBinDirectoryFromResponse(downloadResponse, versionFile, lastTimeDownloaded);
             }
@@ -246,8 +259,9 @@ public class PolarisDownloadUtility {
             return getBinDirectory();
         } else {
             logger.info("Downloading the Coverity on Polaris CLI.");
-            try (InputStream responseStream = response.getContent()) {
+            try (CountingInputStream responseStream = new CountingInputStream(response.getContent())) {
                 cleanupZipExpander.expand(responseStream, installDirectory);
+                downloadedBytes = responseStream.getByteCount();
             }
 
             boolean lastModified = versionFile.setLastModified(lastModifiedOnServer);
@@ -35,6 +35,7 @@ import com.blackduck.integration.exception.IntegrationException;
 import com.blackduck.integration.log.IntLogger;
 import com.blackduck.integration.log.LogLevel;
 import com.blackduck.integration.log.PrintStreamIntLogger;
+import com.blackduck.integration.polaris.common.service.PolarisGson;
 import com.blackduck.integration.rest.HttpUrl;
 import com.blackduck.integration.rest.credentials.Credentials;
 import com.blackduck.integration.rest.credentials.CredentialsBuilder;
@@ -76,7 +77,7 @@ public class PolarisServerConfigBuilder extends IntegrationBuilder<PolarisServer
 
     private final BuilderProperties builderProperties;
     private IntLogger logger = new PrintStreamIntLogger(System.out, LogLevel.INFO);
-    private Gson gson = new Gson();
+    private Gson gson = PolarisGson.get();
     private AuthenticationSupport authenticationSupport = new AuthenticationSupport();
 
     public PolarisServerConfigBuilder() {
@@ -0,0 +1,32 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Installing the Coverity on Polaris CLI on a node, including the remoting call. This is recorded by the controller.
+ */
+@Name(PolarisEvents.NAME_PREFIX + "CliDownload")
+@Label("Polaris CLI Download")
+@Category(PolarisEvents.CATEGORY)
+@Description("Downloading and unzipping the Coverity on Polaris CLI, which happen as one streamed step. The archive size is 0 when the installed CLI was up to date.")
+public class PolarisCliDownloadEvent extends jdk.jfr.Event {
+    @Label("URL")
+    public String url;
+
+    @Label("Install Directory")
+    public String installDirectory;
+
+    @Label("Archive Size")
+    @DataAmount
+    public long bytes;
+}
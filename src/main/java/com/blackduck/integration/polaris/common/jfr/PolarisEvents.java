@@ -0,0 +1,31 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.jfr;
+
+/**
+ * The JDK Flight Recorder events of this plugin are all named com.blackduck.polaris.&lt;event&gt; and share one
+ * category, so a recording can enable or filter them together. Disabled events cost a single check, so callers should
+ * only fill in an event's fields once {@link jdk.jfr.Event#shouldCommit()} says it will be recorded.
+ * <p>
+ * Work sent to agents is recorded by the controller around the remoting call. The Polaris services can run on an
+ * agent too, whose Java runtime may not include the flight recorder, so they only create events when
+ * {@link #isAvailable()}.
+ */
+public class PolarisEvents {
+    public static final String NAME_PREFIX = "com.blackduck.polaris.";
+    public static final String CATEGORY = "Coverity on Polaris";
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private PolarisEvents() {
+        // This class should not be instantiated
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+}
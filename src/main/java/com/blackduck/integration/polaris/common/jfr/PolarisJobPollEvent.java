@@ -0,0 +1,30 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One look at the status of a Coverity on Polaris job while waiting for it to end.
+ */
+@Name(PolarisEvents.NAME_PREFIX + "JobPoll")
+@Label("Polaris Job Poll")
+@Category(PolarisEvents.CATEGORY)
+@Description("One poll of a Coverity on Polaris job status while waiting for the job to end")
+public class PolarisJobPollEvent extends jdk.jfr.Event {
+    @Label("URL")
+    public String url;
+
+    @Label("Job State")
+    public String state;
+
+    @Label("Job Ended")
+    public boolean ended;
+}
@@ -0,0 +1,29 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Turning the json of a Coverity on Polaris response into its model.
+ */
+@Name(PolarisEvents.NAME_PREFIX + "JsonParse")
+@Label("Polaris Json Parse")
+@Category(PolarisEvents.CATEGORY)
+@Description("Parsing a Coverity on Polaris response into its model with Gson")
+public class PolarisJsonParseEvent extends jdk.jfr.Event {
+    @Label("Response Type")
+    public String responseType;
+
+    @Label("Json Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,35 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A request to the Coverity on Polaris Platform, from sending it (including any retries) until its body was read.
+ */
+@Name(PolarisEvents.NAME_PREFIX + "Request")
+@Label("Polaris Request")
+@Category(PolarisEvents.CATEGORY)
+@Description("A request to the Coverity on Polaris Platform, including retries and reading the response body")
+public class PolarisRequestEvent extends jdk.jfr.Event {
+    @Label("Method")
+    public String method;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Status Code")
+    public int statusCode;
+
+    @Label("Response Size")
+    @DataAmount
+    public long bytes;
+}
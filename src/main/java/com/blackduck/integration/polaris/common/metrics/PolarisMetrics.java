@@ -0,0 +1,122 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.metrics;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.rest.HttpUrl;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The timers, counters, and histograms for the Coverity on Polaris I/O of this JVM. Every metric is named
+ * polaris.&lt;server&gt;.&lt;metric&gt;, with the endpoint appended for HTTP metrics, so that each server can be
+ * alerted on separately. Until a registry is published (the controller publishes the Metrics plugin's registry) they
+ * are kept in a registry of their own. Agents never publish theirs, so work that runs on an agent is measured by the
+ * controller around the remoting call where it matters (the CLI installation), and is otherwise not recorded.
+ */
+public class PolarisMetrics {
+    public static final String UNKNOWN_SERVER = "unknown";
+    public static final String CACHE_HITS = "cache.hits";
+    public static final String CACHE_MISSES = "cache.misses";
+
+    // Path segments with digits in them are ids, they would give every job its own metric
+    private static final Pattern ID_SEGMENT = Pattern.compile(".*\\d.*");
+
+    private static volatile MetricRegistry metricRegistry = new MetricRegistry();
+
+    private PolarisMetrics() {
+        // This class should not be instantiated
+    }
+
+    public static void publishTo(MetricRegistry publishedMetricRegistry) {
+        metricRegistry = publishedMetricRegistry;
+    }
+
+    public static MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+
+    public static Timer timer(HttpUrl polarisServerUrl, String metric, String... names) {
+        return metricRegistry.timer(name(serverName(polarisServerUrl), metric, names));
+    }
+
+    public static Timer timer(String polarisUrl, String metric, String... names) {
+        return metricRegistry.timer(name(serverName(polarisUrl), metric, names));
+    }
+
+    public static Counter counter(HttpUrl polarisServerUrl, String metric, String... names) {
+        return metricRegistry.counter(name(serverName(polarisServerUrl), metric, names));
+    }
+
+    public static Counter counter(String polarisUrl, String metric, String... names) {
+        return metricRegistry.counter(name(serverName(polarisUrl), metric, names));
+    }
+
+    /**
+     * Counts a lookup in one of the in-memory caches of a server, as cache.hits.&lt;cache&gt; or
+     * cache.misses.&lt;cache&gt;. Dots in the cache name are replaced, so that the cache name stays one part of the
+     * metric name.
+     */
+    public static void cacheLookup(String polarisUrl, String cache, boolean hit) {
+        // Dots separate the parts of a metric name
+        counter(polarisUrl, hit ? CACHE_HITS : CACHE_MISSES, cache.replace('.', '_')).inc();
+    }
+
+    public static Histogram histogram(HttpUrl polarisServerUrl, String metric, String... names) {
+        return metricRegistry.histogram(name(serverName(polarisServerUrl), metric, names));
+    }
+
+    public static String name(HttpUrl polarisServerUrl, String metric, String... names) {
+        return name(serverName(polarisServerUrl), metric, names);
+    }
+
+    private static String name(String serverName, String metric, String... names) {
+        return MetricRegistry.name(MetricRegistry.name("polaris", serverName, metric), names);
+    }
+
+    public static String serverName(String polarisUrl) {
+        if (StringUtils.isBlank(polarisUrl)) {
+            return UNKNOWN_SERVER;
+        }
+
+        try {
+            return serverName(new HttpUrl(polarisUrl));
+        } catch (IntegrationException e) {
+            return UNKNOWN_SERVER;
+        }
+    }
+
+    public static String serverName(HttpUrl polarisServerUrl) {
+        if (polarisServerUrl == null) {
+            return UNKNOWN_SERVER;
+        }
+
+        URL url = polarisServerUrl.url();
+        String serverName = url.getPort() == -1 ? url.getHost() : url.getHost() + ":" + url.getPort();
+        // Dots separate the parts of a metric name
+        return StringUtils.defaultIfBlank(serverName.replace('.', '_'), UNKNOWN_SERVER);
+    }
+
+    public static String endpointName(HttpUrl url) {
+        if (url == null) {
+            return UNKNOWN_SERVER;
+        }
+
+        List<String> segments = new ArrayList<>();
+        for (String segment : StringUtils.split(url.url().getPath(), '/')) {
+            segments.add(ID_SEGMENT.matcher(segment).matches() ? "id" : segment.replace('.', '_'));
+        }
+        return segments.isEmpty() ? "root" : String.join("_", segments);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.DurationFormatUtils;
+
+/**
+ * The Coverity on Polaris operations that are in flight in this JVM: CLI launches, waits on Polaris jobs, and requests
+ * to each server. Everything is recorded by the code doing the work, so reading it never makes a request of its own.
+ */
+public class PolarisOperations {
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String POLLED_ON_AGENT = "POLLED_ON_AGENT";
+
+    private static final Map<Long, Operation> OPERATIONS_BY_ID = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> REQUESTS_IN_FLIGHT_BY_SERVER = new ConcurrentHashMap<>();
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    public enum Kind {
+        CLI_LAUNCH("polaris"),
+        JOB_WAIT("polarisIssueCheck");
+
+        private final String displayName;
+
+        Kind(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private PolarisOperations() {
+        // This class should not be instantiated
+    }
+
+    /**
+     * Records a launch of the CLI until the returned operation is closed. It starts out {@link #QUEUED}, until the
+     * launch is admitted and set {@link #RUNNING}.
+     */
+    public static Operation startCliLaunch(String polarisUrl, String buildName) {
+        Operation operation = new Operation(Kind.CLI_LAUNCH, polarisUrl, buildName, null, null, 0);
+        operation.state = QUEUED;
+        return start(operation);
+    }
+
+    /**
+     * Records a wait on a Polaris job until the returned operation is closed. The state and progress of the job are
+     * filled in by {@link #recordJobStatus(String, String, Integer)} as the job is polled.
+     */
+    public static Operation startJobWait(
+            String polarisUrl, String buildName, String toolName, String jobUrl, long timeoutInSeconds) {
+        return start(new Operation(Kind.JOB_WAIT, polarisUrl, buildName, toolName, jobUrl, timeoutInSeconds * 1000));
+    }
+
+    /**
+     * Updates every wait on the job with a state and progress that was just read from Polaris, and counts the request
+     * that read it against those waits.
+     */
+    public static void recordJobStatus(String jobUrl, String state, Integer progress) {
+        for (Operation operation : OPERATIONS_BY_ID.values()) {
+            if (jobUrl.equals(operation.jobUrl)) {
+                operation.state = state;
+                operation.progress = progress;
+                operation.requestCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Counts a request to the server as in flight until the returned request is closed.
+     */
+    public static RequestInFlight startRequest(String polarisServerUrl) {
+        AtomicInteger requestsInFlight =
+                REQUESTS_IN_FLIGHT_BY_SERVER.computeIfAbsent(polarisServerUrl, ignored -> new AtomicInteger());
+        requestsInFlight.incrementAndGet();
+        return requestsInFlight::decrementAndGet;
+    }
+
+    public static List<Operation> getOperations() {
+        List<Operation> operations = new ArrayList<>(OPERATIONS_BY_ID.values());
+        operations.sort(Comparator.comparingLong(Operation::getStartedAtMillis));
+        return Collections.unmodifiableList(operations);
+    }
+
+    public static Map<String, Integer> getRequestsInFlight() {
+        Map<String, Integer> requestsInFlight = new TreeMap<>();
+        REQUESTS_IN_FLIGHT_BY_SERVER.forEach(
+                (polarisServerUrl, count) -> requestsInFlight.put(polarisServerUrl, count.get()));
+        return Collections.unmodifiableMap(requestsInFlight);
+    }
+
+    private static Operation start(Operation operation) {
+        OPERATIONS_BY_ID.put(operation.id, operation);
+        return operation;
+    }
+
+    public interface RequestInFlight extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static class Operation implements AutoCloseable {
+        private final long id = NEXT_ID.incrementAndGet();
+        private final Kind kind;
+        private final String polarisUrl;
+        private final String buildName;
+        private final String toolName;
+        private final String jobUrl;
+        private final long timeoutInMillis;
+        private final long startedAtMillis = System.currentTimeMillis();
+        private final AtomicInteger requestCount = new AtomicInteger();
+        private volatile String state;
+        private volatile Integer progress;
+
+        private Operation(
+                Kind kind, String polarisUrl, String buildName, String toolName, String jobUrl, long timeoutInMillis) {
+            this.kind = kind;
+            this.polarisUrl = polarisUrl;
+            this.buildName = StringUtils.defaultIfBlank(buildName, "unknown build");
+            this.toolName = toolName;
+            this.jobUrl = jobUrl;
+            this.timeoutInMillis = timeoutInMillis;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getPolarisUrl() {
+            return polarisUrl;
+        }
+
+        public String getBuildName() {
+            return buildName;
+        }
+
+        public String getToolName() {
+            return toolName;
+        }
+
+        public String getJobUrl() {
+            return jobUrl;
+        }
+
+        public long getStartedAtMillis() {
+            return startedAtMillis;
+        }
+
+        public long getElapsedInMillis() {
+            return System.currentTimeMillis() - startedAtMillis;
+        }
+
+        public long getTimeoutInMillis() {
+            return timeoutInMillis;
+        }
+
+        public String getElapsed() {
+            return DurationFormatUtils.formatDurationHMS(getElapsedInMillis());
+        }
+
+        /**
+         * The timeout of a job wait, or an empty string for operations that are not limited.
+         */
+        public String getTimeout() {
+            return timeoutInMillis > 0 ? DurationFormatUtils.formatDurationHMS(timeoutInMillis) : "";
+        }
+
+        public boolean isOverdue() {
+            return timeoutInMillis > 0 && getElapsedInMillis() > timeoutInMillis;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public void setState(String state) {
+            this.state = state;
+        }
+
+        public Integer getProgress() {
+            return progress;
+        }
+
+        public int getRequestCount() {
+            return requestCount.get();
+        }
+
+        @Override
+        public void close() {
+            OPERATIONS_BY_ID.remove(id);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.replay;
+
+import com.blackduck.integration.rest.request.Request;
+import com.blackduck.integration.rest.response.DefaultResponse;
+import com.blackduck.integration.rest.response.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+
+/**
+ * One request to Polaris and the response it received, as it is kept in a {@link PolarisTrafficArchive}. Requests are
+ * identified by their method, url and query, which is all PolarisService varies between requests.
+ */
+public class PolarisExchange {
+    public static final String REDACTED = "REDACTED";
+
+    private static final Pattern SECRET_NAME =
+            Pattern.compile(".*(jwt|token|password|secret|authorization|cookie).*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SECRET_JSON_VALUE = Pattern.compile(
+            "(\"[^\"]*(?:jwt|token|password|secret|authorization|cookie)[^\"]*\"\\s*:\\s*)\"(?:[^\"\\\\]|\\\\.)*\"",
+            Pattern.CASE_INSENSITIVE);
+    // DefaultResponse closes the client it was given, a replayed response was never sent so one unused client will do
+    private static final CloseableHttpClient REPLAY_CLIENT = HttpClients.createMinimal();
+
+    private final String method;
+    private final String url;
+    private final TreeMap<String, List<String>> query;
+    private final int statusCode;
+    private final TreeMap<String, String> headers;
+    private final long latencyInMillis;
+    private final String content;
+
+    public PolarisExchange(
+            String method,
+            String url,
+            Map<String, List<String>> query,
+            int statusCode,
+            Map<String, String> headers,
+            long latencyInMillis,
+            String content) {
+        this.method = method;
+        this.url = url;
+        this.query = new TreeMap<>(query);
+        this.statusCode = statusCode;
+        this.headers = new TreeMap<>(headers);
+        this.latencyInMillis = latencyInMillis;
+        this.content = content;
+    }
+
+    /**
+     * The key a recorded exchange is found by. Secret query values are redacted here too, so that a request still
+     * matches its recording after the recording was redacted.
+     */
+    public static String keyOf(Request request) {
+        return keyOf(String.valueOf(request.getMethod()), request.getUrl().string(), queryOf(request));
+    }
+
+    public static Map<String, List<String>> queryOf(Request request) {
+        Map<String, List<String>> query = new TreeMap<>();
+        Map<String, Set<String>> queryParameters =
+                Optional.ofNullable(request.getQueryParameters()).orElse(Collections.emptyMap());
+        queryParameters.forEach((name, values) -> {
+            List<String> sortedValues = new ArrayList<>(values);
+            Collections.sort(sortedValues);
+            query.put(name, sortedValues);
+        });
+        return query;
+    }
+
+    private static String keyOf(String method, String url, Map<String, List<String>> query) {
+        return method + " " + url + " " + redactQuery(query);
+    }
+
+    /**
+     * The same exchange without the credentials it may contain: secret query values, secret response headers and
+     * secret values in the response body, such as the jwt of an authentication response.
+     */
+    public PolarisExchange redacted() {
+        Map<String, String> redactedHeaders = new TreeMap<>();
+        headers.forEach((name, value) -> redactedHeaders.put(name, isSecret(name) ? REDACTED : value));
+        String redactedContent =
+                content == null ? null : SECRET_JSON_VALUE.matcher(content).replaceAll("$1\"" + REDACTED + "\"");
+
+        return new PolarisExchange(
+                method, url, redactQuery(query), statusCode, redactedHeaders, latencyInMillis, redactedContent);
+    }
+
+    public Response toResponse() {
+        HttpUriRequest httpRequest = RequestBuilder.create(method).setUri(url).build();
+        ReplayedHttpResponse httpResponse = new ReplayedHttpResponse(statusCode);
+        headers.forEach(httpResponse::addHeader);
+        if (content != null) {
+            httpResponse.setEntity(new StringEntity(content, ContentType.APPLICATION_JSON));
+        }
+        return new DefaultResponse(httpRequest, REPLAY_CLIENT, httpResponse);
+    }
+
+    public String getKey() {
+        return keyOf(method, url, query);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, List<String>> getQuery() {
+        return Collections.unmodifiableMap(query);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public long getLatencyInMillis() {
+        return latencyInMillis;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    private static boolean isSecret(String name) {
+        return SECRET_NAME.matcher(name).matches();
+    }
+
+    private static Map<String, List<String>> redactQuery(Map<String, List<String>> query) {
+        Map<String, List<String>> redactedQuery = new TreeMap<>();
+        query.forEach((name, values) ->
+                redactedQuery.put(name, isSecret(name) ? Collections.singletonList(REDACTED) : values));
+        return redactedQuery;
+    }
+
+    private static class ReplayedHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        private ReplayedHttpResponse(int statusCode) {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, reasonPhrase(statusCode)));
+        }
+
+        private static String reasonPhrase(int statusCode) {
+            if (statusCode < 100 || statusCode >= 600) {
+                return null;
+            }
+            return EnglishReasonPhraseCatalog.INSTANCE.getReason(statusCode, Locale.ENGLISH);
+        }
+
+        @Override
+        public void close() {
+            // Nothing was opened to replay the response
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.replay;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.log.IntLogger;
+import com.blackduck.integration.polaris.common.rest.PolarisTransport;
+import com.google.gson.Gson;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A gzipped file of recorded Polaris exchanges, one JSON object per line. Each exchange is appended as its own gzip
+ * member, so every build in the JVM can record into the same archive and it stays readable if the JVM stops while
+ * recording.
+ */
+public class PolarisTrafficArchive {
+    public static final String RECORD_TO_PROPERTY = PolarisTrafficArchive.class.getName() + ".recordTo";
+    public static final String REPLAY_FROM_PROPERTY = PolarisTrafficArchive.class.getName() + ".replayFrom";
+    public static final String REPLAY_LATENCY_PROPERTY = PolarisTrafficArchive.class.getName() + ".replayLatency";
+
+    private static final Map<Path, PolarisTrafficArchive> ARCHIVES_BY_PATH = new ConcurrentHashMap<>();
+    private static final Map<Path, PolarisTransport> REPLAY_TRANSPORTS_BY_PATH = new ConcurrentHashMap<>();
+    private static final Gson GSON = new Gson();
+
+    private final Path archivePath;
+
+    private PolarisTrafficArchive(Path archivePath) {
+        this.archivePath = archivePath;
+    }
+
+    public static PolarisTrafficArchive forPath(Path archivePath) {
+        return ARCHIVES_BY_PATH.computeIfAbsent(archivePath.toAbsolutePath().normalize(), PolarisTrafficArchive::new);
+    }
+
+    /**
+     * The transport selected with system properties: replaying from the archive named by
+     * {@link #REPLAY_FROM_PROPERTY}, recording to the archive named by {@link #RECORD_TO_PROPERTY}, or otherwise the
+     * given network transport.
+     */
+    public static PolarisTransport configuredTransport(PolarisTransport networkTransport, IntLogger logger) {
+        String replayFrom = System.getProperty(REPLAY_FROM_PROPERTY);
+        if (StringUtils.isNotBlank(replayFrom)) {
+            PolarisTrafficArchive archive = forPath(Paths.get(replayFrom));
+            boolean replayLatency = Boolean.getBoolean(REPLAY_LATENCY_PROPERTY);
+            // Shared by every build, so that repeated requests move through the recording together
+            return REPLAY_TRANSPORTS_BY_PATH.computeIfAbsent(
+                    archive.getArchivePath(), ignored -> archive.createReplayTransport(replayLatency));
+        }
+
+        String recordTo = System.getProperty(RECORD_TO_PROPERTY);
+        if (StringUtils.isNotBlank(recordTo)) {
+            return new RecordingPolarisTransport(networkTransport, forPath(Paths.get(recordTo)), logger);
+        }
+
+        return networkTransport;
+    }
+
+    public synchronized void append(PolarisExchange exchange) throws IOException {
+        try (OutputStream archiveStream =
+                        Files.newOutputStream(archivePath, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                Writer writer = new OutputStreamWriter(new GZIPOutputStream(archiveStream), StandardCharsets.UTF_8)) {
+            writer.write(GSON.toJson(exchange));
+            writer.write('\n');
+        }
+    }
+
+    public synchronized List<PolarisExchange> read() throws IOException {
+        List<PolarisExchange> exchanges = new ArrayList<>();
+        if (!Files.exists(archivePath)) {
+            return exchanges;
+        }
+
+        // GZIPInputStream reads through every member of the file
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archivePath)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (StringUtils.isNotBlank(line)) {
+                    exchanges.add(GSON.fromJson(line, PolarisExchange.class));
+                }
+            }
+        }
+        return exchanges;
+    }
+
+    public Path getArchivePath() {
+        return archivePath;
+    }
+
+    private PolarisTransport createReplayTransport(boolean replayLatency) {
+        try {
+            return new ReplayPolarisTransport(read(), replayLatency);
+        } catch (IOException e) {
+            return request -> {
+                throw new IntegrationException(
+                        String.format("The recorded Polaris traffic in %s could not be read.", archivePath), e);
+            };
+        }
+    }
+}
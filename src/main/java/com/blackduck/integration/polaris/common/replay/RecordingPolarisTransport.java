@@ -0,0 +1,73 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.replay;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.log.IntLogger;
+import com.blackduck.integration.polaris.common.rest.PolarisTransport;
+import com.blackduck.integration.rest.request.Request;
+import com.blackduck.integration.rest.response.Response;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends requests with another transport and appends every exchange, with its credentials redacted, to an archive. The
+ * response is read completely so it can be recorded, and the caller receives a copy of it.
+ */
+public class RecordingPolarisTransport implements PolarisTransport {
+    // The only headers PolarisService and the CLI download read
+    private static final List<String> RECORDED_HEADERS = Arrays.asList("Content-Type", "Last-Modified", "Retry-After");
+
+    private final PolarisTransport transport;
+    private final PolarisTrafficArchive archive;
+    private final IntLogger logger;
+
+    public RecordingPolarisTransport(PolarisTransport transport, PolarisTrafficArchive archive, IntLogger logger) {
+        this.transport = transport;
+        this.archive = archive;
+        this.logger = logger;
+    }
+
+    @Override
+    public Response execute(Request request) throws IntegrationException {
+        long startedAt = System.nanoTime();
+        PolarisExchange exchange;
+        try (Response response = transport.execute(request)) {
+            String content = response.getContentString();
+            Map<String, String> headers = new TreeMap<>();
+            for (String header : RECORDED_HEADERS) {
+                Optional.ofNullable(response.getHeaderValue(header)).ifPresent(value -> headers.put(header, value));
+            }
+
+            exchange = new PolarisExchange(
+                    String.valueOf(request.getMethod()),
+                    request.getUrl().string(),
+                    PolarisExchange.queryOf(request),
+                    Optional.ofNullable(response.getStatusCode()).orElse(0),
+                    headers,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt),
+                    content);
+        } catch (IOException e) {
+            throw new IntegrationException("Problem recording a response from Polaris", e);
+        }
+
+        try {
+            archive.append(exchange.redacted());
+        } catch (IOException e) {
+            // A failed recording should not fail the build that was being recorded
+            logger.warn(String.format(
+                    "Could not record a response from Polaris to %s: %s", archive.getArchivePath(), e.getMessage()));
+        }
+
+        return exchange.toResponse();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.replay;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.polaris.common.rest.PolarisTransport;
+import com.blackduck.integration.rest.request.Request;
+import com.blackduck.integration.rest.response.Response;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers requests from recorded exchanges without any network. A request that was recorded several times, like the
+ * polls of a job, gets the recorded responses in the order they were recorded, and the last of them once they have
+ * all been served. Recorded latencies are only waited out when asked for, so that replays are fast by default.
+ */
+public class ReplayPolarisTransport implements PolarisTransport {
+    private final Map<String, List<PolarisExchange>> exchangesByKey = new HashMap<>();
+    private final Map<String, Integer> nextIndexByKey = new HashMap<>();
+    private final boolean replayLatency;
+
+    public ReplayPolarisTransport(List<PolarisExchange> exchanges, boolean replayLatency) {
+        for (PolarisExchange exchange : exchanges) {
+            exchangesByKey.computeIfAbsent(exchange.getKey(), ignored -> new ArrayList<>()).add(exchange);
+        }
+        this.replayLatency = replayLatency;
+    }
+
+    @Override
+    public Response execute(Request request) throws IntegrationException {
+        String key = PolarisExchange.keyOf(request);
+        PolarisExchange exchange = nextExchange(key);
+        if (exchange == null) {
+            throw new IntegrationException("No response from Polaris was recorded for " + key);
+        }
+
+        if (replayLatency && exchange.getLatencyInMillis() > 0) {
+            try {
+                Thread.sleep(exchange.getLatencyInMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IntegrationException("Interrupted while replaying a response from Polaris", e);
+            }
+        }
+
+        return exchange.toResponse();
+    }
+
+    /**
+     * Forgets which responses have been served, so the recording can be replayed again from the start.
+     */
+    public synchronized void rewind() {
+        nextIndexByKey.clear();
+    }
+
+    private synchronized PolarisExchange nextExchange(String key) {
+        List<PolarisExchange> exchanges = exchangesByKey.get(key);
+        if (exchanges == null) {
+            return null;
+        }
+
+        int index = nextIndexByKey.getOrDefault(key, 0);
+        nextIndexByKey.put(key, Math.min(index + 1, exchanges.size() - 1));
+        return exchanges.get(index);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.request;
+
+import com.blackduck.integration.rest.HttpUrl;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Remembers the largest page each endpoint of a Polaris server has actually returned, so that paged requests can ask
+ * for large pages and only the first request to an endpoint that caps its page size pays for finding that cap. Caps
+ * are forgotten after a while, so that an endpoint whose cap was raised gets asked for the full page size again.
+ */
+public class PolarisPageSizes {
+    public static final long SERVER_LIMIT_TTL_IN_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final Map<String, PolarisPageSizes> PAGE_SIZES_BY_SERVER = new ConcurrentHashMap<>();
+
+    private final Map<String, ServerLimit> serverLimitsByEndpoint = new ConcurrentHashMap<>();
+    private final LongSupplier currentTimeMillis;
+
+    public PolarisPageSizes() {
+        this(System::currentTimeMillis);
+    }
+
+    PolarisPageSizes(LongSupplier currentTimeMillis) {
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    public static PolarisPageSizes forServer(String polarisServerUrl) {
+        return PAGE_SIZES_BY_SERVER.computeIfAbsent(polarisServerUrl, ignored -> new PolarisPageSizes());
+    }
+
+    /**
+     * Forgets the page sizes of every server, for tests that share a server url.
+     */
+    public static void forgetAll() {
+        PAGE_SIZES_BY_SERVER.clear();
+    }
+
+    public int getPageSize(HttpUrl apiUrl, int requestedPageSize) {
+        String endpoint = toEndpoint(apiUrl);
+        ServerLimit serverLimit = serverLimitsByEndpoint.get(endpoint);
+        if (serverLimit == null || requestedPageSize <= 0) {
+            return requestedPageSize;
+        }
+        if (currentTimeMillis.getAsLong() - serverLimit.recordedAtMillis >= SERVER_LIMIT_TTL_IN_MILLIS) {
+            serverLimitsByEndpoint.remove(endpoint, serverLimit);
+            return requestedPageSize;
+        }
+        return Math.min(requestedPageSize, serverLimit.limit);
+    }
+
+    /**
+     * Records the limit the server reported for a page and returns the page size to keep using for the endpoint.
+     */
+    public int recordServerLimit(HttpUrl apiUrl, int requestedPageSize, Integer serverLimit) {
+        if (serverLimit == null || serverLimit <= 0 || serverLimit >= requestedPageSize) {
+            return requestedPageSize;
+        }
+        serverLimitsByEndpoint.put(toEndpoint(apiUrl), new ServerLimit(serverLimit, currentTimeMillis.getAsLong()));
+        return serverLimit;
+    }
+
+    private String toEndpoint(HttpUrl apiUrl) {
+        // Filters in the query string do not change how large a page the endpoint allows
+        return StringUtils.substringBefore(apiUrl.string(), "?");
+    }
+
+    private static class ServerLimit {
+        private final int limit;
+        private final long recordedAtMillis;
+
+        private ServerLimit(int limit, long recordedAtMillis) {
+            this.limit = limit;
+            this.recordedAtMillis = recordedAtMillis;
+        }
+    }
+}
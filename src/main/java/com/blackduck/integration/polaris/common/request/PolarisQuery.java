@@ -0,0 +1,48 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.request;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The JSON:API sparse fieldsets and filters for one request, so that a call site only receives the attributes and
+ * resources it actually reads.
+ */
+public class PolarisQuery {
+    private static final PolarisQuery ALL = new PolarisQuery(Collections.emptyMap());
+
+    private final Map<String, Set<String>> queryParameters;
+
+    private PolarisQuery(Map<String, Set<String>> queryParameters) {
+        this.queryParameters = queryParameters;
+    }
+
+    public static PolarisQuery all() {
+        return ALL;
+    }
+
+    public PolarisQuery fields(String resourceType, String... fieldNames) {
+        return with(String.format("fields[%s]", resourceType), String.join(",", fieldNames));
+    }
+
+    public PolarisQuery filter(String filterPath, String value) {
+        return with(String.format("filter[%s]", filterPath), value);
+    }
+
+    public Map<String, Set<String>> getQueryParameters() {
+        return Collections.unmodifiableMap(queryParameters);
+    }
+
+    private PolarisQuery with(String parameterName, String value) {
+        Map<String, Set<String>> combinedQueryParameters = new LinkedHashMap<>(queryParameters);
+        combinedQueryParameters.put(parameterName, Collections.singleton(value));
+        return new PolarisQuery(combinedQueryParameters);
+    }
+}
@@ -17,6 +17,10 @@ import java.util.Set;
 public class PolarisRequestFactory {
     public static final String DEFAULT_MIME_TYPE = "application/vnd.api+json";
 
+    // The http client decompresses gzip responses as they are read
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String GZIP_ENCODING = "gzip";
+
     public static final String LIMIT_PARAMETER = "page[limit]";
     public static final String OFFSET_PARAMETER = "page[offset]";
 
@@ -24,7 +28,13 @@ public class PolarisRequestFactory {
     public static final int DEFAULT_OFFSET = 0;
 
     public static Request createDefaultGetRequest(HttpUrl requestHttpUrl) {
-        return createDefaultBuilder().url(requestHttpUrl).build();
+        return createDefaultGetRequest(requestHttpUrl, PolarisQuery.all());
+    }
+
+    public static Request createDefaultGetRequest(HttpUrl requestHttpUrl, PolarisQuery polarisQuery) {
+        return populateQueryRequestBuilder(createDefaultBuilder(), polarisQuery)
+                .url(requestHttpUrl)
+                .build();
     }
 
     public static Request createDefaultPagedGetRequest(HttpUrl requestHttpUrl) {
@@ -36,7 +46,12 @@ public class PolarisRequestFactory {
     }
 
     public static Request createDefaultPagedGetRequest(HttpUrl requestHttpUrl, int limit, int offset) {
-        return createDefaultPagedRequestBuilder(limit, offset)
+        return createDefaultPagedGetRequest(requestHttpUrl, limit, offset, PolarisQuery.all());
+    }
+
+    public static Request createDefaultPagedGetRequest(
+            HttpUrl requestHttpUrl, int limit, int offset, PolarisQuery polarisQuery) {
+        return populateQueryRequestBuilder(createDefaultPagedRequestBuilder(limit, offset), polarisQuery)
                 .url(requestHttpUrl)
                 .build();
     }
@@ -56,7 +71,20 @@ public class PolarisRequestFactory {
         return requestBuilder;
     }
 
+    public static Request.Builder populateQueryRequestBuilder(
+            Request.Builder requestBuilder, PolarisQuery polarisQuery) {
+        Map<String, Set<String>> queryParameters = requestBuilder.getQueryParameters();
+        if (null == queryParameters) {
+            requestBuilder.queryParameters(new HashMap<>());
+            queryParameters = requestBuilder.getQueryParameters();
+        }
+        queryParameters.putAll(polarisQuery.getQueryParameters());
+        return requestBuilder;
+    }
+
     public static Request.Builder createDefaultBuilder() {
-        return new Request.Builder().method(HttpMethod.GET);
+        Map<String, String> headers = new HashMap<>();
+        headers.put(ACCEPT_ENCODING_HEADER, GZIP_ENCODING);
+        return new Request.Builder().method(HttpMethod.GET).headers(headers);
     }
 }
@@ -8,14 +8,19 @@ package com.blackduck.integration.polaris.common.rest;
 
 import com.blackduck.integration.exception.IntegrationException;
 import com.blackduck.integration.log.IntLogger;
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
 import com.blackduck.integration.rest.HttpMethod;
 import com.blackduck.integration.rest.HttpUrl;
 import com.blackduck.integration.rest.client.AuthenticatingIntHttpClient;
 import com.blackduck.integration.rest.proxy.ProxyInfo;
 import com.blackduck.integration.rest.response.Response;
 import com.blackduck.integration.rest.support.AuthenticationSupport;
+import com.codahale.metrics.Timer;
 import com.google.gson.Gson;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
@@ -34,6 +39,7 @@ public class AccessTokenPolarisHttpClient extends AuthenticatingIntHttpClient {
     private final Gson gson;
     private final AuthenticationSupport authenticationSupport;
     private final HttpUrl baseUrl;
+    private final String credentialsFingerprint;
 
     @SuppressWarnings("lgtm[jenkins/plaintext-storage]")
     private final String accessToken;
@@ -55,6 +61,7 @@ public class AccessTokenPolarisHttpClient extends AuthenticatingIntHttpClient {
         if (StringUtils.isBlank(accessToken)) {
             throw new IllegalArgumentException("No access token was found.");
         }
+        this.credentialsFingerprint = fingerprint(accessToken);
     }
 
     @Override
@@ -87,10 +94,30 @@ public class AccessTokenPolarisHttpClient extends AuthenticatingIntHttpClient {
         requestBuilder.setEntity(httpEntity);
 
         HttpUrl authenticationUrl = baseUrl.appendRelativeUrl(AccessTokenPolarisHttpClient.AUTHENTICATION_SPEC);
-        return authenticationSupport.attemptAuthentication(this, authenticationUrl, requestBuilder);
+        try (Timer.Context ignored = PolarisMetrics.timer(baseUrl, "auth.refresh").time()) {
+            return authenticationSupport.attemptAuthentication(this, authenticationUrl, requestBuilder);
+        }
     }
 
     public HttpUrl getPolarisServerUrl() {
         return baseUrl;
     }
+
+    /**
+     * Identifies the credentials this client uses without revealing them.
+     */
+    public String getCredentialsFingerprint() {
+        return credentialsFingerprint;
+    }
+
+    private static String fingerprint(String accessToken) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] digest = messageDigest.digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.rest;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import com.blackduck.integration.rest.request.Request;
+import com.blackduck.integration.rest.response.Response;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Tracks the health of one Polaris server for every request this JVM makes to it. After enough consecutive failed or
+ * slow requests the breaker opens and requests fail immediately instead of waiting for the http timeout. Once the open
+ * period has passed a single probe request is let through, and the breaker closes again if that probe succeeds.
+ */
+public class PolarisCircuitBreaker {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_SLOW_REQUEST_IN_MILLIS = 30 * 1000L;
+    public static final long DEFAULT_OPEN_DURATION_IN_MILLIS = 30 * 1000L;
+
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private static final Map<String, PolarisCircuitBreaker> CIRCUIT_BREAKERS_BY_SERVER = new ConcurrentHashMap<>();
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long slowRequestInMillis;
+    private final long openDurationInMillis;
+    private final LongSupplier currentTimeMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAtMillis = 0;
+    private boolean probeInFlight = false;
+    private long probeStartedAtMillis = 0;
+    private String lastFailure;
+
+    public PolarisCircuitBreaker(int failureThreshold, long slowRequestInMillis, long openDurationInMillis) {
+        this(failureThreshold, slowRequestInMillis, openDurationInMillis, System::currentTimeMillis);
+    }
+
+    PolarisCircuitBreaker(
+            int failureThreshold, long slowRequestInMillis, long openDurationInMillis, LongSupplier currentTimeMillis) {
+        this.failureThreshold = failureThreshold;
+        this.slowRequestInMillis = slowRequestInMillis;
+        this.openDurationInMillis = openDurationInMillis;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    public static PolarisCircuitBreaker forServer(String polarisServerUrl) {
+        return CIRCUIT_BREAKERS_BY_SERVER.computeIfAbsent(
+                polarisServerUrl,
+                ignored -> new PolarisCircuitBreaker(
+                        DEFAULT_FAILURE_THRESHOLD, DEFAULT_SLOW_REQUEST_IN_MILLIS, DEFAULT_OPEN_DURATION_IN_MILLIS));
+    }
+
+    public static Map<String, PolarisCircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(new TreeMap<>(CIRCUIT_BREAKERS_BY_SERVER));
+    }
+
+    /**
+     * Throws if requests to the server should not be attempted right now. Every call that returns normally must be
+     * followed by a call to {@link #recordSuccess(long)} or {@link #recordFailure(String)}.
+     */
+    public synchronized void beforeRequest() throws PolarisIntegrationException {
+        if (State.OPEN.equals(state) && currentTimeMillis.getAsLong() - openedAtMillis >= openDurationInMillis) {
+            state = State.HALF_OPEN;
+        }
+
+        if (State.OPEN.equals(state)) {
+            long retryInMillis = openedAtMillis + openDurationInMillis - currentTimeMillis.getAsLong();
+            throw new PolarisIntegrationException(String.format(
+                    "The Coverity on Polaris Platform is not responding (%s), requests are suspended for about %s more seconds.",
+                    lastFailure, Math.max(1, retryInMillis / 1000)));
+        }
+
+        if (State.HALF_OPEN.equals(state) && probeInFlight) {
+            // If the probe fails the breaker opens again from when the probe ends, so this is the earliest retry
+            long retryInMillis = probeStartedAtMillis + openDurationInMillis - currentTimeMillis.getAsLong();
+            throw new PolarisIntegrationException(String.format(
+                    "The Coverity on Polaris Platform is not responding (%s), a request is checking whether it recovered. Requests are suspended for at least %s more seconds.",
+                    lastFailure, Math.max(1, retryInMillis / 1000)));
+        }
+
+        if (State.HALF_OPEN.equals(state)) {
+            probeInFlight = true;
+            probeStartedAtMillis = currentTimeMillis.getAsLong();
+        }
+    }
+
+    /**
+     * Sends the request with the transport once this breaker allows it, and records whether it succeeded. Only the
+     * time until the response arrives is counted, reading its content afterwards is not. A server error that carries a
+     * Retry-After is the server throttling requests rather than failing, so it is not counted as a failure.
+     */
+    public Response execute(Request request, PolarisTransport polarisTransport) throws IntegrationException {
+        beforeRequest();
+        long startedAt = currentTimeMillis.getAsLong();
+        Response response;
+        try {
+            response = polarisTransport.execute(request);
+        } catch (IntegrationException | RuntimeException e) {
+            recordFailure(e.getMessage());
+            throw e;
+        }
+
+        Integer statusCode = response.getStatusCode();
+        if (statusCode != null && statusCode >= 500 && StringUtils.isBlank(response.getHeaderValue(RETRY_AFTER))) {
+            recordFailure("status code " + statusCode);
+        } else {
+            recordSuccess(currentTimeMillis.getAsLong() - startedAt);
+        }
+        return response;
+    }
+
+    public synchronized void recordSuccess(long latencyInMillis) {
+        if (latencyInMillis >= slowRequestInMillis) {
+            recordFailure(String.format("a request took %s seconds", latencyInMillis / 1000));
+            return;
+        }
+
+        probeInFlight = false;
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure(String failure) {
+        probeInFlight = false;
+        consecutiveFailures++;
+        lastFailure = failure;
+        if (State.HALF_OPEN.equals(state) || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtMillis = currentTimeMillis.getAsLong();
+        }
+    }
+
+    public synchronized void reset() {
+        probeInFlight = false;
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized State getState() {
+        if (State.OPEN.equals(state) && currentTimeMillis.getAsLong() - openedAtMillis >= openDurationInMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized String getLastFailure() {
+        return lastFailure;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.rest;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket shared by every request this JVM makes to one Polaris server, so that concurrent builds together send
+ * requests at a steady rate instead of each bursting on its own. When the server asks clients to back off, the whole
+ * bucket is paused rather than only the request that was refused.
+ */
+public class PolarisRateLimiter {
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 10;
+    public static final int DEFAULT_BURST_SIZE = 20;
+
+    private static final Map<String, PolarisRateLimiter> RATE_LIMITERS_BY_SERVER = new ConcurrentHashMap<>();
+
+    private final double requestsPerSecond;
+    private final int burstSize;
+    private double availableTokens;
+    private long lastRefillNanos;
+    private long pausedUntilMillis = 0;
+
+    public PolarisRateLimiter(double requestsPerSecond, int burstSize) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.burstSize = burstSize;
+        this.availableTokens = burstSize;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public static PolarisRateLimiter forServer(String polarisServerUrl) {
+        return RATE_LIMITERS_BY_SERVER.computeIfAbsent(
+                polarisServerUrl, ignored -> new PolarisRateLimiter(DEFAULT_REQUESTS_PER_SECOND, DEFAULT_BURST_SIZE));
+    }
+
+    /**
+     * Sets the request rate allowed against a server, values of 0 or less mean the default. The rate limiter is only
+     * replaced when the rate changes, so requests already waiting for a token keep their place.
+     */
+    public static PolarisRateLimiter configureForServer(
+            String polarisServerUrl, double requestsPerSecond, int burstSize) {
+        double configuredRequestsPerSecond = requestsPerSecond > 0 ? requestsPerSecond : DEFAULT_REQUESTS_PER_SECOND;
+        int configuredBurstSize = burstSize > 0 ? burstSize : DEFAULT_BURST_SIZE;
+        return RATE_LIMITERS_BY_SERVER.compute(polarisServerUrl, (ignored, rateLimiter) -> {
+            if (rateLimiter != null
+                    && rateLimiter.getRequestsPerSecond() == configuredRequestsPerSecond
+                    && rateLimiter.getBurstSize() == configuredBurstSize) {
+                return rateLimiter;
+            }
+            return new PolarisRateLimiter(configuredRequestsPerSecond, configuredBurstSize);
+        });
+    }
+
+    public static Map<String, PolarisRateLimiter> getRateLimiters() {
+        return Collections.unmodifiableMap(new TreeMap<>(RATE_LIMITERS_BY_SERVER));
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public int getBurstSize() {
+        return burstSize;
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitInMillis;
+        while ((waitInMillis = tryAcquire()) > 0) {
+            Thread.sleep(waitInMillis);
+        }
+    }
+
+    /**
+     * Completes on the executor once a token has been taken. No thread is held while waiting for the token.
+     */
+    public CompletableFuture<Void> acquireAsync(Executor executor) {
+        long waitInMillis = tryAcquire();
+        if (waitInMillis == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Executor delayedExecutor = CompletableFuture.delayedExecutor(waitInMillis, TimeUnit.MILLISECONDS, executor);
+        return CompletableFuture.runAsync(() -> {}, delayedExecutor).thenCompose(ignored -> acquireAsync(executor));
+    }
+
+    public synchronized void pauseFor(long pauseInMillis) {
+        pausedUntilMillis = Math.max(pausedUntilMillis, System.currentTimeMillis() + pauseInMillis);
+    }
+
+    /**
+     * Takes a token if one is available and returns 0, otherwise returns how long to wait before trying again.
+     */
+    private synchronized long tryAcquire() {
+        long pausedForMillis = pausedUntilMillis - System.currentTimeMillis();
+        if (pausedForMillis > 0) {
+            return pausedForMillis;
+        }
+
+        long now = System.nanoTime();
+        availableTokens = Math.min(burstSize, availableTokens + (now - lastRefillNanos) * requestsPerSecond / 1e9);
+        lastRefillNanos = now;
+
+        if (availableTokens >= 1) {
+            availableTokens--;
+            return 0;
+        }
+
+        return Math.max(1, (long) Math.ceil((1 - availableTokens) * 1000 / requestsPerSecond));
+    }
+}
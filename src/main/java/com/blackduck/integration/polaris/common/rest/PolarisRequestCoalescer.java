@@ -0,0 +1,120 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.rest;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Lets callers that want the same response at the same time share one request. The first caller for a key sends the
+ * request, and every caller that arrives while it is in flight receives the same response body instead of sending its
+ * own. Bodies are shared as strings, so each caller still parses its own copy of the model.
+ */
+public class PolarisRequestCoalescer {
+    public static final String COALESCED_RESPONSES_CACHE = "coalescedResponses";
+
+    private static final Map<String, PolarisRequestCoalescer> COALESCERS_BY_CLIENT = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<String>> requestsInFlight = new ConcurrentHashMap<>();
+    private final String polarisServerUrl;
+
+    public PolarisRequestCoalescer() {
+        this(null);
+    }
+
+    public PolarisRequestCoalescer(String polarisServerUrl) {
+        this.polarisServerUrl = polarisServerUrl;
+    }
+
+    /**
+     * Responses are only shared between clients that talk to the same server with the same credentials, since the
+     * credentials decide what the server returns.
+     */
+    public static PolarisRequestCoalescer forClient(String polarisServerUrl, String credentialsFingerprint) {
+        return COALESCERS_BY_CLIENT.computeIfAbsent(
+                polarisServerUrl + " " + credentialsFingerprint,
+                ignored -> new PolarisRequestCoalescer(polarisServerUrl));
+    }
+
+    public String coalesce(String requestKey, PolarisContentRequest contentRequest) throws IntegrationException {
+        CompletableFuture<String> pendingContent = new CompletableFuture<>();
+        CompletableFuture<String> contentInFlight = requestsInFlight.putIfAbsent(requestKey, pendingContent);
+        PolarisMetrics.cacheLookup(polarisServerUrl, COALESCED_RESPONSES_CACHE, contentInFlight != null);
+        if (contentInFlight != null) {
+            return awaitContent(contentInFlight);
+        }
+
+        try {
+            String content = contentRequest.getContent();
+            pendingContent.complete(content);
+            return content;
+        } catch (IntegrationException | RuntimeException e) {
+            pendingContent.completeExceptionally(e);
+            throw e;
+        } finally {
+            requestsInFlight.remove(requestKey, pendingContent);
+        }
+    }
+
+    /**
+     * Like coalesce, for requests that are sent without blocking. Every caller gets its own copy of the shared future,
+     * so one caller cancelling does not fail the others.
+     */
+    public CompletableFuture<String> coalesceAsync(
+            String requestKey, Supplier<CompletableFuture<String>> contentRequest) {
+        CompletableFuture<String> pendingContent = new CompletableFuture<>();
+        CompletableFuture<String> contentInFlight = requestsInFlight.putIfAbsent(requestKey, pendingContent);
+        PolarisMetrics.cacheLookup(polarisServerUrl, COALESCED_RESPONSES_CACHE, contentInFlight != null);
+        if (contentInFlight != null) {
+            return contentInFlight.copy();
+        }
+
+        CompletableFuture<String> content;
+        try {
+            content = contentRequest.get();
+        } catch (RuntimeException e) {
+            content = CompletableFuture.failedFuture(e);
+        }
+        content.whenComplete((body, throwable) -> {
+            if (throwable == null) {
+                pendingContent.complete(body);
+            } else {
+                pendingContent.completeExceptionally(throwable);
+            }
+            requestsInFlight.remove(requestKey, pendingContent);
+        });
+        return pendingContent.copy();
+    }
+
+    public int getRequestsInFlight() {
+        return requestsInFlight.size();
+    }
+
+    private String awaitContent(CompletableFuture<String> contentInFlight) throws IntegrationException {
+        try {
+            return contentInFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IntegrationException("Interrupted while waiting for a request to Polaris", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IntegrationException) {
+                throw (IntegrationException) e.getCause();
+            }
+            throw new IntegrationException(e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    public interface PolarisContentRequest {
+        String getContent() throws IntegrationException;
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.rest;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.rest.request.Request;
+import com.blackduck.integration.rest.response.Response;
+
+/**
+ * Sends one request to Polaris and returns its response. PolarisService normally sends requests with its http client,
+ * but a transport can also record the traffic or answer from a recording without any network.
+ */
+@FunctionalInterface
+public interface PolarisTransport {
+    Response execute(Request request) throws IntegrationException;
+}
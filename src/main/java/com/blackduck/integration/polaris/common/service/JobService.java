@@ -13,11 +13,19 @@ import com.blackduck.integration.polaris.common.api.model.FailureInfo;
 import com.blackduck.integration.polaris.common.api.model.JobAttributes;
 import com.blackduck.integration.polaris.common.api.model.JobStatus;
 import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import com.blackduck.integration.polaris.common.jfr.PolarisEvents;
+import com.blackduck.integration.polaris.common.jfr.PolarisJobPollEvent;
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
+import com.blackduck.integration.polaris.common.metrics.PolarisOperations;
+import com.blackduck.integration.polaris.common.request.PolarisQuery;
 import com.blackduck.integration.rest.HttpUrl;
 import com.blackduck.integration.wait.ResilientJobConfig;
 import com.blackduck.integration.wait.WaitJob;
 import com.blackduck.integration.wait.tracker.WaitIntervalTrackerConstant;
+import com.codahale.metrics.Timer;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 
@@ -25,6 +33,9 @@ public class JobService {
     public static final long DEFAULT_TIMEOUT = 30 * 60L;
     public static final int DEFAULT_WAIT_INTERVAL = 5;
 
+    // Waiting on a job only ever reads its status and failure info
+    private static final PolarisQuery JOB_STATUS_QUERY = PolarisQuery.all().fields("jobs", "status", "failureInfo");
+
     private final IntLogger logger;
     private final PolarisService polarisService;
 
@@ -34,7 +45,7 @@ public class JobService {
     }
 
     public PolarisResource<JobAttributes> getJobByUrl(HttpUrl jobApiUrl) throws IntegrationException {
-        return polarisService.get(jobApiUrl, JobAttributes.class);
+        return polarisService.get(jobApiUrl, JobAttributes.class, JOB_STATUS_QUERY);
     }
 
     public void waitForJobStateIsCompletedOrDieByUrl(
@@ -44,7 +55,23 @@ public class JobService {
                 logger,
                 ResilientJobConfig.CURRENT_TIME_SUPPLIER,
                 new WaitIntervalTrackerConstant(timeoutInSeconds, waitIntervalInSeconds));
-        if (!WaitJob.waitFor(jobConfig, () -> hasJobEnded(jobApiUrl), "Wait-For-Issues-Job")) {
+        HttpUrl polarisServerUrl = polarisService.getPolarisServerUrl();
+        AtomicInteger polls = new AtomicInteger();
+        boolean jobEnded;
+        try (Timer.Context ignored = PolarisMetrics.timer(polarisServerUrl, "job.wait").time()) {
+            jobEnded = WaitJob.waitFor(
+                    jobConfig,
+                    () -> {
+                        polls.incrementAndGet();
+                        PolarisMetrics.counter(polarisServerUrl, "job.polls").inc();
+                        return hasJobEnded(jobApiUrl);
+                    },
+                    "Wait-For-Issues-Job");
+        } finally {
+            PolarisMetrics.histogram(polarisServerUrl, "job.pollsPerWait").update(polls.get());
+        }
+
+        if (!jobEnded) {
             String maximumDurationString = DurationFormatUtils.formatDurationHMS(timeoutInSeconds * 1000);
             throw new PolarisIntegrationException(String.format(
                     "Job at url %s did not end in the provided timeout of %s", jobApiUrl, maximumDurationString));
@@ -81,6 +108,29 @@ public class JobService {
     }
 
     private boolean hasJobEnded(HttpUrl jobApiUrl) throws IntegrationException {
+        PolarisJobPollEvent event = PolarisEvents.isAvailable() ? new PolarisJobPollEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        AtomicReference<String> state = new AtomicReference<>();
+        boolean ended = false;
+        try {
+            ended = checkJobEnded(jobApiUrl, state);
+            return ended;
+        } finally {
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.url = jobApiUrl.string();
+                    event.state = state.get();
+                    event.ended = ended;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    private boolean checkJobEnded(HttpUrl jobApiUrl, AtomicReference<String> state) throws IntegrationException {
         String jobStatusPrefix = "Job at url " + jobApiUrl;
 
         try {
@@ -95,6 +145,8 @@ public class JobService {
 
             JobStatus jobStatus = optionalJobStatus.get();
             JobStatus.StateEnum stateEnum = jobStatus.getState();
+            state.set(String.valueOf(stateEnum));
+            PolarisOperations.recordJobStatus(jobApiUrl.string(), state.get(), jobStatus.getProgress());
             if (JobStatus.StateEnum.QUEUED.equals(stateEnum)
                     || JobStatus.StateEnum.RUNNING.equals(stateEnum)
                     || JobStatus.StateEnum.DISPATCHED.equals(stateEnum)) {
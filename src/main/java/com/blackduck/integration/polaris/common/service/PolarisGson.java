@@ -0,0 +1,97 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.service;
+
+import com.blackduck.integration.polaris.common.api.PolarisPagedResourceResponse;
+import com.blackduck.integration.polaris.common.api.PolarisPaginationMeta;
+import com.blackduck.integration.polaris.common.api.PolarisResource;
+import com.blackduck.integration.polaris.common.api.PolarisSingleResourceResponse;
+import com.blackduck.integration.polaris.common.api.model.ContextAttributes;
+import com.blackduck.integration.polaris.common.api.model.CountV0Attributes;
+import com.blackduck.integration.polaris.common.api.model.FailureInfo;
+import com.blackduck.integration.polaris.common.api.model.JobAttributes;
+import com.blackduck.integration.polaris.common.api.model.JobStatus;
+import com.blackduck.integration.polaris.common.cli.model.json.UnsupportedVersionCliScanResponse;
+import com.blackduck.integration.polaris.common.cli.model.json.v1.CliScanV1;
+import com.blackduck.integration.polaris.common.cli.model.json.v1.IssueSummaryV1;
+import com.blackduck.integration.polaris.common.cli.model.json.v1.ProjectInfoV1;
+import com.blackduck.integration.polaris.common.cli.model.json.v1.ScanInfoV1;
+import com.blackduck.integration.polaris.common.cli.model.json.v1.ToolInfoV1;
+import com.blackduck.integration.polaris.common.cli.model.json.v2.CliScanV2;
+import com.blackduck.integration.polaris.common.cli.model.json.v2.ToolInfoV2;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One Gson for all Polaris json. Gson caches the adapter it builds by reflection for each type per Gson instance, so
+ * sharing one instance, and building the adapters for the Polaris models up front, means no request pays that cost
+ * again. The response types for each attribute class are cached for the same reason.
+ */
+public final class PolarisGson {
+    private static final Map<Class<?>, Type> SINGLE_RESOURCE_RESPONSE_TYPES = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Type> PAGED_RESOURCE_RESPONSE_TYPES = new ConcurrentHashMap<>();
+    // Declared after the type caches because warming up fills them
+    private static final Gson GSON = warmUp(new Gson());
+
+    private PolarisGson() {
+        // This class should not be instantiated
+    }
+
+    public static Gson get() {
+        return GSON;
+    }
+
+    public static Type getSingleResourceResponseType(Class<?> attributeType) {
+        return SINGLE_RESOURCE_RESPONSE_TYPES.computeIfAbsent(
+                attributeType,
+                ignored -> TypeToken.getParameterized(
+                                PolarisSingleResourceResponse.class, getResourceType(attributeType))
+                        .getType());
+    }
+
+    public static Type getPagedResourceResponseType(Class<?> attributeType) {
+        return PAGED_RESOURCE_RESPONSE_TYPES.computeIfAbsent(
+                attributeType,
+                ignored -> TypeToken.getParameterized(
+                                PolarisPagedResourceResponse.class, getResourceType(attributeType))
+                        .getType());
+    }
+
+    private static Type getResourceType(Class<?> attributeType) {
+        return TypeToken.getParameterized(PolarisResource.class, attributeType).getType();
+    }
+
+    private static Gson warmUp(Gson gson) {
+        Arrays.asList(
+                        PolarisPaginationMeta.class,
+                        ContextAttributes.class,
+                        CountV0Attributes.class,
+                        FailureInfo.class,
+                        JobAttributes.class,
+                        JobStatus.class,
+                        CliScanV1.class,
+                        IssueSummaryV1.class,
+                        ProjectInfoV1.class,
+                        ScanInfoV1.class,
+                        ToolInfoV1.class,
+                        CliScanV2.class,
+                        ToolInfoV2.class,
+                        UnsupportedVersionCliScanResponse.class)
+                .forEach(gson::getAdapter);
+
+        for (Class<?> attributeType :
+                Arrays.asList(ContextAttributes.class, CountV0Attributes.class, JobAttributes.class)) {
+            gson.getAdapter(TypeToken.get(getSingleResourceResponseType(attributeType)));
+            gson.getAdapter(TypeToken.get(getPagedResourceResponseType(attributeType)));
+        }
+        return gson;
+    }
+}
@@ -9,10 +9,13 @@ package com.blackduck.integration.polaris.common.service;
 import com.blackduck.integration.exception.IntegrationException;
 import com.blackduck.integration.log.IntLogger;
 import com.blackduck.integration.polaris.common.api.PolarisResponse;
+import com.blackduck.integration.polaris.common.jfr.PolarisEvents;
+import com.blackduck.integration.polaris.common.jfr.PolarisJsonParseEvent;
 import com.blackduck.integration.rest.response.Response;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSyntaxException;
 import java.lang.reflect.Type;
 import java.util.Map;
@@ -34,6 +37,10 @@ public class PolarisJsonTransformer {
     }
 
     public <C extends PolarisResponse> C getResponseAs(String json, Type responseType) throws IntegrationException {
+        PolarisJsonParseEvent event = PolarisEvents.isAvailable() ? new PolarisJsonParseEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
         try {
             JsonObject jsonElement = gson.fromJson(json, JsonObject.class);
             return getResponseAs(jsonElement, responseType);
@@ -41,14 +48,23 @@ public class PolarisJsonTransformer {
             logger.error(
                     String.format("Could not parse the provided json with Gson:%s%s", System.lineSeparator(), json));
             throw new IntegrationException(e.getMessage(), e);
+        } finally {
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.responseType = responseType.getTypeName();
+                    // The length in chars, which matches the size in bytes for the (almost entirely ascii) Polaris json
+                    event.bytes = json == null ? 0 : json.length();
+                    event.commit();
+                }
+            }
         }
     }
 
     public <C extends PolarisResponse> C getResponseAs(JsonObject jsonObject, Type responseType)
             throws IntegrationException {
-        String json = gson.toJson(jsonObject);
+        String json = addJsonAsField(jsonObject);
         try {
-            addJsonAsField(jsonObject);
             return gson.fromJson(jsonObject, responseType);
         } catch (JsonSyntaxException e) {
             logger.error(String.format(
@@ -57,17 +73,40 @@ public class PolarisJsonTransformer {
         }
     }
 
-    private void addJsonAsField(JsonElement jsonElement) {
+    /**
+     * Adds the json of every object in the tree to it as a field, and returns the json of the element as it was before
+     * any field was added. The json of an object is put together from the json of its members, so the tree is only
+     * serialized once instead of once for every level it is nested at.
+     */
+    private String addJsonAsField(JsonElement jsonElement) {
         if (jsonElement.isJsonObject()) {
-            JsonObject innerObject = jsonElement.getAsJsonObject();
-            jsonElement.getAsJsonObject().addProperty(FIELD_NAME_POLARIS_COMPONENT_JSON, gson.toJson(innerObject));
-            for (Map.Entry<String, JsonElement> innerObjectFields : innerObject.entrySet()) {
-                addJsonAsField(innerObjectFields.getValue());
+            JsonObject jsonObject = jsonElement.getAsJsonObject();
+            StringBuilder json = new StringBuilder("{");
+            for (Map.Entry<String, JsonElement> member : jsonObject.entrySet()) {
+                // Gson leaves null members out of objects unless it was built to serialize nulls
+                if (member.getValue().isJsonNull() && !gson.serializeNulls()) {
+                    continue;
+                }
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append(gson.toJson(new JsonPrimitive(member.getKey())))
+                        .append(':')
+                        .append(addJsonAsField(member.getValue()));
             }
+            String objectJson = json.append('}').toString();
+            jsonObject.addProperty(FIELD_NAME_POLARIS_COMPONENT_JSON, objectJson);
+            return objectJson;
         } else if (jsonElement.isJsonArray()) {
+            StringBuilder json = new StringBuilder("[");
             for (JsonElement arrayElement : jsonElement.getAsJsonArray()) {
-                addJsonAsField(arrayElement);
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append(addJsonAsField(arrayElement));
             }
+            return json.append(']').toString();
         }
+        return gson.toJson(jsonElement);
     }
 }
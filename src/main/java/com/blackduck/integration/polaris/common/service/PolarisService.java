@@ -7,58 +7,146 @@
 package com.blackduck.integration.polaris.common.service;
 
 import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.log.IntLogger;
+import com.blackduck.integration.log.SilentIntLogger;
 import com.blackduck.integration.polaris.common.api.PolarisAttributes;
 import com.blackduck.integration.polaris.common.api.PolarisPagedResourceResponse;
 import com.blackduck.integration.polaris.common.api.PolarisPaginationMeta;
 import com.blackduck.integration.polaris.common.api.PolarisResource;
 import com.blackduck.integration.polaris.common.api.PolarisResponse;
 import com.blackduck.integration.polaris.common.api.PolarisSingleResourceResponse;
+import com.blackduck.integration.polaris.common.jfr.PolarisEvents;
+import com.blackduck.integration.polaris.common.jfr.PolarisRequestEvent;
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
+import com.blackduck.integration.polaris.common.metrics.PolarisOperations;
+import com.blackduck.integration.polaris.common.request.PolarisPageSizes;
+import com.blackduck.integration.polaris.common.request.PolarisQuery;
 import com.blackduck.integration.polaris.common.request.PolarisRequestFactory;
 import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClient;
+import com.blackduck.integration.polaris.common.rest.PolarisCircuitBreaker;
+import com.blackduck.integration.polaris.common.rest.PolarisRateLimiter;
+import com.blackduck.integration.polaris.common.rest.PolarisRequestCoalescer;
+import com.blackduck.integration.polaris.common.rest.PolarisTransport;
+import com.blackduck.integration.polaris.common.tracing.PolarisSpan;
+import com.blackduck.integration.polaris.common.tracing.PolarisTracing;
+import com.blackduck.integration.rest.HttpMethod;
 import com.blackduck.integration.rest.HttpUrl;
 import com.blackduck.integration.rest.request.Request;
 import com.blackduck.integration.rest.response.Response;
-import com.google.gson.reflect.TypeToken;
+import com.codahale.metrics.Timer;
+import io.opentelemetry.api.trace.SpanKind;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.apache.commons.lang3.StringUtils;
 
 public class PolarisService {
+    // 429 and 503 are how Polaris throttles a tenant, the gateway errors are usually just as short-lived
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = new HashSet<>(Arrays.asList(429, 502, 503, 504));
+    private static final long RETRY_DEADLINE_IN_MILLIS = 5 * 60 * 1000L;
+    private static final long INITIAL_BACKOFF_IN_MILLIS = 1000;
+    private static final long MAXIMUM_BACKOFF_IN_MILLIS = 60 * 1000L;
+    private static final long NO_RETRY = -1;
+    private static final int ASYNC_THREAD_COUNT = 8;
+    private static final int MAXIMUM_PAGES_IN_FLIGHT = 4;
+    private static final AtomicInteger ASYNC_THREAD_NUMBER = new AtomicInteger();
+    // Shared by every PolarisService so that concurrent requests from all builds are spread over a few threads. These
+    // threads only ever block on the exchange itself, waits for the rate limit and for retries are scheduled instead.
+    private static final ExecutorService ASYNC_EXECUTOR =
+            PolarisTracing.propagateContext(Executors.newFixedThreadPool(ASYNC_THREAD_COUNT, runnable -> {
+                Thread thread =
+                        new Thread(runnable, "Coverity on Polaris request " + ASYNC_THREAD_NUMBER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }));
+
+    private final IntLogger logger;
     private final AccessTokenPolarisHttpClient polarisHttpClient;
     private final PolarisJsonTransformer polarisJsonTransformer;
     private final int defaultPageSize;
+    private final PolarisRateLimiter polarisRateLimiter;
+    private final PolarisCircuitBreaker polarisCircuitBreaker;
+    private final PolarisPageSizes polarisPageSizes;
+    private final PolarisRequestCoalescer polarisRequestCoalescer;
+    private final PolarisTransport polarisTransport;
 
     public PolarisService(
             AccessTokenPolarisHttpClient polarisHttpClient,
             PolarisJsonTransformer polarisJsonTransformer,
             int defaultPageSize) {
+        this(new SilentIntLogger(), polarisHttpClient, polarisJsonTransformer, defaultPageSize);
+    }
+
+    public PolarisService(
+            IntLogger logger,
+            AccessTokenPolarisHttpClient polarisHttpClient,
+            PolarisJsonTransformer polarisJsonTransformer,
+            int defaultPageSize) {
+        this(logger, polarisHttpClient, polarisJsonTransformer, defaultPageSize, polarisHttpClient::execute);
+    }
+
+    /**
+     * Sends requests with the given transport instead of the http client, which then only identifies the server and
+     * credentials the requests belong to.
+     */
+    public PolarisService(
+            IntLogger logger,
+            AccessTokenPolarisHttpClient polarisHttpClient,
+            PolarisJsonTransformer polarisJsonTransformer,
+            int defaultPageSize,
+            PolarisTransport polarisTransport) {
+        this.logger = logger;
         this.polarisHttpClient = polarisHttpClient;
         this.polarisJsonTransformer = polarisJsonTransformer;
         this.defaultPageSize = defaultPageSize;
+        String polarisServerUrl = String.valueOf(polarisHttpClient.getPolarisServerUrl());
+        this.polarisRateLimiter = PolarisRateLimiter.forServer(polarisServerUrl);
+        this.polarisCircuitBreaker = PolarisCircuitBreaker.forServer(polarisServerUrl);
+        this.polarisPageSizes = PolarisPageSizes.forServer(polarisServerUrl);
+        this.polarisRequestCoalescer =
+                PolarisRequestCoalescer.forClient(polarisServerUrl, polarisHttpClient.getCredentialsFingerprint());
+        this.polarisTransport = polarisTransport;
     }
 
     public <R extends PolarisResponse> R get(Request request, Type returnType) throws IntegrationException {
-        try (Response response = polarisHttpClient.execute(request)) {
-            response.throwExceptionForError();
-
-            return polarisJsonTransformer.getResponse(response, returnType);
-        } catch (IOException e) {
-            throw new IntegrationException(e);
-        }
+        return polarisJsonTransformer.getResponseAs(getContentString(request), returnType);
     }
 
     public <A extends PolarisAttributes> PolarisResource<A> get(HttpUrl apiUrl, Class<A> attributeType)
             throws IntegrationException {
-        Type resourceType =
-                TypeToken.getParameterized(PolarisResource.class, attributeType).getType();
-        Type responseType = TypeToken.getParameterized(PolarisSingleResourceResponse.class, resourceType)
-                .getType();
+        return get(apiUrl, attributeType, PolarisQuery.all());
+    }
 
-        Request request = PolarisRequestFactory.createDefaultGetRequest(apiUrl);
+    public <A extends PolarisAttributes> PolarisResource<A> get(
+            HttpUrl apiUrl, Class<A> attributeType, PolarisQuery polarisQuery) throws IntegrationException {
+        Type responseType = PolarisGson.getSingleResourceResponseType(attributeType);
+
+        Request request = PolarisRequestFactory.createDefaultGetRequest(apiUrl, polarisQuery);
         PolarisSingleResourceResponse<PolarisResource<A>> polarisSingleResourceResponse = get(request, responseType);
         return polarisSingleResourceResponse.getData();
     }
@@ -73,9 +161,103 @@ public class PolarisService {
         return collectAllResources(apiUrl, attributeType, pageSize);
     }
 
+    public <A extends PolarisAttributes> List<PolarisResource<A>> getAll(
+            HttpUrl apiUrl, Class<A> attributeType, PolarisQuery polarisQuery) throws IntegrationException {
+        return collectAllResources(apiUrl, attributeType, defaultPageSize, polarisQuery);
+    }
+
+    public <A extends PolarisAttributes> CompletableFuture<PolarisResource<A>> getAsync(
+            HttpUrl apiUrl, Class<A> attributeType) {
+        return getAsync(apiUrl, attributeType, PolarisQuery.all());
+    }
+
+    public <A extends PolarisAttributes> CompletableFuture<PolarisResource<A>> getAsync(
+            HttpUrl apiUrl, Class<A> attributeType, PolarisQuery polarisQuery) {
+        Type responseType = PolarisGson.getSingleResourceResponseType(attributeType);
+        Request request = PolarisRequestFactory.createDefaultGetRequest(apiUrl, polarisQuery);
+
+        CompletableFuture<PolarisResource<A>> result = new CompletableFuture<>();
+        getContentStringAsync(request, result)
+                .thenApply(content ->
+                        this.<PolarisSingleResourceResponse<PolarisResource<A>>>getResponseAs(content, responseType))
+                .thenApply(PolarisSingleResourceResponse::getData)
+                .whenComplete((resource, throwable) -> complete(result, resource, throwable));
+        return result;
+    }
+
+    public <A extends PolarisAttributes> CompletableFuture<List<PolarisResource<A>>> getAllAsync(
+            HttpUrl apiUrl, Class<A> attributeType) {
+        return getAllAsync(apiUrl, attributeType, defaultPageSize, PolarisQuery.all());
+    }
+
+    public <A extends PolarisAttributes> CompletableFuture<List<PolarisResource<A>>> getAllAsync(
+            HttpUrl apiUrl, Class<A> attributeType, PolarisQuery polarisQuery) {
+        return getAllAsync(apiUrl, attributeType, defaultPageSize, polarisQuery);
+    }
+
+    /**
+     * Requests the first page, then the remaining pages the first page's total calls for, a few at a time.
+     */
+    public <A extends PolarisAttributes> CompletableFuture<List<PolarisResource<A>>> getAllAsync(
+            HttpUrl apiUrl, Class<A> attributeType, int requestedPageSize, PolarisQuery polarisQuery) {
+        int firstPageSize = polarisPageSizes.getPageSize(apiUrl, requestedPageSize);
+        CompletableFuture<List<PolarisResource<A>>> result = new CompletableFuture<>();
+        executePagedRequestAsync(apiUrl, attributeType, 0, firstPageSize, polarisQuery, result)
+                .thenCompose(firstPage -> {
+                    PolarisPaginationMeta meta = firstPage == null ? null : firstPage.getMeta();
+                    int totalExpected = getMetaValue(meta, PolarisPaginationMeta::getTotal).orElse(0);
+                    int pageSize = polarisPageSizes.recordServerLimit(
+                            apiUrl,
+                            firstPageSize,
+                            getMetaValue(meta, PolarisPaginationMeta::getLimit).orElse(null));
+
+                    List<CompletableFuture<PolarisPagedResourceResponse<PolarisResource<A>>>> pages = new ArrayList<>();
+                    pages.add(CompletableFuture.completedFuture(firstPage));
+                    if (pageSize > 0 && !getPageData(firstPage).isEmpty()) {
+                        pages.addAll(requestRemainingPages(
+                                apiUrl, attributeType, pageSize, totalExpected, polarisQuery, result));
+                    }
+
+                    return CompletableFuture.allOf(pages.toArray(new CompletableFuture[0]))
+                            .thenApply(ignored -> collectPages(pages));
+                })
+                .whenComplete((resources, throwable) -> complete(result, resources, throwable));
+        return result;
+    }
+
+    public HttpUrl getPolarisServerUrl() {
+        return polarisHttpClient.getPolarisServerUrl();
+    }
+
+    /**
+     * Waits for a future returned by this service, rethrowing the IntegrationException it failed with. When the wait is
+     * interrupted the future is cancelled, so that none of its pages that have not been requested yet will be.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IntegrationException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // Cancelling a CompletableFuture never interrupts anything, the requests check for it instead
+            future.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IntegrationException) {
+                throw (IntegrationException) e.getCause();
+            }
+            throw new IntegrationException(e.getCause());
+        }
+    }
+
     public <A extends PolarisAttributes> List<PolarisResource<A>> collectAllResources(
             HttpUrl apiUrl, Class<A> attributeType, int pageSize) throws IntegrationException {
+        return collectAllResources(apiUrl, attributeType, pageSize, PolarisQuery.all());
+    }
+
+    public <A extends PolarisAttributes> List<PolarisResource<A>> collectAllResources(
+            HttpUrl apiUrl, Class<A> attributeType, int requestedPageSize, PolarisQuery polarisQuery)
+            throws IntegrationException {
         List<PolarisResource<A>> allResources = new ArrayList<>();
+        int pageSize = polarisPageSizes.getPageSize(apiUrl, requestedPageSize);
 
         Integer totalExpected = null;
         int offset = 0;
@@ -84,18 +266,19 @@ public class PolarisService {
         boolean isMoreData;
         do {
             PolarisPagedResourceResponse<PolarisResource<A>> pageOfResources =
-                    executePagedRequest(apiUrl, attributeType, offset, pageSize);
+                    executePagedRequest(apiUrl, attributeType, offset, pageSize, polarisQuery);
             if (pageOfResources == null) {
                 break;
             }
 
             if (totalExpectedHasNotBeenSet) {
                 PolarisPaginationMeta meta = pageOfResources.getMeta();
-                totalExpected = Optional.ofNullable(meta)
-                        .map(PolarisPaginationMeta::getTotal)
-                        .map(BigDecimal::intValue)
-                        .orElse(null);
+                totalExpected = getMetaValue(meta, PolarisPaginationMeta::getTotal).orElse(null);
                 totalExpectedHasNotBeenSet = false;
+
+                // The server may return fewer results per page than were asked for, later reads ask for that many
+                pageSize = polarisPageSizes.recordServerLimit(
+                        apiUrl, pageSize, getMetaValue(meta, PolarisPaginationMeta::getLimit).orElse(null));
             }
 
             List<PolarisResource<A>> pageResources =
@@ -105,7 +288,8 @@ public class PolarisService {
             // Pagination meta does not include a total if it only has one page of results to give. -- rotte SEP 2020
             isMoreData = totalExpected != null && totalExpected > allResources.size();
             thisPageHadData = !pageResources.isEmpty();
-            offset += pageSize;
+            // A page may hold fewer results than its limit says, so the next page starts after the last one returned
+            offset += pageResources.size();
         } while (isMoreData && thisPageHadData);
 
         return allResources;
@@ -113,17 +297,349 @@ public class PolarisService {
 
     protected <A extends PolarisAttributes> PolarisPagedResourceResponse<PolarisResource<A>> executePagedRequest(
             HttpUrl apiUrl, Class<A> attributeType, int offset, int limit) throws IntegrationException {
-        Type resourceType =
-                TypeToken.getParameterized(PolarisResource.class, attributeType).getType();
-        Type responseType = TypeToken.getParameterized(PolarisPagedResourceResponse.class, resourceType)
-                .getType();
+        return executePagedRequest(apiUrl, attributeType, offset, limit, PolarisQuery.all());
+    }
 
-        Request pagedRequest = PolarisRequestFactory.createDefaultPagedGetRequest(apiUrl, limit, offset);
-        try (Response response = polarisHttpClient.execute(pagedRequest)) {
+    protected <A extends PolarisAttributes> PolarisPagedResourceResponse<PolarisResource<A>> executePagedRequest(
+            HttpUrl apiUrl, Class<A> attributeType, int offset, int limit, PolarisQuery polarisQuery)
+            throws IntegrationException {
+        Type responseType = PolarisGson.getPagedResourceResponseType(attributeType);
+
+        Request pagedRequest = PolarisRequestFactory.createDefaultPagedGetRequest(apiUrl, limit, offset, polarisQuery);
+        return polarisJsonTransformer.getResponseAs(getContentString(pagedRequest), responseType);
+    }
+
+    /**
+     * Requests the pages after the first one. At most MAXIMUM_PAGES_IN_FLIGHT are requested at a time, each of them
+     * followed by the page that is that many pages further on, so that one long listing cannot take every request
+     * thread. When a page fails, the caller is failed with it and the pages that have not been requested yet never are.
+     */
+    private <A extends PolarisAttributes>
+            List<CompletableFuture<PolarisPagedResourceResponse<PolarisResource<A>>>> requestRemainingPages(
+                    HttpUrl apiUrl,
+                    Class<A> attributeType,
+                    int pageSize,
+                    int totalExpected,
+                    PolarisQuery polarisQuery,
+                    CompletableFuture<?> caller) {
+        List<CompletableFuture<PolarisPagedResourceResponse<PolarisResource<A>>>> pages = new ArrayList<>();
+        for (int offset = pageSize; offset < totalExpected; offset += pageSize) {
+            int pageOffset = offset;
+            CompletableFuture<?> previousPage = pages.size() < MAXIMUM_PAGES_IN_FLIGHT
+                    ? CompletableFuture.completedFuture(null)
+                    : pages.get(pages.size() - MAXIMUM_PAGES_IN_FLIGHT);
+            CompletableFuture<PolarisPagedResourceResponse<PolarisResource<A>>> page =
+                    previousPage.thenCompose(ignored -> executePagedRequestAsync(
+                            apiUrl, attributeType, pageOffset, pageSize, polarisQuery, caller));
+            page.whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    caller.completeExceptionally(throwable);
+                }
+            });
+            pages.add(page);
+        }
+        return pages;
+    }
+
+    private <A extends PolarisAttributes>
+            CompletableFuture<PolarisPagedResourceResponse<PolarisResource<A>>> executePagedRequestAsync(
+                    HttpUrl apiUrl,
+                    Class<A> attributeType,
+                    int offset,
+                    int limit,
+                    PolarisQuery polarisQuery,
+                    CompletableFuture<?> caller) {
+        Type responseType = PolarisGson.getPagedResourceResponseType(attributeType);
+
+        Request pagedRequest = PolarisRequestFactory.createDefaultPagedGetRequest(apiUrl, limit, offset, polarisQuery);
+        return getContentStringAsync(pagedRequest, caller)
+                .thenApply(content -> this.<PolarisPagedResourceResponse<PolarisResource<A>>>getResponseAs(
+                        content, responseType));
+    }
+
+    /**
+     * Identical GET requests that are sent while one is already in flight share its response body.
+     */
+    private String getContentString(Request request) throws IntegrationException {
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return executeForContentString(request);
+        }
+
+        return polarisRequestCoalescer.coalesce(getRequestKey(request), () -> executeForContentString(request));
+    }
+
+    /**
+     * Like getContentString, without blocking. Nothing is sent once the caller is done, whether it was cancelled or
+     * failed by another of its requests.
+     */
+    private CompletableFuture<String> getContentStringAsync(Request request, CompletableFuture<?> caller) {
+        if (caller.isDone()) {
+            return CompletableFuture.failedFuture(
+                    new CancellationException("The request to " + request.getUrl() + " is no longer needed"));
+        }
+
+        long deadline = System.currentTimeMillis() + RETRY_DEADLINE_IN_MILLIS;
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return executeForContentStringAsync(request, deadline, 1);
+        }
+
+        return polarisRequestCoalescer.coalesceAsync(
+                getRequestKey(request), () -> executeForContentStringAsync(request, deadline, 1));
+    }
+
+    private String getRequestKey(Request request) {
+        Map<String, Set<String>> queryParameters =
+                Optional.ofNullable(request.getQueryParameters()).orElse(Collections.emptyMap());
+        return request.getUrl().string() + " " + new TreeMap<>(queryParameters);
+    }
+
+    private String executeForContentString(Request request) throws IntegrationException {
+        return exchangeForContentString(request, this::execute);
+    }
+
+    /**
+     * Sends one attempt of the request once the rate limit allows it. When the server refuses it the next attempt is
+     * scheduled after the backoff, so no thread waits for either.
+     */
+    private CompletableFuture<String> executeForContentStringAsync(Request request, long deadline, int attempt) {
+        Executor requestExecutor = PolarisTracing.withCurrentContext(ASYNC_EXECUTOR);
+        return polarisRateLimiter
+                .acquireAsync(requestExecutor)
+                .thenComposeAsync(
+                        ignored -> {
+                            AtomicLong retryInMillis = new AtomicLong(NO_RETRY);
+                            try {
+                                String content = exchangeForContentString(request, attemptRequest -> {
+                                    Response response = executeThroughCircuitBreaker(attemptRequest);
+                                    retryInMillis.set(
+                                            getRetryDelayInMillis(attemptRequest, response, deadline, attempt));
+                                    return response;
+                                });
+                                if (retryInMillis.get() == NO_RETRY) {
+                                    return CompletableFuture.completedFuture(content);
+                                }
+                            } catch (IntegrationException e) {
+                                if (retryInMillis.get() == NO_RETRY) {
+                                    return CompletableFuture.failedFuture(e);
+                                }
+                            }
+
+                            Executor retryExecutor = CompletableFuture.delayedExecutor(
+                                    retryInMillis.get(), TimeUnit.MILLISECONDS, requestExecutor);
+                            return CompletableFuture.runAsync(() -> {}, retryExecutor)
+                                    .thenCompose(
+                                            retry -> executeForContentStringAsync(request, deadline, attempt + 1));
+                        },
+                        requestExecutor);
+    }
+
+    /**
+     * Reads the body of the response the transport returns, as one span and one JFR event.
+     */
+    private String exchangeForContentString(Request request, PolarisTransport transport) throws IntegrationException {
+        PolarisRequestEvent event = PolarisEvents.isAvailable() ? new PolarisRequestEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        Integer statusCode = null;
+        String content = null;
+        try (PolarisSpan span = PolarisTracing.startSpan("HTTP " + request.getMethod(), SpanKind.CLIENT);
+                Response response = transport.execute(request)) {
+            statusCode = response.getStatusCode();
+            span.setAttribute("http.request.method", String.valueOf(request.getMethod()))
+                    .setAttribute("url.full", request.getUrl().string())
+                    .setAttribute("http.response.status_code", statusCode == null ? 0 : statusCode);
             response.throwExceptionForError();
-            return polarisJsonTransformer.getResponse(response, responseType);
+            content = response.getContentString();
+            span.succeeded();
+            return content;
         } catch (IOException e) {
             throw new IntegrationException("Problem handling request", e);
+        } finally {
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.method = String.valueOf(request.getMethod());
+                    event.url = request.getUrl().string();
+                    event.statusCode = statusCode == null ? 0 : statusCode;
+                    event.bytes = content == null ? 0 : content.length();
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    private Optional<Integer> getMetaValue(
+            PolarisPaginationMeta meta, Function<PolarisPaginationMeta, BigDecimal> getter) {
+        return Optional.ofNullable(meta).map(getter).map(BigDecimal::intValue);
+    }
+
+    private <A extends PolarisAttributes> List<PolarisResource<A>> collectPages(
+            List<CompletableFuture<PolarisPagedResourceResponse<PolarisResource<A>>>> pages) {
+        List<PolarisResource<A>> allResources = new ArrayList<>();
+        for (CompletableFuture<PolarisPagedResourceResponse<PolarisResource<A>>> page : pages) {
+            List<PolarisResource<A>> pageResources = getPageData(page.join());
+            if (pageResources.isEmpty()) {
+                break;
+            }
+            allResources.addAll(pageResources);
+        }
+        return allResources;
+    }
+
+    private <A extends PolarisAttributes> List<PolarisResource<A>> getPageData(
+            PolarisPagedResourceResponse<PolarisResource<A>> pageOfResources) {
+        return Optional.ofNullable(pageOfResources)
+                .map(PolarisPagedResourceResponse::getData)
+                .orElse(Collections.emptyList());
+    }
+
+    private <R extends PolarisResponse> R getResponseAs(String content, Type responseType) {
+        try {
+            return polarisJsonTransformer.getResponseAs(content, responseType);
+        } catch (IntegrationException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> result, T value, Throwable throwable) {
+        if (throwable == null) {
+            result.complete(value);
+        } else {
+            result.completeExceptionally(throwable);
+        }
+    }
+
+    /**
+     * Executes the request once the shared rate limit and the server's circuit breaker allow it. GET requests that the
+     * server refuses because it is overloaded are retried with jittered exponential backoff, or after the server's
+     * Retry-After, until the retry deadline passes.
+     */
+    private Response execute(Request request) throws IntegrationException {
+        long deadline = System.currentTimeMillis() + RETRY_DEADLINE_IN_MILLIS;
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            acquirePermit();
+
+            Response response = executeThroughCircuitBreaker(request);
+            long delayInMillis = getRetryDelayInMillis(request, response, deadline, attempt);
+            if (delayInMillis == NO_RETRY) {
+                return response;
+            }
+
+            closeQuietly(response);
+            sleep(delayInMillis);
+        }
+    }
+
+    /**
+     * Returns how long to wait before sending the request again, or NO_RETRY when the response is the one to return.
+     */
+    private long getRetryDelayInMillis(Request request, Response response, long deadline, int attempt) {
+        Integer statusCode = response.getStatusCode();
+        boolean idempotent = HttpMethod.GET.equals(request.getMethod());
+        if (!idempotent || statusCode == null || !RETRYABLE_STATUS_CODES.contains(statusCode)) {
+            return NO_RETRY;
+        }
+
+        Optional<Long> retryAfterInMillis = getRetryAfterInMillis(response);
+        long delayInMillis = retryAfterInMillis.orElseGet(computeBackoffInMillis(attempt));
+        long remainingInMillis = deadline - System.currentTimeMillis();
+        if (delayInMillis >= remainingInMillis) {
+            return NO_RETRY;
+        }
+
+        retryAfterInMillis.ifPresent(polarisRateLimiter::pauseFor);
+        logger.debug(String.format(
+                "Polaris responded to %s with %s, retrying in %s ms (attempt %s)",
+                request.getUrl(), statusCode, delayInMillis, attempt + 1));
+        return delayInMillis;
+    }
+
+    private Response executeThroughCircuitBreaker(Request request) throws IntegrationException {
+        return polarisCircuitBreaker.execute(request, this::executeWithMetrics);
+    }
+
+    private Response executeWithMetrics(Request request) throws IntegrationException {
+        HttpUrl polarisServerUrl = polarisHttpClient.getPolarisServerUrl();
+        String endpoint = PolarisMetrics.endpointName(request.getUrl());
+        Response response;
+        try (Timer.Context ignored = PolarisMetrics.timer(polarisServerUrl, "http.latency", endpoint).time();
+                PolarisOperations.RequestInFlight ignoredRequest =
+                        PolarisOperations.startRequest(String.valueOf(polarisServerUrl))) {
+            response = polarisTransport.execute(request);
+        } catch (IntegrationException | RuntimeException e) {
+            PolarisMetrics.counter(polarisServerUrl, "http.errors", endpoint).inc();
+            throw e;
+        }
+
+        Integer statusCode = response.getStatusCode();
+        PolarisMetrics.counter(polarisServerUrl, "http.status", String.valueOf(statusCode), endpoint).inc();
+        return response;
+    }
+
+    private void acquirePermit() throws IntegrationException {
+        try {
+            polarisRateLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IntegrationException("Interrupted while waiting to send a request to Polaris", e);
+        }
+    }
+
+    private void sleep(long delayInMillis) throws IntegrationException {
+        try {
+            Thread.sleep(delayInMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IntegrationException("Interrupted while waiting to retry a request to Polaris", e);
+        }
+    }
+
+    private Supplier<Long> computeBackoffInMillis(int attempt) {
+        return () -> {
+            long backoff = Math.min(MAXIMUM_BACKOFF_IN_MILLIS, INITIAL_BACKOFF_IN_MILLIS << Math.min(attempt - 1, 16));
+            // Jitter keeps builds that were throttled together from retrying together
+            return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        };
+    }
+
+    /**
+     * The delay the server asked for, at most MAXIMUM_BACKOFF_IN_MILLIS so that a misbehaving server cannot pause every
+     * request to it for longer than a backoff would.
+     */
+    static Optional<Long> getRetryAfterInMillis(Response response) {
+        String retryAfter = StringUtils.trimToNull(response.getHeaderValue("Retry-After"));
+        if (retryAfter == null) {
+            return Optional.empty();
+        }
+
+        if (StringUtils.isNumeric(retryAfter)) {
+            try {
+                // Capped before converting, so that large values cannot overflow
+                long retryAfterInSeconds = Math.min(MAXIMUM_BACKOFF_IN_MILLIS / 1000, Long.parseLong(retryAfter));
+                return Optional.of(retryAfterInSeconds * 1000);
+            } catch (NumberFormatException e) {
+                // More digits than a long holds
+                return Optional.of(MAXIMUM_BACKOFF_IN_MILLIS);
+            }
+        }
+
+        try {
+            ZonedDateTime retryAt = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME);
+            long retryAfterInMillis = retryAt.toInstant().toEpochMilli() - System.currentTimeMillis();
+            return Optional.of(Math.min(MAXIMUM_BACKOFF_IN_MILLIS, Math.max(0, retryAfterInMillis)));
+        } catch (DateTimeParseException ignored) {
+            return Optional.empty();
+        }
+    }
+
+    private void closeQuietly(Response response) {
+        try {
+            response.close();
+        } catch (IOException ignored) {
+            // The response is being discarded for a retry, there is nothing useful to do if it cannot be closed
         }
     }
 }
@@ -7,27 +7,34 @@
 package com.blackduck.integration.polaris.common.service;
 
 import com.blackduck.integration.log.IntLogger;
-import com.blackduck.integration.polaris.common.request.PolarisRequestFactory;
+import com.blackduck.integration.polaris.common.replay.PolarisTrafficArchive;
 import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClient;
+import com.blackduck.integration.polaris.common.rest.PolarisRateLimiter;
+import com.blackduck.integration.polaris.common.rest.PolarisTransport;
 import com.google.gson.Gson;
 
 public class PolarisServicesFactory {
+    // Large enough that most lists need a single request, PolarisService shrinks it for endpoints that allow less
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
     private final IntLogger logger;
     private final AccessTokenPolarisHttpClient httpClient;
     private final Gson gson;
     private final PolarisJsonTransformer polarisJsonTransformer;
     private int defaultPageSize;
+    private PolarisTransport polarisTransport;
 
     public PolarisServicesFactory(IntLogger logger, AccessTokenPolarisHttpClient httpClient, Gson gson) {
         this.logger = logger;
         this.httpClient = httpClient;
         this.gson = gson;
         this.polarisJsonTransformer = new PolarisJsonTransformer(gson, logger);
-        this.defaultPageSize = PolarisRequestFactory.DEFAULT_LIMIT;
+        this.defaultPageSize = DEFAULT_PAGE_SIZE;
+        this.polarisTransport = PolarisTrafficArchive.configuredTransport(httpClient::execute, logger);
     }
 
     public PolarisService createPolarisService() {
-        return new PolarisService(httpClient, polarisJsonTransformer, defaultPageSize);
+        return new PolarisService(logger, httpClient, polarisJsonTransformer, defaultPageSize, polarisTransport);
     }
 
     public JobService createJobService() {
@@ -55,8 +62,25 @@ public class PolarisServicesFactory {
     }
 
     public void setDefaultPageSize(int defaultPageSize) {
-        if (defaultPageSize >= 0) {
+        if (defaultPageSize > 0) {
             this.defaultPageSize = defaultPageSize;
         }
     }
+
+    /**
+     * Sets the request rate every service in this JVM keeps to against the server of this factory, values of 0 or less
+     * mean the default.
+     */
+    public void setRateLimit(double requestsPerSecond, int burstSize) {
+        PolarisRateLimiter.configureForServer(
+                String.valueOf(httpClient.getPolarisServerUrl()), requestsPerSecond, burstSize);
+    }
+
+    /**
+     * Sends the requests of every service created after this call with the given transport, for instance to replay
+     * recorded traffic.
+     */
+    public void setPolarisTransport(PolarisTransport polarisTransport) {
+        this.polarisTransport = polarisTransport;
+    }
 }
@@ -0,0 +1,60 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+
+/**
+ * A span that is current until it is closed. Spans that are closed without {@link #succeeded()} having been called are
+ * marked as failed, so that an exception thrown out of a try-with-resources block shows up in the trace.
+ */
+public class PolarisSpan implements AutoCloseable {
+    private final Span span;
+    private final Scope scope;
+    private boolean succeeded = false;
+
+    public PolarisSpan(Span span, Scope scope) {
+        this.span = span;
+        this.scope = scope;
+    }
+
+    public PolarisSpan setAttribute(String key, String value) {
+        span.setAttribute(key, value);
+        return this;
+    }
+
+    public PolarisSpan setAttribute(String key, long value) {
+        span.setAttribute(key, value);
+        return this;
+    }
+
+    public void recordException(Throwable throwable) {
+        span.recordException(throwable);
+    }
+
+    /**
+     * Makes the span current on this thread until the returned scope is closed, which must happen on the same thread.
+     */
+    public Scope makeCurrent() {
+        return span.makeCurrent();
+    }
+
+    public void succeeded() {
+        succeeded = true;
+    }
+
+    @Override
+    public void close() {
+        if (!succeeded) {
+            span.setStatus(StatusCode.ERROR);
+        }
+        scope.close();
+        span.end();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * blackduck-coverity-on-polaris
+ *
+ * Copyright ©2024 Black Duck Software, Inc. All rights reserved.
+ * Black Duck® is a trademark of Black Duck Software, Inc. in the United States and other countries.
+ */
+package com.blackduck.integration.polaris.common.tracing;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * OpenTelemetry spans for the Coverity on Polaris work of a build. Spans are only exported when OpenTelemetry has been
+ * set up for this JVM (for example by the Jenkins OpenTelemetry plugin sending them to an OTLP collector), otherwise
+ * every span is a no-op.
+ */
+public class PolarisTracing {
+    public static final String INSTRUMENTATION_NAME = "blackduck-coverity-on-polaris";
+
+    private PolarisTracing() {
+        // This class should not be instantiated
+    }
+
+    /**
+     * Starts a span that is a child of the current span and makes it the current span until it is closed.
+     */
+    public static PolarisSpan startSpan(String name) {
+        return startSpan(name, SpanKind.INTERNAL);
+    }
+
+    public static PolarisSpan startSpan(String name, SpanKind spanKind) {
+        Span span = GlobalOpenTelemetry.getTracer(INSTRUMENTATION_NAME)
+                .spanBuilder(name)
+                .setSpanKind(spanKind)
+                .startSpan();
+        return new PolarisSpan(span, span.makeCurrent());
+    }
+
+    /**
+     * Starts a span that is a child of the current span without making it current, for work that goes on across
+     * threads, such as polling. It can be made current where needed with {@link PolarisSpan#makeCurrent()}, and it can
+     * be closed on any thread.
+     */
+    public static PolarisSpan startDetachedSpan(String name) {
+        Span span = GlobalOpenTelemetry.getTracer(INSTRUMENTATION_NAME)
+                .spanBuilder(name)
+                .setSpanKind(SpanKind.INTERNAL)
+                .startSpan();
+        return new PolarisSpan(span, Scope.noop());
+    }
+
+    /**
+     * Tasks submitted to the returned executor run as part of the span that was current when they were submitted.
+     */
+    public static ExecutorService propagateContext(ExecutorService executorService) {
+        return Context.taskWrapping(executorService);
+    }
+
+    /**
+     * Tasks submitted to the returned executor run as part of the span that is current now, even when they are
+     * submitted later from another thread, such as by a delayed executor.
+     */
+    public static Executor withCurrentContext(Executor executor) {
+        return Context.current().wrap(executor);
+    }
+
+    /**
+     * Adds the TRACEPARENT and TRACESTATE environment variables for the current span, so that a process launched with
+     * the environment can report its own spans as children of it. Nothing is added when tracing is not set up.
+     */
+    public static void injectTraceContext(Map<String, String> environment) {
+        W3CTraceContextPropagator.getInstance()
+                .inject(Context.current(), environment, (carrier, key, value) -> {
+                    if (carrier != null) {
+                        carrier.put(key.toUpperCase(Locale.ROOT), value);
+                    }
+                });
+    }
+}
@@ -0,0 +1,40 @@
+package com.blackduck.integration.jenkins.polaris;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.blackduck.integration.util.IntEnvironmentVariables;
+import com.blackduck.integration.util.OperatingSystemType;
+import java.util.Arrays;
+import org.jenkinsci.plugins.durabletask.BourneShellScript;
+import org.jenkinsci.plugins.durabletask.WindowsBatchScript;
+import org.junit.jupiter.api.Test;
+
+public class PolarisCliInvocationTest {
+    @Test
+    public void testShellArgumentsAreSingleQuoted() {
+        PolarisCliInvocation polarisCliInvocation = new PolarisCliInvocation(
+                IntEnvironmentVariables.empty(),
+                OperatingSystemType.LINUX,
+                Arrays.asList("/opt/polaris/bin/polaris", "analyze", "--name=it's $HOME", "`id`"));
+
+        BourneShellScript script = (BourneShellScript) polarisCliInvocation.toDurableTask();
+
+        assertEquals(
+                "#!/bin/sh\n'/opt/polaris/bin/polaris' 'analyze' '--name=it'\\''s $HOME' '`id`'\n",
+                script.getScript());
+    }
+
+    @Test
+    public void testBatchArgumentsAreProtectedFromVariableExpansion() {
+        PolarisCliInvocation polarisCliInvocation = new PolarisCliInvocation(
+                IntEnvironmentVariables.empty(),
+                OperatingSystemType.WINDOWS,
+                Arrays.asList("C:\\polaris\\polaris.exe", "analyze", "--name=%USERNAME%"));
+
+        WindowsBatchScript script = (WindowsBatchScript) polarisCliInvocation.toDurableTask();
+
+        assertEquals(
+                "@echo off\r\n\"C:\\polaris\\polaris.exe\" \"analyze\" \"--name=%%USERNAME%%\"\r\nexit /b %ERRORLEVEL%",
+                script.getScript());
+    }
+}
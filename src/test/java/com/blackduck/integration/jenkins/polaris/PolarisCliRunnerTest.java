@@ -1,13 +1,17 @@
 package com.blackduck.integration.jenkins.polaris;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.blackduck.integration.jenkins.exception.JenkinsUserFriendlyException;
 import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisAdmissionController;
 import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisGlobalConfig;
 import com.blackduck.integration.jenkins.polaris.extensions.tools.PolarisCli;
 import com.blackduck.integration.jenkins.polaris.service.GetPathToPolarisCli;
+import com.blackduck.integration.jenkins.polaris.service.PolarisAdmissionService;
 import com.blackduck.integration.jenkins.polaris.service.PolarisCliArgumentService;
 import com.blackduck.integration.jenkins.polaris.service.PolarisEnvironmentService;
 import com.blackduck.integration.jenkins.polaris.service.PolarisPhoneHomeService;
@@ -21,6 +25,9 @@ import com.blackduck.integration.polaris.common.configuration.PolarisServerConfi
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -45,6 +52,7 @@ public class PolarisCliRunnerTest {
     private BlackduckCredentialsHelper blackduckCredentialsHelper;
     private JenkinsProxyHelper jenkinsProxyHelper;
     private JenkinsVersionHelper jenkinsVersionHelper;
+    private PolarisAdmissionService polarisAdmissionService;
 
     @BeforeEach
     public void setUpMocks() {
@@ -63,6 +71,8 @@ public class PolarisCliRunnerTest {
             blackduckCredentialsHelper = Mockito.mock(BlackduckCredentialsHelper.class);
             jenkinsProxyHelper = Mockito.mock(JenkinsProxyHelper.class);
             jenkinsVersionHelper = Mockito.mock(JenkinsVersionHelper.class);
+            polarisAdmissionService = new PolarisAdmissionService(
+                    logger, new PolarisAdmissionController(), "http://example.com/polaris", 0, 0, "folder");
 
             jenkinsConfigService = Mockito.mock(JenkinsConfigService.class);
             PolarisCli successfulPolarisCli =
@@ -106,7 +116,8 @@ public class PolarisCliRunnerTest {
                 jenkinsConfigService,
                 blackduckCredentialsHelper,
                 jenkinsProxyHelper,
-                jenkinsVersionHelper);
+                jenkinsVersionHelper,
+                polarisAdmissionService);
 
         try {
             polarisCliRunner.runPolarisCli(SUCCESSFUL_CLI_NAME, CHANGE_SET_FILE_PATH, POLARIS_ARGUMENTS);
@@ -126,7 +137,8 @@ public class PolarisCliRunnerTest {
                 jenkinsConfigService,
                 blackduckCredentialsHelper,
                 jenkinsProxyHelper,
-                jenkinsVersionHelper);
+                jenkinsVersionHelper,
+                polarisAdmissionService);
 
         assertThrows(
                 JenkinsUserFriendlyException.class,
@@ -144,7 +156,8 @@ public class PolarisCliRunnerTest {
                 jenkinsConfigService,
                 blackduckCredentialsHelper,
                 jenkinsProxyHelper,
-                jenkinsVersionHelper);
+                jenkinsVersionHelper,
+                polarisAdmissionService);
 
         assertThrows(
                 JenkinsUserFriendlyException.class,
@@ -162,10 +175,51 @@ public class PolarisCliRunnerTest {
                 jenkinsConfigService,
                 blackduckCredentialsHelper,
                 jenkinsProxyHelper,
-                jenkinsVersionHelper);
+                jenkinsVersionHelper,
+                polarisAdmissionService);
 
         assertThrows(
                 JenkinsUserFriendlyException.class,
                 () -> polarisCliRunner.runPolarisCli(NONEXISTANT_CLI_NAME, CHANGE_SET_FILE_PATH, POLARIS_ARGUMENTS));
     }
+
+    @Test
+    public void testCancellingThePrefetchLetsTheInstallationFinish() throws Exception {
+        String installingCliName = "InstallingPolarisCli";
+        CountDownLatch installationStarted = new CountDownLatch(1);
+        CountDownLatch releaseInstallation = new CountDownLatch(1);
+        CountDownLatch installationFinished = new CountDownLatch(1);
+        AtomicBoolean installationInterrupted = new AtomicBoolean(false);
+        Mockito.when(jenkinsConfigService.getInstallationForNodeAndEnvironment(
+                        PolarisCli.DescriptorImpl.class, installingCliName))
+                .thenAnswer(invocation -> {
+                    installationStarted.countDown();
+                    try {
+                        releaseInstallation.await();
+                    } catch (InterruptedException e) {
+                        installationInterrupted.set(true);
+                    }
+                    installationFinished.countDown();
+                    return Optional.empty();
+                });
+        PolarisCliRunner polarisCliRunner = new PolarisCliRunner(
+                logger,
+                polarisCliArgumentService,
+                polarisEnvironmentService,
+                polarisPhoneHomeService,
+                jenkinsRemotingService,
+                jenkinsConfigService,
+                blackduckCredentialsHelper,
+                jenkinsProxyHelper,
+                jenkinsVersionHelper,
+                polarisAdmissionService);
+
+        polarisCliRunner.prefetchPolarisCli(installingCliName);
+        assertTrue(installationStarted.await(10, TimeUnit.SECONDS));
+        polarisCliRunner.cancelPrefetch();
+        releaseInstallation.countDown();
+
+        assertTrue(installationFinished.await(10, TimeUnit.SECONDS));
+        assertFalse(installationInterrupted.get());
+    }
 }
@@ -1,16 +1,20 @@
 package com.blackduck.integration.jenkins.polaris;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.blackduck.integration.jenkins.exception.JenkinsUserFriendlyException;
 import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
 import com.blackduck.integration.jenkins.polaris.extensions.pipeline.PipelineCreateChangeSetFile;
+import com.blackduck.integration.jenkins.polaris.extensions.pipeline.PolarisIssueCheckHandle;
 import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
 import java.io.IOException;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 public class PolarisPipelineCommandsTest {
@@ -211,6 +215,42 @@ public class PolarisPipelineCommandsTest {
         }
     }
 
+    @Test
+    public void testPreparePolarisCliPipelineSkipReturnCode() {
+        try {
+            Mockito.when(mockedChangeSetFileCreator.createChangeSetFile(EXCLUSION_PATTERNS, INCLUSION_PATTERNS))
+                    .thenReturn(null);
+        } catch (Exception e) {
+            fail(
+                    "An unexpected exception occurred when preparing the test for setup. Please correct the test code.",
+                    e);
+        }
+
+        createChangeSetFile.setReturnSkipCode(Boolean.TRUE);
+
+        try {
+            PolarisPipelineCommands polarisPipelineCommands = new PolarisPipelineCommands(
+                    logger, mockedChangeSetFileCreator, mockedCliRunner, mockedIssueChecker);
+            Optional<PolarisCliInvocation> polarisCliInvocation =
+                    polarisPipelineCommands.preparePolarisCli(POLARIS_CLI_NAME, POLARIS_ARGUMENTS, createChangeSetFile);
+
+            assertFalse(polarisCliInvocation.isPresent());
+            Mockito.verify(mockedCliRunner, Mockito.never())
+                    .preparePolarisCli(Mockito.any(), Mockito.any(), Mockito.any());
+        } catch (Exception e) {
+            fail("An unexpected exception occurred.", e);
+        }
+    }
+
+    @Test
+    public void testHandlePolarisCliExitCodeFailureDoNotReturnStatus() {
+        PolarisPipelineCommands polarisPipelineCommands =
+                new PolarisPipelineCommands(logger, mockedChangeSetFileCreator, mockedCliRunner, mockedIssueChecker);
+        assertThrows(
+                JenkinsUserFriendlyException.class,
+                () -> polarisPipelineCommands.handlePolarisCliExitCode(STATUS_CODE_FAILURE, false));
+    }
+
     @Test
     public void testCheckForPolarisIssuesSuccess() {
         try {
@@ -272,4 +312,86 @@ public class PolarisPipelineCommandsTest {
                 PolarisIntegrationException.class,
                 () -> polarisPipelineCommands.checkForIssues(JOB_TIMEOUT_IN_MINUTES, false));
     }
+
+    @Test
+    public void testAwaitPolarisIssuesReturnIssues() {
+        PolarisIssueCheckHandle handle = PolarisIssueCheckHandle.create();
+        try {
+            Mockito.when(mockedIssueChecker.startPolarisIssueCount(JOB_TIMEOUT_IN_MINUTES))
+                    .thenReturn(handle);
+            Mockito.when(mockedIssueChecker.awaitPolarisIssueCount(handle)).thenReturn(SOME_ISSUES);
+        } catch (Exception e) {
+            fail(
+                    "An unexpected exception occurred when preparing the test for setup. Please correct the test code.",
+                    e);
+        }
+
+        try {
+            PolarisPipelineCommands polarisPipelineCommands = new PolarisPipelineCommands(
+                    logger, mockedChangeSetFileCreator, mockedCliRunner, mockedIssueChecker);
+            PolarisIssueCheckHandle actualHandle = polarisPipelineCommands.checkForIssuesAsync(JOB_TIMEOUT_IN_MINUTES);
+            int actualIssueCount = polarisPipelineCommands.awaitIssues(actualHandle, true);
+
+            assertEquals(handle, actualHandle);
+            assertEquals(SOME_ISSUES, actualIssueCount);
+        } catch (Exception e) {
+            fail("An unexpected exception occurred.", e);
+        }
+    }
+
+    @Test
+    public void testAwaitPolarisIssuesFailureDoNotReturnIssues() {
+        PolarisIssueCheckHandle handle = PolarisIssueCheckHandle.create();
+        try {
+            Mockito.when(mockedIssueChecker.awaitPolarisIssueCount(handle)).thenReturn(SOME_ISSUES);
+        } catch (Exception e) {
+            fail(
+                    "An unexpected exception occurred when preparing the test for setup. Please correct the test code.",
+                    e);
+        }
+
+        PolarisPipelineCommands polarisPipelineCommands =
+                new PolarisPipelineCommands(logger, mockedChangeSetFileCreator, mockedCliRunner, mockedIssueChecker);
+        assertThrows(PolarisIntegrationException.class, () -> polarisPipelineCommands.awaitIssues(handle, false));
+    }
+
+    @Test
+    public void testCliIsPrefetchedWhileChangeSetIsCreated() {
+        try {
+            Mockito.when(mockedCliRunner.runPolarisCli(POLARIS_CLI_NAME, CHANGE_SET_FILE_PATH, POLARIS_ARGUMENTS))
+                    .thenReturn(STATUS_CODE_SUCCESS);
+            Mockito.when(mockedChangeSetFileCreator.createChangeSetFile(EXCLUSION_PATTERNS, INCLUSION_PATTERNS))
+                    .thenReturn(CHANGE_SET_FILE_PATH);
+
+            PolarisPipelineCommands polarisPipelineCommands = new PolarisPipelineCommands(
+                    logger, mockedChangeSetFileCreator, mockedCliRunner, mockedIssueChecker);
+            polarisPipelineCommands.runPolarisCli(POLARIS_CLI_NAME, POLARIS_ARGUMENTS, true, createChangeSetFile);
+
+            InOrder inOrder = Mockito.inOrder(mockedCliRunner, mockedChangeSetFileCreator);
+            inOrder.verify(mockedCliRunner).prefetchPolarisCli(POLARIS_CLI_NAME);
+            inOrder.verify(mockedChangeSetFileCreator).createChangeSetFile(EXCLUSION_PATTERNS, INCLUSION_PATTERNS);
+            inOrder.verify(mockedCliRunner)
+                    .runPolarisCli(POLARIS_CLI_NAME, CHANGE_SET_FILE_PATH, POLARIS_ARGUMENTS);
+            Mockito.verify(mockedCliRunner, Mockito.never()).cancelPrefetch();
+        } catch (Exception e) {
+            fail("An unexpected exception occurred.", e);
+        }
+    }
+
+    @Test
+    public void testPrefetchIsCancelledForEmptyChangeSet() {
+        try {
+            Mockito.when(mockedChangeSetFileCreator.createChangeSetFile(EXCLUSION_PATTERNS, INCLUSION_PATTERNS))
+                    .thenReturn(null);
+            createChangeSetFile.setReturnSkipCode(Boolean.TRUE);
+
+            PolarisPipelineCommands polarisPipelineCommands = new PolarisPipelineCommands(
+                    logger, mockedChangeSetFileCreator, mockedCliRunner, mockedIssueChecker);
+            polarisPipelineCommands.runPolarisCli(POLARIS_CLI_NAME, POLARIS_ARGUMENTS, true, createChangeSetFile);
+
+            Mockito.verify(mockedCliRunner).cancelPrefetch();
+        } catch (Exception e) {
+            fail("An unexpected exception occurred.", e);
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
+import com.blackduck.integration.log.IntLogger;
+import com.blackduck.integration.log.SilentIntLogger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PolarisAdmissionControllerTest {
+    private static final String POLARIS_URL = "https://www.example.com/polaris";
+    private static final JenkinsIntLogger LOGGER = JenkinsIntLogger.logToStandardOut();
+
+    @Test
+    public void testUnlimitedNeverQueues() throws InterruptedException {
+        PolarisAdmissionController polarisAdmissionController = new PolarisAdmissionController();
+
+        polarisAdmissionController.admit(POLARIS_URL, PolarisAdmissionController.Operation.SCAN, 0, "folder", LOGGER);
+        polarisAdmissionController.admit(POLARIS_URL, PolarisAdmissionController.Operation.SCAN, 0, "folder", LOGGER);
+
+        Assertions.assertEquals(
+                0, polarisAdmissionController.getQueuedCount(POLARIS_URL, PolarisAdmissionController.Operation.SCAN));
+    }
+
+    @Test
+    public void testQueuesAreServedRoundRobin() throws Exception {
+        PolarisAdmissionController polarisAdmissionController = new PolarisAdmissionController();
+        PolarisAdmissionController.Admission firstAdmission = polarisAdmissionController.admit(
+                POLARIS_URL, PolarisAdmissionController.Operation.WAIT, 1, "busyFolder", LOGGER);
+
+        List<String> admittedKeys = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch allAdmitted = new CountDownLatch(3);
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        try {
+            String[] queueKeys = {"busyFolder", "busyFolder", "quietFolder"};
+            for (String queueKey : queueKeys) {
+                CountDownLatch queued = new CountDownLatch(1);
+                executorService.submit(() -> {
+                    try (PolarisAdmissionController.Admission ignored = polarisAdmissionController.admit(
+                            POLARIS_URL, PolarisAdmissionController.Operation.WAIT, 1, queueKey, logQueued(queued))) {
+                        admittedKeys.add(queueKey);
+                    }
+                    allAdmitted.countDown();
+                    return null;
+                });
+
+                // Wait for each one to be queued so that the order they were queued in is known
+                Assertions.assertTrue(queued.await(10, TimeUnit.SECONDS));
+            }
+
+            firstAdmission.close();
+
+            Assertions.assertTrue(allAdmitted.await(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(Arrays.asList("busyFolder", "quietFolder", "busyFolder"), admittedKeys);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testClosingAnAdmissionTwiceReleasesItOnce() throws InterruptedException {
+        PolarisAdmissionController.Operation scan = PolarisAdmissionController.Operation.SCAN;
+        PolarisAdmissionController polarisAdmissionController = new PolarisAdmissionController();
+        PolarisAdmissionController.Admission firstAdmission =
+                polarisAdmissionController.admit(POLARIS_URL, scan, 2, "folder", LOGGER);
+        polarisAdmissionController.admit(POLARIS_URL, scan, 2, "folder", LOGGER);
+
+        firstAdmission.close();
+        firstAdmission.close();
+
+        Assertions.assertEquals(1, polarisAdmissionController.getActiveCount(POLARIS_URL, scan));
+    }
+
+    @Test
+    public void testReadmittedOperationsSkipTheQueue() throws Exception {
+        PolarisAdmissionController.Operation scan = PolarisAdmissionController.Operation.SCAN;
+        PolarisAdmissionController polarisAdmissionController = new PolarisAdmissionController();
+        PolarisAdmissionController.Admission firstAdmission = polarisAdmissionController.admit(
+                POLARIS_URL, scan, 1, "folder", LOGGER);
+        CountDownLatch queued = new CountDownLatch(1);
+        CountDownLatch admitted = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            executorService.submit(() -> {
+                try (PolarisAdmissionController.Admission ignored = polarisAdmissionController.admit(
+                        POLARIS_URL, scan, 1, "folder", logQueued(queued))) {
+                    admitted.countDown();
+                }
+                return null;
+            });
+            Assertions.assertTrue(queued.await(10, TimeUnit.SECONDS));
+
+            PolarisAdmissionController.Admission readmission = polarisAdmissionController.readmit(POLARIS_URL, scan, 1);
+            Assertions.assertEquals(2, polarisAdmissionController.getActiveCount(POLARIS_URL, scan));
+            Assertions.assertEquals(1, polarisAdmissionController.getQueuedCount(POLARIS_URL, scan));
+
+            // The queued scan only goes once both running scans are done
+            firstAdmission.close();
+            Assertions.assertEquals(1, polarisAdmissionController.getQueuedCount(POLARIS_URL, scan));
+            readmission.close();
+            Assertions.assertTrue(admitted.await(10, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static IntLogger logQueued(CountDownLatch queued) {
+        return new SilentIntLogger() {
+            @Override
+            public void info(String txt) {
+                if (txt.startsWith("Queued")) {
+                    queued.countDown();
+                }
+            }
+        };
+    }
+}
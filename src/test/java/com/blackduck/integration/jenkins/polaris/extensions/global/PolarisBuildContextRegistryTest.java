@@ -0,0 +1,53 @@
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import hudson.AbortException;
+import hudson.model.Run;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class PolarisBuildContextRegistryTest {
+    @Test
+    public void testStepsOfOneRunShareTheirContext() throws AbortException {
+        PolarisBuildContextRegistry registry = new PolarisBuildContextRegistry();
+        PolarisGlobalConfig polarisGlobalConfig = Mockito.mock(PolarisGlobalConfig.class);
+        AtomicInteger globalConfigLookups = new AtomicInteger();
+        Run<?, ?> run = mockRun("job#1");
+
+        PolarisBuildContext firstStepContext = registry.getOrCreate(run, () -> {
+            globalConfigLookups.incrementAndGet();
+            return polarisGlobalConfig;
+        });
+        PolarisBuildContext secondStepContext = registry.getOrCreate(run, () -> {
+            globalConfigLookups.incrementAndGet();
+            return polarisGlobalConfig;
+        });
+        PolarisBuildContext otherRunContext = registry.getOrCreate(mockRun("job#2"), () -> polarisGlobalConfig);
+
+        assertSame(firstStepContext, secondStepContext);
+        assertNotSame(firstStepContext, otherRunContext);
+        assertEquals(1, globalConfigLookups.get());
+    }
+
+    @Test
+    public void testFinalizedRunsDropTheirContext() throws AbortException {
+        PolarisBuildContextRegistry registry = new PolarisBuildContextRegistry();
+        PolarisGlobalConfig polarisGlobalConfig = Mockito.mock(PolarisGlobalConfig.class);
+        Run<?, ?> run = mockRun("job#1");
+        PolarisBuildContext buildContext = registry.getOrCreate(run, () -> polarisGlobalConfig);
+
+        new PolarisBuildContextRegistry.BuildContextRunListener(() -> registry).onFinalized(run);
+
+        assertNotSame(buildContext, registry.getOrCreate(run, () -> polarisGlobalConfig));
+    }
+
+    private Run<?, ?> mockRun(String externalizableId) {
+        Run<?, ?> run = Mockito.mock(Run.class);
+        Mockito.when(run.getExternalizableId()).thenReturn(externalizableId);
+        return run;
+    }
+}
@@ -0,0 +1,95 @@
+package com.blackduck.integration.jenkins.polaris.extensions.global;
+
+import com.blackduck.integration.log.SilentIntLogger;
+import com.blackduck.integration.polaris.common.metrics.PolarisMetrics;
+import com.blackduck.integration.polaris.common.metrics.PolarisOperations;
+import com.blackduck.integration.polaris.common.rest.PolarisRateLimiter;
+import com.blackduck.integration.rest.HttpUrl;
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PolarisOperationsLinkTest {
+    // The rate limiters and requests in flight are kept for the whole JVM, so this server is not used by other tests
+    private static final String POLARIS_URL = "https://operations.example.com";
+    private static final String SERVER_NAME = "operations_example_com";
+
+    private MetricRegistry metricRegistry;
+
+    @BeforeEach
+    public void publishToNewRegistry() {
+        metricRegistry = PolarisMetrics.getMetricRegistry();
+        PolarisMetrics.publishTo(new MetricRegistry());
+    }
+
+    @AfterEach
+    public void restoreRegistry() {
+        PolarisMetrics.publishTo(metricRegistry);
+    }
+
+    @Test
+    public void testServersShowWhatThisJvmRecorded() throws Exception {
+        PolarisRateLimiter.configureForServer(POLARIS_URL, 2, 4);
+        PolarisAdmissionController polarisAdmissionController = new PolarisAdmissionController();
+        polarisAdmissionController.admit(
+                POLARIS_URL, PolarisAdmissionController.Operation.SCAN, 1, "folder", new SilentIntLogger());
+        AtomicLong tick = new AtomicLong();
+        Timer latency = new Timer(new ExponentiallyDecayingReservoir(), new Clock() {
+            @Override
+            public long getTick() {
+                return tick.get();
+            }
+        });
+        PolarisMetrics.getMetricRegistry()
+                .register(PolarisMetrics.name(new HttpUrl(POLARIS_URL), "http.latency", "api_jobs"), latency);
+        latency.update(10, TimeUnit.MILLISECONDS);
+        // The one minute rate is updated every five seconds
+        tick.addAndGet(TimeUnit.SECONDS.toNanos(6));
+
+        PolarisOperationsLink.ServerUsage serverUsage;
+        try (PolarisOperations.RequestInFlight ignored = PolarisOperations.startRequest(POLARIS_URL + "/")) {
+            serverUsage = findServer(new PolarisOperationsLink().getServers(polarisAdmissionController));
+        }
+
+        Assertions.assertEquals("120", serverUsage.getRequestBudgetPerMinute());
+        Assertions.assertEquals("12.0", serverUsage.getRequestsPerMinute());
+        Assertions.assertEquals(1, serverUsage.getRequestsInFlight());
+        Assertions.assertEquals(1, serverUsage.getActiveScans());
+        Assertions.assertEquals(0, serverUsage.getQueuedScans());
+    }
+
+    @Test
+    public void testCachesAreCountedPerServer() {
+        PolarisMetrics.cacheLookup(POLARIS_URL, "organization.name", true);
+        PolarisMetrics.cacheLookup(POLARIS_URL, "organization.name", true);
+        PolarisMetrics.cacheLookup(POLARIS_URL, "organization.name", false);
+        PolarisMetrics.cacheLookup("https://other.example.com", "organization.name", false);
+
+        List<PolarisOperationsLink.CacheUsage> caches = new PolarisOperationsLink().getCaches();
+
+        Assertions.assertEquals(2, caches.size());
+        PolarisOperationsLink.CacheUsage cacheUsage = caches.get(0);
+        Assertions.assertEquals(SERVER_NAME, cacheUsage.getServerName());
+        Assertions.assertEquals("organization_name", cacheUsage.getCacheName());
+        Assertions.assertEquals(2, cacheUsage.getHits());
+        Assertions.assertEquals(1, cacheUsage.getMisses());
+        Assertions.assertEquals("67%", cacheUsage.getHitRatio());
+        Assertions.assertEquals("other_example_com", caches.get(1).getServerName());
+        Assertions.assertEquals("0%", caches.get(1).getHitRatio());
+    }
+
+    private PolarisOperationsLink.ServerUsage findServer(List<PolarisOperationsLink.ServerUsage> servers) {
+        return servers.stream()
+                .filter(serverUsage -> SERVER_NAME.equals(serverUsage.getServerName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No row for " + SERVER_NAME));
+    }
+}
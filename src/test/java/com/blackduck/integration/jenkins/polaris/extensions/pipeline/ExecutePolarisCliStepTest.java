@@ -0,0 +1,90 @@
+package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.ClosedChannelException;
+import org.jenkinsci.plugins.durabletask.Controller;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+public class ExecutePolarisCliStepTest {
+    @TempDir
+    public File workspaceDirectory;
+
+    private StepContext context;
+    private Controller controller;
+    private ExecutePolarisCliStep.DurableExecution durableExecution;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        context = Mockito.mock(StepContext.class);
+        Mockito.when(context.get(FilePath.class)).thenReturn(new FilePath(workspaceDirectory));
+        controller = Mockito.mock(Controller.class);
+        durableExecution = new ExecutePolarisCliStep("analyze").new DurableExecution(context);
+    }
+
+    @Test
+    public void testPollsUntilTheCliExits() throws Exception {
+        Mockito.when(controller.exitStatus(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(null, null, 3);
+
+        assertNull(durableExecution.checkPolarisCli(controller, TaskListener.NULL, 60 * 1000));
+        assertNull(durableExecution.checkPolarisCli(controller, TaskListener.NULL, 60 * 1000));
+        assertEquals(Integer.valueOf(3), durableExecution.checkPolarisCli(controller, TaskListener.NULL, 60 * 1000));
+
+        Mockito.verify(controller, Mockito.times(4)).writeLog(Mockito.any(), Mockito.any(OutputStream.class));
+        Mockito.verify(controller).cleanup(Mockito.any());
+    }
+
+    @Test
+    public void testWaitsForADisconnectedAgentToReconnect() throws Exception {
+        Mockito.when(controller.exitStatus(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenThrow(new IOException("agent went away", new ClosedChannelException()))
+                .thenReturn(0);
+
+        assertNull(durableExecution.checkPolarisCli(controller, TaskListener.NULL, 60 * 1000));
+        assertEquals(Integer.valueOf(0), durableExecution.checkPolarisCli(controller, TaskListener.NULL, 60 * 1000));
+    }
+
+    @Test
+    public void testGivesUpOnAnAgentThatDoesNotReconnect() throws Exception {
+        Mockito.when(controller.exitStatus(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenThrow(new IOException("agent went away", new ClosedChannelException()));
+
+        assertNull(durableExecution.checkPolarisCli(controller, TaskListener.NULL, 20));
+        Thread.sleep(25);
+        assertThrows(
+                AbortException.class, () -> durableExecution.checkPolarisCli(controller, TaskListener.NULL, 20));
+    }
+
+    @Test
+    public void testOtherIOExceptionsFailTheStep() throws Exception {
+        IOException failure = new IOException("disk full");
+        Mockito.when(controller.exitStatus(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(failure);
+
+        IOException thrown = assertThrows(
+                IOException.class, () -> durableExecution.checkPolarisCli(controller, TaskListener.NULL, 60 * 1000));
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    public void testStoppingTwiceCompletesTheStepOnce() throws Exception {
+        InterruptedException cause = new InterruptedException("aborted");
+
+        durableExecution.stop(cause);
+        durableExecution.stop(cause);
+
+        Mockito.verify(context, Mockito.times(1)).onFailure(cause);
+    }
+}
@@ -0,0 +1,87 @@
+package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class PolarisIssueCheckLogTest {
+    @Test
+    public void testTheBackgroundLogIsWrittenToTheAwaitingStep() {
+        ByteArrayOutputStream asyncStepLog = new ByteArrayOutputStream();
+        ByteArrayOutputStream awaitStepLog = new ByteArrayOutputStream();
+        PolarisIssueCheckLog issueCheckLog = new PolarisIssueCheckLog(mockListener(asyncStepLog));
+
+        issueCheckLog.getLogger().println("before the step returned");
+        issueCheckLog.detach();
+        issueCheckLog.getLogger().println("in the background");
+        issueCheckLog.attach(mockListener(awaitStepLog));
+        issueCheckLog.getLogger().println("while awaited");
+        issueCheckLog.detach();
+        issueCheckLog.getLogger().println("after the await");
+
+        assertEquals(lines("before the step returned"), asyncStepLog.toString(StandardCharsets.UTF_8));
+        assertEquals(lines("in the background", "while awaited"), awaitStepLog.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTheBackgroundLogIsBounded() {
+        ByteArrayOutputStream awaitStepLog = new ByteArrayOutputStream();
+        PolarisIssueCheckLog issueCheckLog = new PolarisIssueCheckLog(mockListener(new ByteArrayOutputStream()));
+        issueCheckLog.detach();
+
+        byte[] line = new byte[1024];
+        Arrays.fill(line, (byte) 'x');
+        for (int i = 0; i <= PolarisIssueCheckLog.MAX_BUFFERED_BYTES / line.length; i++) {
+            issueCheckLog.getLogger().write(line, 0, line.length);
+        }
+        issueCheckLog.attach(mockListener(awaitStepLog));
+
+        String awaitedLog = awaitStepLog.toString(StandardCharsets.UTF_8);
+        assertTrue(awaitedLog.length() < PolarisIssueCheckLog.MAX_BUFFERED_BYTES + line.length);
+        assertTrue(awaitedLog.contains("the rest of its log was dropped"));
+    }
+
+    @Test
+    public void testTheRegistryAttachesTheLogOfTheRunsOwnIssueCheck() {
+        PolarisIssueCheckRegistry registry = new PolarisIssueCheckRegistry(2);
+        Run<?, ?> run = Mockito.mock(Run.class);
+        Mockito.when(run.getExternalizableId()).thenReturn("job#1");
+        Run<?, ?> otherRun = Mockito.mock(Run.class);
+        Mockito.when(otherRun.getExternalizableId()).thenReturn("job#2");
+        PolarisIssueCheckLog issueCheckLog = new PolarisIssueCheckLog(mockListener(new ByteArrayOutputStream()));
+        PolarisIssueCheckHandle handle = registry.submit(run, () -> null);
+        registry.deferLog(handle, issueCheckLog);
+        issueCheckLog.detach();
+        issueCheckLog.getLogger().println("in the background");
+
+        ByteArrayOutputStream otherRunLog = new ByteArrayOutputStream();
+        registry.attachLog(otherRun, handle, mockListener(otherRunLog)).close();
+        ByteArrayOutputStream awaitStepLog = new ByteArrayOutputStream();
+        try (PolarisIssueCheckRegistry.LogAttachment ignored =
+                registry.attachLog(run, handle, mockListener(awaitStepLog))) {
+            issueCheckLog.getLogger().println("while awaited");
+        }
+        issueCheckLog.getLogger().println("after the await");
+
+        assertEquals("", otherRunLog.toString(StandardCharsets.UTF_8));
+        assertEquals(lines("in the background", "while awaited"), awaitStepLog.toString(StandardCharsets.UTF_8));
+    }
+
+    private TaskListener mockListener(ByteArrayOutputStream log) {
+        TaskListener listener = Mockito.mock(TaskListener.class);
+        Mockito.when(listener.getLogger()).thenReturn(new PrintStream(log, true, StandardCharsets.UTF_8));
+        return listener;
+    }
+
+    private String lines(String... lines) {
+        return String.join(System.lineSeparator(), lines) + System.lineSeparator();
+    }
+}
@@ -0,0 +1,125 @@
+package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.blackduck.integration.jenkins.exception.JenkinsUserFriendlyException;
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCounts;
+import hudson.model.Run;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class PolarisIssueCheckRegistryTest {
+    @Test
+    public void testAwaitReturnsTheIssueCountsOnce() throws Exception {
+        PolarisIssueCheckRegistry registry = new PolarisIssueCheckRegistry(2);
+        Run<?, ?> run = mockRun("job#1");
+
+        PolarisIssueCheckHandle handle = registry.submit(run, () -> PolarisIssueCounts.totalOnly(7));
+
+        assertEquals(7, registry.await(run, handle).getTotalIssueCount());
+        assertThrows(JenkinsUserFriendlyException.class, () -> registry.await(run, handle));
+    }
+
+    @Test
+    public void testAnotherRunCannotAwaitTheIssueCheck() {
+        PolarisIssueCheckRegistry registry = new PolarisIssueCheckRegistry(2);
+        PolarisIssueCheckHandle handle = registry.submit(mockRun("job#1"), () -> PolarisIssueCounts.totalOnly(7));
+
+        assertThrows(JenkinsUserFriendlyException.class, () -> registry.await(mockRun("job#2"), handle));
+    }
+
+    @Test
+    public void testCompletedRunCancelsItsIssueChecks() throws Exception {
+        PolarisIssueCheckRegistry registry = new PolarisIssueCheckRegistry(2);
+        Run<?, ?> run = mockRun("job#1");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        PolarisIssueCheckHandle handle = registry.submit(run, () -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return PolarisIssueCounts.totalOnly(0);
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        registry.cancelIssueChecksFor(run);
+
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertThrows(JenkinsUserFriendlyException.class, () -> registry.await(run, handle));
+    }
+
+    @Test
+    public void testIssueChecksBeyondTheThreadLimitQueue() throws Exception {
+        PolarisIssueCheckRegistry registry = new PolarisIssueCheckRegistry(2);
+        Run<?, ?> run = mockRun("job#1");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maximumRunning = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+        CountDownLatch twoRunning = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<PolarisIssueCheckHandle> handles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            handles.add(registry.submit(run, () -> {
+                started.incrementAndGet();
+                maximumRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                twoRunning.countDown();
+                release.await();
+                running.decrementAndGet();
+                return PolarisIssueCounts.totalOnly(0);
+            }));
+        }
+
+        assertTrue(twoRunning.await(10, TimeUnit.SECONDS));
+        assertEquals(2, started.get());
+        release.countDown();
+        for (PolarisIssueCheckHandle handle : handles) {
+            registry.await(run, handle);
+        }
+        assertEquals(2, maximumRunning.get());
+    }
+
+    @Test
+    public void testBlockingIssueChecksAreNotLimitedByTheThreadLimit() throws Exception {
+        PolarisIssueCheckRegistry registry = new PolarisIssueCheckRegistry(2);
+        CountDownLatch allRunning = new CountDownLatch(5);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<?>> issueChecks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            issueChecks.add(registry.execute(() -> {
+                allRunning.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        assertTrue(allRunning.await(10, TimeUnit.SECONDS));
+        release.countDown();
+        for (Future<?> issueCheck : issueChecks) {
+            issueCheck.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private Run<?, ?> mockRun(String externalizableId) {
+        Run<?, ?> run = Mockito.mock(Run.class);
+        Mockito.when(run.getExternalizableId()).thenReturn(externalizableId);
+        return run;
+    }
+}
@@ -0,0 +1,19 @@
+package com.blackduck.integration.jenkins.polaris.extensions.pipeline;
+
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class PolarisIssueCheckStepTest {
+    @Test
+    public void testStoppingTwiceCompletesTheStepOnce() throws Exception {
+        StepContext context = Mockito.mock(StepContext.class);
+        PolarisIssueCheckStep.Execution execution = new PolarisIssueCheckStep().new Execution(context);
+        InterruptedException cause = new InterruptedException("aborted");
+
+        execution.stop(cause);
+        execution.stop(cause);
+
+        Mockito.verify(context, Mockito.times(1)).onFailure(cause);
+    }
+}
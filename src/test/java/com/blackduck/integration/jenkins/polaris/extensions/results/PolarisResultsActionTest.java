@@ -0,0 +1,111 @@
+package com.blackduck.integration.jenkins.polaris.extensions.results;
+
+import com.blackduck.integration.jenkins.polaris.service.PolarisIssueCounts;
+import hudson.model.Job;
+import hudson.model.Run;
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jenkins.model.RunAction2;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+public class PolarisResultsActionTest {
+    @TempDir
+    public File jobRootDir;
+
+    @Test
+    public void testResultsAreRecordedOnTheBuildAndTheTrend() {
+        Job<?, ?> job = mockJob(jobRootDir);
+        Run<?, ?> run = mockRun(job, 7);
+
+        PolarisResultsAction polarisResultsAction = PolarisResultsAction.forRun(run);
+        polarisResultsAction.recordPolarisCli(0, 1500L);
+        polarisResultsAction.recordIssueCounts(new PolarisIssueCounts(
+                5,
+                Collections.singletonMap("Coverity", 5),
+                Collections.singletonMap("High", 2),
+                Collections.singletonMap("Coverity", "COMPLETED")));
+
+        Assertions.assertEquals(Integer.valueOf(0), polarisResultsAction.getCliExitCode());
+        Assertions.assertEquals(Integer.valueOf(5), polarisResultsAction.getTotalIssueCount());
+        Assertions.assertEquals(Integer.valueOf(2), polarisResultsAction.getIssuesBySeverity().get("High"));
+        Assertions.assertEquals("COMPLETED", polarisResultsAction.getToolJobStates().get("Coverity"));
+
+        List<PolarisTrendEntry> trend = PolarisTrend.forJob(job).getEntries();
+        Assertions.assertEquals(1, trend.size());
+        Assertions.assertEquals(7, trend.get(0).getBuildNumber());
+        Assertions.assertEquals(Integer.valueOf(5), trend.get(0).getTotalIssueCount());
+        Assertions.assertEquals(Long.valueOf(1500L), trend.get(0).getCliDurationInMillis());
+        Assertions.assertTrue(new File(jobRootDir, PolarisTrend.TREND_FILE_NAME).exists());
+    }
+
+    @Test
+    public void testTheTrendIsReadBackFromTheJob() {
+        PolarisResultsAction.forRun(mockRun(mockJob(jobRootDir), 3)).recordPolarisCli(1, 200L);
+
+        // Another job object for the same directory, as after a restart
+        List<PolarisTrendEntry> trend = PolarisTrend.forJob(mockJob(jobRootDir)).getEntries();
+
+        Assertions.assertEquals(1, trend.size());
+        Assertions.assertEquals(3, trend.get(0).getBuildNumber());
+        Assertions.assertEquals(Integer.valueOf(1), trend.get(0).getCliExitCode());
+    }
+
+    @Test
+    public void testTheTrendKeepsOneEntryPerBuildForTheMostRecentBuilds() {
+        Job<?, ?> job = mockJob(jobRootDir);
+        for (int buildNumber = 1; buildNumber <= PolarisTrend.TREND_SIZE + 5; buildNumber++) {
+            PolarisResultsAction polarisResultsAction = PolarisResultsAction.forRun(mockRun(job, buildNumber));
+            polarisResultsAction.recordPolarisCli(0, buildNumber);
+            polarisResultsAction.recordIssueCounts(PolarisIssueCounts.totalOnly(buildNumber));
+        }
+
+        List<PolarisTrendEntry> trend = PolarisTrend.forJob(job).getEntries();
+        Assertions.assertEquals(PolarisTrend.TREND_SIZE, trend.size());
+        Assertions.assertEquals(6, trend.get(0).getBuildNumber());
+        PolarisTrendEntry latestEntry = PolarisTrend.forJob(job).getLatestEntry();
+        Assertions.assertEquals(PolarisTrend.TREND_SIZE + 5, latestEntry.getBuildNumber());
+        Assertions.assertEquals(Integer.valueOf(PolarisTrend.TREND_SIZE + 5), latestEntry.getTotalIssueCount());
+    }
+
+    @Test
+    public void testToolJobStatesAreRecordedWithoutIssueCounts() {
+        Run<?, ?> run = mockRun(mockJob(jobRootDir), 1);
+        Map<String, String> toolJobStates = new LinkedHashMap<>();
+        toolJobStates.put("Coverity", "FAILED");
+        toolJobStates.put("sca", "RUNNING");
+
+        PolarisResultsAction polarisResultsAction = PolarisResultsAction.forRun(run);
+        polarisResultsAction.recordIssueCheckStarted();
+        polarisResultsAction.recordToolJobStates(toolJobStates);
+
+        Assertions.assertEquals(toolJobStates, polarisResultsAction.getToolJobStates());
+        Assertions.assertNull(polarisResultsAction.getTotalIssueCount());
+        Assertions.assertNotNull(polarisResultsAction.getIssueCheckDurationInMillis());
+    }
+
+    static Job<?, ?> mockJob(File rootDir) {
+        Job<?, ?> job = Mockito.mock(Job.class);
+        Mockito.when(job.getRootDir()).thenReturn(rootDir);
+        return job;
+    }
+
+    static Run<?, ?> mockRun(Job<?, ?> job, int buildNumber) {
+        Run<?, ?> run = Mockito.mock(Run.class);
+        Mockito.doReturn(job).when(run).getParent();
+        Mockito.when(run.getNumber()).thenReturn(buildNumber);
+        Mockito.doAnswer(invocation -> {
+                    RunAction2 action = invocation.getArgument(0);
+                    action.onAttached(run);
+                    return null;
+                })
+                .when(run)
+                .addAction(Mockito.any());
+        return run;
+    }
+}
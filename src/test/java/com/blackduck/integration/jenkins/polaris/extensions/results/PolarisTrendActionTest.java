@@ -0,0 +1,63 @@
+package com.blackduck.integration.jenkins.polaris.extensions.results;
+
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+public class PolarisTrendActionTest {
+    @TempDir
+    public File jobRootDir;
+
+    @Test
+    public void testJobsWithoutResultsHaveNoTrend() {
+        Job<?, ?> job = PolarisResultsActionTest.mockJob(jobRootDir);
+
+        Collection<? extends Action> actions = new PolarisTrendAction.Factory().createFor(job);
+
+        Assertions.assertTrue(actions.isEmpty());
+        Mockito.verify(job, Mockito.never()).getLastBuild();
+        Mockito.verify(job, Mockito.never()).getLastCompletedBuild();
+    }
+
+    @Test
+    public void testTheTrendIsReadWithoutLoadingBuilds() {
+        Job<?, ?> job = PolarisResultsActionTest.mockJob(jobRootDir);
+        for (int buildNumber = 1; buildNumber <= 3; buildNumber++) {
+            Run<?, ?> run = PolarisResultsActionTest.mockRun(job, buildNumber);
+            PolarisResultsAction.forRun(run).recordPolarisCli(0, 100L * buildNumber);
+        }
+
+        Collection<? extends Action> actions = new PolarisTrendAction.Factory().createFor(job);
+
+        Assertions.assertEquals(1, actions.size());
+        PolarisTrendAction polarisTrendAction = (PolarisTrendAction) actions.iterator().next();
+        List<PolarisTrendEntry> trend = polarisTrendAction.getTrend();
+        Assertions.assertEquals(3, trend.size());
+        Assertions.assertEquals(1, trend.get(0).getBuildNumber());
+        Assertions.assertEquals(Long.valueOf(300L), trend.get(2).getCliDurationInMillis());
+        Mockito.verify(job, Mockito.never()).getLastBuild();
+        Mockito.verify(job, Mockito.never()).getBuildByNumber(Mockito.anyInt());
+    }
+
+    @Test
+    public void testOnlyTheLatestBuildIsLoadedForItsResults() {
+        Job<?, ?> job = PolarisResultsActionTest.mockJob(jobRootDir);
+        Run<?, ?> run = PolarisResultsActionTest.mockRun(job, 4);
+        PolarisResultsAction polarisResultsAction = PolarisResultsAction.forRun(run);
+        polarisResultsAction.recordPolarisCli(0, 100L);
+        Mockito.doReturn(polarisResultsAction).when(run).getAction(PolarisResultsAction.class);
+        Mockito.doReturn(run).when(job).getBuildByNumber(4);
+
+        PolarisTrendAction polarisTrendAction = new PolarisTrendAction(job, PolarisTrend.forJob(job));
+
+        Assertions.assertSame(polarisResultsAction, polarisTrendAction.getLatestResults());
+        Mockito.verify(job, Mockito.times(1)).getBuildByNumber(4);
+    }
+}
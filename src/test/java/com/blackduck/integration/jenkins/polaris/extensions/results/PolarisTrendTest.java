@@ -0,0 +1,42 @@
+package com.blackduck.integration.jenkins.polaris.extensions.results;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import java.io.File;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PolarisTrendTest {
+    @TempDir
+    public File jobRootDir;
+
+    @Test
+    public void testJobsWithoutATrendFileAreNotGivenATrend() {
+        Job<?, ?> job = PolarisResultsActionTest.mockJob(jobRootDir);
+
+        Assertions.assertFalse(PolarisTrend.findForJob(job).isPresent());
+        Assertions.assertFalse(PolarisTrend.findForJob(job).isPresent());
+
+        PolarisResultsAction.forRun(PolarisResultsActionTest.mockRun(job, 1)).recordPolarisCli(0, 100L);
+
+        Assertions.assertTrue(PolarisTrend.findForJob(job).isPresent());
+    }
+
+    @Test
+    public void testDeletedBuildsAreRemovedFromTheTrend() {
+        Job<?, ?> job = PolarisResultsActionTest.mockJob(jobRootDir);
+        Run<?, ?> deletedRun = PolarisResultsActionTest.mockRun(job, 1);
+        PolarisResultsAction.forRun(deletedRun).recordPolarisCli(0, 100L);
+        PolarisResultsAction.forRun(PolarisResultsActionTest.mockRun(job, 2)).recordPolarisCli(0, 200L);
+
+        new PolarisTrend.TrendRunListener().onDeleted(deletedRun);
+
+        // Read back from the trend file, as after a restart
+        List<PolarisTrendEntry> trend =
+                PolarisTrend.findForJob(PolarisResultsActionTest.mockJob(jobRootDir)).get().getEntries();
+        Assertions.assertEquals(1, trend.size());
+        Assertions.assertEquals(2, trend.get(0).getBuildNumber());
+    }
+}
@@ -51,7 +51,7 @@ public class FindOrInstallPolarisCliTestIT {
                 null,
                 null,
                 INSTALLATION_DIR_PARENT_PATH);
-        String returnedInstallationDirPath = findOrInstallPolarisCli.call();
+        String returnedInstallationDirPath = findOrInstallPolarisCli.call().getPolarisCliHome();
 
         // Verify
         Path versionFile = requestedInstallationDirParent
@@ -0,0 +1,198 @@
+package com.blackduck.integration.jenkins.polaris.load;
+
+import static org.junit.Assert.assertEquals;
+
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisGlobalConfig;
+import com.blackduck.integration.jenkins.polaris.extensions.tools.PolarisCli;
+import com.blackduck.integration.jenkins.polaris.extensions.tools.PolarisCliInstaller;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import hudson.Functions;
+import hudson.model.Result;
+import hudson.tools.InstallSourceProperty;
+import hudson.util.Secret;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.model.GlobalConfiguration;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Runs many concurrent polaris and polarisIssueCheck pipelines against a {@link StubPolarisServer} and reports
+ * throughput, controller threads, heap and the requests the server received. It takes minutes and depends on the
+ * machine it runs on, so it only runs when asked for:
+ *
+ * <pre>
+ * mvn test -Dtest=PolarisLoadTest -Dpolaris.load=true -Dpolaris.load.pipelines=500
+ * </pre>
+ *
+ * The scenario is set with the system properties polaris.load.pipelines, polaris.load.latencyMillis,
+ * polaris.load.errorRate, polaris.load.jobDurationSeconds and polaris.load.timeoutMinutes. The report is printed and
+ * written to target/polaris-load-report.json so runs before and after a change can be compared.
+ */
+public class PolarisLoadTest {
+    private static final String CREDENTIALS_ID = "polaris-load-token";
+    private static final String POLARIS_CLI_NAME = "polaris-load-cli";
+
+    private final int pipelines = Integer.getInteger("polaris.load.pipelines", 500);
+    private final long latencyInMillis = Long.getLong("polaris.load.latencyMillis", 50L);
+    private final double errorRate = Double.parseDouble(System.getProperty("polaris.load.errorRate", "0"));
+    private final long jobDurationInSeconds = Long.getLong("polaris.load.jobDurationSeconds", 30L);
+    private final long timeoutInMinutes = Long.getLong("polaris.load.timeoutMinutes", 30L);
+
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    {
+        // The scenario has its own deadline, which is usually longer than the default test timeout
+        jenkinsRule.timeout = 0;
+    }
+
+    private StubPolarisServer stubPolarisServer;
+
+    @BeforeClass
+    public static void onlyWhenRequested() {
+        // Checked before the rule starts Jenkins, so a normal build does not pay for an unused instance
+        Assume.assumeTrue("Set -Dpolaris.load=true to run the load harness", Boolean.getBoolean("polaris.load"));
+        Assume.assumeFalse("The stub Polaris CLI is a shell script", Functions.isWindows());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        stubPolarisServer = StubPolarisServer.start(Math.max(16, pipelines / 4));
+        stubPolarisServer.setLatencyInMillis(latencyInMillis);
+        stubPolarisServer.setErrorRate(errorRate);
+        stubPolarisServer.setJobDurationInMillis(TimeUnit.SECONDS.toMillis(jobDurationInSeconds));
+
+        SystemCredentialsProvider.getInstance()
+                .getCredentials()
+                .add(new StringCredentialsImpl(
+                        CredentialsScope.GLOBAL,
+                        CREDENTIALS_ID,
+                        "Stub Polaris access token",
+                        Secret.fromString(StubPolarisServer.ACCESS_TOKEN)));
+        SystemCredentialsProvider.getInstance().save();
+
+        PolarisGlobalConfig polarisGlobalConfig = GlobalConfiguration.all().get(PolarisGlobalConfig.class);
+        polarisGlobalConfig.setPolarisUrl(stubPolarisServer.getUrl());
+        polarisGlobalConfig.setPolarisCredentialsId(CREDENTIALS_ID);
+
+        InstallSourceProperty installSourceProperty =
+                new InstallSourceProperty(Collections.singletonList(new PolarisCliInstaller(null)));
+        jenkinsRule
+                .jenkins
+                .getDescriptorByType(PolarisCli.DescriptorImpl.class)
+                .setInstallations(
+                        new PolarisCli(POLARIS_CLI_NAME, null, Collections.singletonList(installSourceProperty)));
+
+        // Every pipeline holds an executor for its whole run, so the controller needs one per pipeline
+        jenkinsRule.jenkins.setNumExecutors(pipelines);
+    }
+
+    @After
+    public void tearDown() {
+        if (stubPolarisServer != null) {
+            stubPolarisServer.close();
+        }
+    }
+
+    @Test
+    public void concurrentScansAndIssueChecks() throws Exception {
+        String script = "node {\n"
+                + "  polaris arguments: 'analyze', polarisCli: '" + POLARIS_CLI_NAME + "'\n"
+                + "  polarisIssueCheck jobTimeoutInMinutes: " + timeoutInMinutes + ", returnIssueCount: true\n"
+                + "}";
+        List<WorkflowJob> jobs = new ArrayList<>();
+        for (int i = 0; i < pipelines; i++) {
+            WorkflowJob job = jenkinsRule.createProject(WorkflowJob.class, "polaris-load-" + i);
+            job.setDefinition(new CpsFlowDefinition(script, true));
+            jobs.add(job);
+        }
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        int threadsBefore = threadMXBean.getThreadCount();
+        long heapBefore = memoryMXBean.getHeapMemoryUsage().getUsed();
+        threadMXBean.resetPeakThreadCount();
+
+        AtomicLong peakHeap = new AtomicLong(heapBefore);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(
+                () -> peakHeap.accumulateAndGet(memoryMXBean.getHeapMemoryUsage().getUsed(), Math::max),
+                0,
+                250,
+                TimeUnit.MILLISECONDS);
+
+        long startedAt = System.currentTimeMillis();
+        List<WorkflowRun> runs = new ArrayList<>();
+        for (WorkflowJob job : jobs) {
+            runs.add(job.scheduleBuild2(0).waitForStart());
+        }
+
+        int succeeded = 0;
+        long deadline = startedAt + TimeUnit.MINUTES.toMillis(timeoutInMinutes);
+        for (WorkflowRun run : runs) {
+            while (run.isBuilding() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            if (Result.SUCCESS.equals(run.getResult())) {
+                succeeded++;
+            }
+        }
+        long elapsedInMillis = System.currentTimeMillis() - startedAt;
+        sampler.shutdownNow();
+
+        JsonObject report = new JsonObject();
+        report.addProperty("pipelines", pipelines);
+        report.addProperty("succeeded", succeeded);
+        report.addProperty("latencyMillis", latencyInMillis);
+        report.addProperty("errorRate", errorRate);
+        report.addProperty("jobDurationSeconds", jobDurationInSeconds);
+        report.addProperty("elapsedMillis", elapsedInMillis);
+        report.addProperty("pipelinesPerMinute", succeeded * 60000.0 / Math.max(1, elapsedInMillis));
+        report.addProperty("threadsBefore", threadsBefore);
+        report.addProperty("peakThreads", threadMXBean.getPeakThreadCount());
+        report.addProperty("threadsAfter", threadMXBean.getThreadCount());
+        report.addProperty("heapBeforeBytes", heapBefore);
+        report.addProperty("peakHeapBytes", peakHeap.get());
+        report.addProperty("requests", stubPolarisServer.getTotalRequestCount());
+        report.addProperty("requestsPerPipeline", stubPolarisServer.getTotalRequestCount() / (double) pipelines);
+        report.addProperty("injectedErrors", stubPolarisServer.getErrorCount());
+        JsonObject requestsByEndpoint = new JsonObject();
+        stubPolarisServer.getRequestCounts().forEach(requestsByEndpoint::addProperty);
+        report.add("requestsByEndpoint", requestsByEndpoint);
+
+        String reportJson = new GsonBuilder().setPrettyPrinting().create().toJson(report);
+        System.out.println(reportJson);
+        File reportFile = new File("target", "polaris-load-report.json");
+        reportFile.getParentFile().mkdirs();
+        Files.write(reportFile.toPath(), reportJson.getBytes(StandardCharsets.UTF_8));
+
+        if (errorRate == 0) {
+            assertEquals("Pipelines that did not succeed, see the build logs", pipelines, succeeded);
+        }
+    }
+}
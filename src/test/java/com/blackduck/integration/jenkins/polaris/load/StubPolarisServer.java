@@ -0,0 +1,315 @@
+package com.blackduck.integration.jenkins.polaris.load;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * An in-process stand-in for the Coverity on Polaris Platform, with just enough of the API for the polaris and
+ * polarisIssueCheck steps: authentication, contexts, job status, paged issue counts and the CLI download. The CLI it
+ * serves is a shell script that prints a version line and writes a cli-scan.json whose jobs and issue counts point
+ * back at this server.
+ *
+ * Jobs are never stored. The CLI puts the time the job was created in its id, so any number of builds can poll
+ * without the stub keeping state, and a job is RUNNING until the configured job duration has passed.
+ */
+public class StubPolarisServer implements AutoCloseable {
+    public static final String ACCESS_TOKEN = "stub-access-token";
+    public static final String CLI_VERSION = "2025.3.0";
+
+    private static final String JOBS_PATH = "/api/jobs/jobs/";
+    private static final String COUNTS_PATH = "/api/query/v1/counts";
+    private static final String TOOLS_PATH = "/api/tools/";
+    private static final String CLI_ZIP_SUFFIX = "_cli-linux64.zip";
+    private static final String[] SEVERITIES = {"critical", "high", "medium", "low"};
+
+    private final HttpServer httpServer;
+    private final ExecutorService executorService;
+    private final byte[] cliZip;
+    private final String cliLastModified;
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final LongAdder errorCount = new LongAdder();
+
+    private volatile long latencyInMillis = 0;
+    private volatile double errorRate = 0;
+    private volatile long jobDurationInMillis = 0;
+    private volatile int issuesPerSeverity = 1;
+
+    private StubPolarisServer(HttpServer httpServer, ExecutorService executorService) throws IOException {
+        this.httpServer = httpServer;
+        this.executorService = executorService;
+        this.cliZip = createCliZip();
+        this.cliLastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.now().atZone(ZoneOffset.UTC));
+    }
+
+    /**
+     * Starts a server on a free port of the loopback address. Requests are served by a pool of the given size so that
+     * the configured latency holds up under concurrent builds instead of queueing behind one handler thread.
+     */
+    public static StubPolarisServer start(int handlerThreads) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService executorService = Executors.newFixedThreadPool(handlerThreads);
+        httpServer.setExecutor(executorService);
+
+        StubPolarisServer stubPolarisServer = new StubPolarisServer(httpServer, executorService);
+        httpServer.createContext("/", stubPolarisServer::handle);
+        httpServer.start();
+        return stubPolarisServer;
+    }
+
+    public String getUrl() {
+        return "http://" + httpServer.getAddress().getHostString() + ":" + httpServer.getAddress().getPort();
+    }
+
+    public void setLatencyInMillis(long latencyInMillis) {
+        this.latencyInMillis = latencyInMillis;
+    }
+
+    /**
+     * The fraction of job status and issue count requests answered with a 503 instead of a result.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setJobDurationInMillis(long jobDurationInMillis) {
+        this.jobDurationInMillis = jobDurationInMillis;
+    }
+
+    public void setIssuesPerSeverity(int issuesPerSeverity) {
+        this.issuesPerSeverity = issuesPerSeverity;
+    }
+
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requestCounts.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+        return counts;
+    }
+
+    public long getTotalRequestCount() {
+        return requestCounts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executorService.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String endpoint = endpointOf(path);
+            requestCounts.computeIfAbsent(endpoint, ignored -> new LongAdder()).increment();
+
+            if (latencyInMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyInMillis);
+            }
+
+            if ("auth".equals(endpoint)) {
+                JsonObject response = new JsonObject();
+                response.addProperty("jwt", "stub-jwt");
+                sendJson(exchange, 200, response);
+            } else if ("cli".equals(endpoint)) {
+                exchange.getResponseHeaders().add("Content-Type", "application/zip");
+                exchange.getResponseHeaders().add("Last-Modified", cliLastModified);
+                send(exchange, 200, cliZip);
+            } else if ("unknown".equals(endpoint)) {
+                send(exchange, 404, new byte[0]);
+            } else if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errorCount.increment();
+                send(exchange, 503, "Service Unavailable".getBytes(StandardCharsets.UTF_8));
+            } else if ("contexts".equals(endpoint)) {
+                sendJson(exchange, 200, contexts());
+            } else if ("jobs".equals(endpoint)) {
+                sendJson(exchange, 200, job(path.substring(JOBS_PATH.length())));
+            } else {
+                sendJson(exchange, 200, counts(queryParameters(exchange.getRequestURI().getRawQuery())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, new byte[0]);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String endpointOf(String path) {
+        if (path.endsWith("/api/auth/authenticate")) {
+            return "auth";
+        } else if (path.endsWith("/api/auth/contexts")) {
+            return "contexts";
+        } else if (path.startsWith(JOBS_PATH)) {
+            return "jobs";
+        } else if (path.startsWith(COUNTS_PATH)) {
+            return "counts";
+        } else if (path.startsWith(TOOLS_PATH) && path.endsWith(CLI_ZIP_SUFFIX)) {
+            return "cli";
+        }
+        return "unknown";
+    }
+
+    private JsonObject contexts() {
+        JsonObject attributes = new JsonObject();
+        attributes.addProperty("organizationname", "stub");
+        attributes.addProperty("current", true);
+
+        JsonArray data = new JsonArray();
+        data.add(resource("contexts", "stub-context", attributes));
+        return page(data, 0, 1, 1);
+    }
+
+    private JsonObject job(String jobId) {
+        long elapsedInMillis = System.currentTimeMillis() - createdAtMillis(jobId);
+        JsonObject status = new JsonObject();
+        if (elapsedInMillis < jobDurationInMillis) {
+            status.addProperty("state", "RUNNING");
+            status.addProperty("progress", (int) (elapsedInMillis * 100 / jobDurationInMillis));
+        } else {
+            status.addProperty("state", "COMPLETED");
+            status.addProperty("progress", 100);
+        }
+
+        JsonObject attributes = new JsonObject();
+        attributes.addProperty("jobType", "nomad");
+        attributes.add("status", status);
+
+        JsonObject response = new JsonObject();
+        response.add("data", resource("jobs", jobId, attributes));
+        return response;
+    }
+
+    private JsonObject counts(Map<String, String> queryParameters) {
+        int offset = Integer.parseInt(queryParameters.getOrDefault("page[offset]", "0"));
+        int limit = Integer.parseInt(queryParameters.getOrDefault("page[limit]", String.valueOf(SEVERITIES.length)));
+
+        JsonArray data = new JsonArray();
+        for (int i = offset; i < Math.min(SEVERITIES.length, offset + limit); i++) {
+            JsonObject attributes = new JsonObject();
+            attributes.addProperty("value", issuesPerSeverity);
+            data.add(resource("count", SEVERITIES[i], attributes));
+        }
+        return page(data, offset, limit, SEVERITIES.length);
+    }
+
+    private JsonObject resource(String type, String id, JsonObject attributes) {
+        JsonObject resource = new JsonObject();
+        resource.addProperty("type", type);
+        resource.addProperty("id", id);
+        resource.add("attributes", attributes);
+        return resource;
+    }
+
+    private JsonObject page(JsonArray data, int offset, int limit, int total) {
+        JsonObject meta = new JsonObject();
+        meta.addProperty("offset", offset);
+        meta.addProperty("limit", limit);
+        meta.addProperty("total", total);
+
+        JsonObject response = new JsonObject();
+        response.add("data", data);
+        response.add("included", new JsonArray());
+        response.add("meta", meta);
+        return response;
+    }
+
+    // The stub CLI names its jobs <seconds since the epoch>-<process id>
+    private long createdAtMillis(String jobId) {
+        try {
+            return Long.parseLong(jobId.substring(0, jobId.indexOf('-'))) * 1000;
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> queryParameters = new HashMap<>();
+        if (rawQuery == null) {
+            return queryParameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                queryParameters.put(
+                        URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return queryParameters;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonObject json) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/vnd.api+json");
+        send(exchange, status, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(body);
+            }
+        }
+    }
+
+    private static byte[] createCliZip() throws IOException {
+        String script = "#!/bin/sh\n"
+                + "echo \"Coverity on Polaris Platform CLI Scan Client version - " + CLI_VERSION + "\"\n"
+                + "server=\"${POLARIS_SERVER_URL%/}\"\n"
+                + "job=\"$(date +%s)-$$\"\n"
+                + "mkdir -p .blackduck/polaris\n"
+                + "cat > .blackduck/polaris/cli-scan.json <<EOF\n"
+                + "{\n"
+                + "  \"version\": \"2.0\",\n"
+                + "  \"scanInfo\": {\"cliVersion\": \"" + CLI_VERSION + "\",\n"
+                + "    \"scanTime\": \"$(date -u +%Y-%m-%dT%H:%M:%SZ)\"},\n"
+                + "  \"projectInfo\": {\"projectId\": \"stub-project\", \"branchId\": \"stub-branch\"},\n"
+                + "  \"tools\": [\n"
+                + "    {\n"
+                + "      \"toolName\": \"Coverity\",\n"
+                + "      \"toolVersion\": \"" + CLI_VERSION + "\",\n"
+                + "      \"jobId\": \"$job\",\n"
+                + "      \"jobStatus\": \"QUEUED\",\n"
+                + "      \"jobStatusUrl\": \"$server" + JOBS_PATH + "$job\",\n"
+                + "      \"issueApiUrl\": \"$server" + COUNTS_PATH + "?job-id=$job\"\n"
+                + "    }\n"
+                + "  ]\n"
+                + "}\n"
+                + "EOF\n"
+                + "echo \"Polaris CLI stub started job $job\"\n";
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(zip)) {
+            zipOutputStream.putNextEntry(new ZipEntry("polaris_cli-" + CLI_VERSION + "/bin/polaris"));
+            zipOutputStream.write(script.getBytes(StandardCharsets.UTF_8));
+            zipOutputStream.closeEntry();
+        }
+        return zip.toByteArray();
+    }
+}
@@ -0,0 +1,144 @@
+package com.blackduck.integration.jenkins.polaris.service;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
+import com.blackduck.integration.jenkins.service.JenkinsRemotingService;
+import com.blackduck.integration.polaris.common.cli.PolarisCliResponseUtility;
+import com.blackduck.integration.polaris.common.service.CountService;
+import com.blackduck.integration.polaris.common.service.JobService;
+import com.blackduck.integration.rest.HttpUrl;
+import hudson.model.TaskListener;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class GetPolarisIssueCountsTest {
+    private static final long JOB_TIMEOUT_IN_SECONDS = 1;
+    private static final String POLARIS_URL = "https://www.example.com";
+    private static final String ISSUE_API_URL = "https://www.example.com/api/issues/";
+    private static final String TOOL_A_ISSUE_API_URL = "https://www.example.com/api/issues/toolA/";
+    private static final String TOOL_B_ISSUE_API_URL = "https://www.example.com/api/issues/toolB/";
+
+    @Test
+    public void testProgressOnTheAgentIsSavedWithTheIssueCheck() throws Exception {
+        PolarisIssueCheckState.ToolJob toolJobA = new PolarisIssueCheckState.ToolJob(
+                "Coverity", "https://www.example.com/api/jobs/toolA/", TOOL_A_ISSUE_API_URL);
+        PolarisIssueCheckState.ToolJob toolJobB = new PolarisIssueCheckState.ToolJob(
+                "sca", "https://www.example.com/api/jobs/toolB/", TOOL_B_ISSUE_API_URL);
+        PolarisIssueCheckState issueCheckState = PolarisIssueCheckState.forPendingJobs(
+                ISSUE_API_URL, Arrays.asList(toolJobA, toolJobB), true, System.currentTimeMillis() + 1000);
+        // Completed before a restart, so the agent must not wait for it again
+        issueCheckState.recordToolJobCompleted(toolJobA, 2);
+        AtomicInteger savedStates = new AtomicInteger();
+        issueCheckState.setToolJobCompletedListener(savedStates::incrementAndGet);
+
+        JenkinsIntLogger logger = Mockito.mock(JenkinsIntLogger.class);
+        JobService jobService = Mockito.mock(JobService.class);
+        CountService countService = Mockito.mock(CountService.class);
+        Mockito.when(countService.getTotalIssueCountFromIssueApiUrl(new HttpUrl(TOOL_B_ISSUE_API_URL)))
+                .thenReturn(3);
+        PolarisCliIssueCountService agentIssueCountService = new PolarisCliIssueCountService(
+                logger,
+                countService,
+                jobService,
+                Mockito.mock(PolarisCliResponseUtility.class),
+                PolarisAdmissionService.alreadyAdmitted(logger, POLARIS_URL));
+
+        // The agent gets its own copy of the state, as it would over remoting
+        JenkinsRemotingService jenkinsRemotingService = Mockito.mock(JenkinsRemotingService.class);
+        Mockito.when(jenkinsRemotingService.call(Mockito.any(GetPolarisIssueCounts.class)))
+                .thenAnswer(invocation -> new GetPolarisIssueCounts(
+                                TaskListener.NULL,
+                                Collections.emptyMap(),
+                                0,
+                                SerializationUtils.clone(issueCheckState),
+                                JOB_TIMEOUT_IN_SECONDS)
+                        .countIssues(agentIssueCountService));
+        PolarisAgentIssueCounter polarisAgentIssueCounter =
+                new PolarisAgentIssueCounter(jenkinsRemotingService, TaskListener.NULL, Collections.emptyMap(), 0);
+
+        PolarisIssueCounts polarisIssueCounts =
+                polarisAgentIssueCounter.getIssueCounts(issueCheckState, JOB_TIMEOUT_IN_SECONDS);
+
+        Assertions.assertEquals(5, polarisIssueCounts.getTotalIssueCount());
+        Mockito.verify(jobService, Mockito.times(1))
+                .waitForJobStateIsCompletedOrDieByUrl(Mockito.any(), Mockito.anyLong(), Mockito.anyInt());
+        Mockito.verify(countService, Mockito.never())
+                .getTotalIssueCountFromIssueApiUrl(new HttpUrl(TOOL_A_ISSUE_API_URL));
+        Assertions.assertTrue(issueCheckState.getPendingToolJobs().isEmpty());
+        Assertions.assertEquals(Integer.valueOf(2), issueCheckState.getToolIssueCounts().get("Coverity"));
+        Assertions.assertEquals(Integer.valueOf(3), issueCheckState.getToolIssueCounts().get("sca"));
+        Assertions.assertEquals(1, savedStates.get());
+    }
+
+    @Test
+    public void testProgressOnTheAgentIsSavedWhenTheWaitFails() throws Exception {
+        PolarisIssueCheckState.ToolJob toolJobA = new PolarisIssueCheckState.ToolJob(
+                "Coverity", "https://www.example.com/api/jobs/toolA/", TOOL_A_ISSUE_API_URL);
+        PolarisIssueCheckState.ToolJob toolJobB = new PolarisIssueCheckState.ToolJob(
+                "sca", "https://www.example.com/api/jobs/toolB/", TOOL_B_ISSUE_API_URL);
+        PolarisIssueCheckState issueCheckState = PolarisIssueCheckState.forPendingJobs(
+                ISSUE_API_URL, Arrays.asList(toolJobA, toolJobB), true, System.currentTimeMillis() + 1000);
+        AtomicInteger savedStates = new AtomicInteger();
+        issueCheckState.setToolJobCompletedListener(savedStates::incrementAndGet);
+        AtomicReference<PolarisIssueCheckState> agentIssueCheckState = new AtomicReference<>();
+
+        JenkinsIntLogger logger = Mockito.mock(JenkinsIntLogger.class);
+        JobService jobService = Mockito.mock(JobService.class);
+        // The job of the second tool fails once the first tool has been counted on the agent
+        Mockito.doAnswer(invocation -> {
+                    long deadline = System.currentTimeMillis() + 10 * 1000;
+                    while (!agentIssueCheckState.get().getToolIssueCounts().containsKey("Coverity")
+                            && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(10);
+                    }
+                    throw new IntegrationException("The sca job failed");
+                })
+                .when(jobService)
+                .waitForJobStateIsCompletedOrDieByUrl(
+                        Mockito.eq(new HttpUrl(toolJobB.getJobStatusUrl())), Mockito.anyLong(), Mockito.anyInt());
+        CountService countService = Mockito.mock(CountService.class);
+        Mockito.when(countService.getTotalIssueCountFromIssueApiUrl(new HttpUrl(TOOL_A_ISSUE_API_URL)))
+                .thenReturn(2);
+        PolarisCliIssueCountService agentIssueCountService = new PolarisCliIssueCountService(
+                logger,
+                countService,
+                jobService,
+                Mockito.mock(PolarisCliResponseUtility.class),
+                PolarisAdmissionService.alreadyAdmitted(logger, POLARIS_URL));
+
+        JenkinsRemotingService jenkinsRemotingService = Mockito.mock(JenkinsRemotingService.class);
+        Mockito.when(jenkinsRemotingService.call(Mockito.any(GetPolarisIssueCounts.class)))
+                .thenAnswer(invocation -> {
+                    agentIssueCheckState.set(SerializationUtils.clone(issueCheckState));
+                    try {
+                        return new GetPolarisIssueCounts(
+                                        TaskListener.NULL,
+                                        Collections.emptyMap(),
+                                        0,
+                                        agentIssueCheckState.get(),
+                                        JOB_TIMEOUT_IN_SECONDS)
+                                .countIssues(agentIssueCountService);
+                    } catch (GetPolarisIssueCounts.AgentIssueCheckException e) {
+                        // The failure comes back over remoting as a copy, with its own copy of the state
+                        throw SerializationUtils.clone(e);
+                    }
+                });
+        PolarisAgentIssueCounter polarisAgentIssueCounter =
+                new PolarisAgentIssueCounter(jenkinsRemotingService, TaskListener.NULL, Collections.emptyMap(), 0);
+
+        IntegrationException failure = Assertions.assertThrows(
+                IntegrationException.class,
+                () -> polarisAgentIssueCounter.getIssueCounts(issueCheckState, JOB_TIMEOUT_IN_SECONDS));
+
+        Assertions.assertFalse(failure instanceof GetPolarisIssueCounts.AgentIssueCheckException);
+        Assertions.assertEquals(Collections.singletonList(toolJobB), issueCheckState.getPendingToolJobs());
+        Assertions.assertEquals(Integer.valueOf(2), issueCheckState.getToolIssueCounts().get("Coverity"));
+        Assertions.assertEquals(1, savedStates.get());
+    }
+}
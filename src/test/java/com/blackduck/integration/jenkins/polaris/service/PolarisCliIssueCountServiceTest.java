@@ -3,16 +3,20 @@ package com.blackduck.integration.jenkins.polaris.service;
 import com.blackduck.integration.exception.IntegrationException;
 import com.blackduck.integration.jenkins.exception.JenkinsUserFriendlyException;
 import com.blackduck.integration.jenkins.extensions.JenkinsIntLogger;
+import com.blackduck.integration.jenkins.polaris.extensions.global.PolarisAdmissionController;
 import com.blackduck.integration.polaris.common.cli.PolarisCliResponseUtility;
 import com.blackduck.integration.polaris.common.cli.model.CliCommonResponseModel;
 import com.blackduck.integration.polaris.common.cli.model.CommonIssueSummary;
 import com.blackduck.integration.polaris.common.cli.model.CommonScanInfo;
 import com.blackduck.integration.polaris.common.cli.model.CommonToolInfo;
+import com.blackduck.integration.polaris.common.metrics.PolarisOperations;
 import com.blackduck.integration.polaris.common.service.CountService;
 import com.blackduck.integration.polaris.common.service.JobService;
 import com.blackduck.integration.rest.HttpUrl;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,6 +30,10 @@ public class PolarisCliIssueCountServiceTest {
     public static final String VALID_ISSUE_API_URL = "https://www.example.com/api/issues/";
     public static final String SUCCESSFUL_JOB_STATUS_URL = "https://www.example.com/api/jobs/successfuljob/";
     public static final String FAILING_JOB_STATUS_URL = "https://www.example.com/api/jobs/failingjob/";
+    public static final String TOOL_A_ISSUE_API_URL = "https://www.example.com/api/issues/toolA/";
+    public static final String TOOL_B_ISSUE_API_URL = "https://www.example.com/api/issues/toolB/";
+    public static final Integer TOOL_A_ISSUE_COUNT = 2;
+    public static final Integer TOOL_B_ISSUE_COUNT = 3;
     private static final String MOCK_JSON = "Json to convert into a mocked ResponseModel";
     private CliCommonResponseModel mockedResponseModel;
     private JenkinsIntLogger mockedLogger;
@@ -37,6 +45,7 @@ public class PolarisCliIssueCountServiceTest {
     private CommonToolInfo successfulToolB;
     private CommonToolInfo failingTool;
     private CommonToolInfo invalidTool;
+    private PolarisAdmissionService polarisAdmissionService;
 
     @BeforeEach
     public void setUpMocks() {
@@ -44,6 +53,8 @@ public class PolarisCliIssueCountServiceTest {
             mockedLogger = Mockito.mock(JenkinsIntLogger.class);
             mockedCountService = Mockito.mock(CountService.class);
             mockedJobService = Mockito.mock(JobService.class);
+            polarisAdmissionService = new PolarisAdmissionService(
+                    mockedLogger, new PolarisAdmissionController(), VALID_ISSUE_API_URL, 0, 0, "folder");
 
             mockedPolarisCliResponseUtility = Mockito.mock(PolarisCliResponseUtility.class);
             mockedResponseModel = Mockito.mock(CliCommonResponseModel.class);
@@ -83,7 +94,11 @@ public class PolarisCliIssueCountServiceTest {
         Mockito.when(mockedResponseModel.getIssueSummary()).thenReturn(Optional.of(mockedIssueSummary));
 
         PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
-                mockedLogger, mockedCountService, mockedJobService, mockedPolarisCliResponseUtility);
+                mockedLogger,
+                mockedCountService,
+                mockedJobService,
+                mockedPolarisCliResponseUtility,
+                polarisAdmissionService);
         try {
             Integer actualIssueCount = polarisCliIssueCountService.getIssueCount(VALID_TIMEOUT, MOCK_JSON);
 
@@ -93,6 +108,33 @@ public class PolarisCliIssueCountServiceTest {
         }
     }
 
+    @Test
+    public void testGetSeveritiesAndJobStatesFromIssueSummary() {
+        CommonIssueSummary mockedIssueSummary = Mockito.mock(CommonIssueSummary.class);
+        Mockito.when(mockedIssueSummary.getTotalIssueCount()).thenReturn(EXPECTED_ISSUE_COUNT);
+        Mockito.when(mockedIssueSummary.getIssuesBySeverity()).thenReturn(Collections.singletonMap("high", 4));
+        Mockito.when(mockedResponseModel.getIssueSummary()).thenReturn(Optional.of(mockedIssueSummary));
+        successfulToolA.setToolName("Coverity");
+        successfulToolA.setJobStatus("COMPLETED");
+        Mockito.when(mockedResponseModel.getTools()).thenReturn(Collections.singletonList(successfulToolA));
+
+        PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
+                mockedLogger,
+                mockedCountService,
+                mockedJobService,
+                mockedPolarisCliResponseUtility,
+                polarisAdmissionService);
+        try {
+            PolarisIssueCounts actualIssueCounts = polarisCliIssueCountService.getIssueCounts(VALID_TIMEOUT, MOCK_JSON);
+
+            Assertions.assertEquals(EXPECTED_ISSUE_COUNT, actualIssueCounts.getTotalIssueCount());
+            Assertions.assertEquals(4, actualIssueCounts.getIssuesBySeverity().get("high"));
+            Assertions.assertEquals("COMPLETED", actualIssueCounts.getToolJobStates().get("Coverity"));
+        } catch (Exception e) {
+            Assertions.fail("An unexpected exception occurred in the test code, it may need to be fixed.", e);
+        }
+    }
+
     @Test
     public void testGetCountFromIssueSummaryWithInvalidTimeout() {
         CommonIssueSummary mockedIssueSummary = Mockito.mock(CommonIssueSummary.class);
@@ -100,7 +142,11 @@ public class PolarisCliIssueCountServiceTest {
         Mockito.when(mockedResponseModel.getIssueSummary()).thenReturn(Optional.of(mockedIssueSummary));
 
         PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
-                mockedLogger, mockedCountService, mockedJobService, mockedPolarisCliResponseUtility);
+                mockedLogger,
+                mockedCountService,
+                mockedJobService,
+                mockedPolarisCliResponseUtility,
+                polarisAdmissionService);
 
         // Since no polling was done, the timeout shouldn't matter -- rotte APR 2020
         try {
@@ -120,7 +166,11 @@ public class PolarisCliIssueCountServiceTest {
             Mockito.when(mockedResponseModel.getTools()).thenReturn(Arrays.asList(successfulToolA, successfulToolB));
 
             PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
-                    mockedLogger, mockedCountService, mockedJobService, mockedPolarisCliResponseUtility);
+                    mockedLogger,
+                    mockedCountService,
+                    mockedJobService,
+                    mockedPolarisCliResponseUtility,
+                    polarisAdmissionService);
 
             Integer actualIssueCount = polarisCliIssueCountService.getIssueCount(VALID_TIMEOUT, MOCK_JSON);
 
@@ -141,7 +191,11 @@ public class PolarisCliIssueCountServiceTest {
             Mockito.when(mockedResponseModel.getTools()).thenReturn(Collections.emptyList());
 
             PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
-                    mockedLogger, mockedCountService, mockedJobService, mockedPolarisCliResponseUtility);
+                    mockedLogger,
+                    mockedCountService,
+                    mockedJobService,
+                    mockedPolarisCliResponseUtility,
+                    polarisAdmissionService);
 
             Assertions.assertThrows(
                     JenkinsUserFriendlyException.class,
@@ -160,7 +214,11 @@ public class PolarisCliIssueCountServiceTest {
                     .thenReturn(Arrays.asList(successfulToolA, failingTool, successfulToolB));
 
             PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
-                    mockedLogger, mockedCountService, mockedJobService, mockedPolarisCliResponseUtility);
+                    mockedLogger,
+                    mockedCountService,
+                    mockedJobService,
+                    mockedPolarisCliResponseUtility,
+                    polarisAdmissionService);
 
             Assertions.assertThrows(
                     IntegrationException.class,
@@ -179,7 +237,11 @@ public class PolarisCliIssueCountServiceTest {
                     .thenReturn(Arrays.asList(successfulToolA, invalidTool, successfulToolB));
 
             PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
-                    mockedLogger, mockedCountService, mockedJobService, mockedPolarisCliResponseUtility);
+                    mockedLogger,
+                    mockedCountService,
+                    mockedJobService,
+                    mockedPolarisCliResponseUtility,
+                    polarisAdmissionService);
 
             Assertions.assertThrows(
                     JenkinsUserFriendlyException.class,
@@ -188,4 +250,176 @@ public class PolarisCliIssueCountServiceTest {
             Assertions.fail("An unexpected exception occurred in the test code, it may need to be fixed.", e);
         }
     }
+
+    @Test
+    public void testGetCountPerToolFromPolaris() {
+        try {
+            Mockito.when(mockedResponseModel.getIssueSummary()).thenReturn(Optional.empty());
+            Mockito.when(mockedScanInfo.getIssueApiUrl()).thenReturn(new HttpUrl(VALID_ISSUE_API_URL));
+            Mockito.when(mockedCountService.getTotalIssueCountFromIssueApiUrl(new HttpUrl(TOOL_A_ISSUE_API_URL)))
+                    .thenReturn(TOOL_A_ISSUE_COUNT);
+            Mockito.when(mockedCountService.getTotalIssueCountFromIssueApiUrl(new HttpUrl(TOOL_B_ISSUE_API_URL)))
+                    .thenReturn(TOOL_B_ISSUE_COUNT);
+
+            successfulToolA.setToolName("Coverity");
+            successfulToolA.setIssueApiUrl(new HttpUrl(TOOL_A_ISSUE_API_URL));
+            successfulToolB.setToolName("sca");
+            successfulToolB.setIssueApiUrl(new HttpUrl(TOOL_B_ISSUE_API_URL));
+            Mockito.when(mockedResponseModel.getTools()).thenReturn(Arrays.asList(successfulToolA, successfulToolB));
+
+            PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
+                    mockedLogger,
+                    mockedCountService,
+                    mockedJobService,
+                    mockedPolarisCliResponseUtility,
+                    polarisAdmissionService);
+
+            PolarisIssueCounts actualIssueCounts = polarisCliIssueCountService.getIssueCounts(VALID_TIMEOUT, MOCK_JSON);
+
+            Mockito.verify(mockedCountService, Mockito.never())
+                    .getTotalIssueCountFromIssueApiUrl(new HttpUrl(VALID_ISSUE_API_URL));
+            Assertions.assertEquals(TOOL_A_ISSUE_COUNT + TOOL_B_ISSUE_COUNT, actualIssueCounts.getTotalIssueCount());
+            Assertions.assertEquals(TOOL_A_ISSUE_COUNT, actualIssueCounts.getToolIssueCounts().get("Coverity"));
+            Assertions.assertEquals(TOOL_B_ISSUE_COUNT, actualIssueCounts.getToolIssueCounts().get("sca"));
+        } catch (Exception e) {
+            Assertions.fail("An unexpected exception occurred in the test code, it may need to be fixed.", e);
+        }
+    }
+
+    @Test
+    public void testResumeCountPerToolFromPolaris() {
+        try {
+            Mockito.when(mockedResponseModel.getIssueSummary()).thenReturn(Optional.empty());
+            Mockito.when(mockedScanInfo.getIssueApiUrl()).thenReturn(new HttpUrl(VALID_ISSUE_API_URL));
+            Mockito.when(mockedCountService.getTotalIssueCountFromIssueApiUrl(new HttpUrl(TOOL_B_ISSUE_API_URL)))
+                    .thenReturn(TOOL_B_ISSUE_COUNT);
+
+            successfulToolA.setToolName("Coverity");
+            successfulToolA.setIssueApiUrl(new HttpUrl(TOOL_A_ISSUE_API_URL));
+            successfulToolB.setToolName("sca");
+            successfulToolB.setIssueApiUrl(new HttpUrl(TOOL_B_ISSUE_API_URL));
+            Mockito.when(mockedResponseModel.getTools()).thenReturn(Arrays.asList(successfulToolA, successfulToolB));
+
+            PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
+                    mockedLogger,
+                    mockedCountService,
+                    mockedJobService,
+                    mockedPolarisCliResponseUtility,
+                    polarisAdmissionService);
+
+            // Simulate a restart after the first tool had already been counted
+            PolarisIssueCheckState issueCheckState =
+                    polarisCliIssueCountService.createIssueCheckState(VALID_TIMEOUT, mockedResponseModel);
+            PolarisIssueCheckState.ToolJob toolAJob = issueCheckState.getPendingToolJobs().get(0);
+            issueCheckState.recordToolJobCompleted(toolAJob, TOOL_A_ISSUE_COUNT);
+
+            PolarisIssueCounts actualIssueCounts = polarisCliIssueCountService.getIssueCounts(issueCheckState);
+
+            Mockito.verify(mockedJobService, Mockito.times(1))
+                    .waitForJobStateIsCompletedOrDieByUrl(
+                            Mockito.eq(new HttpUrl(SUCCESSFUL_JOB_STATUS_URL)),
+                            Mockito.anyLong(),
+                            Mockito.eq(JobService.DEFAULT_WAIT_INTERVAL));
+            Mockito.verify(mockedCountService, Mockito.never())
+                    .getTotalIssueCountFromIssueApiUrl(new HttpUrl(TOOL_A_ISSUE_API_URL));
+            Assertions.assertEquals(TOOL_A_ISSUE_COUNT + TOOL_B_ISSUE_COUNT, actualIssueCounts.getTotalIssueCount());
+            Assertions.assertEquals(TOOL_A_ISSUE_COUNT, actualIssueCounts.getToolIssueCounts().get("Coverity"));
+            Assertions.assertEquals(TOOL_B_ISSUE_COUNT, actualIssueCounts.getToolIssueCounts().get("sca"));
+        } catch (Exception e) {
+            Assertions.fail("An unexpected exception occurred in the test code, it may need to be fixed.", e);
+        }
+    }
+
+    @Test
+    public void testEachCompletedToolJobIsReported() {
+        try {
+            Mockito.when(mockedResponseModel.getIssueSummary()).thenReturn(Optional.empty());
+            Mockito.when(mockedScanInfo.getIssueApiUrl()).thenReturn(new HttpUrl(VALID_ISSUE_API_URL));
+            successfulToolA.setToolName("Coverity");
+            successfulToolB.setToolName("sca");
+            Mockito.when(mockedResponseModel.getTools()).thenReturn(Arrays.asList(successfulToolA, successfulToolB));
+
+            PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
+                    mockedLogger,
+                    mockedCountService,
+                    mockedJobService,
+                    mockedPolarisCliResponseUtility,
+                    polarisAdmissionService);
+            PolarisIssueCheckState issueCheckState =
+                    polarisCliIssueCountService.createIssueCheckState(VALID_TIMEOUT, mockedResponseModel);
+            List<Integer> pendingToolJobsWhenReported = new ArrayList<>();
+            issueCheckState.setToolJobCompletedListener(() ->
+                    pendingToolJobsWhenReported.add(issueCheckState.getPendingToolJobs().size()));
+
+            polarisCliIssueCountService.getIssueCounts(issueCheckState, VALID_TIMEOUT);
+
+            Assertions.assertEquals(Arrays.asList(1, 0), pendingToolJobsWhenReported);
+        } catch (Exception e) {
+            Assertions.fail("An unexpected exception occurred in the test code, it may need to be fixed.", e);
+        }
+    }
+
+    @Test
+    public void testRecordLastPolledJobStateWhenTheJobFails() {
+        try {
+            Mockito.when(mockedResponseModel.getIssueSummary()).thenReturn(Optional.empty());
+            Mockito.when(mockedScanInfo.getIssueApiUrl()).thenReturn(new HttpUrl(VALID_ISSUE_API_URL));
+            failingTool.setToolName("Coverity");
+            Mockito.when(mockedResponseModel.getTools()).thenReturn(Collections.singletonList(failingTool));
+            Mockito.doAnswer(invocation -> {
+                        PolarisOperations.recordJobStatus(FAILING_JOB_STATUS_URL, "FAILED", 100);
+                        throw new IntegrationException("Job ended with state FAILED");
+                    })
+                    .when(mockedJobService)
+                    .waitForJobStateIsCompletedOrDieByUrl(
+                            Mockito.eq(new HttpUrl(FAILING_JOB_STATUS_URL)),
+                            Mockito.anyLong(),
+                            Mockito.eq(JobService.DEFAULT_WAIT_INTERVAL));
+
+            PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
+                    mockedLogger,
+                    mockedCountService,
+                    mockedJobService,
+                    mockedPolarisCliResponseUtility,
+                    polarisAdmissionService);
+            PolarisIssueCheckState issueCheckState =
+                    polarisCliIssueCountService.createIssueCheckState(VALID_TIMEOUT, mockedResponseModel);
+
+            Assertions.assertThrows(
+                    IntegrationException.class,
+                    () -> polarisCliIssueCountService.getIssueCounts(issueCheckState, VALID_TIMEOUT));
+            Assertions.assertEquals("FAILED", issueCheckState.getToolJobStates().get("Coverity"));
+        } catch (Exception e) {
+            Assertions.fail("An unexpected exception occurred in the test code, it may need to be fixed.", e);
+        }
+    }
+
+    @Test
+    public void testCountOnAgent() {
+        try {
+            Mockito.when(mockedResponseModel.getIssueSummary()).thenReturn(Optional.empty());
+            Mockito.when(mockedScanInfo.getIssueApiUrl()).thenReturn(new HttpUrl(VALID_ISSUE_API_URL));
+            Mockito.when(mockedResponseModel.getTools()).thenReturn(Collections.singletonList(successfulToolA));
+
+            PolarisAgentIssueCounter mockedAgentIssueCounter = Mockito.mock(PolarisAgentIssueCounter.class);
+            Mockito.when(mockedAgentIssueCounter.getIssueCounts(
+                            Mockito.any(PolarisIssueCheckState.class), Mockito.eq(VALID_TIMEOUT.longValue())))
+                    .thenReturn(PolarisIssueCounts.totalOnly(EXPECTED_ISSUE_COUNT));
+
+            PolarisCliIssueCountService polarisCliIssueCountService = new PolarisCliIssueCountService(
+                    mockedLogger,
+                    mockedCountService,
+                    mockedJobService,
+                    mockedPolarisCliResponseUtility,
+                    polarisAdmissionService,
+                    mockedAgentIssueCounter);
+            PolarisIssueCounts actualIssueCounts =
+                    polarisCliIssueCountService.getIssueCounts(VALID_TIMEOUT, MOCK_JSON);
+
+            Mockito.verifyNoInteractions(mockedJobService, mockedCountService);
+            Assertions.assertEquals(EXPECTED_ISSUE_COUNT, actualIssueCounts.getTotalIssueCount());
+        } catch (Exception e) {
+            Assertions.fail("An unexpected exception occurred in the test code, it may need to be fixed.", e);
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.blackduck.integration.jenkins.polaris.service;
+
+import com.blackduck.integration.jenkins.wrapper.JenkinsVersionHelper;
+import com.blackduck.integration.phonehome.request.PhoneHomeRequestBody;
+import com.blackduck.integration.polaris.common.api.PolarisResource;
+import com.blackduck.integration.polaris.common.api.model.ContextAttributes;
+import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClient;
+import com.blackduck.integration.polaris.common.service.ContextsService;
+import com.blackduck.integration.rest.HttpUrl;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class PolarisPhoneHomeServiceTest {
+    private static final String ORGANIZATION_NAME = "example-organization";
+
+    private JenkinsVersionHelper jenkinsVersionHelper;
+    private ContextsService contextsService;
+    private AccessTokenPolarisHttpClient accessTokenPolarisHttpClient;
+
+    @BeforeEach
+    public void setUpMocks() throws Exception {
+        jenkinsVersionHelper = Mockito.mock(JenkinsVersionHelper.class);
+        contextsService = Mockito.mock(ContextsService.class);
+        accessTokenPolarisHttpClient = Mockito.mock(AccessTokenPolarisHttpClient.class);
+        Mockito.when(accessTokenPolarisHttpClient.getPolarisServerUrl())
+                .thenReturn(new HttpUrl("https://polaris.example.com"));
+        // The organization names are cached for the whole JVM, so every test uses credentials of its own
+        Mockito.when(accessTokenPolarisHttpClient.getCredentialsFingerprint())
+                .thenReturn(UUID.randomUUID().toString());
+    }
+
+    @Test
+    public void testOrganizationNamesAreCachedUntilTheyExpire() throws Exception {
+        Mockito.when(contextsService.getCurrentContext()).thenReturn(Optional.of(createContext(ORGANIZATION_NAME)));
+        AtomicLong currentTimeMillis = new AtomicLong(1000L);
+        PolarisPhoneHomeService polarisPhoneHomeService = new PolarisPhoneHomeService(
+                jenkinsVersionHelper, contextsService, accessTokenPolarisHttpClient, currentTimeMillis::get);
+
+        Assertions.assertEquals(ORGANIZATION_NAME, polarisPhoneHomeService.getOrganizationName());
+        currentTimeMillis.addAndGet(PolarisPhoneHomeService.ORGANIZATION_NAME_TTL_IN_MILLIS - 1);
+        Assertions.assertEquals(ORGANIZATION_NAME, polarisPhoneHomeService.getOrganizationName());
+        Mockito.verify(contextsService, Mockito.times(1)).getCurrentContext();
+
+        currentTimeMillis.incrementAndGet();
+        Assertions.assertEquals(ORGANIZATION_NAME, polarisPhoneHomeService.getOrganizationName());
+        Mockito.verify(contextsService, Mockito.times(2)).getCurrentContext();
+    }
+
+    @Test
+    public void testUnknownOrganizationNamesAreNotCached() throws Exception {
+        Mockito.when(contextsService.getCurrentContext())
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(createContext(ORGANIZATION_NAME)));
+        PolarisPhoneHomeService polarisPhoneHomeService =
+                new PolarisPhoneHomeService(jenkinsVersionHelper, contextsService, accessTokenPolarisHttpClient);
+
+        Assertions.assertEquals(
+                PhoneHomeRequestBody.UNKNOWN_FIELD_VALUE, polarisPhoneHomeService.getOrganizationName());
+        Assertions.assertEquals(ORGANIZATION_NAME, polarisPhoneHomeService.getOrganizationName());
+        Mockito.verify(contextsService, Mockito.times(2)).getCurrentContext();
+    }
+
+    @Test
+    public void testPhoneHomeDoesNotWaitForTheRequest() throws Exception {
+        CountDownLatch releaseLookup = new CountDownLatch(1);
+        CountDownLatch requestBuilt = new CountDownLatch(1);
+        AtomicReference<String> lookupThreadName = new AtomicReference<>();
+        Mockito.when(contextsService.getCurrentContext()).thenAnswer(invocation -> {
+            lookupThreadName.set(Thread.currentThread().getName());
+            releaseLookup.await(10, TimeUnit.SECONDS);
+            return Optional.of(createContext(ORGANIZATION_NAME));
+        });
+        // Fails the request once it is built, so that the test never sends it
+        Mockito.when(jenkinsVersionHelper.getPluginVersion(Mockito.anyString())).thenAnswer(invocation -> {
+            requestBuilt.countDown();
+            throw new IllegalStateException("Not sent by tests");
+        });
+        PolarisPhoneHomeService polarisPhoneHomeService =
+                new PolarisPhoneHomeService(jenkinsVersionHelper, contextsService, accessTokenPolarisHttpClient);
+
+        polarisPhoneHomeService.phoneHome();
+        releaseLookup.countDown();
+
+        Assertions.assertTrue(requestBuilt.await(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(lookupThreadName.get().startsWith("Coverity on Polaris phone home"));
+    }
+
+    private PolarisResource<ContextAttributes> createContext(String organizationName) {
+        ContextAttributes contextAttributes = new ContextAttributes();
+        contextAttributes.setOrganizationname(organizationName);
+        PolarisResource<ContextAttributes> context = new PolarisResource<>();
+        context.setAttributes(contextAttributes);
+        return context;
+    }
+}
@@ -0,0 +1,55 @@
+package com.blackduck.integration.polaris.common.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.rest.HttpUrl;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.Test;
+
+public class PolarisMetricsTest {
+    @Test
+    public void testServerName() throws IntegrationException {
+        assertEquals("polaris_example_com", PolarisMetrics.serverName(new HttpUrl("https://polaris.example.com")));
+        assertEquals("localhost:8443", PolarisMetrics.serverName("https://localhost:8443/"));
+        assertEquals(PolarisMetrics.UNKNOWN_SERVER, PolarisMetrics.serverName((HttpUrl) null));
+        assertEquals(PolarisMetrics.UNKNOWN_SERVER, PolarisMetrics.serverName("not a url"));
+    }
+
+    @Test
+    public void testEndpointNameHidesIds() throws IntegrationException {
+        assertEquals(
+                "api_jobs_jobs_id",
+                PolarisMetrics.endpointName(
+                        new HttpUrl("https://polaris.example.com/api/jobs/jobs/4b1c9e2a-6f0d-4c4e-9a51-3f7a8e1d2c00")));
+        assertEquals("root", PolarisMetrics.endpointName(new HttpUrl("https://polaris.example.com")));
+    }
+
+    @Test
+    public void testMetricNames() throws IntegrationException {
+        HttpUrl polarisServerUrl = new HttpUrl("https://polaris.example.com");
+
+        assertEquals(
+                "polaris.polaris_example_com.http.latency.api_jobs",
+                PolarisMetrics.name(polarisServerUrl, "http.latency", "api_jobs"));
+        assertEquals("polaris.polaris_example_com.job.wait", PolarisMetrics.name(polarisServerUrl, "job.wait"));
+    }
+
+    @Test
+    public void testCacheNamesStayOnePartOfTheMetricName() {
+        MetricRegistry metricRegistry = PolarisMetrics.getMetricRegistry();
+        try {
+            PolarisMetrics.publishTo(new MetricRegistry());
+
+            PolarisMetrics.cacheLookup("https://polaris.example.com", "organization.name", true);
+
+            assertEquals(
+                    1,
+                    PolarisMetrics.getMetricRegistry()
+                            .counter("polaris.polaris_example_com.cache.hits.organization_name")
+                            .getCount());
+        } finally {
+            PolarisMetrics.publishTo(metricRegistry);
+        }
+    }
+}
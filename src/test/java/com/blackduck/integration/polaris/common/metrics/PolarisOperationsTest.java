@@ -0,0 +1,56 @@
+package com.blackduck.integration.polaris.common.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class PolarisOperationsTest {
+    private static final String POLARIS_URL = "https://operations.polaris.example.com";
+
+    @Test
+    public void testJobWaitFollowsPolledStatus() {
+        String jobUrl = POLARIS_URL + "/api/jobs/jobs/" + System.nanoTime();
+        try (PolarisOperations.Operation jobWait =
+                PolarisOperations.startJobWait(POLARIS_URL, "folder/job #1", "Coverity", jobUrl, 60)) {
+            assertTrue(PolarisOperations.getOperations().contains(jobWait));
+            assertNull(jobWait.getState());
+
+            PolarisOperations.recordJobStatus(jobUrl, "RUNNING", 40);
+            PolarisOperations.recordJobStatus(jobUrl, "RUNNING", 75);
+
+            assertEquals(PolarisOperations.Kind.JOB_WAIT, jobWait.getKind());
+            assertEquals("RUNNING", jobWait.getState());
+            assertEquals(Integer.valueOf(75), jobWait.getProgress());
+            assertEquals(2, jobWait.getRequestCount());
+            assertEquals("00:01:00.000", jobWait.getTimeout());
+            assertFalse(jobWait.isOverdue());
+
+            jobWait.close();
+            assertFalse(PolarisOperations.getOperations().contains(jobWait));
+        }
+    }
+
+    @Test
+    public void testCliLaunchStartsQueued() {
+        try (PolarisOperations.Operation cliLaunch = PolarisOperations.startCliLaunch(POLARIS_URL, "folder/job #2")) {
+            assertEquals(PolarisOperations.QUEUED, cliLaunch.getState());
+            assertEquals("", cliLaunch.getTimeout());
+            assertFalse(cliLaunch.isOverdue());
+        }
+    }
+
+    @Test
+    public void testRequestsInFlightAreCountedPerServer() {
+        String polarisServerUrl = POLARIS_URL + "/" + System.nanoTime();
+        try (PolarisOperations.RequestInFlight ignored = PolarisOperations.startRequest(polarisServerUrl)) {
+            try (PolarisOperations.RequestInFlight alsoIgnored = PolarisOperations.startRequest(polarisServerUrl)) {
+                assertEquals(Integer.valueOf(2), PolarisOperations.getRequestsInFlight().get(polarisServerUrl));
+            }
+            assertEquals(Integer.valueOf(1), PolarisOperations.getRequestsInFlight().get(polarisServerUrl));
+        }
+        assertEquals(Integer.valueOf(0), PolarisOperations.getRequestsInFlight().get(polarisServerUrl));
+    }
+}
@@ -0,0 +1,133 @@
+package com.blackduck.integration.polaris.common.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.log.LogLevel;
+import com.blackduck.integration.log.PrintStreamIntLogger;
+import com.blackduck.integration.polaris.common.api.PolarisResource;
+import com.blackduck.integration.polaris.common.api.model.JobAttributes;
+import com.blackduck.integration.polaris.common.request.PolarisRequestFactory;
+import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClient;
+import com.blackduck.integration.polaris.common.rest.PolarisTransport;
+import com.blackduck.integration.polaris.common.service.PolarisJsonTransformer;
+import com.blackduck.integration.polaris.common.service.PolarisService;
+import com.blackduck.integration.rest.HttpUrl;
+import com.blackduck.integration.rest.request.Request;
+import com.blackduck.integration.rest.response.Response;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+public class PolarisTrafficArchiveTest {
+    private static final String AUTHENTICATION_CONTENT = "{\"jwt\": \"secret-jwt\", \"accessToken\": \"secret-token\"}";
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testRecordedPagesAreReplayed() throws IntegrationException, IOException {
+        HttpUrl polarisServerUrl = new HttpUrl("https://replay.polaris.example.com");
+        HttpUrl jobsUrl = polarisServerUrl.appendRelativeUrl("/api/jobs/jobs");
+        String jobsPage = getContentString("jobs_all_on_one_page.json");
+        PolarisTransport networkTransport = Mockito.mock(PolarisTransport.class);
+        Mockito.when(networkTransport.execute(Mockito.any(Request.class))).thenAnswer(invocation -> {
+            Response response = Mockito.mock(Response.class);
+            Mockito.when(response.getStatusCode()).thenReturn(200);
+            Mockito.when(response.getContentString()).thenReturn(jobsPage);
+            return response;
+        });
+
+        PolarisTrafficArchive archive = PolarisTrafficArchive.forPath(tempDir.resolve("traffic.jsonl.gz"));
+        RecordingPolarisTransport recordingTransport =
+                new RecordingPolarisTransport(networkTransport, archive, createLogger());
+        List<PolarisResource<JobAttributes>> recordedJobs =
+                createPolarisService(polarisServerUrl, recordingTransport).getAll(jobsUrl, JobAttributes.class);
+
+        ReplayPolarisTransport replayTransport = new ReplayPolarisTransport(archive.read(), false);
+        List<PolarisResource<JobAttributes>> replayedJobs =
+                createPolarisService(polarisServerUrl, replayTransport).getAll(jobsUrl, JobAttributes.class);
+
+        assertEquals(3, recordedJobs.size());
+        assertEquals(recordedJobs.size(), replayedJobs.size());
+        for (int i = 0; i < recordedJobs.size(); i++) {
+            assertEquals(recordedJobs.get(i).getId(), replayedJobs.get(i).getId());
+        }
+        Mockito.verify(networkTransport).execute(Mockito.any(Request.class));
+    }
+
+    @Test
+    public void testRecordingsAreRedacted() throws IntegrationException, IOException {
+        Request request = PolarisRequestFactory.createDefaultGetRequest(
+                new HttpUrl("https://polaris.example.com/api/auth/contexts"));
+        Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getStatusCode()).thenReturn(200);
+        Mockito.when(response.getContentString()).thenReturn(AUTHENTICATION_CONTENT);
+
+        PolarisTrafficArchive archive = PolarisTrafficArchive.forPath(tempDir.resolve("redacted.jsonl.gz"));
+        RecordingPolarisTransport recordingTransport =
+                new RecordingPolarisTransport(ignored -> response, archive, createLogger());
+
+        // The build being recorded still receives the real response
+        assertEquals(AUTHENTICATION_CONTENT, recordingTransport.execute(request).getContentString());
+
+        List<PolarisExchange> exchanges = archive.read();
+        assertEquals(1, exchanges.size());
+        String recordedContent = exchanges.get(0).getContent();
+        assertFalse(recordedContent.contains("secret"));
+        assertTrue(recordedContent.contains("\"jwt\": \"" + PolarisExchange.REDACTED + "\""));
+    }
+
+    @Test
+    public void testRepeatedRequestsFollowTheRecording() throws IntegrationException {
+        Request request = PolarisRequestFactory.createDefaultGetRequest(
+                new HttpUrl("https://polaris.example.com/api/jobs/jobs/1"));
+        String key = PolarisExchange.keyOf(request);
+        List<PolarisExchange> exchanges = List.of(
+                new PolarisExchange(
+                        "GET", request.getUrl().string(), PolarisExchange.queryOf(request), 200, Map.of(), 0, "1"),
+                new PolarisExchange(
+                        "GET", request.getUrl().string(), PolarisExchange.queryOf(request), 200, Map.of(), 0, "2"));
+        ReplayPolarisTransport replayTransport = new ReplayPolarisTransport(exchanges, false);
+
+        assertEquals(key, exchanges.get(0).getKey());
+        assertEquals("1", replayTransport.execute(request).getContentString());
+        assertEquals("2", replayTransport.execute(request).getContentString());
+        assertEquals("2", replayTransport.execute(request).getContentString());
+
+        Request unrecordedRequest = PolarisRequestFactory.createDefaultGetRequest(
+                new HttpUrl("https://polaris.example.com/api/jobs/jobs/2"));
+        assertThrows(IntegrationException.class, () -> replayTransport.execute(unrecordedRequest));
+    }
+
+    private PolarisService createPolarisService(HttpUrl polarisServerUrl, PolarisTransport polarisTransport) {
+        AccessTokenPolarisHttpClient polarisHttpClient = Mockito.mock(AccessTokenPolarisHttpClient.class);
+        Mockito.when(polarisHttpClient.getPolarisServerUrl()).thenReturn(polarisServerUrl);
+        PolarisJsonTransformer polarisJsonTransformer = new PolarisJsonTransformer(new Gson(), createLogger());
+        return new PolarisService(createLogger(), polarisHttpClient, polarisJsonTransformer, 10, polarisTransport);
+    }
+
+    private PrintStreamIntLogger createLogger() {
+        return new PrintStreamIntLogger(System.out, LogLevel.INFO);
+    }
+
+    private String getContentString(String resourceName) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/PolarisService/" + resourceName)) {
+            if (inputStream == null) {
+                throw new IOException("Resource not found: " + resourceName);
+            }
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.blackduck.integration.polaris.common.request;
+
+import com.blackduck.integration.rest.HttpUrl;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PolarisPageSizesTest {
+    @Test
+    public void testServerLimitsApplyToTheWholeEndpoint() throws Exception {
+        PolarisPageSizes polarisPageSizes = new PolarisPageSizes();
+
+        Assertions.assertEquals(
+                100, polarisPageSizes.recordServerLimit(new HttpUrl("https://polaris.example.com/api/jobs"), 500, 100));
+
+        HttpUrl filteredUrl = new HttpUrl("https://polaris.example.com/api/jobs?filter=state");
+        Assertions.assertEquals(100, polarisPageSizes.getPageSize(filteredUrl, 500));
+        Assertions.assertEquals(50, polarisPageSizes.getPageSize(filteredUrl, 50));
+        HttpUrl otherUrl = new HttpUrl("https://polaris.example.com/api/issues");
+        Assertions.assertEquals(500, polarisPageSizes.getPageSize(otherUrl, 500));
+    }
+
+    @Test
+    public void testServerLimitsAreForgottenOnceTheyExpire() throws Exception {
+        AtomicLong currentTimeMillis = new AtomicLong(1000L);
+        PolarisPageSizes polarisPageSizes = new PolarisPageSizes(currentTimeMillis::get);
+        HttpUrl apiUrl = new HttpUrl("https://polaris.example.com/api/jobs");
+        polarisPageSizes.recordServerLimit(apiUrl, 500, 100);
+
+        currentTimeMillis.addAndGet(PolarisPageSizes.SERVER_LIMIT_TTL_IN_MILLIS - 1);
+        Assertions.assertEquals(100, polarisPageSizes.getPageSize(apiUrl, 500));
+
+        currentTimeMillis.incrementAndGet();
+        Assertions.assertEquals(500, polarisPageSizes.getPageSize(apiUrl, 500));
+    }
+}
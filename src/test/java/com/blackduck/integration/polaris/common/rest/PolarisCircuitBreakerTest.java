@@ -0,0 +1,100 @@
+package com.blackduck.integration.polaris.common.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.polaris.common.exception.PolarisIntegrationException;
+import com.blackduck.integration.rest.HttpUrl;
+import com.blackduck.integration.rest.request.Request;
+import com.blackduck.integration.rest.response.Response;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class PolarisCircuitBreakerTest {
+    @Test
+    public void testOpensAfterConsecutiveFailures() throws PolarisIntegrationException {
+        PolarisCircuitBreaker circuitBreaker = new PolarisCircuitBreaker(2, 1000, 60 * 1000);
+
+        circuitBreaker.beforeRequest();
+        circuitBreaker.recordFailure("connection refused");
+        assertEquals(PolarisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.beforeRequest();
+        circuitBreaker.recordFailure("connection refused");
+        assertEquals(PolarisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(PolarisIntegrationException.class, circuitBreaker::beforeRequest);
+    }
+
+    @Test
+    public void testSlowRequestsCountAsFailures() throws PolarisIntegrationException {
+        PolarisCircuitBreaker circuitBreaker = new PolarisCircuitBreaker(1, 1000, 60 * 1000);
+
+        circuitBreaker.beforeRequest();
+        circuitBreaker.recordSuccess(5000);
+
+        assertEquals(PolarisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenLetsOneProbeThrough() throws PolarisIntegrationException {
+        PolarisCircuitBreaker circuitBreaker = new PolarisCircuitBreaker(1, 1000, 0);
+
+        circuitBreaker.beforeRequest();
+        circuitBreaker.recordFailure("connection refused");
+        assertEquals(PolarisCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.beforeRequest();
+        assertThrows(PolarisIntegrationException.class, circuitBreaker::beforeRequest);
+
+        circuitBreaker.recordSuccess(10);
+        assertEquals(PolarisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.beforeRequest();
+    }
+
+    @Test
+    public void testProbeInFlightCountsTheWaitFromTheProbe() throws PolarisIntegrationException {
+        AtomicLong now = new AtomicLong(1_000_000);
+        PolarisCircuitBreaker circuitBreaker = new PolarisCircuitBreaker(1, 1000, 60 * 1000, now::get);
+
+        circuitBreaker.beforeRequest();
+        circuitBreaker.recordFailure("connection refused");
+        now.addAndGet(90 * 1000);
+        circuitBreaker.beforeRequest();
+        now.addAndGet(20 * 1000);
+
+        PolarisIntegrationException exception =
+                assertThrows(PolarisIntegrationException.class, circuitBreaker::beforeRequest);
+        assertTrue(exception.getMessage().contains("at least 40 more seconds"), exception.getMessage());
+    }
+
+    @Test
+    public void testExecuteRecordsServerErrors() throws IntegrationException {
+        PolarisCircuitBreaker circuitBreaker = new PolarisCircuitBreaker(1, 1000, 60 * 1000);
+        Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getStatusCode()).thenReturn(503);
+        Request request = new Request.Builder(new HttpUrl("https://polaris.example.com/api/jobs")).build();
+
+        assertSame(response, circuitBreaker.execute(request, ignored -> response));
+
+        assertEquals(PolarisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals("status code 503", circuitBreaker.getLastFailure());
+        assertThrows(PolarisIntegrationException.class, () -> circuitBreaker.execute(request, ignored -> response));
+    }
+
+    @Test
+    public void testExecuteRecordsTransportFailures() throws IntegrationException {
+        PolarisCircuitBreaker circuitBreaker = new PolarisCircuitBreaker(1, 1000, 60 * 1000);
+        Request request = new Request.Builder(new HttpUrl("https://polaris.example.com/api/jobs")).build();
+
+        assertThrows(IntegrationException.class, () -> circuitBreaker.execute(request, ignored -> {
+            throw new IntegrationException("connection refused");
+        }));
+
+        assertEquals(PolarisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals("connection refused", circuitBreaker.getLastFailure());
+    }
+}
@@ -0,0 +1,25 @@
+package com.blackduck.integration.polaris.common.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+public class PolarisRateLimiterTest {
+    @Test
+    public void testConfiguringAServerOnlyReplacesItsRateLimiterWhenTheRateChanges() {
+        String polarisServerUrl = "https://rate-limited.polaris.example.com";
+
+        PolarisRateLimiter configured = PolarisRateLimiter.configureForServer(polarisServerUrl, 2, 4);
+        assertSame(configured, PolarisRateLimiter.forServer(polarisServerUrl));
+        assertEquals(2, configured.getRequestsPerSecond());
+        assertEquals(4, configured.getBurstSize());
+        assertSame(configured, PolarisRateLimiter.configureForServer(polarisServerUrl, 2, 4));
+
+        PolarisRateLimiter reset = PolarisRateLimiter.configureForServer(polarisServerUrl, 0, 0);
+        assertNotSame(configured, reset);
+        assertEquals(PolarisRateLimiter.DEFAULT_REQUESTS_PER_SECOND, reset.getRequestsPerSecond());
+        assertEquals(PolarisRateLimiter.DEFAULT_BURST_SIZE, reset.getBurstSize());
+    }
+}
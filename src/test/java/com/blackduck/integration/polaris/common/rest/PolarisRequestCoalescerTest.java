@@ -0,0 +1,95 @@
+package com.blackduck.integration.polaris.common.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.blackduck.integration.exception.IntegrationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class PolarisRequestCoalescerTest {
+    @Test
+    public void testConcurrentRequestsShareOneResponse() throws Exception {
+        PolarisRequestCoalescer polarisRequestCoalescer = new PolarisRequestCoalescer();
+        CountDownLatch requestStarted = new CountDownLatch(1);
+        CountDownLatch releaseResponse = new CountDownLatch(1);
+        AtomicInteger requestCount = new AtomicInteger();
+
+        CompletableFuture<String> firstCaller = CompletableFuture.supplyAsync(() -> {
+            try {
+                return polarisRequestCoalescer.coalesce("contexts", () -> {
+                    requestCount.incrementAndGet();
+                    requestStarted.countDown();
+                    awaitQuietly(releaseResponse);
+                    return "{\"data\":[]}";
+                });
+            } catch (IntegrationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        requestStarted.await(10, TimeUnit.SECONDS);
+
+        CompletableFuture<String> secondCaller = CompletableFuture.supplyAsync(() -> {
+            try {
+                return polarisRequestCoalescer.coalesce("contexts", () -> {
+                    requestCount.incrementAndGet();
+                    return "duplicate";
+                });
+            } catch (IntegrationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // Give the second caller time to attach to the request in flight
+        Thread.sleep(200);
+        assertEquals(1, polarisRequestCoalescer.getRequestsInFlight());
+        releaseResponse.countDown();
+
+        assertEquals("{\"data\":[]}", firstCaller.get(10, TimeUnit.SECONDS));
+        assertEquals("{\"data\":[]}", secondCaller.get(10, TimeUnit.SECONDS));
+        assertEquals(1, requestCount.get());
+        assertEquals(0, polarisRequestCoalescer.getRequestsInFlight());
+    }
+
+    @Test
+    public void testFailureIsNotRemembered() throws IntegrationException {
+        PolarisRequestCoalescer polarisRequestCoalescer = new PolarisRequestCoalescer();
+
+        assertThrows(IntegrationException.class, () -> polarisRequestCoalescer.coalesce("jobs", () -> {
+            throw new IntegrationException("503");
+        }));
+        assertEquals("{}", polarisRequestCoalescer.coalesce("jobs", () -> "{}"));
+    }
+
+    @Test
+    public void testAsyncCallersShareOneResponseAndCancelOnlyTheirOwn() throws Exception {
+        PolarisRequestCoalescer polarisRequestCoalescer = new PolarisRequestCoalescer();
+        CompletableFuture<String> response = new CompletableFuture<>();
+        AtomicInteger requestCount = new AtomicInteger();
+
+        CompletableFuture<String> firstCaller = polarisRequestCoalescer.coalesceAsync("contexts", () -> {
+            requestCount.incrementAndGet();
+            return response;
+        });
+        CompletableFuture<String> secondCaller = polarisRequestCoalescer.coalesceAsync("contexts", () -> {
+            requestCount.incrementAndGet();
+            return CompletableFuture.completedFuture("duplicate");
+        });
+        firstCaller.cancel(false);
+        response.complete("{\"data\":[]}");
+
+        assertEquals("{\"data\":[]}", secondCaller.get(10, TimeUnit.SECONDS));
+        assertEquals(1, requestCount.get());
+        assertEquals(0, polarisRequestCoalescer.getRequestsInFlight());
+    }
+
+    private static void awaitQuietly(CountDownLatch countDownLatch) {
+        try {
+            countDownLatch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.blackduck.integration.polaris.common.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.blackduck.integration.exception.IntegrationException;
@@ -10,6 +11,7 @@ import com.blackduck.integration.log.SilentIntLogger;
 import com.blackduck.integration.polaris.common.api.PolarisResource;
 import com.blackduck.integration.polaris.common.api.model.JobAttributes;
 import com.blackduck.integration.polaris.common.api.model.JobStatus;
+import com.blackduck.integration.polaris.common.jfr.PolarisEvents;
 import com.blackduck.integration.polaris.common.request.PolarisRequestFactory;
 import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClient;
 import com.blackduck.integration.rest.HttpUrl;
@@ -19,12 +21,25 @@ import com.google.gson.Gson;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 
 public class JobServiceTest {
+    private static final String JOB_POLL_EVENT = PolarisEvents.NAME_PREFIX + "JobPoll";
+
+    @TempDir
+    public Path recordingDir;
+
     @Test
     public void testGetJobByUrl() throws IntegrationException {
         AccessTokenPolarisHttpClient polarisHttpClient = Mockito.mock(AccessTokenPolarisHttpClient.class);
@@ -64,6 +79,35 @@ public class JobServiceTest {
         assertEquals(JobStatus.StateEnum.RUNNING, jobStatus.getState());
     }
 
+    @Test
+    public void testJobPollsAreRecordedWithTheJobState() throws Exception {
+        assertTrue(PolarisEvents.isAvailable());
+        AccessTokenPolarisHttpClient polarisHttpClient = Mockito.mock(AccessTokenPolarisHttpClient.class);
+        HttpUrl jobsApi = new HttpUrl("https://polaris.blackduck.example.com/api/jobs/jobs/p10t3j6grt67pabjgp89djvln4");
+        mockClientBehavior(polarisHttpClient, jobsApi, "jobservice_status.json");
+        PolarisJsonTransformer polarisJsonTransformer = new PolarisJsonTransformer(new Gson(), new SilentIntLogger());
+        PolarisService polarisService =
+                new PolarisService(polarisHttpClient, polarisJsonTransformer, PolarisRequestFactory.DEFAULT_LIMIT);
+        JobService jobService = new JobService(new SilentIntLogger(), polarisService);
+        Path recordingFile = recordingDir.resolve("job-polls.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(JOB_POLL_EVENT).withThreshold(Duration.ZERO);
+            recording.start();
+            jobService.waitForJobStateIsCompletedOrDieByUrl(jobsApi, 10, 1);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> jobPolls = RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(event -> JOB_POLL_EVENT.equals(event.getEventType().getName()))
+                .collect(Collectors.toList());
+        assertEquals(1, jobPolls.size());
+        assertEquals(jobsApi.string(), jobPolls.get(0).getString("url"));
+        assertEquals("COMPLETED", jobPolls.get(0).getString("state"));
+        assertTrue(jobPolls.get(0).getBoolean("ended"));
+    }
+
     private void mockClientBehavior(AccessTokenPolarisHttpClient polarisHttpClient, HttpUrl uri, String results) {
         try {
             Response response = Mockito.mock(Response.class);
@@ -0,0 +1,22 @@
+package com.blackduck.integration.polaris.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.blackduck.integration.polaris.common.api.PolarisPagedResourceResponse;
+import com.blackduck.integration.polaris.common.api.PolarisResource;
+import com.blackduck.integration.polaris.common.api.model.JobAttributes;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+public class PolarisGsonTest {
+    @Test
+    public void testPagedResourceResponseTypeIsCached() {
+        assertSame(
+                PolarisGson.getPagedResourceResponseType(JobAttributes.class),
+                PolarisGson.getPagedResourceResponseType(JobAttributes.class));
+        assertEquals(
+                new TypeToken<PolarisPagedResourceResponse<PolarisResource<JobAttributes>>>() {}.getType(),
+                PolarisGson.getPagedResourceResponseType(JobAttributes.class));
+    }
+}
@@ -0,0 +1,47 @@
+package com.blackduck.integration.polaris.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.blackduck.integration.exception.IntegrationException;
+import com.blackduck.integration.log.SilentIntLogger;
+import com.blackduck.integration.polaris.common.api.PolarisResource;
+import com.blackduck.integration.polaris.common.api.PolarisSingleResourceResponse;
+import com.blackduck.integration.polaris.common.api.model.JobAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+public class PolarisJsonTransformerTest {
+    private static final String JOB_JSON = "{\"data\":{\"type\":\"jobs\",\"id\":\"job-1\",\"attributes\":{"
+            + "\"status\":{\"state\":\"FAILED\",\"progress\":100},"
+            + "\"failureInfo\":{\"userFriendlyFailureReason\":\"<a> & 'b' = \\u2028\",\"exceptionMessage\":null},"
+            + "\"tags\":[1,null,{\"name\":\"nested\"}],\"duration\":1.50}},\"included\":[]}";
+
+    @Test
+    public void testEveryObjectGetsItsOriginalJson() throws IntegrationException {
+        assertOriginalJson(new Gson());
+    }
+
+    @Test
+    public void testNullsAreKeptWhenGsonSerializesThem() throws IntegrationException {
+        assertOriginalJson(new GsonBuilder().serializeNulls().disableHtmlEscaping().create());
+    }
+
+    private void assertOriginalJson(Gson gson) throws IntegrationException {
+        JsonObject original = gson.fromJson(JOB_JSON, JsonObject.class);
+        PolarisJsonTransformer polarisJsonTransformer = new PolarisJsonTransformer(gson, new SilentIntLogger());
+
+        PolarisSingleResourceResponse<PolarisResource<JobAttributes>> response = polarisJsonTransformer.getResponseAs(
+                JOB_JSON, PolarisGson.getSingleResourceResponseType(JobAttributes.class));
+
+        JsonObject data = original.getAsJsonObject("data");
+        JsonObject attributes = data.getAsJsonObject("attributes");
+        assertEquals(gson.toJson(original), response.getJson());
+        assertEquals(gson.toJson(data), response.getData().getJson());
+        assertEquals(gson.toJson(attributes), response.getData().getAttributes().getJson());
+        assertEquals(
+                gson.toJson(attributes.get("status")),
+                response.getData().getAttributes().getStatus().getJson());
+    }
+}
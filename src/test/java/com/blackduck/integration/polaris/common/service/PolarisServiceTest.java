@@ -2,6 +2,8 @@ package com.blackduck.integration.polaris.common.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
@@ -9,13 +11,18 @@ import com.blackduck.integration.exception.IntegrationException;
 import com.blackduck.integration.log.IntLogger;
 import com.blackduck.integration.log.LogLevel;
 import com.blackduck.integration.log.PrintStreamIntLogger;
+import com.blackduck.integration.log.SilentIntLogger;
 import com.blackduck.integration.polaris.common.api.PolarisPagedResourceResponse;
 import com.blackduck.integration.polaris.common.api.PolarisPaginationMeta;
 import com.blackduck.integration.polaris.common.api.PolarisResource;
 import com.blackduck.integration.polaris.common.api.model.JobAttributes;
+import com.blackduck.integration.polaris.common.request.PolarisPageSizes;
+import com.blackduck.integration.polaris.common.request.PolarisQuery;
 import com.blackduck.integration.polaris.common.request.PolarisRequestFactory;
 import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClient;
 import com.blackduck.integration.polaris.common.rest.AccessTokenPolarisHttpClientTestIT;
+import com.blackduck.integration.polaris.common.rest.PolarisCircuitBreaker;
+import com.blackduck.integration.polaris.common.rest.PolarisTransport;
 import com.blackduck.integration.rest.HttpUrl;
 import com.blackduck.integration.rest.proxy.ProxyInfo;
 import com.blackduck.integration.rest.request.Request;
@@ -25,12 +32,19 @@ import com.google.gson.Gson;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -51,6 +65,12 @@ public class PolarisServiceTest {
         // This constructor is left empty as it's only responsible for handling the HttpUrl exception.
     }
 
+    @AfterEach
+    public void forgetPageSizes() {
+        // Every mocked client has a null server url, so all tests share the page sizes of one server
+        PolarisPageSizes.forgetAll();
+    }
+
     private static Stream<Arguments> createGetAllMockData() {
         Map<String, String> getAllOnOnePageMap = new HashMap<>();
         getAllOnOnePageMap.put(PAGE_ONE_OFFSET, "jobs_all_on_one_page.json");
@@ -85,6 +105,17 @@ public class PolarisServiceTest {
         assertNotNull(request);
     }
 
+    @Test
+    public void createSparseFieldsetGetRequestTest() {
+        PolarisQuery polarisQuery = PolarisQuery.all().fields("jobs", "status", "failureInfo");
+        Request request = PolarisRequestFactory.createDefaultPagedGetRequest(BASE_URL, 10, 20, polarisQuery);
+
+        assertEquals(Collections.singleton("status,failureInfo"), request.getQueryParameters().get("fields[jobs]"));
+        assertEquals(
+                Collections.singleton("20"), request.getQueryParameters().get(PolarisRequestFactory.OFFSET_PARAMETER));
+        assertTrue(PolarisQuery.all().getQueryParameters().isEmpty());
+    }
+
     @Test
     public void executeGetRequestTestIT() throws IntegrationException {
         String testPolarisUrl = System.getenv(AccessTokenPolarisHttpClientTestIT.ENV_POLARIS_URL);
@@ -141,6 +172,201 @@ public class PolarisServiceTest {
         }
     }
 
+    @Test
+    public void testGetAllFollowsServerPageLimit() throws IntegrationException {
+        HttpUrl apiHttpUrl = BASE_URL.appendRelativeUrl("/api/jobs/capped");
+        Map<String, String> offsetsToResults = new HashMap<>();
+        offsetsToResults.put(PAGE_ONE_OFFSET, "jobs_page_1_of_3.json");
+        offsetsToResults.put(PAGE_TWO_OFFSET, "jobs_page_2_of_3.json");
+        offsetsToResults.put(PAGE_THREE_OFFSET, "jobs_page_3_of_3.json");
+
+        AccessTokenPolarisHttpClient polarisHttpClient = Mockito.mock(AccessTokenPolarisHttpClient.class);
+        mockClientBehavior(polarisHttpClient, apiHttpUrl, offsetsToResults, "jobs_no_more_results.json");
+
+        PolarisJsonTransformer polarisJsonTransformer =
+                new PolarisJsonTransformer(new Gson(), new PrintStreamIntLogger(System.out, LogLevel.INFO));
+        PolarisService polarisService = new PolarisService(polarisHttpClient, polarisJsonTransformer, 10);
+
+        assertEquals(3, polarisService.getAll(apiHttpUrl, JobAttributes.class).size());
+        assertEquals(1, PolarisPageSizes.forServer(String.valueOf((Object) null)).getPageSize(apiHttpUrl, 10));
+    }
+
+    @Test
+    public void testGetAllAsync() throws IntegrationException, InterruptedException {
+        HttpUrl apiHttpUrl = BASE_URL.appendRelativeUrl("/api/jobs/jobs");
+        Map<String, String> offsetsToResults = new HashMap<>();
+        offsetsToResults.put(PAGE_ONE_OFFSET, "jobs_page_1_of_3.json");
+        offsetsToResults.put(PAGE_TWO_OFFSET, "jobs_page_2_of_3.json");
+        offsetsToResults.put(PAGE_THREE_OFFSET, "jobs_page_3_of_3.json");
+
+        AccessTokenPolarisHttpClient polarisHttpClient = Mockito.mock(AccessTokenPolarisHttpClient.class);
+        mockClientBehavior(polarisHttpClient, apiHttpUrl, offsetsToResults, "jobs_no_more_results.json");
+
+        PolarisJsonTransformer polarisJsonTransformer =
+                new PolarisJsonTransformer(new Gson(), new PrintStreamIntLogger(System.out, LogLevel.INFO));
+        PolarisService polarisService = new PolarisService(polarisHttpClient, polarisJsonTransformer, 1);
+
+        List<PolarisResource<JobAttributes>> allPagesResponse =
+                PolarisService.await(polarisService.getAllAsync(apiHttpUrl, JobAttributes.class));
+        assertEquals(3, allPagesResponse.size());
+    }
+
+    @Test
+    public void testGetAllAsyncKeepsAFewPagesInFlight() throws Exception {
+        HttpUrl apiHttpUrl = BASE_URL.appendRelativeUrl("/api/jobs/paged-in-lanes");
+        int totalJobs = 10;
+        CountDownLatch fourPagesRequested = new CountDownLatch(4);
+        CountDownLatch releasePages = new CountDownLatch(1);
+        AtomicInteger pagesInFlight = new AtomicInteger();
+        AtomicInteger mostPagesInFlight = new AtomicInteger();
+        PolarisTransport polarisTransport = request -> {
+            int offset = getOffset(request);
+            if (offset == 0) {
+                return mockJobsPage(offset, totalJobs);
+            }
+
+            mostPagesInFlight.accumulateAndGet(pagesInFlight.incrementAndGet(), Math::max);
+            fourPagesRequested.countDown();
+            try {
+                releasePages.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pagesInFlight.decrementAndGet();
+            return mockJobsPage(offset, totalJobs);
+        };
+
+        CompletableFuture<List<PolarisResource<JobAttributes>>> allJobs =
+                createPolarisService(polarisTransport).getAllAsync(apiHttpUrl, JobAttributes.class);
+
+        assertTrue(fourPagesRequested.await(10, TimeUnit.SECONDS));
+        releasePages.countDown();
+        assertEquals(totalJobs, PolarisService.await(allJobs).size());
+        assertEquals(4, mostPagesInFlight.get());
+    }
+
+    @Test
+    public void testGetAllAsyncFailsWithoutWaitingForTheOtherPages() throws Exception {
+        HttpUrl apiHttpUrl = BASE_URL.appendRelativeUrl("/api/jobs/paged-with-failure");
+        int totalJobs = 10;
+        CountDownLatch releasePages = new CountDownLatch(1);
+        PolarisTransport polarisTransport = request -> {
+            int offset = getOffset(request);
+            if (offset == 1) {
+                throw new IntegrationException("The second page could not be read");
+            } else if (offset > 1) {
+                try {
+                    releasePages.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return mockJobsPage(offset, totalJobs);
+        };
+
+        try {
+            CompletableFuture<List<PolarisResource<JobAttributes>>> allJobs =
+                    createPolarisService(polarisTransport).getAllAsync(apiHttpUrl, JobAttributes.class);
+
+            assertThrows(IntegrationException.class, () -> PolarisService.await(allJobs));
+        } finally {
+            releasePages.countDown();
+        }
+    }
+
+    @Test
+    public void testThrottledGetIsRetried() throws IntegrationException, IOException {
+        HttpUrl apiHttpUrl = BASE_URL.appendRelativeUrl("/api/jobs/jobs");
+
+        Response throttledResponse = Mockito.mock(Response.class);
+        Mockito.when(throttledResponse.getStatusCode()).thenReturn(429);
+        Mockito.when(throttledResponse.getHeaderValue("Retry-After")).thenReturn("0");
+
+        Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getContentString())
+                .thenReturn(getPreparedContentStringFrom("jobs_all_on_one_page.json"));
+
+        AccessTokenPolarisHttpClient polarisHttpClient = Mockito.mock(AccessTokenPolarisHttpClient.class);
+        Mockito.when(polarisHttpClient.execute(Mockito.any(Request.class)))
+                .thenReturn(throttledResponse)
+                .thenReturn(response);
+
+        PolarisJsonTransformer polarisJsonTransformer =
+                new PolarisJsonTransformer(new Gson(), new PrintStreamIntLogger(System.out, LogLevel.INFO));
+        PolarisService polarisService = new PolarisService(polarisHttpClient, polarisJsonTransformer, 3);
+
+        PolarisPagedResourceResponse<PolarisResource<JobAttributes>> jobsResponse =
+                polarisService.executePagedRequest(apiHttpUrl, JobAttributes.class, 0, 3);
+
+        assertEquals(3, jobsResponse.getData().size());
+        Mockito.verify(polarisHttpClient, Mockito.times(2)).execute(Mockito.any(Request.class));
+        Mockito.verify(throttledResponse).close();
+    }
+
+    @Test
+    public void testThrottledServerErrorsDoNotOpenTheCircuitBreaker() throws IntegrationException {
+        HttpUrl apiHttpUrl = BASE_URL.appendRelativeUrl("/api/jobs/throttled");
+        int throttledResponses = PolarisCircuitBreaker.DEFAULT_FAILURE_THRESHOLD + 1;
+        AtomicInteger attempts = new AtomicInteger();
+        PolarisTransport polarisTransport = request -> {
+            if (attempts.incrementAndGet() <= throttledResponses) {
+                Response throttledResponse = Mockito.mock(Response.class);
+                Mockito.when(throttledResponse.getStatusCode()).thenReturn(503);
+                Mockito.when(throttledResponse.getHeaderValue("Retry-After")).thenReturn("0");
+                return throttledResponse;
+            }
+            return mockJobsPage(0, 1);
+        };
+
+        PolarisPagedResourceResponse<PolarisResource<JobAttributes>> jobsResponse =
+                createPolarisService(polarisTransport).executePagedRequest(apiHttpUrl, JobAttributes.class, 0, 1);
+
+        assertEquals(1, jobsResponse.getData().size());
+        assertEquals(throttledResponses + 1, attempts.get());
+    }
+
+    @Test
+    public void testRetryAfterIsCappedAtTheMaximumBackoff() {
+        assertEquals(Optional.of(5000L), PolarisService.getRetryAfterInMillis(mockRetryAfter("5")));
+        assertEquals(Optional.of(60000L), PolarisService.getRetryAfterInMillis(mockRetryAfter("3600")));
+        assertEquals(
+                Optional.of(60000L), PolarisService.getRetryAfterInMillis(mockRetryAfter("9223372036854775807")));
+        assertEquals(
+                Optional.of(60000L), PolarisService.getRetryAfterInMillis(mockRetryAfter("99999999999999999999")));
+        assertEquals(Optional.empty(), PolarisService.getRetryAfterInMillis(mockRetryAfter("soon")));
+    }
+
+    private Response mockRetryAfter(String retryAfter) {
+        Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getHeaderValue("Retry-After")).thenReturn(retryAfter);
+        return response;
+    }
+
+    private PolarisService createPolarisService(PolarisTransport polarisTransport) {
+        AccessTokenPolarisHttpClient polarisHttpClient = Mockito.mock(AccessTokenPolarisHttpClient.class);
+        PolarisJsonTransformer polarisJsonTransformer =
+                new PolarisJsonTransformer(new Gson(), new PrintStreamIntLogger(System.out, LogLevel.INFO));
+        return new PolarisService(
+                new SilentIntLogger(), polarisHttpClient, polarisJsonTransformer, 1, polarisTransport);
+    }
+
+    private int getOffset(Request request) {
+        return Integer.parseInt(request.getQueryParameters()
+                .get(PolarisRequestFactory.OFFSET_PARAMETER)
+                .iterator()
+                .next());
+    }
+
+    private Response mockJobsPage(int offset, int total) throws IntegrationException {
+        Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getStatusCode()).thenReturn(200);
+        Mockito.when(response.getContentString())
+                .thenReturn(String.format(
+                        "{\"data\":[{\"type\":\"jobs\",\"id\":\"job-%s\",\"attributes\":{}}],\"included\":[],\"meta\":{\"offset\":%s,\"limit\":1,\"total\":%s}}",
+                        offset, offset, total));
+        return response;
+    }
+
     private void mockClientBehavior(
             AccessTokenPolarisHttpClient polarisHttpClient,
             HttpUrl url,
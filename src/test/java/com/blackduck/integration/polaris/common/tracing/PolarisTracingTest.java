@@ -0,0 +1,42 @@
+package com.blackduck.integration.polaris.common.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Scope;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PolarisTracingTest {
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final String SPAN_ID = "b7ad6b7169203331";
+
+    @Test
+    public void testTheCurrentSpanIsPassedOnInTheEnvironment() {
+        TraceState traceState = TraceState.builder().put("polaris", "build").build();
+        Span span = Span.wrap(SpanContext.create(TRACE_ID, SPAN_ID, TraceFlags.getSampled(), traceState));
+        Map<String, String> environment = new HashMap<>();
+
+        try (Scope ignored = span.makeCurrent()) {
+            PolarisTracing.injectTraceContext(environment);
+        }
+
+        Assertions.assertEquals("00-" + TRACE_ID + "-" + SPAN_ID + "-01", environment.get("TRACEPARENT"));
+        Assertions.assertEquals("polaris=build", environment.get("TRACESTATE"));
+        Assertions.assertEquals(2, environment.size());
+    }
+
+    @Test
+    public void testNothingIsAddedWithoutACurrentSpan() {
+        Map<String, String> environment = new HashMap<>();
+        environment.put("PATH", "/usr/bin");
+
+        PolarisTracing.injectTraceContext(environment);
+
+        Assertions.assertEquals(1, environment.size());
+        Assertions.assertEquals("/usr/bin", environment.get("PATH"));
+    }
+}